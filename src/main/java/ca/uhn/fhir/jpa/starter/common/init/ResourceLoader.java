@@ -54,9 +54,11 @@ import java.net.URL;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -64,6 +66,8 @@ import java.util.stream.Stream;
 @Component
 public class ResourceLoader {
 	private static final String CONFORMANCE_RESOURCES_FOLDER = "conformance";
+	private static final int MAX_VALIDATION_ATTEMPTS = 60;
+	private static final Duration VALIDATION_RETRY_DELAY = Duration.ofSeconds(1);
 
 	@Value("${example-fhir-resources.directory:example-resources}")
 	private String exampleResourcesDirectory;
@@ -126,7 +130,7 @@ public class ResourceLoader {
 					if (shouldValidate) {
 						ValidationResult validationResult;
 						try {
-							validationResult = validationHandler.validateResource(r, jsonString);
+							validationResult = validateWithRetry(r, jsonString);
 						} catch (ValidationModuleInitializationException e) {
 							log.error(
 									"Validation module initialization failed for resource: {} - {}",
@@ -134,6 +138,13 @@ public class ResourceLoader {
 									r.getIdElement().getIdPart(),
 									e);
 							return null;
+						} catch (RuntimeException e) {
+							log.error(
+									"Validation failed for resource: {} - {}. Skipping resource.",
+									r.getClass(),
+									r.getIdElement().getIdPart(),
+									e);
+							return null;
 						}
 
 						if (!validationResult.isValid()) {
@@ -175,6 +186,34 @@ public class ResourceLoader {
 		upsertExampleInServer(bundle);
 	}
 
+	/**
+	 * Validates the resource on the bounded validation executor. The resources are validated in
+	 * parallel, so validations rejected because the executor is saturated are retried after a pause
+	 * instead of skipping the resource.
+	 */
+	private ValidationResult validateWithRetry(IBaseResource resource, String body)
+			throws ValidationModuleInitializationException {
+		for (int attempt = 1; ; attempt++) {
+			try {
+				return validationHandler.validateResource(resource, body);
+			} catch (RejectedExecutionException e) {
+				if (attempt >= MAX_VALIDATION_ATTEMPTS) {
+					throw e;
+				}
+				log.debug(
+						"Validation executor saturated, retrying validation of {} in {}",
+						resource.getIdElement().getIdPart(),
+						VALIDATION_RETRY_DELAY);
+				try {
+					Thread.sleep(VALIDATION_RETRY_DELAY);
+				} catch (InterruptedException interrupted) {
+					Thread.currentThread().interrupt();
+					throw e;
+				}
+			}
+		}
+	}
+
 	@SneakyThrows
 	private List<IBaseResource> getResourcesFromFolder(final String folder) {
 		final List<IBaseResource> resources = new ArrayList<>();
@@ -0,0 +1,145 @@
+package de.gematik.isik.mockserver.async;
+
+/*-
+ * #%L
+ * isik-mock-server
+ * %%
+ * Copyright (C) 2025 - 2026 gematik GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ * #L%
+ */
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executor for asynchronous $book requests ({@code @Async} on {@link
+ * de.gematik.isik.mockserver.operation.AppointmentBookHandler}). Booking mostly waits for JDBC, so the
+ * number of parallel bookings defaults to the size of the Hikari connection pool.
+ *
+ * <p>In {@code virtual} mode every booking runs on its own virtual thread and a semaphore limits the
+ * parallel bookings; in {@code pool} mode a fixed pool of platform threads is used. In both modes the
+ * number of running and waiting bookings is bounded, further bookings are rejected with a {@link
+ * RejectedExecutionException}, which the $book operation answers with a 503 OperationOutcome.
+ */
+@Slf4j
+@Component(AppointmentBookExecutor.BEAN_NAME)
+public class AppointmentBookExecutor implements TaskExecutor {
+
+	public static final String BEAN_NAME = "appointmentBookExecutor";
+	private static final String METRIC_NAME = "isik.async.executor";
+
+	private final ExecutorService executorService;
+	private final Semaphore admission;
+	private final Semaphore concurrency;
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private final AtomicInteger running = new AtomicInteger();
+	private final Counter rejectionCounter;
+
+	public AppointmentBookExecutor(
+			@Value("${async-jobs.executor.mode:virtual}") String mode,
+			@Value("${async-jobs.executor.threads:0}") int threads,
+			@Value("${async-jobs.executor.queue-capacity:100}") int queueCapacity,
+			@Value("${spring.datasource.hikari.maximum-pool-size:10}") int connectionPoolSize,
+			MeterRegistry meterRegistry) {
+		final int parallelism = threads > 0 ? threads : Math.max(connectionPoolSize, 1);
+		final boolean virtualThreads = !"pool".equalsIgnoreCase(mode);
+		this.admission = new Semaphore(parallelism + Math.max(queueCapacity, 0));
+		this.concurrency = new Semaphore(parallelism);
+		if (virtualThreads) {
+			this.executorService = Executors.newThreadPerTaskExecutor(
+					Thread.ofVirtual().name("appointment-book-", 0).factory());
+		} else {
+			this.executorService = Executors.newFixedThreadPool(
+					parallelism, Thread.ofPlatform().name("appointment-book-", 0).daemon().factory());
+		}
+		log.info(
+				"Appointment booking executor started with {} parallel {} bookings and queue capacity {}",
+				parallelism,
+				virtualThreads ? "virtual" : "platform",
+				queueCapacity);
+
+		this.rejectionCounter = Counter.builder(METRIC_NAME + ".rejected").register(meterRegistry);
+		Gauge.builder(METRIC_NAME + ".active", running, AtomicInteger::get).register(meterRegistry);
+		Gauge.builder(METRIC_NAME + ".queued", this, AppointmentBookExecutor::getQueueDepth)
+				.register(meterRegistry);
+	}
+
+	/**
+	 * @throws RejectedExecutionException if the executor is saturated
+	 */
+	@Override
+	public void execute(Runnable task) {
+		if (!admission.tryAcquire()) {
+			rejectionCounter.increment();
+			throw new RejectedExecutionException("Appointment booking capacity exhausted");
+		}
+		inFlight.incrementAndGet();
+		try {
+			executorService.execute(() -> {
+				try {
+					runLimited(task);
+				} finally {
+					release();
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			release();
+			rejectionCounter.increment();
+			throw e;
+		}
+	}
+
+	public int getQueueDepth() {
+		return Math.max(inFlight.get() - running.get(), 0);
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		executorService.shutdownNow();
+	}
+
+	private void runLimited(Runnable task) {
+		concurrency.acquireUninterruptibly();
+		running.incrementAndGet();
+		try {
+			task.run();
+		} finally {
+			running.decrementAndGet();
+			concurrency.release();
+		}
+	}
+
+	private void release() {
+		inFlight.decrementAndGet();
+		admission.release();
+	}
+}
@@ -0,0 +1,86 @@
+package de.gematik.isik.mockserver.async;
+
+/*-
+ * #%L
+ * isik-mock-server
+ * %%
+ * Copyright (C) 2025 - 2026 gematik GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ * #L%
+ */
+
+import ca.uhn.fhir.rest.api.EncodingEnum;
+import de.gematik.isik.mockserver.operation.AppointmentHandlerReturnObject;
+import lombok.Getter;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * An asynchronous $book job. The encoded result and the status are set before {@link #getResult()}
+ * completes, so a poll that sees a finished job also sees its encoded result.
+ */
+@Getter
+public class AsyncAppointmentBookJob {
+	private final String id;
+	private final Instant createdAt;
+	private final EncodingEnum encoding;
+	private final CompletableFuture<AppointmentHandlerReturnObject> result = new CompletableFuture<>();
+	private volatile AsyncJobStatus status = AsyncJobStatus.QUEUED;
+	private volatile AsyncJobResult encodedResult;
+	private volatile Instant completedAt;
+
+	AsyncAppointmentBookJob(String id, Instant createdAt, EncodingEnum encoding) {
+		this.id = id;
+		this.createdAt = createdAt;
+		this.encoding = encoding;
+	}
+
+	void markRunning() {
+		if (status == AsyncJobStatus.QUEUED) {
+			status = AsyncJobStatus.RUNNING;
+		}
+	}
+
+	void finish(AppointmentHandlerReturnObject returnObject, Throwable throwable, AsyncJobResult encoded) {
+		encodedResult = encoded;
+		completedAt = Instant.now();
+		if (throwable == null) {
+			status = AsyncJobStatus.DONE;
+			result.complete(returnObject);
+		} else {
+			status = AsyncJobStatus.FAILED;
+			result.completeExceptionally(throwable);
+		}
+	}
+
+	public boolean isFinished() {
+		return completedAt != null;
+	}
+
+	boolean isExpired(Instant now, Duration ttl) {
+		Instant finishedAt = completedAt;
+		return finishedAt != null && ttl.isPositive() && !finishedAt.plus(ttl).isAfter(now);
+	}
+
+	AsyncJobRecord toRecord() {
+		return new AsyncJobRecord(id, status, null, encoding, null, null, null, encodedResult, createdAt, completedAt);
+	}
+}
@@ -25,63 +25,58 @@ package de.gematik.isik.mockserver.async;
  * #L%
  */
 
-import ca.uhn.fhir.context.FhirContext;
-import de.gematik.isik.mockserver.operation.AppointmentHandlerReturnObject;
-import org.hl7.fhir.r4.model.OperationOutcome;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.util.concurrent.CompletableFuture;
+import java.time.Duration;
 
+/**
+ * Serves the results of asynchronous $book jobs. The result is encoded once when the job finishes
+ * and does not change afterwards, so the job id is used as its ETag.
+ */
 @RestController
 public class AsyncAppointmentBookJobController {
 
 	@Autowired
 	private AsyncAppointmentBookJobService asyncAppointmentBookJobService;
 
+	@Value("${async-jobs.retry-after:1s}")
+	private Duration retryAfter = Duration.ofSeconds(1);
+
 	@GetMapping("/async-jobs/{jobId}")
-	public ResponseEntity<String> getJobResult(@PathVariable("jobId") String jobId) {
-		FhirContext fhirContext = FhirContext.forR4();
-		var optionalJob = asyncAppointmentBookJobService.getJob(jobId);
+	public ResponseEntity<byte[]> getJobResult(
+			@PathVariable("jobId") String jobId,
+			@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+		// Note: The job may have been submitted to another replica
+		var optionalJob = asyncAppointmentBookJobService.getJobState(jobId);
 		if (optionalJob.isEmpty()) {
 			return ResponseEntity.notFound().build();
 		}
 
-		CompletableFuture<AppointmentHandlerReturnObject> future = optionalJob.get();
-		if (!future.isDone()) {
-			// Note: The job is not finished yet
-			return ResponseEntity.status(HttpStatus.ACCEPTED).build();
+		AsyncJobRecord job = optionalJob.get();
+		AsyncJobResult result = job.result();
+		if (!job.isFinished() || result == null) {
+			return ResponseEntity.status(HttpStatus.ACCEPTED)
+					.header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, retryAfter.toSeconds())))
+					.build();
 		}
 
-		try {
-			AppointmentHandlerReturnObject result = future.get();
-			var parser = fhirContext.newJsonParser().setPrettyPrint(true);
-			if (result.isOperationSuccessful()) {
-				String jsonResponse = parser.encodeResourceToString(result.getAppointment());
-				return ResponseEntity.status(HttpStatus.CREATED).body(jsonResponse);
-			} else {
-				String jsonResponse = parser.encodeResourceToString(result.getOperationOutcome());
-				return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(jsonResponse);
-			}
-		} catch (Exception e) {
-			if (e instanceof InterruptedException) {
-				Thread.currentThread().interrupt();
-				return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-						.body(String.format("The async job with id '%s' was interrupted.", jobId));
-			}
-
-			OperationOutcome outcome = new OperationOutcome();
-			outcome.addIssue()
-					.setDiagnostics(String.format(
-							"Internal error while processing the asynchronous job with id '%s': %s",
-							jobId, e.getMessage()));
-			var parser = fhirContext.newJsonParser().setPrettyPrint(true);
-			String jsonResponse = parser.encodeResourceToString(outcome);
-			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(jsonResponse);
+		String etag = "\"" + jobId + "\"";
+		if (etag.equals(ifNoneMatch) || "*".equals(ifNoneMatch)) {
+			return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
 		}
+		return ResponseEntity.status(result.status())
+				.eTag(etag)
+				.contentType(MediaType.parseMediaType(result.contentType()))
+				.contentLength(result.body().length)
+				.body(result.body());
 	}
 }
@@ -25,25 +25,245 @@ package de.gematik.isik.mockserver.async;
  * #L%
  */
 
+import ca.uhn.fhir.rest.api.EncodingEnum;
 import de.gematik.isik.mockserver.operation.AppointmentHandlerReturnObject;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
 
+/**
+ * Keeps the asynchronous $book jobs until they are polled. Finished jobs are removed after {@code
+ * async-jobs.ttl}; if {@code async-jobs.max-jobs} jobs are stored, the oldest finished job is
+ * evicted. Queued and running jobs are never evicted; if all stored jobs are unfinished, new jobs are
+ * rejected. If an {@link AsyncJobStore} is configured ({@code async-jobs.store: jdbc}), the
+ * job state and result are also written to it, so that other replicas can answer polls.
+ */
 @Component
 @Slf4j
 public class AsyncAppointmentBookJobService {
-	private final Map<String, CompletableFuture<AppointmentHandlerReturnObject>> jobs = new ConcurrentHashMap<>();
 
+	private static final String METRIC_NAME = "isik.async.jobs";
+
+	private final Map<String, AsyncAppointmentBookJob> jobs = new ConcurrentHashMap<>();
+	private final Duration ttl;
+	private final int maxJobs;
+	private final AsyncJobResultEncoder resultEncoder;
+
+	@Setter
+	@Autowired(required = false)
+	private AsyncJobStore jobStore;
+
+	public AsyncAppointmentBookJobService(
+			@Value("${async-jobs.ttl:10m}") Duration ttl,
+			@Value("${async-jobs.max-jobs:1000}") int maxJobs,
+			AsyncJobResultEncoder resultEncoder,
+			MeterRegistry meterRegistry) {
+		this.ttl = ttl;
+		this.maxJobs = Math.max(1, maxJobs);
+		this.resultEncoder = resultEncoder;
+		for (AsyncJobStatus status : AsyncJobStatus.values()) {
+			Gauge.builder(METRIC_NAME, this, service -> service.countJobs(status))
+					.tag("state", status.name().toLowerCase(Locale.ROOT))
+					.register(meterRegistry);
+		}
+	}
+
+	/**
+	 * Registers a job in state {@link AsyncJobStatus#QUEUED} before its work is scheduled. If an
+	 * {@link AsyncJobStore} is configured, the job is persisted together with its request body, so that
+	 * another replica can take over the job if this one stops.
+	 *
+	 * @param jobId the id of the job
+	 * @param requestBody the body of the $book request
+	 * @param encoding the encoding requested by the client, used to encode the result once
+	 * @param tenantId the tenant of the request, null without partitioning
+	 * @throws RejectedExecutionException if the maximum number of jobs is reached and none is finished
+	 */
+	public void registerJob(String jobId, String requestBody, EncodingEnum encoding, String tenantId) {
+		registerLocalJob(jobId, encoding);
+		if (jobStore != null) {
+			jobStore.create(jobId, requestBody, encoding, tenantId);
+		}
+	}
+
+	/**
+	 * Registers a job of this replica only, whose result is encoded as JSON.
+	 *
+	 * @param jobId the id of the job
+	 * @throws RejectedExecutionException if the maximum number of jobs is reached and none is finished
+	 */
+	public void registerJob(String jobId) {
+		registerLocalJob(jobId, EncodingEnum.JSON);
+	}
+
+	/**
+	 * Removes a job whose work could not be scheduled.
+	 *
+	 * @param jobId the id of the job
+	 */
+	public void removeJob(String jobId) {
+		jobs.remove(jobId);
+		if (jobStore != null) {
+			jobStore.delete(jobId);
+		}
+	}
+
+	/**
+	 * Marks a job as running before its work starts. If an {@link AsyncJobStore} is configured, the job
+	 * is claimed first; if another replica took it over in the meantime, the job is removed from this
+	 * replica, so that polls are answered from the store, and must not be run here.
+	 *
+	 * @param jobId the id of the job
+	 * @return false if the job is owned by another replica
+	 */
+	public boolean markRunning(String jobId) {
+		if (jobStore != null && !jobStore.claim(jobId)) {
+			log.warn("Async job {} was taken over by another node and is not run here", jobId);
+			jobs.remove(jobId);
+			return false;
+		}
+		AsyncAppointmentBookJob job = jobs.get(jobId);
+		if (job != null) {
+			job.markRunning();
+		}
+		return true;
+	}
+
+	/**
+	 * Attaches the work of a registered job. The result is encoded once when the work completes.
+	 *
+	 * @param jobId the id of the job
+	 * @param jobFuture the future of the $book work
+	 */
 	public void submitJob(String jobId, CompletableFuture<AppointmentHandlerReturnObject> jobFuture) {
-		jobs.put(jobId, jobFuture);
+		if (!jobs.containsKey(jobId)) {
+			registerJob(jobId);
+		}
+		AsyncAppointmentBookJob job = jobs.get(jobId);
+		if (job == null) {
+			return;
+		}
+		jobFuture.whenComplete((result, throwable) -> finish(job, result, throwable));
 	}
 
 	public Optional<CompletableFuture<AppointmentHandlerReturnObject>> getJob(String jobId) {
-		return Optional.ofNullable(jobs.get(jobId));
+		return findJob(jobId).map(AsyncAppointmentBookJob::getResult);
+	}
+
+	public Optional<AsyncJobStatus> getJobStatus(String jobId) {
+		return findJob(jobId).map(AsyncAppointmentBookJob::getStatus);
+	}
+
+	/**
+	 * Returns the state of a job of this replica or, if an {@link AsyncJobStore} is configured, of a
+	 * job submitted to another replica.
+	 *
+	 * @param jobId the id of the job
+	 * @return the state of the job including its encoded result
+	 */
+	public Optional<AsyncJobRecord> getJobState(String jobId) {
+		Optional<AsyncJobRecord> localJob = findJob(jobId).map(AsyncAppointmentBookJob::toRecord);
+		if (localJob.isPresent() || jobStore == null) {
+			return localJob;
+		}
+		return jobStore.find(jobId);
+	}
+
+	/**
+	 * @return the ids of the queued and running jobs of this replica
+	 */
+	public List<String> getUnfinishedJobIds() {
+		return jobs.values().stream()
+				.filter(job -> !job.isFinished())
+				.map(AsyncAppointmentBookJob::getId)
+				.toList();
+	}
+
+	public int size() {
+		return jobs.size();
+	}
+
+	public void evictExpiredJobs() {
+		evictExpiredJobs(Instant.now());
+	}
+
+	void evictExpiredJobs(Instant now) {
+		jobs.values().removeIf(job -> job.isExpired(now, ttl));
+	}
+
+	private synchronized void registerLocalJob(String jobId, EncodingEnum encoding) {
+		evictExpiredJobs();
+		while (jobs.size() >= maxJobs && evictOldestFinishedJob()) {
+			// evict until there is room for the new job
+		}
+		if (jobs.size() >= maxJobs) {
+			log.warn("Maximum number of async jobs ({}) reached, rejecting job {}", maxJobs, jobId);
+			throw new RejectedExecutionException("Maximum number of async jobs (" + maxJobs + ") reached");
+		}
+		jobs.putIfAbsent(jobId, new AsyncAppointmentBookJob(jobId, Instant.now(), encoding));
+	}
+
+	private Optional<AsyncAppointmentBookJob> findJob(String jobId) {
+		AsyncAppointmentBookJob job = jobs.get(jobId);
+		if (job != null && job.isExpired(Instant.now(), ttl)) {
+			jobs.remove(jobId, job);
+			return Optional.empty();
+		}
+		return Optional.ofNullable(job);
+	}
+
+	private boolean evictOldestFinishedJob() {
+		Optional<AsyncAppointmentBookJob> oldest = jobs.values().stream()
+				.filter(AsyncAppointmentBookJob::isFinished)
+				.min(Comparator.comparing(AsyncAppointmentBookJob::getCompletedAt));
+		oldest.ifPresent(job -> jobs.remove(job.getId(), job));
+		return oldest.isPresent();
+	}
+
+	private void finish(AsyncAppointmentBookJob job, AppointmentHandlerReturnObject result, Throwable throwable) {
+		Throwable cause = throwable instanceof CompletionException ? throwable.getCause() : throwable;
+		if (cause instanceof CancellationException && jobStore != null) {
+			// the job was not claimed by this replica, its result is stored by the owner
+			jobs.remove(job.getId(), job);
+			return;
+		}
+		AsyncJobResult encoded;
+		try {
+			encoded = cause == null
+					? resultEncoder.encode(result, job.getEncoding())
+					: resultEncoder.encodeError(job.getId(), cause, job.getEncoding());
+		} catch (RuntimeException e) {
+			cause = e;
+			encoded = resultEncoder.encodeError(job.getId(), e, job.getEncoding());
+		}
+		job.finish(result, cause, encoded);
+		if (jobStore != null) {
+			try {
+				jobStore.complete(job.getId(), job.getStatus(), encoded);
+			} catch (RuntimeException e) {
+				log.warn("Result of async job {} could not be persisted: {}", job.getId(), e.getMessage());
+			}
+		}
+	}
+
+	private long countJobs(AsyncJobStatus status) {
+		return jobs.values().stream().filter(job -> job.getStatus() == status).count();
 	}
 }
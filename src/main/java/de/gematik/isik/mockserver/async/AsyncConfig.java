@@ -28,8 +28,10 @@ package de.gematik.isik.mockserver.async;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
 
+/**
+ * Enables {@code @Async}. Asynchronous $book requests run on the {@link AppointmentBookExecutor},
+ * configured via {@code async-jobs.executor.*}.
+ */
 @Configuration
 @EnableAsync
-public class AsyncConfig {
-	// Optionally, you can define a TaskExecutor bean here for custom thread pool settings.
-}
+public class AsyncConfig {}
@@ -0,0 +1,55 @@
+package de.gematik.isik.mockserver.async;
+
+/*-
+ * #%L
+ * isik-mock-server
+ * %%
+ * Copyright (C) 2025 - 2026 gematik GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ * #L%
+ */
+
+import ca.uhn.fhir.rest.api.EncodingEnum;
+
+import java.time.Instant;
+
+/**
+ * The state of an asynchronous job. For persisted jobs, the request body is kept until the job is
+ * finished, so that another node can take over the job after the lease of its owner expired.
+ *
+ * @param encoding the encoding requested by the client, used for the result
+ * @param tenantId the tenant of the $book request, null without partitioning
+ * @param result the encoded result, null until the job is finished
+ */
+public record AsyncJobRecord(
+		String id,
+		AsyncJobStatus status,
+		String requestBody,
+		EncodingEnum encoding,
+		String tenantId,
+		String owner,
+		Instant leaseUntil,
+		AsyncJobResult result,
+		Instant createdAt,
+		Instant completedAt) {
+
+	public boolean isFinished() {
+		return status == AsyncJobStatus.DONE || status == AsyncJobStatus.FAILED;
+	}
+}
@@ -0,0 +1,172 @@
+package de.gematik.isik.mockserver.async;
+
+/*-
+ * #%L
+ * isik-mock-server
+ * %%
+ * Copyright (C) 2025 - 2026 gematik GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ * #L%
+ */
+
+import ca.uhn.fhir.rest.api.server.SystemRequestDetails;
+import de.gematik.isik.mockserver.operation.AppointmentBookHandler;
+import de.gematik.isik.mockserver.operation.AppointmentHandlerReturnObject;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Renews the leases of the unfinished jobs of this node, takes over persisted async jobs whose owner
+ * stopped renewing its lease (e.g. a replica that was scaled down or crashed) and removes expired jobs
+ * from the {@link AsyncJobStore}. Leases are renewed on their own thread every third of {@code
+ * async-jobs.lease}. Jobs taken over are run on the {@link AppointmentBookExecutor} like new async
+ * bookings, with the tenant of their original request. A job that was interrupted after the
+ * appointment was stored may therefore be booked a second time.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "async-jobs.store", havingValue = "jdbc")
+public class AsyncJobRecovery {
+
+	private static final int BATCH_SIZE = 10;
+
+	private final AsyncJobStore jobStore;
+	private final AppointmentBookHandler appointmentBookHandler;
+	private final AsyncJobResultEncoder resultEncoder;
+	private final AsyncAppointmentBookJobService jobService;
+	private final AppointmentBookExecutor appointmentBookExecutor;
+	private final Set<String> recoveringJobs = ConcurrentHashMap.newKeySet();
+	private final Duration ttl;
+	private final int maxJobs;
+	private final ScheduledExecutorService scheduler;
+
+	public AsyncJobRecovery(
+			AsyncJobStore jobStore,
+			AppointmentBookHandler appointmentBookHandler,
+			AsyncJobResultEncoder resultEncoder,
+			AsyncAppointmentBookJobService jobService,
+			AppointmentBookExecutor appointmentBookExecutor,
+			@Value("${async-jobs.ttl:10m}") Duration ttl,
+			@Value("${async-jobs.max-jobs:1000}") int maxJobs,
+			@Value("${async-jobs.lease:2m}") Duration lease,
+			@Value("${async-jobs.recovery-interval:30s}") Duration recoveryInterval) {
+		this.jobStore = jobStore;
+		this.appointmentBookHandler = appointmentBookHandler;
+		this.resultEncoder = resultEncoder;
+		this.jobService = jobService;
+		this.appointmentBookExecutor = appointmentBookExecutor;
+		this.ttl = ttl;
+		this.maxJobs = Math.max(1, maxJobs);
+		this.scheduler = Executors.newScheduledThreadPool(
+				2, Thread.ofPlatform().name("async-job-recovery-", 0).daemon().factory());
+		long intervalMillis = recoveryInterval.toMillis();
+		this.scheduler.scheduleWithFixedDelay(this::run, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+		long renewalMillis = Math.max(lease.toMillis() / 3, 1);
+		this.scheduler.scheduleWithFixedDelay(this::renewLeases, renewalMillis, renewalMillis, TimeUnit.MILLISECONDS);
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		scheduler.shutdownNow();
+	}
+
+	void run() {
+		try {
+			int removed = jobStore.evictFinishedJobs(ttl, maxJobs);
+			if (removed > 0) {
+				log.debug("Removed {} finished async jobs", removed);
+			}
+			recoverOrphanedJobs();
+		} catch (RuntimeException e) {
+			log.warn("Recovery of async jobs failed: {}", e.getMessage());
+		}
+	}
+
+	/**
+	 * Renews the leases of the queued and running jobs of this node, including the jobs taken over by
+	 * the recovery.
+	 *
+	 * @return the number of renewed leases
+	 */
+	int renewLeases() {
+		try {
+			List<String> jobIds = new ArrayList<>(jobService.getUnfinishedJobIds());
+			jobIds.addAll(recoveringJobs);
+			return jobIds.isEmpty() ? 0 : jobStore.renewLeases(jobIds);
+		} catch (RuntimeException e) {
+			log.warn("Renewing the leases of async jobs failed: {}", e.getMessage());
+			return 0;
+		}
+	}
+
+	/**
+	 * Claims unfinished jobs whose lease expired and submits them to the {@link
+	 * AppointmentBookExecutor}. If the executor is saturated, the claimed job is not renewed and taken
+	 * over again once its lease expired.
+	 *
+	 * @return the number of jobs submitted by this node
+	 */
+	int recoverOrphanedJobs() {
+		int recovered = 0;
+		for (AsyncJobRecord job : jobStore.findOrphanedJobs(BATCH_SIZE)) {
+			if (!jobStore.claim(job.id())) {
+				continue;
+			}
+			log.info("Taking over async job {} from {}", job.id(), job.owner());
+			recoveringJobs.add(job.id());
+			try {
+				appointmentBookExecutor.execute(() -> runJob(job));
+			} catch (RejectedExecutionException e) {
+				recoveringJobs.remove(job.id());
+				log.info("Async job {} is taken over later, booking capacity exhausted", job.id());
+				break;
+			}
+			recovered++;
+		}
+		return recovered;
+	}
+
+	private void runJob(AsyncJobRecord job) {
+		try {
+			SystemRequestDetails requestDetails = new SystemRequestDetails();
+			requestDetails.setTenantId(job.tenantId());
+			AppointmentHandlerReturnObject result =
+					appointmentBookHandler.handleIncomingAppointment(job.requestBody(), requestDetails);
+			jobStore.complete(job.id(), AsyncJobStatus.DONE, resultEncoder.encode(result, job.encoding()));
+		} catch (RuntimeException e) {
+			log.info("Async job {} failed: {}", job.id(), e.getMessage());
+			jobStore.complete(job.id(), AsyncJobStatus.FAILED, resultEncoder.encodeError(job.id(), e, job.encoding()));
+		} finally {
+			recoveringJobs.remove(job.id());
+		}
+	}
+}
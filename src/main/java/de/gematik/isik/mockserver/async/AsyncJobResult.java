@@ -0,0 +1,36 @@
+package de.gematik.isik.mockserver.async;
+
+/*-
+ * #%L
+ * isik-mock-server
+ * %%
+ * Copyright (C) 2025 - 2026 gematik GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ * #L%
+ */
+
+/**
+ * The response of a finished async job, encoded once when the job completes and returned as is on
+ * every poll.
+ *
+ * @param status the HTTP status of the response
+ * @param body the encoded resource
+ * @param contentType the content type of the encoded resource
+ */
+public record AsyncJobResult(int status, byte[] body, String contentType) {}
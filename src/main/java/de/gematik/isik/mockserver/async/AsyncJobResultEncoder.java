@@ -0,0 +1,80 @@
+package de.gematik.isik.mockserver.async;
+
+/*-
+ * #%L
+ * isik-mock-server
+ * %%
+ * Copyright (C) 2025 - 2026 gematik GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ * #L%
+ */
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.rest.api.Constants;
+import ca.uhn.fhir.rest.api.EncodingEnum;
+import de.gematik.isik.mockserver.operation.AppointmentHandlerReturnObject;
+import lombok.RequiredArgsConstructor;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.hl7.fhir.r4.model.OperationOutcome;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+
+/** Encodes the results of async $book jobs with the shared FhirContext. */
+@Component
+@RequiredArgsConstructor
+public class AsyncJobResultEncoder {
+
+	private final FhirContext ctx;
+
+	/**
+	 * @param result the result of the $book operation
+	 * @param encoding the encoding requested by the client
+	 * @return 201 with the created Appointment or 400 with the OperationOutcome
+	 */
+	public AsyncJobResult encode(AppointmentHandlerReturnObject result, EncodingEnum encoding) {
+		if (result.isOperationSuccessful()) {
+			return encode(201, result.getAppointment(), encoding);
+		}
+		return encode(400, result.getOperationOutcome(), encoding);
+	}
+
+	/**
+	 * @param jobId the id of the failed job
+	 * @param error the cause of the failure
+	 * @param encoding the encoding requested by the client
+	 * @return 500 with an OperationOutcome describing the error
+	 */
+	public AsyncJobResult encodeError(String jobId, Throwable error, EncodingEnum encoding) {
+		OperationOutcome outcome = new OperationOutcome();
+		outcome.addIssue()
+				.setDiagnostics(String.format(
+						"Internal error while processing the asynchronous job with id '%s': %s",
+						jobId, error.getMessage()));
+		return encode(500, outcome, encoding);
+	}
+
+	private AsyncJobResult encode(int status, IBaseResource resource, EncodingEnum encoding) {
+		String body = encoding.newParser(ctx).setPrettyPrint(true).encodeResourceToString(resource);
+		return new AsyncJobResult(
+				status,
+				body.getBytes(StandardCharsets.UTF_8),
+				encoding.getResourceContentTypeNonLegacy() + Constants.CHARSET_UTF8_CTSUFFIX);
+	}
+}
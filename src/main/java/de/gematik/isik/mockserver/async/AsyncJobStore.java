@@ -0,0 +1,96 @@
+package de.gematik.isik.mockserver.async;
+
+/*-
+ * #%L
+ * isik-mock-server
+ * %%
+ * Copyright (C) 2025 - 2026 gematik GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ * #L%
+ */
+
+import ca.uhn.fhir.rest.api.EncodingEnum;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Store for asynchronous $book jobs shared by all replicas, so that any replica can answer a poll on
+ * {@code /async-jobs/{id}}. A job is owned by one node at a time via a lease; jobs whose lease expired
+ * are taken over by another node.
+ */
+public interface AsyncJobStore {
+
+	/**
+	 * Stores a new job in state {@link AsyncJobStatus#QUEUED}, leased by this node.
+	 *
+	 * @param jobId the id of the job
+	 * @param requestBody the body of the $book request, needed to run the job on another node
+	 * @param encoding the encoding requested by the client
+	 * @param tenantId the tenant of the request, used when another node runs the job
+	 */
+	void create(String jobId, String requestBody, EncodingEnum encoding, String tenantId);
+
+	/**
+	 * Marks the job as running on this node and renews the lease. Succeeds if the job is queued or
+	 * running on this node, or if the lease of another node expired.
+	 *
+	 * @param jobId the id of the job
+	 * @return true if this node owns the job now
+	 */
+	boolean claim(String jobId);
+
+	/**
+	 * Extends the lease of unfinished jobs owned by this node, so that they are not taken over while
+	 * they are queued or running.
+	 *
+	 * @param jobIds the ids of the jobs
+	 * @return the number of renewed leases
+	 */
+	int renewLeases(Collection<String> jobIds);
+
+	/**
+	 * Stores the encoded result of a job owned by this node.
+	 *
+	 * @param jobId the id of the job
+	 * @param status {@link AsyncJobStatus#DONE} or {@link AsyncJobStatus#FAILED}
+	 * @param result the encoded result
+	 */
+	void complete(String jobId, AsyncJobStatus status, AsyncJobResult result);
+
+	Optional<AsyncJobRecord> find(String jobId);
+
+	void delete(String jobId);
+
+	/**
+	 * @param limit the maximum number of jobs returned
+	 * @return unfinished jobs whose lease expired
+	 */
+	List<AsyncJobRecord> findOrphanedJobs(int limit);
+
+	/**
+	 * Removes finished jobs older than {@code ttl} and the oldest finished jobs exceeding {@code
+	 * maxJobs}.
+	 *
+	 * @return the number of removed jobs
+	 */
+	int evictFinishedJobs(Duration ttl, int maxJobs);
+}
@@ -0,0 +1,233 @@
+package de.gematik.isik.mockserver.async;
+
+/*-
+ * #%L
+ * isik-mock-server
+ * %%
+ * Copyright (C) 2025 - 2026 gematik GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ * #L%
+ */
+
+import ca.uhn.fhir.rest.api.EncodingEnum;
+import jakarta.annotation.PostConstruct;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * {@link AsyncJobStore} in the database of the FHIR server (H2 or PostgreSQL). The table is created
+ * on startup, timestamps are stored as epoch milliseconds to stay independent of the database.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "async-jobs.store", havingValue = "jdbc")
+public class JdbcAsyncJobStore implements AsyncJobStore {
+
+	static final String TABLE = "ISIK_ASYNC_JOB";
+	private static final String COLUMNS = "ID, STATUS, REQUEST_BODY, ENCODING, TENANT_ID, LEASE_OWNER, LEASE_UNTIL, "
+			+ "RESULT_STATUS, RESULT_CONTENT_TYPE, RESULT, CREATED_AT, COMPLETED_AT";
+	private static final String UNFINISHED = "STATUS IN ('QUEUED', 'RUNNING')";
+	private static final String FINISHED = "STATUS IN ('DONE', 'FAILED')";
+	private static final RowMapper<AsyncJobRecord> ROW_MAPPER = (rs, rowNum) -> new AsyncJobRecord(
+			rs.getString("ID"),
+			AsyncJobStatus.valueOf(rs.getString("STATUS")),
+			rs.getString("REQUEST_BODY"),
+			EncodingEnum.valueOf(rs.getString("ENCODING")),
+			rs.getString("TENANT_ID"),
+			rs.getString("LEASE_OWNER"),
+			toInstant(rs, "LEASE_UNTIL"),
+			toResult(rs),
+			toInstant(rs, "CREATED_AT"),
+			toInstant(rs, "COMPLETED_AT"));
+
+	private final JdbcTemplate jdbcTemplate;
+	private final Duration lease;
+
+	@Getter
+	private final String nodeId;
+
+	public JdbcAsyncJobStore(JdbcTemplate jdbcTemplate, @Value("${async-jobs.lease:2m}") Duration lease) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.lease = lease;
+		this.nodeId = System.getenv().getOrDefault("HOSTNAME", "node") + "-"
+				+ UUID.randomUUID().toString().substring(0, 8);
+	}
+
+	@PostConstruct
+	public void init() {
+		jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + TABLE + " ("
+				+ "ID VARCHAR(64) PRIMARY KEY, "
+				+ "STATUS VARCHAR(16) NOT NULL, "
+				+ "REQUEST_BODY TEXT, "
+				+ "ENCODING VARCHAR(8) NOT NULL, "
+				+ "TENANT_ID VARCHAR(200), "
+				+ "LEASE_OWNER VARCHAR(128), "
+				+ "LEASE_UNTIL BIGINT, "
+				+ "RESULT_STATUS INTEGER, "
+				+ "RESULT_CONTENT_TYPE VARCHAR(128), "
+				+ "RESULT TEXT, "
+				+ "CREATED_AT BIGINT NOT NULL, "
+				+ "COMPLETED_AT BIGINT)");
+		// Note: tables created by earlier versions lack the tenant
+		jdbcTemplate.execute("ALTER TABLE " + TABLE + " ADD COLUMN IF NOT EXISTS TENANT_ID VARCHAR(200)");
+		jdbcTemplate.execute(
+				"CREATE INDEX IF NOT EXISTS IDX_ISIK_ASYNC_JOB_STATUS ON " + TABLE + " (STATUS, LEASE_UNTIL)");
+		log.info("Async jobs are stored in table {} as node {}", TABLE, nodeId);
+	}
+
+	@Override
+	public void create(String jobId, String requestBody, EncodingEnum encoding, String tenantId) {
+		long now = System.currentTimeMillis();
+		jdbcTemplate.update(
+				"INSERT INTO " + TABLE
+						+ " (ID, STATUS, REQUEST_BODY, ENCODING, TENANT_ID, LEASE_OWNER, LEASE_UNTIL, CREATED_AT) "
+						+ "VALUES (?, ?, ?, ?, ?, ?, ?, ?)",
+				jobId,
+				AsyncJobStatus.QUEUED.name(),
+				requestBody,
+				encoding.name(),
+				tenantId,
+				nodeId,
+				now + lease.toMillis(),
+				now);
+	}
+
+	@Override
+	public boolean claim(String jobId) {
+		long now = System.currentTimeMillis();
+		int updated = jdbcTemplate.update(
+				"UPDATE " + TABLE + " SET STATUS = ?, LEASE_OWNER = ?, LEASE_UNTIL = ? WHERE ID = ? AND "
+						+ UNFINISHED + " AND (LEASE_OWNER = ? OR LEASE_UNTIL < ?)",
+				AsyncJobStatus.RUNNING.name(),
+				nodeId,
+				now + lease.toMillis(),
+				jobId,
+				nodeId,
+				now);
+		return updated == 1;
+	}
+
+	@Override
+	public int renewLeases(Collection<String> jobIds) {
+		long leaseUntil = System.currentTimeMillis() + lease.toMillis();
+		int renewed = 0;
+		for (String jobId : jobIds) {
+			renewed += jdbcTemplate.update(
+					"UPDATE " + TABLE + " SET LEASE_UNTIL = ? WHERE ID = ? AND LEASE_OWNER = ? AND "
+							+ UNFINISHED,
+					leaseUntil,
+					jobId,
+					nodeId);
+		}
+		return renewed;
+	}
+
+	@Override
+	public void complete(String jobId, AsyncJobStatus status, AsyncJobResult result) {
+		int updated = jdbcTemplate.update(
+				"UPDATE " + TABLE + " SET STATUS = ?, RESULT_STATUS = ?, RESULT_CONTENT_TYPE = ?, RESULT = ?, "
+						+ "COMPLETED_AT = ?, REQUEST_BODY = NULL, LEASE_UNTIL = NULL WHERE ID = ? AND LEASE_OWNER = ? AND "
+						+ UNFINISHED,
+				status.name(),
+				result.status(),
+				result.contentType(),
+				new String(result.body(), StandardCharsets.UTF_8),
+				System.currentTimeMillis(),
+				jobId,
+				nodeId);
+		if (updated == 0) {
+			log.warn("Result of async job {} was not stored, the job was taken over by another node", jobId);
+		}
+	}
+
+	@Override
+	public Optional<AsyncJobRecord> find(String jobId) {
+		return jdbcTemplate.query("SELECT " + COLUMNS + " FROM " + TABLE + " WHERE ID = ?", ROW_MAPPER, jobId).stream()
+				.findFirst();
+	}
+
+	@Override
+	public void delete(String jobId) {
+		jdbcTemplate.update("DELETE FROM " + TABLE + " WHERE ID = ?", jobId);
+	}
+
+	@Override
+	public List<AsyncJobRecord> findOrphanedJobs(int limit) {
+		return jdbcTemplate.query(
+				"SELECT " + COLUMNS + " FROM " + TABLE + " WHERE " + UNFINISHED
+						+ " AND LEASE_UNTIL < ? ORDER BY CREATED_AT FETCH FIRST " + limit + " ROWS ONLY",
+				ROW_MAPPER,
+				System.currentTimeMillis());
+	}
+
+	@Override
+	public int evictFinishedJobs(Duration ttl, int maxJobs) {
+		int removed = 0;
+		if (ttl.isPositive()) {
+			removed += jdbcTemplate.update(
+					"DELETE FROM " + TABLE + " WHERE " + FINISHED + " AND COMPLETED_AT < ?",
+					System.currentTimeMillis() - ttl.toMillis());
+		}
+		Integer finished =
+				jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + TABLE + " WHERE " + FINISHED, Integer.class);
+		int excess = finished == null ? 0 : finished - maxJobs;
+		if (excess > 0) {
+			List<String> oldest = jdbcTemplate.queryForList(
+					"SELECT ID FROM " + TABLE + " WHERE " + FINISHED + " ORDER BY COMPLETED_AT FETCH FIRST " + excess
+							+ " ROWS ONLY",
+					String.class);
+			for (String jobId : oldest) {
+				removed += jdbcTemplate.update("DELETE FROM " + TABLE + " WHERE ID = ?", jobId);
+			}
+		}
+		return removed;
+	}
+
+	private static AsyncJobResult toResult(ResultSet rs) throws SQLException {
+		Integer status = rs.getObject("RESULT_STATUS", Integer.class);
+		if (status == null) {
+			return null;
+		}
+		String body = rs.getString("RESULT");
+		return new AsyncJobResult(
+				status,
+				body == null ? new byte[0] : body.getBytes(StandardCharsets.UTF_8),
+				rs.getString("RESULT_CONTENT_TYPE"));
+	}
+
+	private static Instant toInstant(ResultSet rs, String column) throws SQLException {
+		long millis = rs.getLong(column);
+		return rs.wasNull() ? null : Instant.ofEpochMilli(millis);
+	}
+}
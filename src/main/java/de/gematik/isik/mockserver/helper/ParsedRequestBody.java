@@ -0,0 +1,71 @@
+package de.gematik.isik.mockserver.helper;
+
+/*-
+ * #%L
+ * isik-mock-server
+ * %%
+ * Copyright (C) 2025 - 2026 gematik GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ * #L%
+ */
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.parser.IParser;
+import ca.uhn.fhir.rest.api.EncodingEnum;
+import ca.uhn.fhir.rest.server.exceptions.UnprocessableEntityException;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.hl7.fhir.r4.model.Resource;
+
+/**
+ * The parsed representation of a request body. It is created once per request by {@link
+ * ReusableRequestWrapper#getParsedBody(FhirContext)} and shared by all interceptors and operations.
+ * The resource returned by {@link #getResource()} must therefore not be changed. Callers that change
+ * or store the resource use {@link #copyResource()}.
+ */
+@Getter
+@AllArgsConstructor
+public class ParsedRequestBody {
+	private final EncodingEnum encoding;
+	private final IParser parser;
+
+	/** The shared parsed resource, must not be changed */
+	private final IBaseResource resource;
+
+	/**
+	 * @param body the request body
+	 * @param ctx the FhirContext used for parsing
+	 * @return the parsed body
+	 * @throws UnprocessableEntityException if the body is neither JSON nor XML
+	 */
+	public static ParsedRequestBody parse(String body, FhirContext ctx) {
+		EncodingEnum encoding = EncodingEnum.detectEncodingNoDefault(body);
+		if (encoding == null) {
+			throw new UnprocessableEntityException("The request body was neither json nor XML");
+		}
+		IParser parser = encoding.newParser(ctx);
+		return new ParsedRequestBody(encoding, parser, parser.parseResource(body));
+	}
+
+	/** @return a deep copy of the parsed resource, which the caller may change */
+	public IBaseResource copyResource() {
+		return ((Resource) resource).copy();
+	}
+}
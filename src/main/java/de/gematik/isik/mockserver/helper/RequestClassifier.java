@@ -0,0 +1,122 @@
+package de.gematik.isik.mockserver.helper;
+
+/*-
+ * #%L
+ * isik-mock-server
+ * %%
+ * Copyright (C) 2025 - 2026 gematik GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ * #L%
+ */
+
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.experimental.UtilityClass;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Classifies incoming requests into a {@link RequestDescriptor}. The descriptor is stored as request
+ * attribute by {@link RequestWrapperFilter}, so the path is parsed only once per request and the
+ * interceptors just read it.
+ */
+@UtilityClass
+public class RequestClassifier {
+
+	public static final String ATTRIBUTE = RequestDescriptor.class.getName();
+	static final String FHIR_SERVLET_PATH = "/fhir";
+
+	/**
+	 * @param request the incoming request
+	 * @return true if the request is addressed to the FHIR servlet
+	 */
+	public boolean isFhirRequest(HttpServletRequest request) {
+		String path = request.getRequestURI().substring(request.getContextPath().length());
+		return path.equals(FHIR_SERVLET_PATH) || path.startsWith(FHIR_SERVLET_PATH + "/");
+	}
+
+	/**
+	 * Returns the descriptor stored on the request, classifying the request on first access.
+	 *
+	 * @param request the incoming request
+	 * @return the descriptor of the request
+	 */
+	public RequestDescriptor classify(HttpServletRequest request) {
+		if (request.getAttribute(ATTRIBUTE) instanceof RequestDescriptor descriptor) {
+			return descriptor;
+		}
+		RequestDescriptor descriptor = classify(request.getMethod(), fhirPath(request));
+		request.setAttribute(ATTRIBUTE, descriptor);
+		return descriptor;
+	}
+
+	/**
+	 * @param verb the HTTP method
+	 * @param fhirPath the path relative to the FHIR server base, e.g. {@code /Appointment/1}
+	 * @return the descriptor of the request
+	 */
+	public RequestDescriptor classify(String verb, String fhirPath) {
+		// split on a single character does not compile a regular expression
+		List<String> segments = fhirPath == null
+				? List.of()
+				: Arrays.stream(fhirPath.split("/"))
+						.filter(segment -> !segment.isEmpty())
+						.toList();
+		int i = 0;
+		String resourceType = null;
+		String instanceId = null;
+		String versionId = null;
+		String compartment = null;
+		String operation = null;
+		if (i < segments.size() && isPlain(segments.get(i))) {
+			resourceType = segments.get(i++);
+			if (i < segments.size() && isPlain(segments.get(i))) {
+				instanceId = segments.get(i++);
+			}
+		}
+		if (i < segments.size() && "_history".equals(segments.get(i))) {
+			i++;
+			if (i < segments.size() && isPlain(segments.get(i))) {
+				versionId = segments.get(i++);
+			} else {
+				operation = "_history";
+			}
+		} else if (instanceId != null && i < segments.size() && isPlain(segments.get(i))) {
+			compartment = segments.get(i++);
+		}
+		if (i < segments.size()) {
+			String segment = segments.get(i);
+			operation = segment.startsWith("$") ? segment.substring(1) : segment;
+		}
+		return new RequestDescriptor(verb, resourceType, instanceId, versionId, operation, compartment);
+	}
+
+	private static String fhirPath(HttpServletRequest request) {
+		if (isFhirRequest(request)) {
+			return request.getRequestURI()
+					.substring(request.getContextPath().length() + FHIR_SERVLET_PATH.length());
+		}
+		// Requests dispatched to the FHIR servlet under another mapping only expose the path info
+		return request.getPathInfo();
+	}
+
+	private static boolean isPlain(String segment) {
+		return !segment.startsWith("$") && !segment.startsWith("_");
+	}
+}
@@ -0,0 +1,79 @@
+package de.gematik.isik.mockserver.helper;
+
+/*-
+ * #%L
+ * isik-mock-server
+ * %%
+ * Copyright (C) 2025 - 2026 gematik GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ * #L%
+ */
+
+/**
+ * Immutable classification of a FHIR request, created once per request by {@link
+ * RequestClassifier}. {@code compartment} is the resource type searched within the compartment of
+ * the instance (e.g. {@code Encounter} for {@code Patient/1/Encounter}), {@code operation} is the
+ * operation name without the leading {@code $}, or {@code _history} and {@code _search} for these
+ * interactions.
+ */
+public record RequestDescriptor(
+		String verb,
+		String resourceType,
+		String instanceId,
+		String versionId,
+		String operation,
+		String compartment) {
+
+	public boolean isVerb(String expectedVerb) {
+		return expectedVerb.equalsIgnoreCase(verb);
+	}
+
+	/** @return true for POST and PUT requests */
+	public boolean isWrite() {
+		return isVerb("POST") || isVerb("PUT");
+	}
+
+	/** @return true for requests on the server base, e.g. transactions and document bundles */
+	public boolean isSystemLevel() {
+		return resourceType == null && operation == null;
+	}
+
+	/** @return true for requests on the resource type itself, e.g. create and search */
+	public boolean isType(String type) {
+		return type.equals(resourceType) && instanceId == null && operation == null;
+	}
+
+	/** @return true for requests on a single instance, e.g. read, update, patch and delete */
+	public boolean isInstance(String type) {
+		return type.equals(resourceType)
+				&& instanceId != null
+				&& versionId == null
+				&& compartment == null
+				&& operation == null;
+	}
+
+	public boolean isOperation(String name) {
+		return name.equals(operation);
+	}
+
+	/** @return true if the resource type or the compartment type of the request is {@code type} */
+	public boolean involves(String type) {
+		return type.equals(resourceType) || type.equals(compartment);
+	}
+}
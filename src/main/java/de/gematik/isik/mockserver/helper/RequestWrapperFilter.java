@@ -25,27 +25,105 @@ package de.gematik.isik.mockserver.helper;
  * #L%
  */
 
+import ca.uhn.fhir.rest.api.EncodingEnum;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.servlet.Filter;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.ServletRequest;
 import jakarta.servlet.ServletResponse;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
 
 import java.io.IOException;
 
+/**
+ * Buffers the body of the requests that are inspected by the custom interceptors before HAPI reads
+ * it: FHIR POST and PUT requests (validation, document bundles, DocumentReference) and PATCH requests
+ * on Appointments. All other requests, including raw {@code Binary} uploads and {@code
+ * $binary-access-write}, are passed through unbuffered. The request is classified once by {@link
+ * RequestClassifier}, the interceptors read the resulting {@link RequestDescriptor}.
+ */
+@Slf4j
 @Component
 public class RequestWrapperFilter implements Filter {
 
+	private static final String METRIC_NAME = "isik.request.body";
+
+	private final long maxBodySize;
+	private final int spillThreshold;
+	private final Counter bufferedCounter;
+	private final Counter streamedCounter;
+
+	public RequestWrapperFilter(
+			@Value("${request-body.max-size:50MB}") DataSize maxBodySize,
+			@Value("${request-body.spill-threshold:1MB}") DataSize spillThreshold,
+			MeterRegistry meterRegistry) {
+		this.maxBodySize = maxBodySize.toBytes();
+		this.spillThreshold = (int) Math.min(spillThreshold.toBytes(), Integer.MAX_VALUE - 8);
+		this.bufferedCounter =
+				Counter.builder(METRIC_NAME).tag("mode", "buffered").register(meterRegistry);
+		this.streamedCounter =
+				Counter.builder(METRIC_NAME).tag("mode", "streamed").register(meterRegistry);
+	}
+
 	@Override
 	public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
 			throws IOException, ServletException {
-		if (request instanceof HttpServletRequest httpServletRequest) {
-			HttpServletRequest wrappedRequest = new ReusableRequestWrapper(httpServletRequest);
-			chain.doFilter(wrappedRequest, response);
-		} else {
+		if (!(request instanceof HttpServletRequest httpServletRequest)
+				|| !requiresBuffering(httpServletRequest)) {
+			streamedCounter.increment();
 			chain.doFilter(request, response);
+			return;
+		}
+
+		ReusableRequestWrapper wrappedRequest;
+		try {
+			wrappedRequest = new ReusableRequestWrapper(httpServletRequest, maxBodySize, spillThreshold);
+		} catch (ReusableRequestWrapper.BodyTooLargeException e) {
+			log.info(
+					"Rejecting {} {}: {}",
+					httpServletRequest.getMethod(),
+					httpServletRequest.getRequestURI(),
+					e.getMessage());
+			((HttpServletResponse) response)
+					.sendError(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE, e.getMessage());
+			return;
+		}
+		bufferedCounter.increment();
+		try {
+			chain.doFilter(wrappedRequest, response);
+		} finally {
+			wrappedRequest.close();
+		}
+	}
+
+	boolean requiresBuffering(HttpServletRequest request) {
+		if (!RequestClassifier.isFhirRequest(request)) {
+			return false;
+		}
+		RequestDescriptor descriptor = RequestClassifier.classify(request);
+		if (descriptor.isVerb("PATCH")) {
+			return descriptor.isInstance("Appointment");
 		}
+		if (!descriptor.isWrite() || descriptor.isOperation("binary-access-write")) {
+			return false;
+		}
+		// $book-batch bodies may be NDJSON, their entries are validated one by one by the AppointmentBookBatchHandler
+		if (descriptor.isOperation("book-batch")) {
+			return false;
+		}
+		// Binary resources are only inspected when they are sent as FHIR resource, not as raw content
+		return !descriptor.involves("Binary") || isFhirContentType(request.getContentType());
+	}
+
+	private static boolean isFhirContentType(String contentType) {
+		return contentType != null
+				&& EncodingEnum.forContentType(contentType.split(";")[0].trim()) != null;
 	}
 }
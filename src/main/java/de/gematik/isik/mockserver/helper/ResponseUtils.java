@@ -64,4 +64,26 @@ public class ResponseUtils {
 		response.setContentType(encoding.getResourceContentTypeNonLegacy());
 		response.getWriter().print(parser.encodeResourceToString(result));
 	}
+
+	public void sendServiceUnavailableResponse(
+			HttpServletResponse response,
+			String message,
+			int retryAfterSeconds,
+			IParser parser,
+			EncodingEnum encoding)
+			throws IOException {
+		log.warn("{}. Answering with 503.", message);
+
+		OperationOutcome outcome = new OperationOutcome();
+		outcome.addIssue()
+				.setSeverity(OperationOutcome.IssueSeverity.ERROR)
+				.setCode(OperationOutcome.IssueType.THROTTLED)
+				.setDiagnostics(message);
+
+		response.reset();
+		response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+		response.setHeader("Retry-After", String.valueOf(retryAfterSeconds));
+		response.setContentType(encoding.getResourceContentTypeNonLegacy());
+		response.getWriter().print(parser.encodeResourceToString(outcome));
+	}
 }
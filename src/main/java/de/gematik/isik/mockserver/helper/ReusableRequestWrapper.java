@@ -25,6 +25,8 @@ package de.gematik.isik.mockserver.helper;
  * #L%
  */
 
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.rest.server.exceptions.InvalidRequestException;
 import jakarta.servlet.ReadListener;
 import jakarta.servlet.ServletInputStream;
 import jakarta.servlet.http.HttpServletRequest;
@@ -33,54 +35,257 @@ import lombok.Getter;
 
 import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.IllegalCharsetNameException;
 import java.nio.charset.StandardCharsets;
+import java.nio.charset.UnsupportedCharsetException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
-@Getter
-public class ReusableRequestWrapper extends HttpServletRequestWrapper {
-	private final String body;
+/**
+ * Buffers the raw request body once so that interceptors, operations and HAPI's parser can read it
+ * repeatedly. Bodies up to the spill threshold are kept in memory, larger ones are written to a
+ * temporary file which is removed by {@link #close()}. The String representation is only decoded
+ * when {@link #getBody()} is called.
+ */
+public class ReusableRequestWrapper extends HttpServletRequestWrapper implements Closeable {
+	public static final long DEFAULT_MAX_BODY_SIZE = 50L * 1024 * 1024;
+	public static final int DEFAULT_SPILL_THRESHOLD = 1024 * 1024;
+	private static final int BUFFER_SIZE = 8192;
+
+	private final byte[] content;
+	private final Path spillFile;
+
+	@Getter
+	private final long bodySize;
+
+	private final Charset charset;
+	private String body;
+	private ParsedRequestBody parsedBody;
 
 	public ReusableRequestWrapper(HttpServletRequest request) throws IOException {
+		this(request, DEFAULT_MAX_BODY_SIZE, DEFAULT_SPILL_THRESHOLD);
+	}
+
+	/**
+	 * @param request the request whose body is buffered
+	 * @param maxBodySize the maximum body size in bytes, 0 or less disables the limit
+	 * @param spillThreshold bodies larger than this number of bytes are written to a temporary file, 0
+	 *     or less keeps every body in memory
+	 * @throws BodyTooLargeException if the body exceeds {@code maxBodySize}
+	 */
+	public ReusableRequestWrapper(HttpServletRequest request, long maxBodySize, int spillThreshold)
+			throws IOException {
 		super(request);
-		StringBuilder stringBuilder = new StringBuilder();
-		try (BufferedReader bufferedReader = request.getReader()) {
-			String line;
-			while ((line = bufferedReader.readLine()) != null) {
-				stringBuilder.append(line).append(System.lineSeparator());
+		this.charset = resolveCharset(request.getCharacterEncoding());
+		long declaredLength = request.getContentLengthLong();
+		if (maxBodySize > 0 && declaredLength > maxBodySize) {
+			throw new BodyTooLargeException(maxBodySize);
+		}
+		int initialCapacity = declaredLength > 0 && (spillThreshold <= 0 || declaredLength <= spillThreshold)
+				? (int) Math.min(declaredLength, Integer.MAX_VALUE - 8)
+				: BUFFER_SIZE;
+		ExposedByteArrayOutputStream memory = new ExposedByteArrayOutputStream(initialCapacity);
+		Path file = null;
+		OutputStream target = memory;
+		long total = 0;
+		try (InputStream in = request.getInputStream()) {
+			byte[] chunk = new byte[BUFFER_SIZE];
+			int read;
+			while ((read = in.read(chunk)) != -1) {
+				total += read;
+				if (maxBodySize > 0 && total > maxBodySize) {
+					throw new BodyTooLargeException(maxBodySize);
+				}
+				if (file == null && spillThreshold > 0 && total > spillThreshold) {
+					file = Files.createTempFile("isik-request-", ".body");
+					target = Files.newOutputStream(file);
+					memory.writeTo(target);
+					memory = null;
+				}
+				target.write(chunk, 0, read);
+			}
+			target.close();
+		} catch (IOException | RuntimeException e) {
+			if (file != null) {
+				try {
+					target.close();
+				} finally {
+					Files.deleteIfExists(file);
+				}
 			}
+			throw e;
 		}
-		body = stringBuilder.toString();
+		this.spillFile = file;
+		this.content = memory != null ? memory.buffer() : null;
+		this.bodySize = total;
 	}
 
-	@Override
-	public ServletInputStream getInputStream() {
-		ByteArrayInputStream byteArrayInputStream = new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
-		return new ServletInputStream() {
-			@Override
-			public boolean isFinished() {
-				return byteArrayInputStream.available() == 0;
-			}
+	/**
+	 * Decodes the buffered body with the request's character encoding (UTF-8 if none is declared). The
+	 * result is cached, so callers that only stream the body never pay for the String copy. Malformed
+	 * input is replaced, for bodies kept in memory as well as for bodies spilled to disk.
+	 *
+	 * @return the request body as String
+	 * @throws InvalidRequestException if the body cannot be decoded
+	 */
+	public String getBody() {
+		if (body == null) {
+			body = content != null ? new String(content, 0, (int) bodySize, charset) : decodeSpilledBody();
+		}
+		return body;
+	}
 
-			@Override
-			public boolean isReady() {
-				return true;
+	private String decodeSpilledBody() {
+		CharsetDecoder decoder = charset.newDecoder()
+				.onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		StringBuilder builder = new StringBuilder((int) Math.min(bodySize, Integer.MAX_VALUE - 8));
+		try (Reader reader = new InputStreamReader(Files.newInputStream(spillFile), decoder)) {
+			char[] chunk = new char[BUFFER_SIZE];
+			int read;
+			while ((read = reader.read(chunk)) != -1) {
+				builder.append(chunk, 0, read);
 			}
+		} catch (CharacterCodingException e) {
+			throw new InvalidRequestException("The request body is not valid " + charset.name());
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return builder.toString();
+	}
 
-			@Override
-			public void setReadListener(ReadListener readListener) {
-				// Not needed for this use case
-			}
+	/**
+	 * Parses the body on first access and returns the same parsed resource, encoding and parser on
+	 * every subsequent call, so the body is parsed only once per request.
+	 *
+	 * @param ctx the FhirContext used for parsing
+	 * @return the parsed request body
+	 */
+	public ParsedRequestBody getParsedBody(FhirContext ctx) {
+		if (parsedBody == null) {
+			parsedBody = ParsedRequestBody.parse(getBody(), ctx);
+		}
+		return parsedBody;
+	}
 
-			@Override
-			public int read() {
-				return byteArrayInputStream.read();
-			}
-		};
+	public boolean isSpilledToDisk() {
+		return spillFile != null;
+	}
+
+	@Override
+	public ServletInputStream getInputStream() throws IOException {
+		InputStream delegate =
+				content != null ? new ByteArrayInputStream(content, 0, (int) bodySize) : Files.newInputStream(spillFile);
+		return new BufferedBodyInputStream(delegate);
+	}
+
+	@Override
+	public BufferedReader getReader() throws IOException {
+		return new BufferedReader(new InputStreamReader(getInputStream(), charset));
 	}
 
+	/** Removes the temporary file of a spilled body. */
 	@Override
-	public BufferedReader getReader() {
-		return new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
+	public void close() throws IOException {
+		if (spillFile != null) {
+			Files.deleteIfExists(spillFile);
+		}
+	}
+
+	private static Charset resolveCharset(String encoding) {
+		if (encoding == null) {
+			return StandardCharsets.UTF_8;
+		}
+		try {
+			return Charset.forName(encoding);
+		} catch (IllegalCharsetNameException | UnsupportedCharsetException e) {
+			return StandardCharsets.UTF_8;
+		}
+	}
+
+	public static class BodyTooLargeException extends IOException {
+		@Getter
+		private final long maxBodySize;
+
+		public BodyTooLargeException(long maxBodySize) {
+			super("Request body exceeds the maximum size of " + maxBodySize + " bytes");
+			this.maxBodySize = maxBodySize;
+		}
+	}
+
+	/** Hands out the internal buffer instead of the copy made by {@link #toByteArray()}. */
+	private static class ExposedByteArrayOutputStream extends ByteArrayOutputStream {
+		ExposedByteArrayOutputStream(int size) {
+			super(size);
+		}
+
+		byte[] buffer() {
+			return buf;
+		}
+	}
+
+	private static class BufferedBodyInputStream extends ServletInputStream {
+		private final InputStream delegate;
+		private boolean finished;
+
+		BufferedBodyInputStream(InputStream delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public boolean isFinished() {
+			return finished;
+		}
+
+		@Override
+		public boolean isReady() {
+			return true;
+		}
+
+		@Override
+		public void setReadListener(ReadListener readListener) {
+			// Not needed for this use case
+		}
+
+		@Override
+		public int read() throws IOException {
+			int value = delegate.read();
+			finished = value == -1;
+			return value;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			int read = delegate.read(b, off, len);
+			finished = read == -1;
+			return read;
+		}
+
+		@Override
+		public int available() throws IOException {
+			return delegate.available();
+		}
+
+		@Override
+		public long skip(long n) throws IOException {
+			return delegate.skip(n);
+		}
+
+		@Override
+		public void close() throws IOException {
+			delegate.close();
+		}
 	}
 }
@@ -30,7 +30,6 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.hl7.fhir.r4.model.Appointment;
 import org.hl7.fhir.r4.model.OperationOutcome;
-import org.hl7.fhir.r4.model.Parameters;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
@@ -47,32 +46,43 @@ public class AppointmentPatchHandler {
 	private static final String APPOINTMENT_END = "Appointment.end";
 	private static final String APPOINTMENT_PATIENT = "Appointment.participant.actor.where(resolve() is Patient)";
 
-	public OperationOutcome handle(Parameters parameters, RequestDetails requestDetails) {
+	/**
+	 * Checks the PATCH operations that can be checked without the original Appointment.
+	 */
+	public OperationOutcome validateOperations(PatchOperations operations) {
 		OperationOutcome outcome = new OperationOutcome();
-		String originalAppointmentId = String.valueOf(requestDetails.getId());
-		Appointment originalAppointment =
-				appointmentPatchHandlerHelper.getOriginalAppointment(originalAppointmentId, requestDetails);
+		appointmentPatchHandlerHelper.validateParametersOfTypeReplace(operations, outcome);
+		return outcome;
+	}
 
-		appointmentPatchHandlerHelper.validateParametersOfTypeReplace(parameters, outcome);
+	/**
+	 * Checks that the PATCH operations do not change the slot, the period or the patient of the
+	 * Appointment.
+	 *
+	 * @param originalAppointment the Appointment before the PATCH, as read by the PATCH itself
+	 */
+	public OperationOutcome validateAgainstOriginal(
+			PatchOperations operations, Appointment originalAppointment, RequestDetails requestDetails) {
+		OperationOutcome outcome = new OperationOutcome();
 
-		if (appointmentPatchHandlerHelper.isParameterPresent(parameters, APPOINTMENT_SLOT)) {
-			String patchSlotId = appointmentPatchHandlerHelper.getReferenceFromParameters(parameters, APPOINTMENT_SLOT);
+		if (operations.contains(APPOINTMENT_SLOT)) {
+			String patchSlotId = appointmentPatchHandlerHelper.getReferenceFromParameters(operations, APPOINTMENT_SLOT);
 			appointmentPatchHandlerHelper.validateSlotReferenceUnchanged(patchSlotId, originalAppointment, outcome);
 		}
 
-		if (appointmentPatchHandlerHelper.isParameterPresent(parameters, APPOINTMENT_START)) {
-			String patchStart = appointmentPatchHandlerHelper.getDateFromParameters(parameters, APPOINTMENT_START);
+		if (operations.contains(APPOINTMENT_START)) {
+			String patchStart = appointmentPatchHandlerHelper.getDateFromParameters(operations, APPOINTMENT_START);
 			appointmentPatchHandlerHelper.validateStartUnchanged(patchStart, originalAppointment, outcome);
 		}
 
-		if (appointmentPatchHandlerHelper.isParameterPresent(parameters, APPOINTMENT_END)) {
-			String patchEnd = appointmentPatchHandlerHelper.getDateFromParameters(parameters, APPOINTMENT_END);
+		if (operations.contains(APPOINTMENT_END)) {
+			String patchEnd = appointmentPatchHandlerHelper.getDateFromParameters(operations, APPOINTMENT_END);
 			appointmentPatchHandlerHelper.validateEndUnchanged(patchEnd, originalAppointment, outcome);
 		}
 
-		if (appointmentPatchHandlerHelper.isParameterPresent(parameters, APPOINTMENT_PATIENT)) {
+		if (operations.contains(APPOINTMENT_PATIENT)) {
 			String patchPatientId =
-					appointmentPatchHandlerHelper.getReferenceFromParameters(parameters, APPOINTMENT_PATIENT);
+					appointmentPatchHandlerHelper.getReferenceFromParameters(operations, APPOINTMENT_PATIENT);
 			appointmentPatchHandlerHelper.validatePatientReferenceUnchanged(
 					patchPatientId, originalAppointment, outcome);
 			appointmentPatchHandlerHelper.validateReferencedPatientActive(patchPatientId, outcome, requestDetails);
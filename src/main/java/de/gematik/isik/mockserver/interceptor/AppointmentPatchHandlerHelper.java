@@ -55,52 +55,25 @@ public class AppointmentPatchHandlerHelper {
 	@Autowired
 	private final DaoRegistry daoRegistry;
 
-	private static final String OPERATION = "operation";
-
-	public Appointment getOriginalAppointment(String id, RequestDetails requestDetails) {
-		return daoRegistry.getResourceDao(Appointment.class).read(new IdType(id), requestDetails);
+	public String getReferenceFromParameters(PatchOperations operations, String location) {
+		return operations
+				.get(location)
+				.map(operation -> extractReference(operation, location))
+				.orElseThrow(() -> missingParameter(location));
 	}
 
-	public boolean isParameterPresent(Parameters parameters, String location) {
-		return parameters.getParameter().stream()
-				.filter(param -> OPERATION.equals(param.getName()))
-				.anyMatch(operation -> operation.getPart().stream()
-						.filter(part -> "path".equals(part.getName()))
-						.filter(part -> part.getValue() instanceof StringType)
-						.anyMatch(part -> location.equals(((StringType) part.getValue()).getValue())));
+	public String getDateFromParameters(PatchOperations operations, String location) {
+		return operations
+				.get(location)
+				.map(operation -> extractDate(operation, location))
+				.orElseThrow(() -> missingParameter(location));
 	}
 
-	public String getReferenceFromParameters(Parameters parameters, String location) {
-		for (Parameters.ParametersParameterComponent operation : parameters.getParameter()) {
-			if (isOperationForSpecifiedLocation(operation, location)) {
-				return extractReference(operation, location);
-			}
-		}
-		throw new IllegalArgumentException(String.format(
+	private static IllegalArgumentException missingParameter(String location) {
+		return new IllegalArgumentException(String.format(
 				"The '%s' parameter is missing or invalid in the provided Parameters resource.", location));
 	}
 
-	public String getDateFromParameters(Parameters parameters, String location) {
-		for (Parameters.ParametersParameterComponent operation : parameters.getParameter()) {
-			if (isOperationForSpecifiedLocation(operation, location)) {
-				return extractDate(operation, location);
-			}
-		}
-		throw new IllegalArgumentException(String.format(
-				"The '%s' parameter is missing or invalid in the provided Parameters resource.", location));
-	}
-
-	private boolean isOperationForSpecifiedLocation(
-			Parameters.ParametersParameterComponent operation, String location) {
-		if (!OPERATION.equals(operation.getName())) {
-			return false;
-		}
-		return operation.getPart().stream()
-				.anyMatch(part -> "path".equals(part.getName())
-						&& part.getValue() instanceof StringType stringType
-						&& location.equals(stringType.getValue()));
-	}
-
 	private String extractReference(Parameters.ParametersParameterComponent operation, String location) {
 		return operation.getPart().stream()
 				.filter(part -> "value".equals(part.getName()) && part.getValue() instanceof Reference)
@@ -219,11 +192,8 @@ public class AppointmentPatchHandlerHelper {
 				.findFirst();
 	}
 
-	public void validateParametersOfTypeReplace(Parameters parameters, OperationOutcome outcome) {
-		for (Parameters.ParametersParameterComponent operation : parameters.getParameter()) {
-			if (!OPERATION.equals(operation.getName())) {
-				continue;
-			}
+	public void validateParametersOfTypeReplace(PatchOperations operations, OperationOutcome outcome) {
+		for (Parameters.ParametersParameterComponent operation : operations.getOperations()) {
 			Optional<String> typeOpt = extractPartValue(operation, "type");
 			if (typeOpt.isPresent() && !"replace".equals(typeOpt.get())) {
 				String typeValue = typeOpt.get();
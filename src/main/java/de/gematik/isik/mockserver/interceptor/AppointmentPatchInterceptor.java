@@ -32,7 +32,11 @@ import ca.uhn.fhir.interceptor.api.Pointcut;
 import ca.uhn.fhir.parser.IParser;
 import ca.uhn.fhir.rest.api.EncodingEnum;
 import ca.uhn.fhir.rest.api.server.RequestDetails;
+import ca.uhn.fhir.rest.server.exceptions.InvalidRequestException;
 import de.gematik.isik.mockserver.helper.OperationOutcomeUtils;
+import de.gematik.isik.mockserver.helper.ParsedRequestBody;
+import de.gematik.isik.mockserver.helper.RequestClassifier;
+import de.gematik.isik.mockserver.helper.RequestDescriptor;
 import de.gematik.isik.mockserver.helper.ResponseUtils;
 import de.gematik.isik.mockserver.helper.ReusableRequestWrapper;
 import jakarta.servlet.http.HttpServletRequest;
@@ -40,6 +44,7 @@ import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.hl7.fhir.r4.model.Appointment;
 import org.hl7.fhir.r4.model.OperationOutcome;
 import org.hl7.fhir.r4.model.Parameters;
 import org.springframework.stereotype.Component;
@@ -52,6 +57,10 @@ import java.io.IOException;
 @RequiredArgsConstructor
 public class AppointmentPatchInterceptor {
 
+	static final String PATCH_OPERATIONS = AppointmentPatchInterceptor.class.getName() + ".operations";
+	private static final String INVALID_PATCH_MESSAGE =
+			"The PATCH Parameters for the specified Appointment are invalid. The PATCH won`t be applied.";
+
 	private final AppointmentPatchHandler appointmentPatchHandler;
 	private final FhirContext ctx;
 
@@ -61,33 +70,29 @@ public class AppointmentPatchInterceptor {
 			final HttpServletResponse theResponse,
 			final RequestDetails theRequestDetails)
 			throws IOException {
-		String httpMethod = theRequest.getMethod();
-		if (!"PATCH".equalsIgnoreCase(httpMethod)) {
+		RequestDescriptor descriptor = RequestClassifier.classify(theRequest);
+		if (!descriptor.isVerb("PATCH")) {
 			return true;
 		}
 
-		String pathInfo = theRequest.getPathInfo();
-		if (pathInfo.matches("^/Appointment/[^/]+$")) {
+		if (descriptor.isInstance("Appointment") && theRequest instanceof ReusableRequestWrapper requestWrapper) {
 			log.info("Incoming Appointment PATCH...");
-			String body = ((ReusableRequestWrapper) theRequest).getBody();
-			EncodingEnum encoding = EncodingEnum.detectEncoding(body);
-			IParser parser = encoding.newParser(ctx);
+			ParsedRequestBody parsedBody = requestWrapper.getParsedBody(ctx);
+			EncodingEnum encoding = parsedBody.getEncoding();
+			IParser parser = parsedBody.getParser();
 
-			IBaseResource resource = parser.parseResource(body);
+			IBaseResource resource = parsedBody.getResource();
 			if (resource instanceof Parameters updateAppointmentParameters) {
-				OperationOutcome result =
-						appointmentPatchHandler.handle(updateAppointmentParameters, theRequestDetails);
+				PatchOperations operations = PatchOperations.of(updateAppointmentParameters);
+				OperationOutcome result = appointmentPatchHandler.validateOperations(operations);
 
 				if (OperationOutcomeUtils.hasErrorIssue(result)) {
 					ResponseUtils.sendValidationErrorResponse(
-							theResponse,
-							400,
-							result,
-							"The PATCH Parameters for the specified Appointment are invalid. The PATCH won`t be applied.",
-							parser,
-							encoding);
+							theResponse, 400, result, INVALID_PATCH_MESSAGE, parser, encoding);
 					return false;
 				}
+				// Note: the checks against the original Appointment run when the PATCH has read it
+				theRequestDetails.getUserData().put(PATCH_OPERATIONS, operations);
 			} else {
 				OperationOutcome outcome = new OperationOutcome();
 				outcome.addIssue()
@@ -102,4 +107,24 @@ public class AppointmentPatchInterceptor {
 		}
 		return true;
 	}
+
+	/**
+	 * Checks the PATCH against the Appointment read by HAPI's PATCH, so that the Appointment is read
+	 * only once. Runs in the transaction of the PATCH, which is rolled back if a check fails.
+	 */
+	@Hook(Pointcut.STORAGE_PRESTORAGE_RESOURCE_UPDATED)
+	public void appointmentUpdated(
+			IBaseResource oldResource, IBaseResource newResource, RequestDetails theRequestDetails) {
+		if (theRequestDetails == null
+				|| !(oldResource instanceof Appointment originalAppointment)
+				|| !(theRequestDetails.getUserData().get(PATCH_OPERATIONS) instanceof PatchOperations operations)) {
+			return;
+		}
+		OperationOutcome result =
+				appointmentPatchHandler.validateAgainstOriginal(operations, originalAppointment, theRequestDetails);
+		if (OperationOutcomeUtils.hasErrorIssue(result)) {
+			log.info("{}. Cause: {}", INVALID_PATCH_MESSAGE, result.getIssueFirstRep().getDiagnostics());
+			throw new InvalidRequestException(INVALID_PATCH_MESSAGE, result);
+		}
+	}
 }
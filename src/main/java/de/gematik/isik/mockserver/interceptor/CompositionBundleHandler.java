@@ -29,11 +29,10 @@ import ca.uhn.fhir.context.FhirContext;
 import ca.uhn.fhir.context.FhirVersionEnum;
 import ca.uhn.fhir.jpa.api.dao.IFhirResourceDao;
 import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
-import ca.uhn.fhir.parser.IParser;
 import ca.uhn.fhir.rest.param.TokenParam;
 import ca.uhn.fhir.rest.server.exceptions.PreconditionFailedException;
-import ca.uhn.fhir.rest.server.exceptions.UnprocessableEntityException;
 import lombok.extern.slf4j.Slf4j;
+import org.hl7.fhir.instance.model.api.IBaseResource;
 import org.hl7.fhir.r4.model.Bundle;
 import org.hl7.fhir.r4.model.Bundle.BundleEntryComponent;
 import org.hl7.fhir.r4.model.Composition;
@@ -67,26 +66,18 @@ public class CompositionBundleHandler {
 	@Value("${server.port}")
 	private int serverPort = 9032;
 
-	public boolean isDocBundle(final String request) {
-
-		final IParser parser = xmlOrJson(request);
-		final Resource iBaseResource = (Resource) parser.parseResource(request);
-		if (iBaseResource.getResourceType() != ResourceType.Bundle) {
-			return false;
-		}
-		return (((Bundle) iBaseResource).getType() == Bundle.BundleType.DOCUMENT);
+	public boolean isDocBundle(final IBaseResource resource) {
+		return resource instanceof Bundle bundle && bundle.getType() == Bundle.BundleType.DOCUMENT;
 	}
 
-	public CompositionHandlerReturnObject handleDocBundle(final String request) {
-		final IParser parser = xmlOrJson(request);
-		final Resource iBaseResource = (Resource) parser.parseResource(request);
-		if (iBaseResource.getResourceType() != ResourceType.Bundle) {
+	public CompositionHandlerReturnObject handleDocBundle(final IBaseResource resource) {
+		if (!(resource instanceof Bundle)) {
 			throw new PreconditionFailedException("Resource was not of type Bundle");
 		}
-		if (((Bundle) iBaseResource).getType() != Bundle.BundleType.DOCUMENT) {
+		if (!isDocBundle(resource)) {
 			throw new PreconditionFailedException("Bundle was not a document Bundle");
 		}
-		final Bundle docBundle = (Bundle) iBaseResource;
+		final Bundle docBundle = (Bundle) resource;
 		final Composition composition = (Composition) getResourceTypeFromBundle(docBundle, ResourceType.Composition);
 		final Patient patient = (Patient) getResourceTypeFromBundle(docBundle, ResourceType.Patient);
 		final Identifier patIdentifier = patient.getIdentifierFirstRep();
@@ -188,13 +179,4 @@ public class CompositionBundleHandler {
 			return true;
 		}
 	}
-
-	private IParser xmlOrJson(final String str) {
-		if (str.startsWith("<")) {
-			return ctx.newXmlParser();
-		} else if (str.startsWith("{")) {
-			return ctx.newJsonParser();
-		}
-		throw new UnprocessableEntityException("String [" + str + "] was neither json nor XML");
-	}
 }
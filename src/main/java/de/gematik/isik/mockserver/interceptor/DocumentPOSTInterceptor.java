@@ -30,10 +30,11 @@ import ca.uhn.fhir.interceptor.api.Hook;
 import ca.uhn.fhir.interceptor.api.Interceptor;
 import ca.uhn.fhir.interceptor.api.Pointcut;
 import ca.uhn.fhir.rest.server.exceptions.PreconditionFailedException;
+import de.gematik.isik.mockserver.helper.RequestClassifier;
+import de.gematik.isik.mockserver.helper.ReusableRequestWrapper;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.lang3.StringUtils;
 import org.apache.http.HttpHeaders;
 import org.hl7.fhir.r4.model.OperationOutcome;
 import org.hl7.fhir.r4.model.OperationOutcome.IssueSeverity;
@@ -42,7 +43,6 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
-import java.util.stream.Collectors;
 
 @Slf4j
 @Interceptor
@@ -62,14 +62,16 @@ public class DocumentPOSTInterceptor {
 	@Hook(Pointcut.SERVER_INCOMING_REQUEST_PRE_PROCESSED)
 	public boolean incomingRequestPreProcessed(
 			final HttpServletRequest theRequest, final HttpServletResponse theResponse) throws IOException {
-		if (StringUtils.isEmpty(theRequest.getPathInfo())
-				|| theRequest.getPathInfo().equals("/")) {
-			final String body = theRequest.getReader().lines().collect(Collectors.joining(System.lineSeparator()));
-			if (!body.isBlank() && compositionHandler.isDocBundle(body)) {
+		if (RequestClassifier.classify(theRequest).isSystemLevel()) {
+			if (theRequest instanceof ReusableRequestWrapper requestWrapper
+					&& !requestWrapper.getBody().isBlank()
+					&& compositionHandler.isDocBundle(
+							requestWrapper.getParsedBody(ctx).getResource())) {
 				checkMimeType(theRequest);
 				try {
 					theResponse.setContentType("application/json");
-					final CompositionHandlerReturnObject returnObject = compositionHandler.handleDocBundle(body);
+					final CompositionHandlerReturnObject returnObject = compositionHandler.handleDocBundle(
+							requestWrapper.getParsedBody(ctx).copyResource());
 					theResponse.getWriter().print(returnObject.getOperationOutcome());
 					if (returnObject.isOperationSuccessful()) {
 						theResponse.setStatus(HttpServletResponse.SC_CREATED);
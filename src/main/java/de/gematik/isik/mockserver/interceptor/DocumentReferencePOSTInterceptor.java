@@ -29,9 +29,9 @@ import ca.uhn.fhir.context.FhirContext;
 import ca.uhn.fhir.interceptor.api.Hook;
 import ca.uhn.fhir.interceptor.api.Interceptor;
 import ca.uhn.fhir.interceptor.api.Pointcut;
-import ca.uhn.fhir.parser.IParser;
-import ca.uhn.fhir.rest.api.EncodingEnum;
 import ca.uhn.fhir.rest.api.server.RequestDetails;
+import de.gematik.isik.mockserver.helper.RequestClassifier;
+import de.gematik.isik.mockserver.helper.RequestDescriptor;
 import de.gematik.isik.mockserver.helper.ReusableRequestWrapper;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
@@ -53,13 +53,11 @@ public class DocumentReferencePOSTInterceptor {
 	public void incomingRequestPreProcessed(
 			final HttpServletRequest theRequest, final RequestDetails theRequestDetails) {
 
-		String httpMethod = theRequest.getMethod();
-		if ("POST".equalsIgnoreCase(httpMethod) && theRequest.getRequestURI().matches(".*/DocumentReference/?$")) {
-			String body = ((ReusableRequestWrapper) theRequest).getBody();
-			EncodingEnum encoding = EncodingEnum.detectEncoding(body);
-			IParser parser = encoding.newParser(ctx);
-
-			IBaseResource resource = parser.parseResource(body);
+		RequestDescriptor descriptor = RequestClassifier.classify(theRequest);
+		if (descriptor.isVerb("POST")
+				&& descriptor.isType("DocumentReference")
+				&& theRequest instanceof ReusableRequestWrapper requestWrapper) {
+			IBaseResource resource = requestWrapper.getParsedBody(ctx).getResource();
 			if (resource instanceof DocumentReference documentReference && documentReference.hasRelatesTo()) {
 				documentReferenceHelper.processRelatesTo(documentReference, theRequestDetails);
 			}
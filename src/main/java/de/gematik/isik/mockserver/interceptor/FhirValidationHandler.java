@@ -25,30 +25,28 @@ package de.gematik.isik.mockserver.interceptor;
  * #L%
  */
 
-import ca.uhn.fhir.validation.SingleValidationMessage;
+import de.gematik.isik.mockserver.interceptor.FhirValidationRunner.ValidationRun;
 import de.gematik.isik.mockserver.refv.PluginLoader;
 import de.gematik.isik.mockserver.refv.PluginMappingResolver;
+import de.gematik.isik.mockserver.refv.PluginRoutingIndex.ResourceTypeRoute;
 import de.gematik.refv.Plugin;
-import de.gematik.refv.SupportedValidationModule;
 import de.gematik.refv.commons.exceptions.ValidationModuleInitializationException;
-import de.gematik.refv.commons.validation.ValidationModule;
 import de.gematik.refv.commons.validation.ValidationOptions;
 import de.gematik.refv.commons.validation.ValidationResult;
 import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.hl7.fhir.instance.model.api.IPrimitiveType;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Optional;
-import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import static de.gematik.isik.mockserver.interceptor.FhirValidationHandlerHelper.ISIK_5_PLUGIN_ID;
-import static de.gematik.isik.mockserver.interceptor.FhirValidationHandlerHelper.ISIK_LEGACY_PROFILE_VERSION;
-import static de.gematik.isik.mockserver.interceptor.FhirValidationUtils.getValidationResult;
 
 @Component
 @RequiredArgsConstructor
@@ -58,9 +56,54 @@ public class FhirValidationHandler {
 	private final PluginMappingResolver pluginMappingResolver;
 	private final PluginLoader pluginLoader;
 	private final FhirValidationBundleHandler fhirValidationBundleHandler;
+	private final ValidationModuleCache validationModuleCache;
+	private final ValidationResultCache validationResultCache;
+	private final ValidationExecutor validationExecutor;
+	private final FhirValidationRunner fhirValidationRunner;
 
 	public ValidationResult validateResource(IBaseResource resource, String body)
 			throws ValidationModuleInitializationException {
+		final List<String> profiles = resource.getMeta().getProfile().stream()
+				.map(IPrimitiveType::getValue)
+				.toList();
+		final String pluginFingerprint = pluginLoader.getFingerprint();
+		final String cacheKey = validationResultCache.createKey(body, profiles, pluginFingerprint);
+
+		Optional<ValidationResult> cachedResult = validationResultCache.get(cacheKey, pluginFingerprint);
+		if (cachedResult.isPresent()) {
+			log.info("Using cached validation result...");
+			return cachedResult.get();
+		}
+
+		ValidationResult validationResult;
+		try {
+			validationResult = validateUncached(resource, body);
+		} catch (CompletionException e) {
+			throw unwrap(e);
+		}
+		validationResultCache.put(cacheKey, validationResult);
+		return validationResult;
+	}
+
+	/**
+	 * Returns the exception a validation on the validation executor failed with, so that callers see the
+	 * same exceptions (e.g. a {@link java.util.concurrent.RejectedExecutionException} or a {@link
+	 * ca.uhn.fhir.rest.server.exceptions.BaseServerResponseException}) as if it had run on their thread.
+	 */
+	private static RuntimeException unwrap(CompletionException exception)
+			throws ValidationModuleInitializationException {
+		Throwable cause = exception;
+		while (cause instanceof CompletionException && cause.getCause() != null) {
+			cause = cause.getCause();
+		}
+		if (cause instanceof ValidationModuleInitializationException initializationException) {
+			throw initializationException;
+		}
+		return cause instanceof RuntimeException runtimeException ? runtimeException : exception;
+	}
+
+	private ValidationResult validateUncached(IBaseResource resource, String body)
+			throws ValidationModuleInitializationException {
 		if (!resource.getMeta().getProfile().isEmpty()) {
 			log.info("Validating resource using meta.profile...");
 			return validateResourceWithProfile(resource, body);
@@ -79,8 +122,11 @@ public class FhirValidationHandler {
 		final String pluginId = pluginMappingResolver.getPluginIdFromProfile(profileToUse);
 		final Plugin plugin = pluginLoader.getPlugin(pluginId);
 
-		var validationModule = fhirValidationBundleHandler.getOrCreateModule(plugin);
-		return validationModule.validateString(body);
+		var pool = validationModuleCache.getOrCreate(plugin);
+
+		return validationExecutor
+				.submit(pool.getId(), () -> validateWithPool(pool, body))
+				.join();
 	}
 
 	private ValidationResult validateResourceWithResourceType(IBaseResource resource, String body)
@@ -89,68 +135,58 @@ public class FhirValidationHandler {
 		if (resourceType == null || resourceType.isEmpty()) {
 			resourceType = FhirValidationHandlerHelper.getResourceType(body);
 		}
-		List<String> pluginIds = pluginMappingResolver.getPluginIdsFromResourceType(resourceType);
-		List<String> profileUrls = pluginMappingResolver.getProfileUrlsFromResourceType(resourceType);
+		ResourceTypeRoute route = pluginMappingResolver.getRoute(resourceType);
 		List<Plugin> plugins;
 
-		if (pluginIds.isEmpty() || !pluginLoader.isEnabled()) {
+		if (route.pluginIds().isEmpty() || !pluginLoader.isEnabled()) {
 			return validateResourceWithCoreModule(resourceType, body);
 		}
 
-		plugins =
-				new ArrayList<>(pluginIds.stream().map(pluginLoader::getPlugin).toList());
+		plugins = new ArrayList<>(
+				route.pluginIds().stream().map(pluginLoader::getPlugin).toList());
 
 		if (resourceType.equals("Bundle")) {
-			return fhirValidationBundleHandler.validateBundleResourceWithPlugins(body, plugins, profileUrls);
+			return fhirValidationBundleHandler.validateBundleResourceWithPlugins(body, plugins, route);
 		} else {
-			List<ValidationOptions> validationOptionsList = profileUrls.stream()
-					.map(profileUrl -> {
-						ValidationOptions validationOptions = ValidationOptions.getDefaults();
-						validationOptions.setProfiles(Collections.singletonList(profileUrl));
-						return validationOptions;
-					})
-					.toList();
-
-			return validateResourceWithPlugins(body, plugins, validationOptionsList);
+			return validateResourceWithPlugins(body, plugins, route);
 		}
 	}
 
 	private ValidationResult validateResourceWithCoreModule(String resourceType, String body)
 			throws ValidationModuleInitializationException {
 		log.info("Validating resource using FHIR core validation module...");
-		String profileUrl = "http://hl7.org/fhir/StructureDefinition/" + resourceType;
-		ValidationOptions validationOptions = ValidationOptions.getDefaults();
-		validationOptions.setProfiles(Collections.singletonList(profileUrl));
-		var coreModule = FhirValidationHandlerHelper.createFromModule(SupportedValidationModule.CORE);
+		ValidationOptions validationOptions =
+				createValidationOptions("http://hl7.org/fhir/StructureDefinition/" + resourceType);
+		var corePool = validationModuleCache.getOrCreateCoreModule();
+
+		return validationExecutor
+				.submit(corePool.getId(), () -> validateWithPool(corePool, body, validationOptions))
+				.join();
+	}
 
-		return coreModule.validateString(body, validationOptions);
+	@SneakyThrows
+	private static ValidationResult validateWithPool(ValidationModulePool pool, String body) {
+		return pool.execute(module -> module.validateString(body));
 	}
 
-	private ValidationResult validateResourceWithPlugins(
-			String body, List<Plugin> plugins, List<ValidationOptions> validationOptionsList)
+	@SneakyThrows
+	private static ValidationResult validateWithPool(
+			ValidationModulePool pool, String body, ValidationOptions validationOptions) {
+		return pool.execute(module -> module.validateString(body, validationOptions));
+	}
+
+	private ValidationResult validateResourceWithPlugins(String body, List<Plugin> plugins, ResourceTypeRoute route)
 			throws ValidationModuleInitializationException {
 
 		// Handle ISiK5 validation separately, especially for use-cases where Profiles are only known to
 		// Isik5 (e.g. Location)
-		final var isik5ValidationMessages = new LinkedList<SingleValidationMessage>();
-		final var allValidationMessages = new LinkedList<SingleValidationMessage>();
-
-		// Validate with ISiK5 first
 		final var isik5Plugin = FhirValidationHandlerHelper.findPlugin(plugins, ISIK_5_PLUGIN_ID);
-		final var isik5ValidationOptions =
-				FhirValidationHandlerHelper.filterOutByProfile(validationOptionsList, ISIK_LEGACY_PROFILE_VERSION);
-
-		if (isik5Plugin.isPresent() && !isik5ValidationOptions.isEmpty()) {
-			log.info("Validating resource using ISiK5 plugin first...");
-			final var isik5ValidationModule = fhirValidationBundleHandler.getOrCreateModule(isik5Plugin.get());
-			final var validationResult = FhirValidationHandlerHelper.performValidation(
-					body, isik5ValidationModule, isik5ValidationOptions.getFirst());
-			if (validationResult.isValid()) {
-				return validationResult;
-			}
 
-			log.warn("ISiK5 validation found issues, proceeding with legacy modules...");
-			isik5ValidationMessages.addAll(validationResult.getValidationMessages());
+		ValidationRun isik5Run = null;
+		if (isik5Plugin.isPresent() && !route.isik5ProfileUrls().isEmpty()) {
+			isik5Run = new ValidationRun(
+					validationModuleCache.getOrCreate(isik5Plugin.get()),
+					createValidationOptions(route.isik5ProfileUrls().getFirst()));
 		}
 
 		// Remove ISiK5 plugin from the list to avoid duplicate validation
@@ -162,37 +198,25 @@ public class FhirValidationHandler {
 			fallbackPlugins = plugins;
 		}
 
-		List<ValidationModule> fallbackModules = new ArrayList<>();
+		List<ValidationModulePool> fallbackModules = new ArrayList<>();
 		for (Plugin plugin : fallbackPlugins) {
-			fallbackModules.add(fhirValidationBundleHandler.getOrCreateModule(plugin));
+			fallbackModules.add(validationModuleCache.getOrCreate(plugin));
 		}
 
-		// Only ISiK 3 Profiles must be considered
-		List<ValidationOptions> fallbackValidationOptions =
-				FhirValidationHandlerHelper.findByProfile(validationOptionsList, ISIK_LEGACY_PROFILE_VERSION);
-
 		// Validate with remaining modules using v3 profiles only
-		List<CompletableFuture<ValidationResult>> futures = new ArrayList<>();
-		for (ValidationModule module : fallbackModules) {
-			for (ValidationOptions options : fallbackValidationOptions) {
-				futures.add(CompletableFuture.supplyAsync(() -> {
-					var result = module.validateString(body, options);
-					synchronized (allValidationMessages) {
-						if (!result.isValid()) {
-							allValidationMessages.addAll(result.getValidationMessages());
-						}
-					}
-					return result;
-				}));
+		List<ValidationRun> legacyRuns = new ArrayList<>();
+		for (ValidationModulePool module : fallbackModules) {
+			for (String legacyProfileUrl : route.legacyProfileUrls()) {
+				legacyRuns.add(new ValidationRun(module, createValidationOptions(legacyProfileUrl)));
 			}
 		}
 
-		// Keep until Isik5 and Isik3 validators are part of this server (dual-mode)
-		// Report Isik5 errors only if also Isik3 validation found errors
-		if (!allValidationMessages.isEmpty()) {
-			allValidationMessages.addAll(isik5ValidationMessages);
-		}
+		return fhirValidationRunner.validate(body, isik5Run, legacyRuns);
+	}
 
-		return getValidationResult(allValidationMessages, futures);
+	private static ValidationOptions createValidationOptions(String profileUrl) {
+		ValidationOptions validationOptions = ValidationOptions.getDefaults();
+		validationOptions.setProfiles(Collections.singletonList(profileUrl));
+		return validationOptions;
 	}
 }
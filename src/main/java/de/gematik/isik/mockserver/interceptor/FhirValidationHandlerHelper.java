@@ -87,34 +87,6 @@ public class FhirValidationHandlerHelper {
 				.toList();
 	}
 
-	/**
-	 * Finds ValidationOptions by evaluating if the Profile URL contains the given search parameter.
-	 *
-	 * @param validationOptions the list of ValidationOptions to search
-	 * @param searchParameter the search parameter to look for in the Profile URL
-	 * @return a list of ValidationOptions that match the search criteria
-	 */
-	public List<ValidationOptions> findByProfile(List<ValidationOptions> validationOptions, String searchParameter) {
-		return validationOptions.stream()
-				.filter(options -> options.getProfiles().getFirst().contains(searchParameter))
-				.toList();
-	}
-
-	/**
-	 * Retrieves ValidationOptions by evaluating if the Profile URL does not contain the given search
-	 * parameter.
-	 *
-	 * @param validationOptions the list of ValidationOptions to filter
-	 * @param searchParameter the search parameter to look for in the Profile URL
-	 * @return a list of ValidationOptions that do not match the search criteria
-	 */
-	public List<ValidationOptions> filterOutByProfile(
-			List<ValidationOptions> validationOptions, String searchParameter) {
-		return validationOptions.stream()
-				.filter(options -> !options.getProfiles().getFirst().contains(searchParameter))
-				.toList();
-	}
-
 	/**
 	 * Creates a ValidationModule from the given Plugin.
 	 *
@@ -32,6 +32,8 @@ import ca.uhn.fhir.interceptor.api.Pointcut;
 import ca.uhn.fhir.parser.IParser;
 import ca.uhn.fhir.rest.api.EncodingEnum;
 import ca.uhn.fhir.validation.ResultSeverityEnum;
+import de.gematik.isik.mockserver.helper.ParsedRequestBody;
+import de.gematik.isik.mockserver.helper.RequestClassifier;
 import de.gematik.isik.mockserver.helper.ResponseUtils;
 import de.gematik.isik.mockserver.helper.ReusableRequestWrapper;
 import de.gematik.isik.mockserver.helper.ValidationResultFilter;
@@ -42,12 +44,12 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.lang3.StringUtils;
 import org.hl7.fhir.instance.model.api.IBaseResource;
 import org.hl7.fhir.r4.model.OperationOutcome;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
+import java.util.concurrent.RejectedExecutionException;
 
 @Slf4j
 @Interceptor
@@ -55,6 +57,8 @@ import java.io.IOException;
 @RequiredArgsConstructor
 public class FhirValidationInterceptor {
 
+	private static final int RETRY_AFTER_SECONDS = 1;
+
 	private final FhirValidationHandler validationHandler;
 	private final FhirContext ctx;
 
@@ -63,36 +67,46 @@ public class FhirValidationInterceptor {
 			final HttpServletRequest theRequest, final HttpServletResponse theResponse)
 			throws IOException, ValidationModuleInitializationException {
 
-		String httpMethod = theRequest.getMethod();
-		if (!("POST".equalsIgnoreCase(httpMethod) || "PUT".equalsIgnoreCase(httpMethod))) {
+		// raw content (e.g. Binary uploads) is not buffered and not validated
+		if (!RequestClassifier.classify(theRequest).isWrite()
+				|| !(theRequest instanceof ReusableRequestWrapper requestWrapper)) {
 			return true;
 		}
 
-		if (StringUtils.isEmpty(theRequest.getPathInfo())
-				|| theRequest.getPathInfo().startsWith("/")) {
-			String body = ((ReusableRequestWrapper) theRequest).getBody();
-			EncodingEnum encoding = EncodingEnum.detectEncoding(body);
-			IParser parser = encoding.newParser(ctx);
+		String body = requestWrapper.getBody();
+		ParsedRequestBody parsedBody = requestWrapper.getParsedBody(ctx);
+		EncodingEnum encoding = parsedBody.getEncoding();
+		IParser parser = parsedBody.getParser();
 
-			IBaseResource resource = parser.parseResource(body);
-			ValidationResult validationResult = validationHandler.validateResource(resource, body);
-			ValidationResult filteredResult = ValidationResultFilter.filter(validationResult);
+		IBaseResource resource = parsedBody.getResource();
+		ValidationResult validationResult;
+		try {
+			validationResult = validationHandler.validateResource(resource, body);
+		} catch (RejectedExecutionException e) {
+			ResponseUtils.sendServiceUnavailableResponse(
+					theResponse,
+					"The server is currently validating too many resources, please retry later",
+					RETRY_AFTER_SECONDS,
+					parser,
+					encoding);
+			return false;
+		}
+		ValidationResult filteredResult = ValidationResultFilter.filter(validationResult);
 
-			setInvalidCodeIssuesAsWarning(filteredResult);
+		setInvalidCodeIssuesAsWarning(filteredResult);
 
-			if (!filteredResult.isValid()) {
-				OperationOutcome result =
-						new ValidationResultToOperationOutcomeConverter(ctx).toOperationOutcome(filteredResult);
-				ResponseUtils.sendValidationErrorResponse(
-						theResponse,
-						400,
-						result,
-						"The fhir resource inside the request is invalid. It will not be saved.",
-						parser,
-						encoding);
+		if (!filteredResult.isValid()) {
+			OperationOutcome result =
+					new ValidationResultToOperationOutcomeConverter(ctx).toOperationOutcome(filteredResult);
+			ResponseUtils.sendValidationErrorResponse(
+					theResponse,
+					400,
+					result,
+					"The fhir resource inside the request is invalid. It will not be saved.",
+					parser,
+					encoding);
 
-				return false;
-			}
+			return false;
 		}
 
 		return true;
@@ -0,0 +1,179 @@
+package de.gematik.isik.mockserver.interceptor;
+
+/*-
+ * #%L
+ * isik-mock-server
+ * %%
+ * Copyright (C) 2025 - 2026 gematik GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ * #L%
+ */
+
+import de.gematik.refv.commons.validation.ValidationModule;
+import de.gematik.refv.commons.validation.ValidationOptions;
+import de.gematik.refv.commons.validation.ValidationResult;
+import lombok.Getter;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+
+/**
+ * Runs the ISiK5 validation and the ISiK3 (legacy) validations of a request body.
+ *
+ * <ul>
+ *   <li>{@link Mode#SEQUENTIAL} (default): ISiK5 is validated first, the legacy modules are only
+ *       started if ISiK5 found issues.
+ *   <li>{@link Mode#PARALLEL}: all modules are started at once. The first valid result wins, the
+ *       remaining validations are cancelled or ignored.
+ * </ul>
+ *
+ * Both modes produce the same merged result if no module reports the resource as valid, see {@link
+ * FhirValidationUtils#mergeResults(ValidationResult, List)}.
+ */
+@Slf4j
+@Component
+public class FhirValidationRunner {
+
+	public enum Mode {
+		SEQUENTIAL,
+		PARALLEL
+	}
+
+	public record ValidationRun(ValidationModulePool pool, ValidationOptions options) {}
+
+	private final ValidationExecutor validationExecutor;
+
+	@Getter
+	private final Mode mode;
+
+	public FhirValidationRunner(
+			ValidationExecutor validationExecutor, @Value("${validation.mode:sequential}") String mode) {
+		this.validationExecutor = validationExecutor;
+		this.mode = Mode.valueOf(mode.trim().toUpperCase(Locale.ROOT));
+	}
+
+	/**
+	 * Validates the body with the given ISiK5 and legacy validation runs.
+	 *
+	 * @param body the FHIR resource as a string
+	 * @param isik5Run the ISiK5 validation run, or null if ISiK5 is not applicable
+	 * @param legacyRuns the ISiK3 validation runs
+	 * @return the first valid result, or the merged result of all validations
+	 */
+	public ValidationResult validate(String body, ValidationRun isik5Run, List<ValidationRun> legacyRuns) {
+		if (mode == Mode.PARALLEL) {
+			return validateParallel(body, isik5Run, legacyRuns);
+		}
+		return validateSequential(body, isik5Run, legacyRuns);
+	}
+
+	private ValidationResult validateSequential(String body, ValidationRun isik5Run, List<ValidationRun> legacyRuns) {
+		ValidationResult isik5Result = null;
+		if (isik5Run != null) {
+			log.info("Validating resource using ISiK5 plugin first...");
+			isik5Result = submitIsik5(body, isik5Run).join();
+			if (isik5Result.isValid()) {
+				return isik5Result;
+			}
+
+			log.warn("ISiK5 validation found issues, proceeding with legacy modules...");
+		}
+
+		List<CompletableFuture<ValidationResult>> legacyFutures = submitLegacy(body, legacyRuns, List.of());
+		return FhirValidationUtils.mergeResults(
+				isik5Result, legacyFutures.stream().map(CompletableFuture::join).toList());
+	}
+
+	private ValidationResult validateParallel(String body, ValidationRun isik5Run, List<ValidationRun> legacyRuns) {
+		log.info("Validating resource using ISiK5 and legacy modules in parallel...");
+		final CompletableFuture<ValidationResult> isik5Future = isik5Run != null ? submitIsik5(body, isik5Run) : null;
+		final List<CompletableFuture<ValidationResult>> legacyFutures =
+				submitLegacy(body, legacyRuns, isik5Future != null ? List.of(isik5Future) : List.of());
+
+		final List<CompletableFuture<ValidationResult>> allFutures = new ArrayList<>(legacyFutures);
+		if (isik5Future != null) {
+			allFutures.addFirst(isik5Future);
+		}
+
+		final CompletableFuture<ValidationResult> firstValid = new CompletableFuture<>();
+		allFutures.forEach(future -> future.thenAccept(result -> {
+			if (result.isValid()) {
+				firstValid.complete(result);
+			}
+		}));
+		final CompletableFuture<Void> allDone =
+				CompletableFuture.allOf(allFutures.toArray(CompletableFuture[]::new));
+
+		// failures are reported by the join calls below, exactly as in sequential mode
+		CompletableFuture.anyOf(firstValid, allDone.exceptionally(throwable -> null))
+				.join();
+
+		if (firstValid.isDone()) {
+			allFutures.forEach(future -> future.cancel(false));
+			return firstValid.join();
+		}
+
+		final ValidationResult isik5Result = isik5Future != null ? isik5Future.join() : null;
+		if (isik5Result != null && isik5Result.isValid()) {
+			return isik5Result;
+		}
+		return FhirValidationUtils.mergeResults(
+				isik5Result, legacyFutures.stream().map(CompletableFuture::join).toList());
+	}
+
+	private CompletableFuture<ValidationResult> submitIsik5(String body, ValidationRun isik5Run) {
+		return validationExecutor.submit(
+				isik5Run.pool().getId(),
+				() -> execute(
+						isik5Run,
+						module -> FhirValidationHandlerHelper.performValidation(body, module, isik5Run.options())));
+	}
+
+	private List<CompletableFuture<ValidationResult>> submitLegacy(
+			String body, List<ValidationRun> legacyRuns, List<CompletableFuture<ValidationResult>> alreadySubmitted) {
+		final List<CompletableFuture<ValidationResult>> futures = new ArrayList<>();
+		try {
+			for (ValidationRun run : legacyRuns) {
+				futures.add(validationExecutor.submit(run.pool().getId(), () -> {
+					log.info("Validating with module: {}", run.pool().getId());
+					return execute(run, module -> module.validateString(body, run.options()));
+				}));
+			}
+		} catch (RejectedExecutionException e) {
+			// do not leave already queued validations of a rejected request behind
+			futures.forEach(future -> future.cancel(false));
+			alreadySubmitted.forEach(future -> future.cancel(false));
+			throw e;
+		}
+		return futures;
+	}
+
+	@SneakyThrows
+	private static ValidationResult execute(ValidationRun run, Function<ValidationModule, ValidationResult> validation) {
+		return run.pool().execute(validation);
+	}
+}
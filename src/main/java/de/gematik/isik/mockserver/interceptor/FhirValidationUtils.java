@@ -29,19 +29,33 @@ import ca.uhn.fhir.validation.SingleValidationMessage;
 import de.gematik.refv.commons.validation.ValidationResult;
 import lombok.experimental.UtilityClass;
 
+import java.util.LinkedList;
 import java.util.List;
-import java.util.concurrent.CompletableFuture;
 
 @UtilityClass
 public class FhirValidationUtils {
 
-	public static ValidationResult getValidationResult(
-			List<SingleValidationMessage> allValidationMessages, List<CompletableFuture<ValidationResult>> futures) {
-		for (ValidationResult result :
-				futures.stream().map(CompletableFuture::join).toList()) {
+	/**
+	 * Merges the results of an ISiK5 validation and the ISiK3 (legacy) validations of the same
+	 * resource.
+	 *
+	 * @param isik5Result the result of the ISiK5 validation, or null if ISiK5 was not validated
+	 * @param legacyResults the results of the legacy validations
+	 * @return the first valid legacy result, or a result containing the messages of all validations
+	 */
+	public static ValidationResult mergeResults(ValidationResult isik5Result, List<ValidationResult> legacyResults) {
+		final List<SingleValidationMessage> allValidationMessages = new LinkedList<>();
+		for (ValidationResult result : legacyResults) {
 			if (result.isValid()) {
-				return result; // Return early if valid result is found
+				return result;
 			}
+			allValidationMessages.addAll(result.getValidationMessages());
+		}
+
+		// Keep until Isik5 and Isik3 validators are part of this server (dual-mode)
+		// Report Isik5 errors only if also Isik3 validation found errors
+		if (!allValidationMessages.isEmpty() && isik5Result != null) {
+			allValidationMessages.addAll(isik5Result.getValidationMessages());
 		}
 
 		return new ValidationResult(allValidationMessages);
@@ -28,6 +28,8 @@ package de.gematik.isik.mockserver.interceptor;
 import ca.uhn.fhir.interceptor.api.Hook;
 import ca.uhn.fhir.interceptor.api.Interceptor;
 import ca.uhn.fhir.interceptor.api.Pointcut;
+import de.gematik.isik.mockserver.helper.RequestClassifier;
+import de.gematik.isik.mockserver.helper.RequestDescriptor;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
@@ -49,8 +51,8 @@ public class MediaTypeInterceptor {
 	@Hook(Pointcut.SERVER_INCOMING_REQUEST_PRE_PROCESSED)
 	public boolean incomingRequestPreProcessed(
 			final HttpServletRequest theRequest, final HttpServletResponse theResponse) throws IOException {
-		if (theRequest.getPathInfo() != null
-				&& java.util.Arrays.asList(theRequest.getPathInfo().split("/")).contains("Binary")) {
+		RequestDescriptor descriptor = RequestClassifier.classify(theRequest);
+		if (descriptor.involves("Binary")) {
 			log.debug("Skipping media type validation for Binary resource");
 			return true;
 		}
@@ -59,8 +61,7 @@ public class MediaTypeInterceptor {
 			return false;
 		}
 
-		String method = theRequest.getMethod();
-		if ("POST".equalsIgnoreCase(method) || "PUT".equalsIgnoreCase(method) || "PATCH".equalsIgnoreCase(method)) {
+		if (descriptor.isWrite() || descriptor.isVerb("PATCH")) {
 			String contentTypeHeader = theRequest.getHeader("Content-Type");
 			return validator.validateContentTypeHeader(contentTypeHeader, theResponse);
 		}
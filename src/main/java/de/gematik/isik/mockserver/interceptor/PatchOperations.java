@@ -0,0 +1,85 @@
+package de.gematik.isik.mockserver.interceptor;
+
+/*-
+ * #%L
+ * isik-mock-server
+ * %%
+ * Copyright (C) 2025 - 2026 gematik GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ * #L%
+ */
+
+import org.hl7.fhir.r4.model.Parameters;
+import org.hl7.fhir.r4.model.StringType;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * The operations of a FHIRPath PATCH Parameters resource, indexed once by their path. If several
+ * operations have the same path, the first one is used.
+ */
+public final class PatchOperations {
+
+	private static final String OPERATION = "operation";
+
+	private final List<Parameters.ParametersParameterComponent> operations;
+	private final Map<String, Parameters.ParametersParameterComponent> operationsByPath;
+
+	private PatchOperations(
+			List<Parameters.ParametersParameterComponent> operations,
+			Map<String, Parameters.ParametersParameterComponent> operationsByPath) {
+		this.operations = operations;
+		this.operationsByPath = operationsByPath;
+	}
+
+	public static PatchOperations of(Parameters parameters) {
+		List<Parameters.ParametersParameterComponent> operations = new ArrayList<>();
+		Map<String, Parameters.ParametersParameterComponent> operationsByPath = new HashMap<>();
+		for (Parameters.ParametersParameterComponent parameter : parameters.getParameter()) {
+			if (!OPERATION.equals(parameter.getName())) {
+				continue;
+			}
+			operations.add(parameter);
+			for (Parameters.ParametersParameterComponent part : parameter.getPart()) {
+				if ("path".equals(part.getName()) && part.getValue() instanceof StringType path) {
+					operationsByPath.putIfAbsent(path.getValue(), parameter);
+				}
+			}
+		}
+		return new PatchOperations(Collections.unmodifiableList(operations), operationsByPath);
+	}
+
+	/** @return all operations, in the order of the Parameters resource */
+	public List<Parameters.ParametersParameterComponent> getOperations() {
+		return operations;
+	}
+
+	public boolean contains(String path) {
+		return operationsByPath.containsKey(path);
+	}
+
+	public Optional<Parameters.ParametersParameterComponent> get(String path) {
+		return Optional.ofNullable(operationsByPath.get(path));
+	}
+}
@@ -0,0 +1,172 @@
+package de.gematik.isik.mockserver.interceptor;
+
+/*-
+ * #%L
+ * isik-mock-server
+ * %%
+ * Copyright (C) 2025 - 2026 gematik GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ * #L%
+ */
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Dedicated executor for validation module runs. Validations are CPU-heavy and must not be executed
+ * on the common ForkJoinPool, which is shared with HAPI and the rest of the application.
+ *
+ * <p>The number of validations that are running or waiting is bounded. If the bound is reached,
+ * further validations are rejected immediately with a {@link RejectedExecutionException}, which the
+ * {@link FhirValidationInterceptor} answers with a 503 OperationOutcome.
+ */
+@Slf4j
+@Component
+public class ValidationExecutor {
+
+	private static final String METRIC_NAME = "isik.validation.executor";
+
+	private final ExecutorService executorService;
+	private final Semaphore admission;
+	private final Semaphore concurrency;
+	private final int maxConcurrencyPerModule;
+	private final Map<String, Semaphore> moduleLimits = new ConcurrentHashMap<>();
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private final AtomicInteger running = new AtomicInteger();
+	private final Counter rejectionCounter;
+
+	public ValidationExecutor(
+			@Value("${validation.executor.threads:0}") int threads,
+			@Value("${validation.executor.queue-capacity:64}") int queueCapacity,
+			@Value("${validation.executor.virtual-threads:false}") boolean virtualThreads,
+			@Value("${validation.executor.max-concurrency-per-module:0}") int maxConcurrencyPerModule,
+			MeterRegistry meterRegistry) {
+		final int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+		this.maxConcurrencyPerModule = maxConcurrencyPerModule > 0 ? maxConcurrencyPerModule : poolSize;
+		this.admission = new Semaphore(poolSize + Math.max(queueCapacity, 0));
+		// Virtual threads are not pooled, so the number of parallel runs is limited separately
+		this.concurrency = new Semaphore(poolSize);
+
+		if (virtualThreads) {
+			this.executorService = Executors.newThreadPerTaskExecutor(
+					Thread.ofVirtual().name("validation-", 0).factory());
+		} else {
+			this.executorService = Executors.newFixedThreadPool(
+					poolSize, Thread.ofPlatform().name("validation-", 0).daemon().factory());
+		}
+		log.info(
+				"Validation executor started with {} {} threads, queue capacity {} and at most {} parallel runs per module",
+				poolSize,
+				virtualThreads ? "virtual" : "platform",
+				queueCapacity,
+				this.maxConcurrencyPerModule);
+
+		this.rejectionCounter =
+				Counter.builder(METRIC_NAME + ".rejected").register(meterRegistry);
+		Gauge.builder(METRIC_NAME + ".active", running, AtomicInteger::get).register(meterRegistry);
+		Gauge.builder(METRIC_NAME + ".queued", this, ValidationExecutor::getQueueDepth)
+				.register(meterRegistry);
+	}
+
+	/**
+	 * Runs the given validation asynchronously on the validation executor. Cancelling the returned
+	 * future before the validation has started skips the validation.
+	 *
+	 * @param moduleId the id of the validation module, used for the per-module concurrency limit
+	 * @param validation the validation to run
+	 * @return a future completing with the result of the validation
+	 * @throws RejectedExecutionException if the executor is saturated
+	 */
+	public <T> CompletableFuture<T> submit(String moduleId, Supplier<T> validation) {
+		if (!admission.tryAcquire()) {
+			rejectionCounter.increment();
+			throw new RejectedExecutionException("Validation capacity exhausted, rejecting validation with module "
+					+ moduleId);
+		}
+
+		inFlight.incrementAndGet();
+		final Semaphore moduleLimit =
+				moduleLimits.computeIfAbsent(moduleId, id -> new Semaphore(maxConcurrencyPerModule));
+		final CompletableFuture<T> future = new CompletableFuture<>();
+		try {
+			executorService.execute(() -> {
+				try {
+					runLimited(moduleLimit, validation, future);
+				} finally {
+					release();
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			release();
+			rejectionCounter.increment();
+			throw e;
+		}
+		return future;
+	}
+
+	public int getQueueDepth() {
+		return Math.max(inFlight.get() - running.get(), 0);
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		executorService.shutdownNow();
+	}
+
+	private <T> void runLimited(Semaphore moduleLimit, Supplier<T> validation, CompletableFuture<T> future) {
+		if (future.isDone()) {
+			// cancelled before it was started
+			return;
+		}
+		moduleLimit.acquireUninterruptibly();
+		concurrency.acquireUninterruptibly();
+		running.incrementAndGet();
+		try {
+			if (!future.isDone()) {
+				future.complete(validation.get());
+			}
+		} catch (Throwable t) { // like CompletableFuture.supplyAsync, callers must never wait forever
+			future.completeExceptionally(t);
+		} finally {
+			running.decrementAndGet();
+			concurrency.release();
+			moduleLimit.release();
+		}
+	}
+
+	private void release() {
+		inFlight.decrementAndGet();
+		admission.release();
+	}
+}
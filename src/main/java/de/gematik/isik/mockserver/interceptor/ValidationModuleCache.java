@@ -0,0 +1,277 @@
+package de.gematik.isik.mockserver.interceptor;
+
+/*-
+ * #%L
+ * isik-mock-server
+ * %%
+ * Copyright (C) 2025 - 2026 gematik GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ * #L%
+ */
+
+import de.gematik.refv.Plugin;
+import de.gematik.refv.SupportedValidationModule;
+import de.gematik.refv.commons.exceptions.ValidationModuleInitializationException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache for initialized validation modules. Creating a ValidationModule loads all FHIR packages of
+ * a plugin (or the FHIR core package) and takes seconds, so the modules of a plugin are only created
+ * once and then shared by all requests through a {@link ValidationModulePool} of up to {@code
+ * validation.modules.pool-size} instances. Concurrent requests for a module that is still being
+ * created wait for that creation instead of starting their own.
+ *
+ * <p>Modules that have not been used for {@code validation.modules.idle-timeout} are removed from
+ * the cache to release their memory. They are created again on the next request.
+ */
+@Slf4j
+@Component
+public class ValidationModuleCache {
+
+	public static final String CORE_MODULE_ID = "core";
+	private static final String METRIC_NAME = "isik.validation.module";
+
+	private static final ModuleKey CORE_MODULE_KEY = new ModuleKey(CORE_MODULE_ID, CORE_MODULE_ID);
+
+	private final Map<ModuleKey, CachedModule> modules = new ConcurrentHashMap<>();
+	private final Duration idleTimeout;
+	private final int poolSize;
+	private final MeterRegistry meterRegistry;
+	private final ScheduledExecutorService evictionScheduler;
+
+	public ValidationModuleCache(
+			@Value("${validation.modules.idle-timeout:0s}") Duration idleTimeout,
+			@Value("${validation.modules.pool-size:1}") int poolSize,
+			MeterRegistry meterRegistry) {
+		this.idleTimeout = idleTimeout;
+		this.poolSize = poolSize;
+		this.meterRegistry = meterRegistry;
+
+		if (isIdleEvictionEnabled()) {
+			long checkIntervalMillis =
+					Math.min(idleTimeout.toMillis(), Duration.ofMinutes(1).toMillis());
+			this.evictionScheduler = Executors.newSingleThreadScheduledExecutor(
+					Thread.ofPlatform().name("validation-module-eviction").daemon().factory());
+			this.evictionScheduler.scheduleWithFixedDelay(
+					this::evictIdleModules, checkIntervalMillis, checkIntervalMillis, TimeUnit.MILLISECONDS);
+		} else {
+			this.evictionScheduler = null;
+		}
+
+		Gauge.builder(METRIC_NAME + ".cached", modules, Map::size).register(meterRegistry);
+	}
+
+	/**
+	 * Returns the ValidationModule pool of the given plugin, creating it on first use.
+	 *
+	 * @param plugin the plugin
+	 * @return the ValidationModule pool associated with the plugin
+	 * @throws ValidationModuleInitializationException if the module cannot be initialized
+	 */
+	public ValidationModulePool getOrCreate(Plugin plugin) throws ValidationModuleInitializationException {
+		return getOrCreate(ModuleKey.of(plugin), () -> FhirValidationHandlerHelper.createFromPlugin(plugin));
+	}
+
+	/**
+	 * Returns the FHIR core ValidationModule pool, creating it on first use.
+	 *
+	 * @return the FHIR core ValidationModule pool
+	 * @throws ValidationModuleInitializationException if the module cannot be initialized
+	 */
+	public ValidationModulePool getOrCreateCoreModule() throws ValidationModuleInitializationException {
+		return getOrCreate(
+				CORE_MODULE_KEY, () -> FhirValidationHandlerHelper.createFromModule(SupportedValidationModule.CORE));
+	}
+
+	/**
+	 * Creates a new pool for the given plugin without adding it to the cache, e.g. to warm it up
+	 * before it is added with {@link #add(Plugin, ValidationModulePool)}.
+	 *
+	 * @param plugin the plugin
+	 * @return the new pool
+	 * @throws ValidationModuleInitializationException if the module cannot be initialized
+	 */
+	public ValidationModulePool createPool(Plugin plugin) throws ValidationModuleInitializationException {
+		return new ValidationModulePool(
+				plugin.getId(), poolSize, () -> FhirValidationHandlerHelper.createFromPlugin(plugin), meterRegistry);
+	}
+
+	/**
+	 * Adds the pool of a plugin that is not in use yet, e.g. the new version of a plugin before it is
+	 * published. Pools are cached per plugin instance, so validations of the plugins in use are not
+	 * affected. The gauges of the pool are not registered, because the pool of the previous version
+	 * still owns them until it is removed.
+	 *
+	 * @param plugin the plugin
+	 * @param pool the new pool, created by {@link #createPool(Plugin)}
+	 */
+	public void add(Plugin plugin, ValidationModulePool pool) {
+		CachedModule entry = new CachedModule();
+		entry.pool.complete(pool);
+		closeIfInitialized(modules.put(ModuleKey.of(plugin), entry));
+		log.info("Added validation module {}", pool.getId());
+	}
+
+	/**
+	 * Removes the pool of a plugin, e.g. because the plugin was removed or replaced. Validations that
+	 * already use the pool finish on it.
+	 *
+	 * @param plugin the plugin
+	 */
+	public void remove(Plugin plugin) {
+		closeIfInitialized(modules.remove(ModuleKey.of(plugin)));
+	}
+
+	/**
+	 * @param plugin the plugin
+	 * @return true if the cache contains a pool for this plugin instance
+	 */
+	public boolean contains(Plugin plugin) {
+		return modules.containsKey(ModuleKey.of(plugin));
+	}
+
+	/**
+	 * @param moduleId the plugin id, or {@link #CORE_MODULE_ID}
+	 * @return true if the cache contains a pool for any version of the module
+	 */
+	public boolean contains(String moduleId) {
+		return modules.keySet().stream().anyMatch(key -> key.id().equals(moduleId));
+	}
+
+	public int size() {
+		return modules.size();
+	}
+
+	/**
+	 * Removes all modules that have not been used within the idle timeout. Modules that are still
+	 * being created are never removed.
+	 */
+	public void evictIdleModules() {
+		if (!isIdleEvictionEnabled()) {
+			return;
+		}
+
+		long oldestAllowedAccess = System.nanoTime() - idleTimeout.toNanos();
+		modules.entrySet().removeIf(entry -> {
+			boolean idle = isInitialized(entry.getValue())
+					&& entry.getValue().lastAccess - oldestAllowedAccess < 0;
+			if (idle) {
+				log.info("Evicting validation module {} after {} without use", entry.getKey().id(), idleTimeout);
+				closeIfInitialized(entry.getValue());
+			}
+			return idle;
+		});
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		if (evictionScheduler != null) {
+			evictionScheduler.shutdownNow();
+		}
+	}
+
+	private ValidationModulePool getOrCreate(ModuleKey key, ValidationModulePool.ModuleFactory factory)
+			throws ValidationModuleInitializationException {
+		CachedModule newEntry = new CachedModule();
+		CachedModule entry = modules.putIfAbsent(key, newEntry);
+		if (entry == null) {
+			entry = newEntry;
+			initialize(key, factory, newEntry);
+		}
+
+		entry.lastAccess = System.nanoTime();
+		try {
+			return entry.pool.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof ValidationModuleInitializationException initializationException) {
+				throw initializationException;
+			}
+			if (e.getCause() instanceof RuntimeException runtimeException) {
+				throw runtimeException;
+			}
+			throw e;
+		}
+	}
+
+	private void initialize(ModuleKey key, ValidationModulePool.ModuleFactory factory, CachedModule entry) {
+		try {
+			ValidationModulePool pool = new ValidationModulePool(key.id(), poolSize, factory, meterRegistry);
+			pool.registerGauges();
+			entry.pool.complete(pool);
+		} catch (Exception e) {
+			// Failed creations are not cached, the next request tries again
+			modules.remove(key, entry);
+			entry.pool.completeExceptionally(e);
+		}
+	}
+
+	private static void closeIfInitialized(CachedModule entry) {
+		if (entry != null && isInitialized(entry)) {
+			entry.pool.join().close();
+		}
+	}
+
+	private static boolean isInitialized(CachedModule entry) {
+		return entry.pool.isDone() && !entry.pool.isCompletedExceptionally();
+	}
+
+	private boolean isIdleEvictionEnabled() {
+		return idleTimeout != null && idleTimeout.isPositive();
+	}
+
+	/**
+	 * Identifies a cached module by the plugin instance it was created from, so that the pools of two
+	 * versions of the same plugin can be cached at the same time.
+	 */
+	private record ModuleKey(String id, Object source) {
+
+		static ModuleKey of(Plugin plugin) {
+			return new ModuleKey(plugin.getId(), plugin);
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			return other instanceof ModuleKey key && key.source == source;
+		}
+
+		@Override
+		public int hashCode() {
+			return System.identityHashCode(source);
+		}
+	}
+
+	private static final class CachedModule {
+		private final CompletableFuture<ValidationModulePool> pool = new CompletableFuture<>();
+		private volatile long lastAccess = System.nanoTime();
+	}
+}
@@ -0,0 +1,256 @@
+package de.gematik.isik.mockserver.interceptor;
+
+/*-
+ * #%L
+ * isik-mock-server
+ * %%
+ * Copyright (C) 2025 - 2026 gematik GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ * #L%
+ */
+
+import de.gematik.refv.commons.exceptions.ValidationModuleInitializationException;
+import de.gematik.refv.commons.validation.ValidationModule;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Pool of ValidationModule instances of a single plugin (or the FHIR core module).
+ *
+ * <p>With a {@code maxSize} of 1 (the default), the single instance is shared by all validations
+ * of the plugin and used concurrently, as before the pool was introduced.
+ *
+ * <p>With a larger {@code maxSize}, a validation checks out an instance for its whole run, so
+ * instances are never used by two validations at the same time and a plugin can be validated on as
+ * many cores as it has instances. The pool starts with one instance. Further instances are created
+ * when all existing instances are in use, up to {@code maxSize}. When the pool is exhausted,
+ * validations wait for an instance to be returned.
+ */
+@Slf4j
+public class ValidationModulePool {
+
+	private static final String METRIC_NAME = "isik.validation.module";
+
+	@Getter
+	private final String id;
+
+	private final int maxSize;
+	private final boolean shared;
+	private final ModuleFactory factory;
+	private final BlockingQueue<ValidationModule> idleModules = new LinkedBlockingQueue<>();
+	private final AtomicInteger size = new AtomicInteger();
+	private volatile long initAllocatedBytes = -1;
+	private final Timer initTimer;
+	private final DistributionSummary initAllocation;
+	private final Timer waitTimer;
+	private final Timer usageTimer;
+	private final MeterRegistry meterRegistry;
+	private volatile List<Gauge> gauges = List.of();
+	private final ValidationModule sharedModule;
+
+	/**
+	 * Creates the pool and its first instance.
+	 *
+	 * @param id the plugin id, or {@link ValidationModuleCache#CORE_MODULE_ID}
+	 * @param maxSize the maximum number of instances
+	 * @param factory creates a new ValidationModule instance
+	 * @param meterRegistry the registry for the pool metrics
+	 * @throws ValidationModuleInitializationException if the first instance cannot be created
+	 */
+	public ValidationModulePool(String id, int maxSize, ModuleFactory factory, MeterRegistry meterRegistry)
+			throws ValidationModuleInitializationException {
+		this.id = id;
+		this.maxSize = Math.max(maxSize, 1);
+		this.shared = this.maxSize == 1;
+		this.factory = factory;
+		this.initTimer = Timer.builder(METRIC_NAME + ".init").tag("module", id).register(meterRegistry);
+		this.initAllocation = DistributionSummary.builder(METRIC_NAME + ".init.allocated")
+				.baseUnit(BaseUnits.BYTES)
+				.tag("module", id)
+				.register(meterRegistry);
+		this.waitTimer =
+				Timer.builder(METRIC_NAME + ".pool.wait").tag("module", id).register(meterRegistry);
+		this.usageTimer =
+				Timer.builder(METRIC_NAME + ".pool.usage").tag("module", id).register(meterRegistry);
+		this.meterRegistry = meterRegistry;
+
+		size.incrementAndGet();
+		idleModules.add(createModule());
+		this.sharedModule = shared ? idleModules.peek() : null;
+	}
+
+	/**
+	 * Checks out an instance, applies the action to it and returns the instance to the pool. A shared
+	 * instance is used directly, without a checkout.
+	 *
+	 * @param action the action, e.g. a validation
+	 * @return the result of the action
+	 * @throws ValidationModuleInitializationException if a new instance cannot be created
+	 */
+	public <T> T execute(Function<ValidationModule, T> action) throws ValidationModuleInitializationException {
+		ValidationModule module = shared ? sharedModule : checkout();
+		long start = System.nanoTime();
+		try {
+			return action.apply(module);
+		} finally {
+			usageTimer.record(Duration.ofNanos(System.nanoTime() - start));
+			if (!shared) {
+				idleModules.add(module);
+			}
+		}
+	}
+
+	/**
+	 * Creates all instances up to the maximum pool size.
+	 *
+	 * @throws ValidationModuleInitializationException if an instance cannot be created
+	 */
+	public void fill() throws ValidationModuleInitializationException {
+		while (reserveInstance()) {
+			idleModules.add(createReservedModule());
+		}
+	}
+
+	public int size() {
+		return size.get();
+	}
+
+	/**
+	 * Returns the heap allocated while loading one instance of this module, an upper bound of the
+	 * heap the instance retains. The FHIR packages of a plugin are loaded into every instance.
+	 *
+	 * @return the allocated bytes of the last created instance, or -1 if not supported by the JVM
+	 */
+	public long getInitAllocatedBytes() {
+		return initAllocatedBytes;
+	}
+
+	/**
+	 * Registers the size gauges of the pool. Called once the pool is in use, because only one pool
+	 * per module can own the gauges.
+	 */
+	public void registerGauges() {
+		gauges = List.of(
+				Gauge.builder(METRIC_NAME + ".pool.size", size, AtomicInteger::get)
+						.tag("module", id)
+						.register(meterRegistry),
+				Gauge.builder(METRIC_NAME + ".pool.idle", idleModules, BlockingQueue::size)
+						.tag("module", id)
+						.register(meterRegistry));
+	}
+
+	/**
+	 * Releases the pool after it has been removed from the cache. The gauges are removed, so that a
+	 * new pool for the same module can register its own. Validations still running on the pool finish
+	 * normally, the instances are garbage collected afterwards.
+	 */
+	public void close() {
+		gauges.forEach(meterRegistry::remove);
+		gauges = List.of();
+		idleModules.clear();
+	}
+
+	private ValidationModule checkout() throws ValidationModuleInitializationException {
+		ValidationModule module = idleModules.poll();
+		if (module != null) {
+			return module;
+		}
+
+		if (reserveInstance()) {
+			log.info("All instances of validation module {} are in use, creating instance {}", id, size.get());
+			return createReservedModule();
+		}
+
+		long start = System.nanoTime();
+		try {
+			return idleModules.take();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for validation module " + id, e);
+		} finally {
+			waitTimer.record(Duration.ofNanos(System.nanoTime() - start));
+		}
+	}
+
+	private boolean reserveInstance() {
+		int current;
+		do {
+			current = size.get();
+			if (current >= maxSize) {
+				return false;
+			}
+		} while (!size.compareAndSet(current, current + 1));
+		return true;
+	}
+
+	private ValidationModule createReservedModule() throws ValidationModuleInitializationException {
+		try {
+			return createModule();
+		} catch (ValidationModuleInitializationException | RuntimeException e) {
+			size.decrementAndGet();
+			throw e;
+		}
+	}
+
+	private ValidationModule createModule() throws ValidationModuleInitializationException {
+		log.info("Initializing validation module {}...", id);
+		long start = System.nanoTime();
+		long allocatedBefore = currentThreadAllocatedBytes();
+		ValidationModule module = factory.create();
+		Duration initTime = Duration.ofNanos(System.nanoTime() - start);
+		initTimer.record(initTime);
+		if (allocatedBefore >= 0) {
+			initAllocatedBytes = currentThreadAllocatedBytes() - allocatedBefore;
+			initAllocation.record(initAllocatedBytes);
+		}
+		log.info(
+				"Initialized validation module {} in {} ms, {} MB allocated",
+				id,
+				initTime.toMillis(),
+				initAllocatedBytes / (1024 * 1024));
+		return module;
+	}
+
+	private static long currentThreadAllocatedBytes() {
+		if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threadMXBean
+				&& threadMXBean.isThreadAllocatedMemorySupported()
+				&& threadMXBean.isThreadAllocatedMemoryEnabled()) {
+			return threadMXBean.getCurrentThreadAllocatedBytes();
+		}
+		return -1;
+	}
+
+	@FunctionalInterface
+	public interface ModuleFactory {
+		ValidationModule create() throws ValidationModuleInitializationException;
+	}
+}
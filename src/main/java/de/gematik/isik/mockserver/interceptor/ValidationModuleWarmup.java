@@ -0,0 +1,270 @@
+package de.gematik.isik.mockserver.interceptor;
+
+/*-
+ * #%L
+ * isik-mock-server
+ * %%
+ * Copyright (C) 2025 - 2026 gematik GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ * #L%
+ */
+
+import de.gematik.isik.mockserver.refv.PluginLoader;
+import de.gematik.isik.mockserver.refv.PluginMappingResolver;
+import de.gematik.refv.Plugin;
+import de.gematik.refv.commons.exceptions.ValidationModuleInitializationException;
+import de.gematik.refv.commons.validation.ValidationModule;
+import de.gematik.refv.commons.validation.ValidationOptions;
+import de.gematik.refv.commons.validation.ValidationResult;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates all validation modules right after startup instead of on the first request for each
+ * plugin, filling each {@link ValidationModulePool} up to its maximum size. Every module is
+ * additionally used once to validate a matching resource from the example resources, so that the
+ * first real validation does not pay for class loading and JIT compilation.
+ *
+ * <p>Until the warmup is finished, the {@link ValidationWarmupHealthIndicator} keeps the readiness
+ * probe DOWN.
+ */
+@Slf4j
+@Component
+public class ValidationModuleWarmup {
+
+	private final ValidationModuleCache validationModuleCache;
+	private final PluginLoader pluginLoader;
+	private final PluginMappingResolver pluginMappingResolver;
+	private final boolean enabled;
+	private final boolean warmupCoreModule;
+	private final int threads;
+	private final String exampleResourcesDirectory;
+
+	private final AtomicInteger finishedModules = new AtomicInteger();
+	private final List<String> failedModules = Collections.synchronizedList(new ArrayList<>());
+	private final Map<String, Long> allocatedMegabytes = new ConcurrentSkipListMap<>();
+	private volatile int totalModules;
+	private volatile boolean finished;
+
+	public ValidationModuleWarmup(
+			ValidationModuleCache validationModuleCache,
+			PluginLoader pluginLoader,
+			PluginMappingResolver pluginMappingResolver,
+			@Value("${validation.warmup.enabled:true}") boolean enabled,
+			@Value("${validation.warmup.core-module:true}") boolean warmupCoreModule,
+			@Value("${validation.warmup.threads:0}") int threads,
+			@Value("${example-fhir-resources.directory:example-resources}") String exampleResourcesDirectory) {
+		this.validationModuleCache = validationModuleCache;
+		this.pluginLoader = pluginLoader;
+		this.pluginMappingResolver = pluginMappingResolver;
+		this.enabled = enabled;
+		this.warmupCoreModule = warmupCoreModule;
+		this.threads = threads;
+		this.exampleResourcesDirectory = exampleResourcesDirectory;
+		this.finished = !enabled;
+	}
+
+	public boolean isFinished() {
+		return finished;
+	}
+
+	public int getFinishedModules() {
+		return finishedModules.get();
+	}
+
+	public int getTotalModules() {
+		return totalModules;
+	}
+
+	public List<String> getFailedModules() {
+		return List.copyOf(failedModules);
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void onApplicationReady() {
+		if (enabled) {
+			start();
+		}
+	}
+
+	/**
+	 * Starts the warmup of all validation modules in the background.
+	 *
+	 * @return a future that is completed once all modules have been warmed up
+	 */
+	public CompletableFuture<Void> start() {
+		Map<String, String> examples = loadExampleResources();
+		List<Plugin> plugins = pluginLoader.isEnabled()
+				? new ArrayList<>(pluginLoader.getPlugins().values())
+				: List.of();
+		totalModules = plugins.size() + (warmupCoreModule ? 1 : 0);
+		if (totalModules == 0) {
+			finished = true;
+			return CompletableFuture.completedFuture(null);
+		}
+
+		int poolSize = threads > 0 ? threads : Math.min(totalModules, Runtime.getRuntime().availableProcessors());
+		log.info("Warming up {} validation modules on {} threads...", totalModules, poolSize);
+		ExecutorService warmupExecutor = Executors.newFixedThreadPool(
+				poolSize, Thread.ofPlatform().name("validation-warmup-", 0).daemon().factory());
+		long start = System.currentTimeMillis();
+
+		List<CompletableFuture<Void>> warmups = new ArrayList<>();
+		for (Plugin plugin : plugins) {
+			warmups.add(CompletableFuture.runAsync(
+					() -> warmup(plugin.getId(), () -> validationModuleCache.getOrCreate(plugin), examples),
+					warmupExecutor));
+		}
+		if (warmupCoreModule) {
+			warmups.add(CompletableFuture.runAsync(
+					() -> warmup(ValidationModuleCache.CORE_MODULE_ID, validationModuleCache::getOrCreateCoreModule, examples),
+					warmupExecutor));
+		}
+
+		return CompletableFuture.allOf(warmups.toArray(CompletableFuture[]::new))
+				.whenComplete((result, throwable) -> {
+					warmupExecutor.shutdown();
+					finished = true;
+					log.info(
+							"Warmup of {} validation modules finished in {} ms, failed: {}",
+							totalModules,
+							System.currentTimeMillis() - start,
+							failedModules);
+					logHeapReport();
+				});
+	}
+
+	private void warmup(String moduleId, ModuleSupplier moduleSupplier, Map<String, String> examples) {
+		try {
+			ValidationModulePool pool = moduleSupplier.get();
+			warmupPool(pool, examples);
+			if (pool.getInitAllocatedBytes() >= 0) {
+				allocatedMegabytes.put(moduleId, pool.getInitAllocatedBytes() * pool.size() / (1024 * 1024));
+			}
+		} catch (Exception e) {
+			log.error("Warmup of validation module {} failed: {}", moduleId, e.getMessage());
+			failedModules.add(moduleId);
+		} finally {
+			finishedModules.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Fills the given pool and validates a matching example resource once with it, e.g. for a pool
+	 * that is about to replace the pool in use after a plugin reload.
+	 *
+	 * @param pool the pool to warm up
+	 * @throws ValidationModuleInitializationException if an instance cannot be created
+	 */
+	public void warmupPool(ValidationModulePool pool) throws ValidationModuleInitializationException {
+		warmupPool(pool, loadExampleResources());
+	}
+
+	private void warmupPool(ValidationModulePool pool, Map<String, String> examples)
+			throws ValidationModuleInitializationException {
+		pool.fill();
+		Optional<Map.Entry<String, String>> example = findExample(pool.getId(), examples);
+		if (example.isPresent()) {
+			pool.execute(module -> validateExample(pool.getId(), module, example.get()));
+		}
+	}
+
+	/**
+	 * Every validation module loads its own copy of the FHIR packages of its plugin, including shared
+	 * dependencies like hl7.fhir.r4.core and de.basisprofil.r4. The report shows how much heap each
+	 * module allocated while loading, as a baseline for the memory sizing of the server.
+	 */
+	private void logHeapReport() {
+		if (allocatedMegabytes.isEmpty()) {
+			return;
+		}
+		log.info(
+				"Heap allocated while loading validation modules (MB, all pooled instances): {}, total {} MB",
+				allocatedMegabytes,
+				allocatedMegabytes.values().stream().mapToLong(Long::longValue).sum());
+	}
+
+	private static ValidationResult validateExample(
+			String moduleId, ValidationModule module, Map.Entry<String, String> example) {
+		// The result is irrelevant, the run only loads and compiles the validator code paths
+		if (ValidationModuleCache.CORE_MODULE_ID.equals(moduleId)) {
+			ValidationOptions validationOptions = ValidationOptions.getDefaults();
+			validationOptions.setProfiles(
+					Collections.singletonList("http://hl7.org/fhir/StructureDefinition/" + example.getKey()));
+			return module.validateString(example.getValue(), validationOptions);
+		}
+		return module.validateString(example.getValue());
+	}
+
+	private Optional<Map.Entry<String, String>> findExample(String moduleId, Map<String, String> examples) {
+		return examples.entrySet().stream()
+				.filter(example -> ValidationModuleCache.CORE_MODULE_ID.equals(moduleId)
+						|| pluginMappingResolver
+								.getPluginIdsFromResourceType(example.getKey())
+								.contains(moduleId))
+				.findFirst();
+	}
+
+	/**
+	 * Loads one example resource per resource type.
+	 *
+	 * @return the example resources as JSON, keyed by resource type
+	 */
+	private Map<String, String> loadExampleResources() {
+		Map<String, String> examples = new LinkedHashMap<>();
+		try {
+			Resource[] resources = new PathMatchingResourcePatternResolver(getClass().getClassLoader())
+					.getResources("classpath*:/" + exampleResourcesDirectory + "/*.json");
+			for (Resource resource : resources) {
+				String body = resource.getContentAsString(StandardCharsets.UTF_8);
+				String resourceType = FhirValidationHandlerHelper.getResourceType(body);
+				if (resourceType != null) {
+					examples.putIfAbsent(resourceType, body);
+				}
+			}
+		} catch (IOException e) {
+			log.warn("Could not read example resources for the validation warmup: {}", e.getMessage());
+		}
+		return examples;
+	}
+
+	@FunctionalInterface
+	private interface ModuleSupplier {
+		ValidationModulePool get() throws Exception;
+	}
+}
@@ -0,0 +1,174 @@
+package de.gematik.isik.mockserver.interceptor;
+
+/*-
+ * #%L
+ * isik-mock-server
+ * %%
+ * Copyright (C) 2025 - 2026 gematik GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ * #L%
+ */
+
+import ca.uhn.fhir.validation.SingleValidationMessage;
+import de.gematik.refv.commons.validation.ValidationResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Bounded LRU cache for validation results. Entries are keyed by the hash of the request body, the
+ * profiles of the resource and the fingerprint of the loaded plugins, so identical requests are only
+ * validated once as long as the plugins do not change.
+ */
+@Slf4j
+@Component
+public class ValidationResultCache {
+
+	private static final String METRIC_NAME = "isik.validation.cache";
+
+	private final boolean enabled;
+	private final Map<String, ValidationResult> cache;
+	private final Counter hitCounter;
+	private final Counter missCounter;
+	private final Counter evictionCounter;
+	private String pluginFingerprint;
+
+	public ValidationResultCache(
+			@Value("${validation.cache.enabled:true}") boolean enabled,
+			@Value("${validation.cache.max-entries:1000}") int maxEntries,
+			MeterRegistry meterRegistry) {
+		this.enabled = enabled && maxEntries > 0;
+		this.hitCounter = Counter.builder(METRIC_NAME + ".requests")
+				.tag("result", "hit")
+				.register(meterRegistry);
+		this.missCounter = Counter.builder(METRIC_NAME + ".requests")
+				.tag("result", "miss")
+				.register(meterRegistry);
+		this.evictionCounter =
+				Counter.builder(METRIC_NAME + ".evictions").register(meterRegistry);
+		this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, ValidationResult> eldest) {
+				boolean evict = size() > maxEntries;
+				if (evict) {
+					evictionCounter.increment();
+				}
+				return evict;
+			}
+		};
+		Gauge.builder(METRIC_NAME + ".size", this, ValidationResultCache::size).register(meterRegistry);
+	}
+
+	/**
+	 * Creates the cache key for a validation request.
+	 *
+	 * @param body the request body
+	 * @param profiles the profiles of the resource (meta.profile)
+	 * @param pluginFingerprint the fingerprint of the currently loaded plugins
+	 * @return the cache key
+	 */
+	@SneakyThrows
+	public String createKey(String body, List<String> profiles, String pluginFingerprint) {
+		MessageDigest digest = MessageDigest.getInstance("SHA-256");
+		String bodyHash = HexFormat.of().formatHex(digest.digest(body.strip().getBytes(StandardCharsets.UTF_8)));
+		return bodyHash + "|" + String.join(",", profiles) + "|" + pluginFingerprint;
+	}
+
+	/**
+	 * Returns the cached validation result for the given key. The cache is invalidated beforehand if
+	 * the plugins have changed since the last access.
+	 *
+	 * @param key the cache key created by {@link #createKey(String, List, String)}
+	 * @param currentPluginFingerprint the fingerprint of the currently loaded plugins
+	 * @return a copy of the cached ValidationResult, or empty if there is none
+	 */
+	public synchronized Optional<ValidationResult> get(String key, String currentPluginFingerprint) {
+		if (!enabled) {
+			return Optional.empty();
+		}
+
+		invalidateIfPluginsChanged(currentPluginFingerprint);
+		ValidationResult result = cache.get(key);
+		if (result == null) {
+			missCounter.increment();
+			return Optional.empty();
+		}
+
+		hitCounter.increment();
+		return Optional.of(copy(result));
+	}
+
+	public synchronized void put(String key, ValidationResult result) {
+		if (enabled) {
+			cache.put(key, copy(result));
+		}
+	}
+
+	public synchronized void invalidateAll() {
+		cache.clear();
+	}
+
+	public synchronized int size() {
+		return cache.size();
+	}
+
+	private void invalidateIfPluginsChanged(String currentPluginFingerprint) {
+		if (pluginFingerprint != null && !Objects.equals(pluginFingerprint, currentPluginFingerprint)) {
+			log.info("Plugins have changed, invalidating {} cached validation results", cache.size());
+			cache.clear();
+		}
+		pluginFingerprint = currentPluginFingerprint;
+	}
+
+	// ValidationResults and their messages are changed in place by the interceptor (filtering, severity
+	// changes), so the cache must never hand out its own instances
+	private static ValidationResult copy(ValidationResult result) {
+		return new ValidationResult(new ArrayList<>(result.getValidationMessages().stream()
+				.map(ValidationResultCache::copy)
+				.toList()));
+	}
+
+	private static SingleValidationMessage copy(SingleValidationMessage message) {
+		SingleValidationMessage copy = new SingleValidationMessage();
+		copy.setLocationCol(message.getLocationCol());
+		copy.setLocationLine(message.getLocationLine());
+		copy.setLocationString(message.getLocationString());
+		copy.setMessage(message.getMessage());
+		copy.setMessageId(message.getMessageId());
+		copy.setSeverity(message.getSeverity());
+		if (message.getSliceMessages() != null) {
+			copy.setSliceMessages(new ArrayList<>(message.getSliceMessages()));
+		}
+		return copy;
+	}
+}
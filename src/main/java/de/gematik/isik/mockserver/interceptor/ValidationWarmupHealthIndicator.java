@@ -0,0 +1,57 @@
+package de.gematik.isik.mockserver.interceptor;
+
+/*-
+ * #%L
+ * isik-mock-server
+ * %%
+ * Copyright (C) 2025 - 2026 gematik GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ * #L%
+ */
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reports {@link #WARMING_UP} until all validation modules are warmed up. Only the readiness health
+ * group maps this status to 503, so no traffic is routed to the server while the first validations
+ * would still time out. The default health endpoint and the liveness group rank it below UP and are
+ * not affected by a slow warmup.
+ */
+@Component
+@RequiredArgsConstructor
+public class ValidationWarmupHealthIndicator implements HealthIndicator {
+
+	public static final Status WARMING_UP = new Status("WARMING_UP", "Validation modules are being warmed up");
+
+	private final ValidationModuleWarmup validationModuleWarmup;
+
+	@Override
+	public Health health() {
+		Health.Builder builder = validationModuleWarmup.isFinished() ? Health.up() : Health.status(WARMING_UP);
+		return builder.withDetail(
+						"modules",
+						validationModuleWarmup.getFinishedModules() + "/" + validationModuleWarmup.getTotalModules())
+				.withDetail("failed", validationModuleWarmup.getFailedModules())
+				.build();
+	}
+}
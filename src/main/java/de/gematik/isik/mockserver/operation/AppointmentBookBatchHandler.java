@@ -0,0 +1,510 @@
+package de.gematik.isik.mockserver.operation;
+
+/*-
+ * #%L
+ * isik-mock-server
+ * %%
+ * Copyright (C) 2025 - 2026 gematik GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ * #L%
+ */
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.jpa.api.dao.DaoRegistry;
+import ca.uhn.fhir.jpa.api.dao.IFhirSystemDao;
+import ca.uhn.fhir.rest.api.Constants;
+import ca.uhn.fhir.rest.api.EncodingEnum;
+import ca.uhn.fhir.rest.api.server.RequestDetails;
+import de.gematik.isik.mockserver.helper.OperationOutcomeUtils;
+import de.gematik.isik.mockserver.helper.ValidationResultFilter;
+import de.gematik.isik.mockserver.interceptor.FhirValidationHandler;
+import de.gematik.refv.commons.exceptions.ValidationModuleInitializationException;
+import de.gematik.refv.commons.validation.ValidationResult;
+import de.gematik.refv.commons.validation.ValidationResultToOperationOutcomeConverter;
+import lombok.extern.slf4j.Slf4j;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.hl7.fhir.r4.model.Appointment;
+import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.IdType;
+import org.hl7.fhir.r4.model.Meta;
+import org.hl7.fhir.r4.model.OperationOutcome;
+import org.hl7.fhir.r4.model.Patient;
+import org.hl7.fhir.r4.model.Reference;
+import org.hl7.fhir.r4.model.Resource;
+import org.hl7.fhir.r4.model.Schedule;
+import org.hl7.fhir.r4.model.Slot;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Books many appointments in one request ($book-batch). All referenced Patients, Slots, Schedules and
+ * cancelled Appointments are read with one search per resource type, overlaps are checked against
+ * one snapshot of the slots of each schedule, and the slots and appointments of all accepted
+ * bookings are written in a single transaction. Every entry is validated and checked like a single
+ * $book request and gets its own result. The body of $book-batch is not buffered for the {@link
+ * de.gematik.isik.mockserver.interceptor.FhirValidationInterceptor}, so the entries are validated here.
+ */
+@Component
+@Slf4j
+public class AppointmentBookBatchHandler {
+
+	private final FhirContext ctx;
+	private final DaoRegistry daoRegistry;
+	private final AppointmentBookHandler appointmentBookHandler;
+	private final AppointmentBookHandlerHelper appointmentBookHandlerHelper;
+	private final BookingLockService bookingLockService;
+	private final BookingReferenceResolver bookingReferenceResolver;
+	private final FhirValidationHandler fhirValidationHandler;
+	private final int maxEntries;
+
+	public AppointmentBookBatchHandler(
+			FhirContext ctx,
+			DaoRegistry daoRegistry,
+			AppointmentBookHandler appointmentBookHandler,
+			AppointmentBookHandlerHelper appointmentBookHandlerHelper,
+			BookingLockService bookingLockService,
+			BookingReferenceResolver bookingReferenceResolver,
+			FhirValidationHandler fhirValidationHandler,
+			@Value("${appointment-book.batch.max-entries:1000}") int maxEntries) {
+		this.ctx = ctx;
+		this.daoRegistry = daoRegistry;
+		this.appointmentBookHandler = appointmentBookHandler;
+		this.appointmentBookHandlerHelper = appointmentBookHandlerHelper;
+		this.bookingLockService = bookingLockService;
+		this.bookingReferenceResolver = bookingReferenceResolver;
+		this.fhirValidationHandler = fhirValidationHandler;
+		this.maxEntries = maxEntries;
+	}
+
+	/**
+	 * Parses the $book requests of a batch.
+	 *
+	 * @param body a Bundle of $book Parameters (or Appointments), or NDJSON with one of them per line
+	 * @param contentType the content type of the body
+	 * @return the $book requests in the order of the body
+	 * @throws IllegalArgumentException if the body contains more than {@code
+	 *     appointment-book.batch.max-entries} requests or is neither a Bundle nor NDJSON
+	 */
+	public List<IBaseResource> parseRequests(String body, String contentType) {
+		Bundle bundle;
+		if (contentType != null && isNdjson(contentType)) {
+			bundle = (Bundle) EncodingEnum.NDJSON.newParser(ctx).parseResource(body);
+		} else {
+			IBaseResource resource = EncodingEnum.detectEncoding(body).newParser(ctx).parseResource(body);
+			if (!(resource instanceof Bundle parsedBundle)) {
+				throw new IllegalArgumentException("Expected a Bundle or NDJSON of $book Parameters but got "
+						+ resource.fhirType());
+			}
+			bundle = parsedBundle;
+		}
+		if (bundle.getEntry().size() > maxEntries) {
+			throw new IllegalArgumentException(String.format(
+					"The batch contains %d bookings, at most %d are allowed",
+					bundle.getEntry().size(), maxEntries));
+		}
+		return bundle.getEntry().stream()
+				.map(Bundle.BundleEntryComponent::getResource)
+				.map(IBaseResource.class::cast)
+				.toList();
+	}
+
+	/**
+	 * @param requests the $book requests of the batch
+	 * @param requestDetails the details of the $book-batch request
+	 * @return a batch-response Bundle with one entry per request, in the order of the requests
+	 * @throws RejectedExecutionException if the validation executor is saturated
+	 */
+	public Bundle bookAll(List<IBaseResource> requests, RequestDetails requestDetails)
+			throws ValidationModuleInitializationException {
+		List<BatchEntry> entries = new ArrayList<>();
+		for (IBaseResource request : requests) {
+			entries.add(extract(request));
+		}
+		BookingReferenceResolver.BookingReferences slots = bookingReferenceResolver.resolveSlots(
+				entries.stream().filter(entry -> entry.data != null).map(entry -> entry.data).toList(),
+				requestDetails);
+		Set<String> lockKeys = new LinkedHashSet<>();
+		for (BatchEntry entry : entries) {
+			if (entry.data != null) {
+				String lockKey = appointmentBookHandler.getLockKey(entry.data, slots);
+				if (lockKey != null) {
+					lockKeys.add(lockKey);
+				}
+			}
+		}
+
+		try {
+			bookingLockService.callLocked(lockKeys, () -> {
+				book(entries, requestDetails);
+				return null;
+			});
+		} catch (BookingLockService.LockTimeoutException e) {
+			log.info("Appointment batch: {}", e.getMessage());
+			entries.stream()
+					.filter(BatchEntry::isAccepted)
+					.forEach(entry -> entry.reject("Appointment", e.getMessage()));
+		}
+		return toResponse(entries);
+	}
+
+	private BatchEntry extract(IBaseResource request) throws ValidationModuleInitializationException {
+		BatchEntry entry = new BatchEntry();
+		try {
+			if (request == null) {
+				throw new IllegalArgumentException("The entry does not contain a resource");
+			}
+			if (!validate(request, entry.outcome)) {
+				return entry;
+			}
+			entry.data = appointmentBookHandler.extractAppointmentData(request);
+			if (!appointmentBookHandlerHelper.hasSlot(entry.data.appointment())
+					&& (entry.data.scheduleReference() == null
+							|| entry.data.scheduleReference().getReference() == null)) {
+				throw new IllegalArgumentException(
+						"Slot is missing and could not find a Schedule Reference in incoming Parameters");
+			}
+		} catch (IllegalArgumentException | ClassCastException e) {
+			entry.data = null;
+			entry.reject("Parameters", e.getMessage());
+		}
+		return entry;
+	}
+
+	/**
+	 * Validates an entry like the {@link de.gematik.isik.mockserver.interceptor.FhirValidationInterceptor}
+	 * validates the body of a single $book request and adds the issues of an invalid entry to its outcome.
+	 *
+	 * @return true if the entry is valid
+	 */
+	private boolean validate(IBaseResource request, OperationOutcome outcome)
+			throws ValidationModuleInitializationException {
+		String body = ctx.newJsonParser().encodeResourceToString(request);
+		ValidationResult validationResult =
+				ValidationResultFilter.filter(fhirValidationHandler.validateResource(request, body));
+		if (validationResult.isValid()) {
+			return true;
+		}
+		OperationOutcome validationOutcome =
+				new ValidationResultToOperationOutcomeConverter(ctx).toOperationOutcome(validationResult);
+		outcome.getIssue().addAll(validationOutcome.getIssue());
+		return false;
+	}
+
+	private void book(List<BatchEntry> entries, RequestDetails requestDetails) {
+		List<BatchEntry> candidates =
+				entries.stream().filter(BatchEntry::isAccepted).toList();
+		BookingReferenceResolver.BookingReferences references = bookingReferenceResolver.resolve(
+				candidates.stream().map(entry -> entry.data).toList(), requestDetails);
+
+		for (BatchEntry entry : candidates) {
+			checkPlausibility(entry, references);
+		}
+
+		Map<String, List<Slot>> snapshots = loadSnapshots(candidates, references, requestDetails);
+		Map<String, Slot> updatedSlots = new LinkedHashMap<>();
+		Map<String, Appointment> updatedAppointments = new LinkedHashMap<>();
+		Bundle transaction = new Bundle();
+		transaction.setType(Bundle.BundleType.TRANSACTION);
+		for (BatchEntry entry : candidates) {
+			Appointment appointment = entry.data.appointment();
+			Reference scheduleReference = entry.data.scheduleReference();
+			if (!appointmentBookHandlerHelper.hasSlot(appointment)) {
+				if (references.get(Schedule.class, scheduleReference.getReference()).isEmpty()) {
+					OperationOutcomeUtils.addIssue(
+							entry.outcome,
+							"Parameters.schedule",
+							MessageFormat.format(
+									"Schedule with reference: {0} not found", scheduleReference.getReference()));
+				}
+				if (entry.isAccepted()) {
+					List<Slot> snapshot = snapshots.get(idPart(scheduleReference.getReference()));
+					reserveSlot(entry, snapshot, updatedSlots, transaction);
+				}
+			} else if (entry.isAccepted()) {
+				reserveReferencedSlot(entry, references, updatedSlots);
+			}
+			if (!entry.isAccepted()) {
+				continue;
+			}
+
+			appointment.setIdElement(null);
+			appointment.setStatus(Appointment.AppointmentStatus.BOOKED);
+			appointmentBookHandlerHelper.addReplacesExtension(appointment, entry.data.cancelledApptId());
+			entry.appointmentFullUrl = newFullUrl();
+			transaction.addEntry()
+					.setFullUrl(entry.appointmentFullUrl)
+					.setResource(appointment)
+					.getRequest()
+					.setMethod(Bundle.HTTPVerb.POST)
+					.setUrl("Appointment");
+			if (entry.data.cancelledApptId() != null) {
+				Appointment cancelled = references
+						.get(Appointment.class, entry.data.cancelledApptId().getReference())
+						.orElseThrow();
+				cancelled.setStatus(Appointment.AppointmentStatus.CANCELLED);
+				updatedAppointments.put(cancelled.getIdElement().getIdPart(), cancelled);
+			}
+		}
+
+		updatedSlots.values().forEach(slot -> addUpdate(transaction, slot));
+		updatedAppointments.values().forEach(appointment -> addUpdate(transaction, appointment));
+		if (transaction.getEntry().isEmpty()) {
+			return;
+		}
+		commit(transaction, candidates, requestDetails);
+	}
+
+	private void checkPlausibility(BatchEntry entry, BookingReferenceResolver.BookingReferences references) {
+		Appointment appointment = entry.data.appointment();
+		OperationOutcome outcome = entry.outcome;
+		appointmentBookHandlerHelper.validateStartAndEndPresent(appointment, outcome);
+		if (appointment.getStart() != null) {
+			appointmentBookHandlerHelper.validateStartInFuture(appointment, outcome);
+		}
+		appointmentBookHandlerHelper.validateStatusProposed(appointment, outcome);
+		appointmentBookHandlerHelper.validateServiceType(appointment, outcome);
+
+		String slotReference = BookingReferenceResolver.getSlotReference(entry.data);
+		if (slotReference != null) {
+			Slot slot = references.get(Slot.class, slotReference).orElse(null);
+			if (slot == null) {
+				OperationOutcomeUtils.addIssue(
+						outcome,
+						"Appointment.slot",
+						MessageFormat.format("Slot with ID: {0} not found", slotReference));
+			} else if (appointment.getStart() != null && appointment.getEnd() != null) {
+				appointmentBookHandlerHelper.validateStartAndEnd(appointment, slot, outcome);
+				appointmentBookHandlerHelper.validateReferencedSlotFree(slot, outcome);
+			}
+		}
+
+		String patientReference = BookingReferenceResolver.getPatientReference(appointment);
+		Patient patient = references.get(Patient.class, patientReference).orElse(null);
+		if (patient == null) {
+			OperationOutcomeUtils.addIssue(
+					outcome,
+					"Appointment.participant.actor",
+					MessageFormat.format("Patient with ID {0} not found", patientReference));
+		} else {
+			appointmentBookHandlerHelper.validateReferencedPatientActive(patient, outcome);
+		}
+
+		Reference cancelledApptId = entry.data.cancelledApptId();
+		if (cancelledApptId != null
+				&& references.get(Appointment.class, cancelledApptId.getReference()).isEmpty()) {
+			OperationOutcomeUtils.addIssue(
+					outcome,
+					"Parameters.cancelled-appt-id",
+					MessageFormat.format(
+							"Appointment for cancellation with ID {0} not found (cancelled-appt-id)",
+							cancelledApptId.getReference()));
+		}
+	}
+
+	/**
+	 * Loads the slots of every schedule that gets new slots once, up to the latest end of its
+	 * bookings. Slots reserved by earlier entries of the batch are added to the snapshot.
+	 */
+	private Map<String, List<Slot>> loadSnapshots(
+			List<BatchEntry> candidates,
+			BookingReferenceResolver.BookingReferences references,
+			RequestDetails requestDetails) {
+		Map<String, Date> latestEnds = new HashMap<>();
+		Map<String, Reference> scheduleReferences = new HashMap<>();
+		for (BatchEntry entry : candidates) {
+			Appointment appointment = entry.data.appointment();
+			if (!entry.isAccepted() || appointmentBookHandlerHelper.hasSlot(appointment)) {
+				continue;
+			}
+			String scheduleId = idPart(entry.data.scheduleReference().getReference());
+			scheduleReferences.putIfAbsent(scheduleId, entry.data.scheduleReference());
+			latestEnds.merge(scheduleId, appointment.getEnd(), (a, b) -> a.after(b) ? a : b);
+		}
+		Map<String, List<Slot>> snapshots = new HashMap<>();
+		latestEnds.forEach((scheduleId, latestEnd) -> snapshots.put(
+				scheduleId,
+				new ArrayList<>(appointmentBookHandlerHelper
+						.findSlotsInPeriod(scheduleReferences.get(scheduleId), latestEnd, requestDetails)
+						.stream()
+						.map(slot -> references.get(Slot.class, slot.getIdElement().getValue())
+								.orElse(slot))
+						.toList())));
+		return snapshots;
+	}
+
+	private void reserveSlot(
+			BatchEntry entry, List<Slot> snapshot, Map<String, Slot> updatedSlots, Bundle transaction) {
+		Appointment appointment = entry.data.appointment();
+		List<Slot> busySlots = overlapping(snapshot, appointment, Slot.SlotStatus.BUSY);
+		if (!busySlots.isEmpty()) {
+			appointmentBookHandlerHelper.addOverlappingSlotsIssue(appointment, busySlots, entry.outcome);
+			return;
+		}
+
+		// NOTE: As for single bookings, overlapping free slots are set to busy
+		for (Slot freeSlot : overlapping(snapshot, appointment, Slot.SlotStatus.FREE)) {
+			freeSlot.setStatus(Slot.SlotStatus.BUSY);
+			updatedSlots.put(freeSlot.getIdElement().getIdPart(), freeSlot);
+		}
+
+		Slot newSlot = new Slot();
+		newSlot.setStatus(Slot.SlotStatus.BUSY);
+		newSlot.setSchedule(entry.data.scheduleReference());
+		newSlot.setStart(appointment.getStart());
+		newSlot.setEnd(appointment.getEnd());
+		String slotFullUrl = newFullUrl();
+		newSlot.setId(slotFullUrl);
+		snapshot.add(newSlot);
+		appointment.addSlot(new Reference(slotFullUrl));
+		transaction.addEntry()
+				.setFullUrl(slotFullUrl)
+				.setResource(newSlot)
+				.getRequest()
+				.setMethod(Bundle.HTTPVerb.POST)
+				.setUrl("Slot");
+	}
+
+	/**
+	 * Sets the slot referenced by the entry to busy, an earlier entry of the batch may have booked it
+	 * already.
+	 */
+	private void reserveReferencedSlot(
+			BatchEntry entry, BookingReferenceResolver.BookingReferences references, Map<String, Slot> updatedSlots) {
+		Slot slot = references.get(Slot.class, BookingReferenceResolver.getSlotReference(entry.data))
+				.orElseThrow();
+		appointmentBookHandlerHelper.validateReferencedSlotFree(slot, entry.outcome);
+		if (entry.isAccepted()) {
+			slot.setStatus(Slot.SlotStatus.BUSY);
+			updatedSlots.put(slot.getIdElement().getIdPart(), slot);
+		}
+	}
+
+	private void commit(Bundle transaction, List<BatchEntry> candidates, RequestDetails requestDetails) {
+		try {
+			IFhirSystemDao<Bundle, Meta> systemDao = daoRegistry.getSystemDao();
+			Bundle response = systemDao.transaction(requestDetails, transaction);
+			Map<String, String> locations = new HashMap<>();
+			for (int i = 0; i < transaction.getEntry().size(); i++) {
+				locations.put(
+						transaction.getEntry().get(i).getFullUrl(),
+						response.getEntry().get(i).getResponse().getLocation());
+			}
+			for (BatchEntry entry : candidates) {
+				if (entry.isAccepted()) {
+					entry.location = locations.get(entry.appointmentFullUrl);
+					entry.data.appointment().setId(new IdType(entry.location).toUnqualifiedVersionless());
+					entry.data.appointment().getSlot().forEach(slot -> {
+						String slotLocation = locations.get(slot.getReference());
+						if (slotLocation != null) {
+							slot.setReference(new IdType(slotLocation).toUnqualifiedVersionless().getValue());
+						}
+					});
+				}
+			}
+			log.info("Appointment batch: {} appointments booked", locations.size());
+		} catch (RuntimeException e) {
+			log.warn("Appointment batch could not be stored: {}", e.getMessage());
+			candidates.stream()
+					.filter(BatchEntry::isAccepted)
+					.forEach(entry -> entry.fail("The batch could not be stored: " + e.getMessage()));
+		}
+	}
+
+	private Bundle toResponse(List<BatchEntry> entries) {
+		Bundle response = new Bundle();
+		response.setType(Bundle.BundleType.BATCHRESPONSE);
+		for (BatchEntry entry : entries) {
+			Bundle.BundleEntryComponent responseEntry = response.addEntry();
+			if (entry.isAccepted()) {
+				responseEntry.setFullUrl(entry.location);
+				responseEntry.setResource(entry.data.appointment());
+				responseEntry.getResponse().setStatus("201 Created").setLocation(entry.location);
+			} else {
+				responseEntry.getResponse().setStatus(entry.status).setOutcome(entry.outcome);
+			}
+		}
+		return response;
+	}
+
+	private List<Slot> overlapping(List<Slot> snapshot, Appointment appointment, Slot.SlotStatus status) {
+		return snapshot.stream()
+				.filter(slot -> AppointmentBookHandlerHelper.isOverlapping(
+						slot, appointment.getStart(), appointment.getEnd(), status))
+				.sorted(Comparator.comparing(Slot::getStart))
+				.toList();
+	}
+
+	private static void addUpdate(Bundle transaction, Resource resource) {
+		String id = resource.getIdElement().toUnqualifiedVersionless().getValue();
+		transaction.addEntry()
+				.setResource(resource)
+				.getRequest()
+				.setMethod(Bundle.HTTPVerb.PUT)
+				.setUrl(id);
+	}
+
+	private static String idPart(String reference) {
+		return new IdType(reference).getIdPart();
+	}
+
+	private static String newFullUrl() {
+		return "urn:uuid:" + UUID.randomUUID();
+	}
+
+	private static boolean isNdjson(String contentType) {
+		String mediaType = contentType.split(";")[0].trim();
+		return Constants.CT_FHIR_NDJSON.equals(mediaType)
+				|| "application/ndjson".equals(mediaType)
+				|| "application/x-ndjson".equals(mediaType);
+	}
+
+	private static final class BatchEntry {
+		private AppointmentBookHandler.AppointmentExtractionData data;
+		private final OperationOutcome outcome = new OperationOutcome();
+		private String status = "400 Bad Request";
+		private String appointmentFullUrl;
+		private String location;
+
+		private boolean isAccepted() {
+			return data != null && !OperationOutcomeUtils.hasErrorIssue(outcome);
+		}
+
+		private void reject(String location, String message) {
+			OperationOutcomeUtils.addIssue(outcome, location, message);
+		}
+
+		private void fail(String message) {
+			status = "500 Internal Server Error";
+			OperationOutcomeUtils.addIssue(outcome, "Bundle", message);
+		}
+	}
+}
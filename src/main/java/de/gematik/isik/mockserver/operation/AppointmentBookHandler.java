@@ -26,17 +26,21 @@ package de.gematik.isik.mockserver.operation;
  */
 
 import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.jpa.dao.tx.IHapiTransactionService;
 import ca.uhn.fhir.rest.api.EncodingEnum;
 import ca.uhn.fhir.rest.api.server.RequestDetails;
+import de.gematik.isik.mockserver.async.AppointmentBookExecutor;
 import de.gematik.isik.mockserver.helper.OperationOutcomeUtils;
 import lombok.RequiredArgsConstructor;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
+import org.hl7.fhir.instance.model.api.IBaseResource;
 import org.hl7.fhir.r4.model.Appointment;
 import org.hl7.fhir.r4.model.OperationOutcome;
 import org.hl7.fhir.r4.model.Parameters;
 import org.hl7.fhir.r4.model.Patient;
 import org.hl7.fhir.r4.model.Reference;
+import org.hl7.fhir.r4.model.Schedule;
 import org.hl7.fhir.r4.model.Slot;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.scheduling.annotation.Async;
@@ -44,8 +48,11 @@ import org.springframework.stereotype.Component;
 
 import java.text.MessageFormat;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.BooleanSupplier;
 
 @Component
 @Slf4j
@@ -59,21 +66,64 @@ public class AppointmentBookHandler {
 	@Autowired
 	private final AppointmentBookHandlerHelper appointmentBookHandlerHelper;
 
-	private record AppointmentExtractionData(
+	@Autowired
+	private final BookingReferenceResolver bookingReferenceResolver;
+
+	@Autowired(required = false)
+	private BookingLockService bookingLockService;
+
+	@Autowired(required = false)
+	private IHapiTransactionService transactionService;
+
+	record AppointmentExtractionData(
 			Appointment appointment, Reference scheduleReference, Reference cancelledApptId) {}
 
 	public AppointmentHandlerReturnObject handleIncomingAppointment(String body, RequestDetails theRequestDetails) {
 		var incomingResource = EncodingEnum.detectEncoding(body).newParser(ctx).parseResource(body);
+		return handleIncomingAppointment(incomingResource, theRequestDetails);
+	}
+
+	public AppointmentHandlerReturnObject handleIncomingAppointment(
+			IBaseResource incomingResource, RequestDetails theRequestDetails) {
 		var extractionData = extractAppointmentData(incomingResource);
+		if (bookingLockService == null) {
+			return book(extractionData, theRequestDetails);
+		}
+		String lockKey = getLockKey(
+				extractionData, bookingReferenceResolver.resolveSlots(List.of(extractionData), theRequestDetails));
+		if (lockKey == null) {
+			return book(extractionData, theRequestDetails);
+		}
+		try {
+			return bookingLockService.callLocked(lockKey, () -> book(extractionData, theRequestDetails));
+		} catch (BookingLockService.LockTimeoutException e) {
+			log.info("Incoming Appointment: {}", e.getMessage());
+			OperationOutcome outcome = new OperationOutcome();
+			OperationOutcomeUtils.addIssue(outcome, "Appointment", e.getMessage());
+			return new AppointmentHandlerReturnObject(null, false, outcome);
+		}
+	}
+
+	private AppointmentHandlerReturnObject book(
+			AppointmentExtractionData extractionData, RequestDetails theRequestDetails) {
 		Appointment incomingAppointment = extractionData.appointment();
 		Reference scheduleReference = extractionData.scheduleReference();
 		Reference cancelledApptId = extractionData.cancelledApptId();
+		if (!appointmentBookHandlerHelper.hasSlot(incomingAppointment) && scheduleReference == null) {
+			throw new IllegalArgumentException(
+					"Slot is missing and could not find a Schedule Reference in incoming Parameters");
+		}
 
-		OperationOutcome outcome = checkPlausibility(incomingAppointment, cancelledApptId, theRequestDetails);
+		BookingReferenceResolver.BookingReferences references =
+				bookingReferenceResolver.resolve(List.of(extractionData), theRequestDetails);
+		OperationOutcome outcome = checkPlausibility(incomingAppointment, cancelledApptId, references);
 
-		if (!appointmentBookHandlerHelper.hasSlot(incomingAppointment)) {
+		Optional<Slot> referencedSlot = Optional.empty();
+		if (appointmentBookHandlerHelper.hasSlot(incomingAppointment)) {
+			referencedSlot = references.get(Slot.class, incomingAppointment.getSlot().getFirst().getReference());
+		} else {
 			log.info("Incoming Appointment: Slot is missing");
-			createSlotIfNotOverlapping(incomingAppointment, scheduleReference, outcome, theRequestDetails);
+			createSlotIfNotOverlapping(incomingAppointment, scheduleReference, outcome, references, theRequestDetails);
 		}
 
 		incomingAppointment.setId(UUID.randomUUID().toString());
@@ -83,22 +133,68 @@ public class AppointmentBookHandler {
 			return new AppointmentHandlerReturnObject(null, false, outcome);
 		}
 
-		appointmentBookHandlerHelper.createAppointment(incomingAppointment, cancelledApptId, theRequestDetails);
-		if (cancelledApptId != null) {
-			appointmentBookHandlerHelper.cancelAppointment(cancelledApptId.getReference(), theRequestDetails);
-		}
+		// The Appointment, its referenced Slot and the cancelled Appointment are stored with a single commit
+		Optional<Slot> slotToReserve = referencedSlot;
+		executeInTransaction(theRequestDetails, () -> {
+			appointmentBookHandlerHelper.createAppointment(incomingAppointment, cancelledApptId, theRequestDetails);
+			slotToReserve.ifPresent(slot -> appointmentBookHandlerHelper.setSlotBusy(slot, theRequestDetails));
+			if (cancelledApptId != null) {
+				Appointment cancelledAppointment = references
+						.get(Appointment.class, cancelledApptId.getReference())
+						.orElseThrow();
+				appointmentBookHandlerHelper.cancelAppointment(cancelledAppointment, theRequestDetails);
+			}
+		});
 
 		return new AppointmentHandlerReturnObject(incomingAppointment, true, null);
 	}
 
-	@Async
+	private void executeInTransaction(RequestDetails theRequestDetails, Runnable writes) {
+		if (transactionService == null) {
+			writes.run();
+			return;
+		}
+		transactionService.withRequest(theRequestDetails).execute(writes);
+	}
+
+	/**
+	 * @param onStart called on the async thread before the appointment is processed, used to mark the
+	 *     job as running; if it returns false, the appointment is not processed and the returned future
+	 *     is cancelled
+	 */
+	@Async(AppointmentBookExecutor.BEAN_NAME)
 	public CompletableFuture<AppointmentHandlerReturnObject> handleIncomingAppointmentAsync(
-			String body, RequestDetails theRequestDetails) {
+			String body, RequestDetails theRequestDetails, BooleanSupplier onStart) {
+		if (!onStart.getAsBoolean()) {
+			return CompletableFuture.failedFuture(new CancellationException("The job is run by another node"));
+		}
 		AppointmentHandlerReturnObject result = handleIncomingAppointment(body, theRequestDetails);
 		return CompletableFuture.completedFuture(result);
 	}
 
-	private AppointmentExtractionData extractAppointmentData(Object incomingResource) {
+	/**
+	 * Bookings are serialized per schedule, so that a booking of a referenced slot and a booking that
+	 * creates a slot in the same schedule never run at the same time. A referenced slot that does not
+	 * exist or has no schedule is locked itself.
+	 *
+	 * @param slots the referenced slots, read by {@link BookingReferenceResolver#resolveSlots}
+	 */
+	String getLockKey(AppointmentExtractionData extractionData, BookingReferenceResolver.BookingReferences slots) {
+		String slotReference = BookingReferenceResolver.getSlotReference(extractionData);
+		if (slotReference != null) {
+			return slots.get(Slot.class, slotReference)
+					.map(slot -> slot.getSchedule().getReference())
+					.map(schedule -> BookingLockService.lockKey("Schedule", schedule))
+					.orElseGet(() -> BookingLockService.lockKey("Slot", slotReference));
+		}
+		Reference scheduleReference = extractionData.scheduleReference();
+		if (scheduleReference != null && scheduleReference.getReference() != null) {
+			return BookingLockService.lockKey("Schedule", scheduleReference.getReference());
+		}
+		return null;
+	}
+
+	AppointmentExtractionData extractAppointmentData(Object incomingResource) {
 		if (incomingResource instanceof Appointment appointment) {
 			return new AppointmentExtractionData(appointment, null, null);
 		}
@@ -126,50 +222,32 @@ public class AppointmentBookHandler {
 			Appointment incomingAppointment,
 			Reference scheduleReference,
 			OperationOutcome outcome,
+			BookingReferenceResolver.BookingReferences references,
 			RequestDetails requestDetails) {
-		if (scheduleReference == null) {
-			throw new IllegalArgumentException(
-					"Slot is missing and could not find a Schedule Reference in incoming Parameters");
-		} else {
-			if (!appointmentBookHandlerHelper.isScheduleExistent(scheduleReference.getReference(), requestDetails)) {
-				log.info("Schedule with ID : {} not found", scheduleReference);
-				OperationOutcomeUtils.addIssue(
-						outcome,
-						"Parameters.schedule",
-						MessageFormat.format(
-								"Schedule with reference: {0} not found", scheduleReference.getReference()));
-			}
-
-			List<Slot> overlappingBusySlots = appointmentBookHandlerHelper.findBusyOverlappingSlots(
-					incomingAppointment, scheduleReference, requestDetails);
-			List<Slot> overlappingFreeSlots = appointmentBookHandlerHelper.findFreeOverlappingSlots(
-					incomingAppointment, scheduleReference, requestDetails);
-			if (overlappingBusySlots.isEmpty()) {
-				appointmentBookHandlerHelper.createSlot(
-						incomingAppointment, scheduleReference, overlappingFreeSlots, requestDetails);
-			} else {
-				String overlappingSlotsDetails =
-						appointmentBookHandlerHelper.getOverlappingSlotDetails(overlappingBusySlots);
-				log.info(
-						"Incoming Appointment: Start and end are overlapping with existing slots. "
-								+ "Incoming Appointment Start: {}, Incoming Appointment End: {}, Overlapping Slots: {}",
-						incomingAppointment.getStart(),
-						incomingAppointment.getEnd(),
-						overlappingSlotsDetails);
+		if (references.get(Schedule.class, scheduleReference.getReference()).isEmpty()) {
+			log.info("Schedule with ID : {} not found", scheduleReference);
+			OperationOutcomeUtils.addIssue(
+					outcome,
+					"Parameters.schedule",
+					MessageFormat.format("Schedule with reference: {0} not found", scheduleReference.getReference()));
+		}
 
-				OperationOutcomeUtils.addIssue(
-						outcome,
-						"Appointment.start or Appointment.end",
-						String.format(
-								"Incoming Appointment: Start and end are overlapping with existing slots. "
-										+ "Incoming Appointment Start: %s, Incoming Appointment End: %s, Overlapping Slots: \n%s",
-								incomingAppointment.getStart(), incomingAppointment.getEnd(), overlappingSlotsDetails));
-			}
+		List<Slot> overlappingBusySlots = appointmentBookHandlerHelper.findBusyOverlappingSlots(
+				incomingAppointment, scheduleReference, requestDetails);
+		List<Slot> overlappingFreeSlots = appointmentBookHandlerHelper.findFreeOverlappingSlots(
+				incomingAppointment, scheduleReference, requestDetails);
+		if (overlappingBusySlots.isEmpty()) {
+			appointmentBookHandlerHelper.createSlot(
+					incomingAppointment, scheduleReference, overlappingFreeSlots, requestDetails);
+		} else {
+			appointmentBookHandlerHelper.addOverlappingSlotsIssue(incomingAppointment, overlappingBusySlots, outcome);
 		}
 	}
 
 	private OperationOutcome checkPlausibility(
-			Appointment incomingAppointment, Reference cancelledApptId, RequestDetails requestDetails) {
+			Appointment incomingAppointment,
+			Reference cancelledApptId,
+			BookingReferenceResolver.BookingReferences references) {
 		OperationOutcome outcome = new OperationOutcome();
 
 		appointmentBookHandlerHelper.validateStartAndEndPresent(incomingAppointment, outcome);
@@ -179,27 +257,33 @@ public class AppointmentBookHandler {
 
 		if (appointmentBookHandlerHelper.hasSlot(incomingAppointment)) {
 			String slotReference = incomingAppointment.getSlot().getFirst().getReference();
-			if (!appointmentBookHandlerHelper.isSlotExistent(slotReference, requestDetails)) {
+			Optional<Slot> slot = references.get(Slot.class, slotReference);
+			if (slot.isEmpty()) {
 				log.info("Slot with ID : {} not found", slotReference);
 				OperationOutcomeUtils.addIssue(
 						outcome,
 						"Appointment.slot",
 						MessageFormat.format("Slot with ID: {0} not found", slotReference));
 			} else {
-				Slot slot = appointmentBookHandlerHelper.getSlot(slotReference, requestDetails);
-				appointmentBookHandlerHelper.validateStartAndEnd(incomingAppointment, slot, outcome);
-				appointmentBookHandlerHelper.validateReferencedSlotFree(slot, outcome);
+				appointmentBookHandlerHelper.validateStartAndEnd(incomingAppointment, slot.get(), outcome);
+				appointmentBookHandlerHelper.validateReferencedSlotFree(slot.get(), outcome);
 			}
 		}
 
-		var patientReference =
-				incomingAppointment.getParticipant().getFirst().getActor().getReference();
-		Patient patient = appointmentBookHandlerHelper.getPatient(patientReference, requestDetails);
-		appointmentBookHandlerHelper.validateReferencedPatientActive(patient, outcome);
+		String patientReference = BookingReferenceResolver.getPatientReference(incomingAppointment);
+		Optional<Patient> patient = references.get(Patient.class, patientReference);
+		if (patient.isEmpty()) {
+			log.info("Patient with ID {} not found", patientReference);
+			OperationOutcomeUtils.addIssue(
+					outcome,
+					"Appointment.participant.actor",
+					MessageFormat.format("Patient with ID {0} not found", patientReference));
+		} else {
+			appointmentBookHandlerHelper.validateReferencedPatientActive(patient.get(), outcome);
+		}
 
 		if (cancelledApptId != null
-				&& !appointmentBookHandlerHelper.isCancelledAppointmentExistent(
-						cancelledApptId.getReference(), requestDetails)) {
+				&& references.get(Appointment.class, cancelledApptId.getReference()).isEmpty()) {
 			log.info(
 					"Appointment for cancellation with ID {} not found (cancelled-appt-id)",
 					cancelledApptId.getReference());
@@ -32,9 +32,11 @@ import ca.uhn.fhir.rest.api.server.RequestDetails;
 import ca.uhn.fhir.rest.param.DateParam;
 import ca.uhn.fhir.rest.param.ParamPrefixEnum;
 import ca.uhn.fhir.rest.param.ReferenceParam;
+import ca.uhn.fhir.rest.server.exceptions.ResourceGoneException;
 import ca.uhn.fhir.rest.server.exceptions.ResourceNotFoundException;
 import de.gematik.isik.mockserver.helper.OperationOutcomeUtils;
 import lombok.RequiredArgsConstructor;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.hl7.fhir.instance.model.api.IBaseResource;
 import org.hl7.fhir.r4.model.Appointment;
@@ -43,7 +45,6 @@ import org.hl7.fhir.r4.model.IdType;
 import org.hl7.fhir.r4.model.OperationOutcome;
 import org.hl7.fhir.r4.model.Patient;
 import org.hl7.fhir.r4.model.Reference;
-import org.hl7.fhir.r4.model.Schedule;
 import org.hl7.fhir.r4.model.Slot;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -52,6 +53,7 @@ import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.Date;
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Component
@@ -62,33 +64,15 @@ public class AppointmentBookHandlerHelper {
 	@Autowired
 	private final DaoRegistry daoRegistry;
 
-	public boolean isScheduleExistent(String scheduleId, RequestDetails requestDetails) {
-		try {
-			daoRegistry.getResourceDao(Schedule.class).read(new IdType(scheduleId), requestDetails);
-			return true;
-		} catch (ResourceNotFoundException e) {
-			return false;
-		}
-	}
-
-	public boolean isSlotExistent(String slotId, RequestDetails requestDetails) {
-		try {
-			daoRegistry.getResourceDao(Slot.class).read(new IdType(slotId), requestDetails);
-			return true;
-		} catch (ResourceNotFoundException e) {
-			return false;
-		}
-	}
+	@Setter
+	@Autowired(required = false)
+	private SlotIntervalIndex slotIntervalIndex;
 
 	public boolean hasSlot(Appointment incomingAppointment) {
 		return incomingAppointment.getSlot() != null
 				&& !incomingAppointment.getSlot().isEmpty();
 	}
 
-	public Patient getPatient(String patientId, RequestDetails requestDetails) {
-		return daoRegistry.getResourceDao(Patient.class).read(new IdType(patientId), requestDetails);
-	}
-
 	public Slot getSlot(String slotId, RequestDetails requestDetails) {
 		return daoRegistry.getResourceDao(Slot.class).read(new IdType(slotId), requestDetails);
 	}
@@ -181,6 +165,14 @@ public class AppointmentBookHandlerHelper {
 		}
 	}
 
+	/**
+	 * Marks the slot referenced by a booked appointment as busy, so that it is not booked again.
+	 */
+	public void setSlotBusy(Slot slot, RequestDetails requestDetails) {
+		slot.setStatus(Slot.SlotStatus.BUSY);
+		daoRegistry.getResourceDao(Slot.class).update(slot, requestDetails);
+	}
+
 	public void createSlot(
 			Appointment incomingAppointment,
 			Reference scheduleReference,
@@ -203,37 +195,99 @@ public class AppointmentBookHandlerHelper {
 		});
 	}
 
+	/**
+	 * Finds the slots of the schedule in the desired status that overlap the appointment. Uses the
+	 * {@link SlotIntervalIndex} if it is enabled and falls back to a database search if the index is
+	 * not available or does not match the stored slots.
+	 */
 	public List<Slot> findOverlappingSlots(
 			Appointment incomingAppointment,
 			Reference scheduleReference,
 			RequestDetails requestDetails,
 			Slot.SlotStatus desiredStatus) {
+		if (slotIntervalIndex != null
+				&& slotIntervalIndex.isEnabled()
+				&& incomingAppointment.getStart() != null
+				&& incomingAppointment.getEnd() != null) {
+			Optional<List<Slot>> indexedSlots =
+					findIndexedOverlappingSlots(incomingAppointment, scheduleReference, requestDetails, desiredStatus);
+			if (indexedSlots.isPresent()) {
+				return indexedSlots.get();
+			}
+		}
+		return searchOverlappingSlots(incomingAppointment, scheduleReference, requestDetails, desiredStatus);
+	}
+
+	private Optional<List<Slot>> findIndexedOverlappingSlots(
+			Appointment incomingAppointment,
+			Reference scheduleReference,
+			RequestDetails requestDetails,
+			Slot.SlotStatus desiredStatus) {
+		Optional<List<String>> slotIds = slotIntervalIndex.findOverlappingSlotIds(
+				scheduleReference.getReference(),
+				incomingAppointment.getStart(),
+				incomingAppointment.getEnd(),
+				desiredStatus,
+				requestDetails);
+		if (slotIds.isEmpty()) {
+			return Optional.empty();
+		}
+
 		List<Slot> overlappingSlots = new ArrayList<>();
-		Date appointmentStart = incomingAppointment.getStart();
-		Date appointmentEnd = incomingAppointment.getEnd();
+		for (String slotId : slotIds.get()) {
+			Slot slot;
+			try {
+				slot = getSlot("Slot/" + slotId, requestDetails);
+			} catch (ResourceNotFoundException | ResourceGoneException e) {
+				slot = null;
+			}
+			if (slot == null
+					|| !isOverlapping(
+							slot, incomingAppointment.getStart(), incomingAppointment.getEnd(), desiredStatus)) {
+				slotIntervalIndex.invalidate(scheduleReference.getReference());
+				return Optional.empty();
+			}
+			overlappingSlots.add(slot);
+		}
+		return Optional.of(overlappingSlots);
+	}
 
+	private List<Slot> searchOverlappingSlots(
+			Appointment incomingAppointment,
+			Reference scheduleReference,
+			RequestDetails requestDetails,
+			Slot.SlotStatus desiredStatus) {
+		return findSlotsInPeriod(scheduleReference, incomingAppointment.getEnd(), requestDetails).stream()
+				.filter(slot -> isOverlapping(
+						slot, incomingAppointment.getStart(), incomingAppointment.getEnd(), desiredStatus))
+				.toList();
+	}
+
+	/**
+	 * @return all slots of the schedule starting before {@code end}, to be filtered with {@link
+	 *     #isOverlapping(Slot, Date, Date, Slot.SlotStatus)}
+	 */
+	List<Slot> findSlotsInPeriod(Reference scheduleReference, Date end, RequestDetails requestDetails) {
 		SearchParameterMap paramMap = new SearchParameterMap();
 		paramMap.add("schedule", new ReferenceParam(scheduleReference.getReference()));
 		// Only consider slots starting before the appointment ends
-		paramMap.add("start", new DateParam(ParamPrefixEnum.LESSTHAN, appointmentEnd));
+		paramMap.add("start", new DateParam(ParamPrefixEnum.LESSTHAN, end));
 
 		IBundleProvider slotBundle = daoRegistry.getResourceDao(Slot.class).search(paramMap, requestDetails);
-		List<IBaseResource> slotResources = slotBundle.getAllResources();
-
-		for (IBaseResource resource : slotResources) {
-			Slot slot = (Slot) resource;
-			Date slotStart = slot.getStart();
-			Date slotEnd = slot.getEnd();
-
-			// Check for overlap: slots overlap if they are not completely before or after the appointment
-			// and match the desired status
-			if (!(slotEnd.before(appointmentStart) || slotStart.after(appointmentEnd))
-					&& slot.getStatus().equals(desiredStatus)) {
-				overlappingSlots.add(slot);
-			}
+		List<Slot> slots = new ArrayList<>();
+		for (IBaseResource resource : slotBundle.getAllResources()) {
+			slots.add((Slot) resource);
 		}
+		return slots;
+	}
+
+	static boolean isOverlapping(Slot slot, Date start, Date end, Slot.SlotStatus desiredStatus) {
+		Date slotStart = slot.getStart();
+		Date slotEnd = slot.getEnd();
 
-		return overlappingSlots;
+		// Check for overlap: slots overlap if they are not completely before or after the appointment
+		// and match the desired status
+		return !(slotEnd.before(start) || slotStart.after(end)) && slot.getStatus().equals(desiredStatus);
 	}
 
 	public List<Slot> findBusyOverlappingSlots(
@@ -253,30 +307,42 @@ public class AppointmentBookHandlerHelper {
 				.collect(Collectors.joining("\n"));
 	}
 
+	public void addOverlappingSlotsIssue(
+			Appointment incomingAppointment, List<Slot> overlappingBusySlots, OperationOutcome outcome) {
+		String overlappingSlotsDetails = getOverlappingSlotDetails(overlappingBusySlots);
+		log.info(
+				"Incoming Appointment: Start and end are overlapping with existing slots. "
+						+ "Incoming Appointment Start: {}, Incoming Appointment End: {}, Overlapping Slots: {}",
+				incomingAppointment.getStart(),
+				incomingAppointment.getEnd(),
+				overlappingSlotsDetails);
+
+		OperationOutcomeUtils.addIssue(
+				outcome,
+				"Appointment.start or Appointment.end",
+				String.format(
+						"Incoming Appointment: Start and end are overlapping with existing slots. "
+								+ "Incoming Appointment Start: %s, Incoming Appointment End: %s, Overlapping Slots: \n%s",
+						incomingAppointment.getStart(), incomingAppointment.getEnd(), overlappingSlotsDetails));
+	}
+
 	public void createAppointment(
 			Appointment incomingAppointment, Reference cancelledApptId, RequestDetails theRequestDetails) {
+		addReplacesExtension(incomingAppointment, cancelledApptId);
+		daoRegistry.getResourceDao(Appointment.class).create(incomingAppointment, theRequestDetails);
+	}
+
+	void addReplacesExtension(Appointment incomingAppointment, Reference cancelledApptId) {
 		if (cancelledApptId != null) {
 			Extension apptReplacesExtension = new Extension(
 					"http://hl7.org/fhir/5.0/StructureDefinition/extension-Appointment.replaces",
 					new Reference(cancelledApptId.getReference()));
 			incomingAppointment.addExtension(apptReplacesExtension);
 		}
-		daoRegistry.getResourceDao(Appointment.class).create(incomingAppointment, theRequestDetails);
 	}
 
-	public void cancelAppointment(String cancelledApptId, RequestDetails requestDetails) {
-		Appointment cancelledAppointment =
-				daoRegistry.getResourceDao(Appointment.class).read(new IdType(cancelledApptId), requestDetails);
+	public void cancelAppointment(Appointment cancelledAppointment, RequestDetails requestDetails) {
 		cancelledAppointment.setStatus(Appointment.AppointmentStatus.CANCELLED);
 		daoRegistry.getResourceDao(Appointment.class).update(cancelledAppointment, requestDetails);
 	}
-
-	public boolean isCancelledAppointmentExistent(String cancelledApptId, RequestDetails requestDetails) {
-		try {
-			daoRegistry.getResourceDao(Appointment.class).read(new IdType(cancelledApptId), requestDetails);
-			return true;
-		} catch (ResourceNotFoundException e) {
-			return false;
-		}
-	}
 }
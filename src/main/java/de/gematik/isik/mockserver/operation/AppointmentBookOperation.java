@@ -26,29 +26,54 @@ package de.gematik.isik.mockserver.operation;
  */
 
 import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.parser.DataFormatException;
+import ca.uhn.fhir.parser.IParser;
 import ca.uhn.fhir.rest.annotation.Operation;
+import ca.uhn.fhir.rest.annotation.OperationParam;
+import ca.uhn.fhir.rest.api.EncodingEnum;
 import ca.uhn.fhir.rest.api.server.RequestDetails;
 import ca.uhn.fhir.rest.server.IResourceProvider;
+import ca.uhn.fhir.rest.server.RestfulServerUtils;
+import ca.uhn.fhir.rest.server.RestfulServerUtils.ResponseEncoding;
+import ca.uhn.fhir.rest.server.exceptions.InvalidRequestException;
 import ca.uhn.fhir.rest.server.exceptions.PreconditionFailedException;
 import de.gematik.isik.mockserver.async.AsyncAppointmentBookJobService;
+import de.gematik.isik.mockserver.helper.OperationOutcomeUtils;
+import de.gematik.isik.mockserver.helper.ResponseUtils;
+import de.gematik.isik.mockserver.helper.ReusableRequestWrapper;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.hl7.fhir.instance.model.api.IBaseResource;
 import org.hl7.fhir.r4.model.Appointment;
+import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.DateTimeType;
+import org.hl7.fhir.r4.model.IntegerType;
 import org.hl7.fhir.r4.model.OperationOutcome;
+import org.hl7.fhir.r4.model.PrimitiveType;
+import org.hl7.fhir.r4.model.Reference;
+import org.hl7.fhir.r4.model.Slot;
+import org.hl7.fhir.r4.model.StringType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Collectors;
 
 @Component
 @Slf4j
 public class AppointmentBookOperation implements IResourceProvider {
 
+	private static final int RETRY_AFTER_SECONDS = 1;
+	private static final int DEFAULT_WINDOW_COUNT = 10;
+	private static final int MAX_WINDOW_COUNT = 100;
+
 	@Autowired
 	private FhirContext ctx;
 
@@ -58,6 +83,12 @@ public class AppointmentBookOperation implements IResourceProvider {
 	@Autowired
 	private AsyncAppointmentBookJobService asyncAppointmentBookJobService;
 
+	@Autowired
+	private AppointmentBookBatchHandler appointmentBookBatchHandler;
+
+	@Autowired
+	private SlotIntervalIndex slotIntervalIndex;
+
 	@Operation(name = "book", manualResponse = true, manualRequest = true)
 	@SneakyThrows
 	public Appointment bookAppointment(
@@ -69,9 +100,33 @@ public class AppointmentBookOperation implements IResourceProvider {
 			final String preferHeader = theRequest.getHeader("Prefer");
 			if (preferHeader != null && preferHeader.contains("respond-async")) {
 				String jobId = UUID.randomUUID().toString();
+				try {
+					asyncAppointmentBookJobService.registerJob(
+							jobId, body, determineResultEncoding(theRequestDetails), theRequestDetails.getTenantId());
+				} catch (RejectedExecutionException e) {
+					ResponseUtils.sendServiceUnavailableResponse(
+							theResponse,
+							"The server is currently keeping too many asynchronous bookings, please retry later",
+							RETRY_AFTER_SECONDS,
+							ctx.newJsonParser(),
+							EncodingEnum.JSON);
+					return null;
+				}
 
-				CompletableFuture<AppointmentHandlerReturnObject> futureResult =
-						appointmentBookHandler.handleIncomingAppointmentAsync(body, theRequestDetails);
+				CompletableFuture<AppointmentHandlerReturnObject> futureResult;
+				try {
+					futureResult = appointmentBookHandler.handleIncomingAppointmentAsync(
+							body, theRequestDetails, () -> asyncAppointmentBookJobService.markRunning(jobId));
+				} catch (RejectedExecutionException e) {
+					asyncAppointmentBookJobService.removeJob(jobId);
+					ResponseUtils.sendServiceUnavailableResponse(
+							theResponse,
+							"The server is currently booking too many appointments, please retry later",
+							RETRY_AFTER_SECONDS,
+							ctx.newJsonParser(),
+							EncodingEnum.JSON);
+					return null;
+				}
 
 				asyncAppointmentBookJobService.submitJob(jobId, futureResult);
 
@@ -85,7 +140,10 @@ public class AppointmentBookOperation implements IResourceProvider {
 				theResponse.setContentType("application/json");
 				log.debug("Incoming Appointment: {}", body);
 				final AppointmentHandlerReturnObject returnObject =
-						appointmentBookHandler.handleIncomingAppointment(body, theRequestDetails);
+						theRequest instanceof ReusableRequestWrapper requestWrapper
+								? appointmentBookHandler.handleIncomingAppointment(
+										requestWrapper.getParsedBody(ctx).copyResource(), theRequestDetails)
+								: appointmentBookHandler.handleIncomingAppointment(body, theRequestDetails);
 				if (returnObject.isOperationSuccessful()) {
 					log.info(
 							"Appointment successfully created. ID: {}",
@@ -117,11 +175,104 @@ public class AppointmentBookOperation implements IResourceProvider {
 		return null;
 	}
 
+	@Operation(name = "book-batch", manualResponse = true, manualRequest = true)
+	@SneakyThrows
+	public Bundle bookAppointments(
+			HttpServletRequest theRequest, HttpServletResponse theResponse, RequestDetails theRequestDetails) {
+		log.info("Incoming Appointment/$book-batch operation...");
+		final String body = theRequest.getReader().lines().collect(Collectors.joining(System.lineSeparator()));
+		final EncodingEnum encoding = determineResultEncoding(theRequestDetails);
+		final IParser parser = encoding.newParser(ctx).setPrettyPrint(true);
+		theResponse.setContentType(encoding.getResourceContentTypeNonLegacy());
+
+		final List<IBaseResource> requests;
+		try {
+			if (body.isBlank()) {
+				throw new IllegalArgumentException("The batch is empty");
+			}
+			requests = appointmentBookBatchHandler.parseRequests(body, theRequest.getContentType());
+		} catch (IllegalArgumentException | DataFormatException e) {
+			log.info("Invalid $book-batch request: {}", e.getMessage());
+			final OperationOutcome outcome = new OperationOutcome();
+			OperationOutcomeUtils.addIssue(outcome, "Bundle", e.getMessage());
+			theResponse.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+			theResponse.getWriter().print(parser.encodeResourceToString(outcome));
+			return null;
+		}
+
+		final Bundle response;
+		try {
+			response = appointmentBookBatchHandler.bookAll(requests, theRequestDetails);
+		} catch (RejectedExecutionException e) {
+			ResponseUtils.sendServiceUnavailableResponse(
+					theResponse,
+					"The server is currently validating too many resources, please retry later",
+					RETRY_AFTER_SECONDS,
+					parser,
+					encoding);
+			return null;
+		}
+		theResponse.setStatus(HttpServletResponse.SC_OK);
+		theResponse.getWriter().print(parser.encodeResourceToString(response));
+		return null;
+	}
+
+	/**
+	 * Finds the first free windows of a schedule that can be booked with $book, answered from the
+	 * free/busy bitmap of the schedule.
+	 *
+	 * @return a Bundle of free Slots, one per window, which are not stored
+	 */
+	@Operation(name = "find", idempotent = true)
+	public Bundle findFreeWindows(
+			@OperationParam(name = "schedule", min = 1, max = 1) StringType schedule,
+			@OperationParam(name = "start", min = 1, max = 1) DateTimeType start,
+			@OperationParam(name = "end", min = 1, max = 1) DateTimeType end,
+			@OperationParam(name = "duration", min = 1, max = 1) IntegerType durationMinutes,
+			@OperationParam(name = "count", max = 1) IntegerType count,
+			RequestDetails theRequestDetails) {
+		if (isMissing(schedule) || isMissing(start) || isMissing(end) || isMissing(durationMinutes)) {
+			throw new InvalidRequestException("The parameters schedule, start, end and duration are required");
+		}
+		if (durationMinutes.getValue() <= 0 || !start.getValue().before(end.getValue())) {
+			throw new InvalidRequestException("The duration must be positive and start must be before end");
+		}
+		int windowCount = count == null || !count.hasValue()
+				? DEFAULT_WINDOW_COUNT
+				: Math.clamp(count.getValue(), 1, MAX_WINDOW_COUNT);
+		Duration duration = Duration.ofMinutes(durationMinutes.getValue());
+		log.info("Incoming Appointment/$find operation for {}", schedule.getValue());
+
+		Bundle bundle = new Bundle();
+		bundle.setType(Bundle.BundleType.SEARCHSET);
+		for (Date windowStart : slotIntervalIndex.findFreeWindows(
+				schedule.getValue(), start.getValue(), end.getValue(), duration, windowCount, theRequestDetails)) {
+			Slot window = new Slot();
+			window.setStatus(Slot.SlotStatus.FREE);
+			window.setSchedule(new Reference(schedule.getValue()));
+			window.setStart(windowStart);
+			window.setEnd(new Date(windowStart.getTime() + duration.toMillis()));
+			bundle.addEntry().setResource(window).getSearch().setMode(Bundle.SearchEntryMode.MATCH);
+		}
+		bundle.setTotal(bundle.getEntry().size());
+		return bundle;
+	}
+
 	@Override
 	public Class<? extends IBaseResource> getResourceType() {
 		return Appointment.class;
 	}
 
+	private EncodingEnum determineResultEncoding(RequestDetails theRequestDetails) {
+		ResponseEncoding responseEncoding =
+				RestfulServerUtils.determineResponseEncodingNoDefault(theRequestDetails, null);
+		return responseEncoding == null ? EncodingEnum.JSON : responseEncoding.getEncoding();
+	}
+
+	private static boolean isMissing(PrimitiveType<?> parameter) {
+		return parameter == null || !parameter.hasValue();
+	}
+
 	private String buildContentLocationUrl(HttpServletRequest request, String jobId) {
 		String requestUrl = request.getRequestURL().toString();
 		return requestUrl.replace("/fhir/Appointment/$book", "/async-jobs/" + jobId);
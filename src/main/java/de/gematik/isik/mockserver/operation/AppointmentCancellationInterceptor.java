@@ -0,0 +1,115 @@
+package de.gematik.isik.mockserver.operation;
+
+/*-
+ * #%L
+ * isik-mock-server
+ * %%
+ * Copyright (C) 2025 - 2026 gematik GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ * #L%
+ */
+
+import ca.uhn.fhir.interceptor.api.Hook;
+import ca.uhn.fhir.interceptor.api.IInterceptorService;
+import ca.uhn.fhir.interceptor.api.Interceptor;
+import ca.uhn.fhir.interceptor.api.Pointcut;
+import ca.uhn.fhir.jpa.api.dao.DaoRegistry;
+import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
+import ca.uhn.fhir.rest.api.server.RequestDetails;
+import ca.uhn.fhir.rest.api.server.SystemRequestDetails;
+import ca.uhn.fhir.rest.param.ReferenceParam;
+import ca.uhn.fhir.rest.server.exceptions.ResourceGoneException;
+import ca.uhn.fhir.rest.server.exceptions.ResourceNotFoundException;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.hl7.fhir.r4.model.Appointment;
+import org.hl7.fhir.r4.model.IdType;
+import org.hl7.fhir.r4.model.Reference;
+import org.hl7.fhir.r4.model.Slot;
+import org.springframework.stereotype.Component;
+
+/**
+ * Frees the slots of an Appointment once it is cancelled, be it by a $book with {@code
+ * cancelled-appt-id} or by a PATCH or PUT of its status. A slot is only freed if it is busy and no
+ * other Appointment that is not cancelled references it. Runs in the transaction of the update, so
+ * that the Appointment and its slots are changed together.
+ *
+ * <p>Free slots that were set to busy because a $book created an overlapping slot are not freed
+ * again, as the Appointment does not reference them.
+ */
+@Component
+@Interceptor
+@Slf4j
+@RequiredArgsConstructor
+public class AppointmentCancellationInterceptor {
+
+	private final DaoRegistry daoRegistry;
+	private final IInterceptorService interceptorService;
+
+	@PostConstruct
+	void registerInterceptor() {
+		interceptorService.registerInterceptor(this);
+	}
+
+	@Hook(Pointcut.STORAGE_PRECOMMIT_RESOURCE_UPDATED)
+	public void appointmentUpdated(
+			IBaseResource oldResource, IBaseResource newResource, RequestDetails theRequestDetails) {
+		if (!(oldResource instanceof Appointment oldAppointment)
+				|| !(newResource instanceof Appointment appointment)
+				|| oldAppointment.getStatus() == Appointment.AppointmentStatus.CANCELLED
+				|| appointment.getStatus() != Appointment.AppointmentStatus.CANCELLED) {
+			return;
+		}
+		RequestDetails requestDetails = theRequestDetails != null ? theRequestDetails : new SystemRequestDetails();
+		String appointmentId = appointment.getIdElement().getIdPart();
+		for (Reference slotReference : appointment.getSlot()) {
+			if (slotReference.getReference() != null) {
+				freeSlot(slotReference.getReference(), appointmentId, requestDetails);
+			}
+		}
+	}
+
+	private void freeSlot(String slotReference, String appointmentId, RequestDetails requestDetails) {
+		Slot slot;
+		try {
+			slot = daoRegistry.getResourceDao(Slot.class).read(new IdType(slotReference), requestDetails);
+		} catch (ResourceNotFoundException | ResourceGoneException e) {
+			log.debug("{} of cancelled Appointment/{} does not exist", slotReference, appointmentId);
+			return;
+		}
+		if (slot.getStatus() != Slot.SlotStatus.BUSY
+				|| isBookedByOtherAppointment(slot, appointmentId, requestDetails)) {
+			return;
+		}
+		slot.setStatus(Slot.SlotStatus.FREE);
+		daoRegistry.getResourceDao(Slot.class).update(slot, requestDetails);
+		log.info("{} freed, Appointment/{} was cancelled", slotReference, appointmentId);
+	}
+
+	private boolean isBookedByOtherAppointment(Slot slot, String appointmentId, RequestDetails requestDetails) {
+		SearchParameterMap paramMap = SearchParameterMap.newSynchronous(
+				"slot", new ReferenceParam(slot.getIdElement().toUnqualifiedVersionless().getValue()));
+		return daoRegistry.getResourceDao(Appointment.class).search(paramMap, requestDetails).getAllResources().stream()
+				.map(Appointment.class::cast)
+				.anyMatch(other -> !appointmentId.equals(other.getIdElement().getIdPart())
+						&& other.getStatus() != Appointment.AppointmentStatus.CANCELLED);
+	}
+}
@@ -0,0 +1,201 @@
+package de.gematik.isik.mockserver.operation;
+
+/*-
+ * #%L
+ * isik-mock-server
+ * %%
+ * Copyright (C) 2025 - 2026 gematik GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ * #L%
+ */
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.hl7.fhir.r4.model.IdType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Makes the check and creation of a booking atomic per schedule, a referenced slot is locked via its
+ * schedule. Bookings of the same schedule are serialized by one of {@code
+ * booking-lock.stripes} local locks, bookings of other schedules run in parallel. If {@link
+ * JdbcBookingReservations} are configured ({@code booking-lock.store: jdbc}), a reservation row in the
+ * database is held in addition, so that bookings of other replicas are serialized as well.
+ */
+@Component
+@Slf4j
+public class BookingLockService {
+
+	private static final String METRIC_NAME = "isik.booking.lock";
+	private static final long MIN_BACKOFF_MILLIS = 5;
+	private static final long MAX_BACKOFF_MILLIS = 100;
+
+	private final ReentrantLock[] stripes;
+	private final Duration timeout;
+	private final Timer waitTimer;
+	private final Counter timeoutCounter;
+
+	@Setter
+	@Autowired(required = false)
+	private JdbcBookingReservations reservations;
+
+	public BookingLockService(
+			@Value("${booking-lock.stripes:64}") int stripes,
+			@Value("${booking-lock.timeout:10s}") Duration timeout,
+			MeterRegistry meterRegistry) {
+		this.stripes = new ReentrantLock[Math.max(1, stripes)];
+		for (int i = 0; i < this.stripes.length; i++) {
+			this.stripes[i] = new ReentrantLock();
+		}
+		this.timeout = timeout;
+		this.waitTimer = Timer.builder(METRIC_NAME + ".wait").register(meterRegistry);
+		this.timeoutCounter = Counter.builder(METRIC_NAME + ".timeouts").register(meterRegistry);
+	}
+
+	/**
+	 * @param resourceType the type of the locked resource, Schedule or Slot
+	 * @param reference the reference of the locked resource
+	 * @return the key of the lock, independent of the base URL and version of the reference
+	 */
+	public static String lockKey(String resourceType, String reference) {
+		return resourceType + "/" + new IdType(reference).getIdPart();
+	}
+
+	/**
+	 * Runs the action while holding the lock of the key.
+	 *
+	 * @param key the key returned by {@link #lockKey(String, String)}
+	 * @param action the check and creation of the booking
+	 * @return the result of the action
+	 * @throws LockTimeoutException if the lock could not be acquired within {@code booking-lock.timeout}
+	 */
+	public <T> T callLocked(String key, Supplier<T> action) {
+		long startNanos = System.nanoTime();
+		long deadlineNanos = startNanos + timeout.toNanos();
+		ReentrantLock lock = stripes[stripeIndex(key)];
+		acquireLocal(key, lock, deadlineNanos);
+		String reservation = null;
+		try {
+			if (reservations != null) {
+				reservation = acquireReservation(key, deadlineNanos);
+			}
+			waitTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+			return action.get();
+		} finally {
+			if (reservation != null) {
+				releaseReservation(key, reservation);
+			}
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Runs the action while holding the locks of all keys. The locks are acquired in the order of
+	 * their stripes, so that bookings of overlapping sets of schedules cannot deadlock.
+	 *
+	 * @param keys the keys returned by {@link #lockKey(String, String)}
+	 * @param action the check and creation of the bookings
+	 * @return the result of the action
+	 * @throws LockTimeoutException if a lock could not be acquired within {@code booking-lock.timeout}
+	 */
+	public <T> T callLocked(Collection<String> keys, Supplier<T> action) {
+		List<String> orderedKeys = keys.stream()
+				.distinct()
+				.sorted(Comparator.comparingInt(this::stripeIndex).thenComparing(Comparator.naturalOrder()))
+				.toList();
+		return callLocked(orderedKeys, 0, action);
+	}
+
+	private <T> T callLocked(List<String> orderedKeys, int index, Supplier<T> action) {
+		if (index == orderedKeys.size()) {
+			return action.get();
+		}
+		return callLocked(orderedKeys.get(index), () -> callLocked(orderedKeys, index + 1, action));
+	}
+
+	private int stripeIndex(String key) {
+		return Math.floorMod(key.hashCode(), stripes.length);
+	}
+
+	private void acquireLocal(String key, ReentrantLock lock, long deadlineNanos) {
+		try {
+			if (!lock.tryLock(deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+				throw timedOut(key);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw timedOut(key);
+		}
+	}
+
+	private String acquireReservation(String key, long deadlineNanos) {
+		long backoffMillis = MIN_BACKOFF_MILLIS;
+		while (true) {
+			String reservation = reservations.tryReserve(key);
+			if (reservation != null) {
+				return reservation;
+			}
+			long sleepMillis = ThreadLocalRandom.current().nextLong(backoffMillis / 2, backoffMillis + 1);
+			if (System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(sleepMillis) - deadlineNanos > 0) {
+				throw timedOut(key);
+			}
+			try {
+				Thread.sleep(sleepMillis);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw timedOut(key);
+			}
+			backoffMillis = Math.min(backoffMillis * 2, MAX_BACKOFF_MILLIS);
+		}
+	}
+
+	private void releaseReservation(String key, String reservation) {
+		try {
+			reservations.release(key, reservation);
+		} catch (RuntimeException e) {
+			// Note: The reservation expires after booking-lock.lease
+			log.warn("Reservation of {} could not be released: {}", key, e.getMessage());
+		}
+	}
+
+	private LockTimeoutException timedOut(String key) {
+		timeoutCounter.increment();
+		return new LockTimeoutException(key);
+	}
+
+	/** Thrown if a booking lock could not be acquired in time. */
+	public static class LockTimeoutException extends RuntimeException {
+		public LockTimeoutException(String key) {
+			super(String.format("%s is being booked by another request, please retry later", key));
+		}
+	}
+}
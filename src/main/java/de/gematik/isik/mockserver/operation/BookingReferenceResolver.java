@@ -0,0 +1,174 @@
+package de.gematik.isik.mockserver.operation;
+
+/*-
+ * #%L
+ * isik-mock-server
+ * %%
+ * Copyright (C) 2025 - 2026 gematik GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ * #L%
+ */
+
+import ca.uhn.fhir.jpa.api.dao.DaoRegistry;
+import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
+import ca.uhn.fhir.rest.api.Constants;
+import ca.uhn.fhir.rest.api.server.RequestDetails;
+import ca.uhn.fhir.rest.param.TokenOrListParam;
+import ca.uhn.fhir.rest.param.TokenParam;
+import lombok.RequiredArgsConstructor;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.hl7.fhir.r4.model.Appointment;
+import org.hl7.fhir.r4.model.IdType;
+import org.hl7.fhir.r4.model.Patient;
+import org.hl7.fhir.r4.model.Reference;
+import org.hl7.fhir.r4.model.Schedule;
+import org.hl7.fhir.r4.model.Slot;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Reads all resources referenced by $book requests up front: the Patient, the referenced Slot or
+ * the Schedule of a new slot, and the Appointment to be cancelled. The references of all bookings
+ * are read with one {@code _id} search per resource type, missing resources are simply absent from
+ * the result.
+ */
+@Component
+@RequiredArgsConstructor
+public class BookingReferenceResolver {
+
+	@Autowired
+	private final DaoRegistry daoRegistry;
+
+	/**
+	 * @param bookings the extracted $book requests
+	 * @param requestDetails the details of the $book request
+	 * @return the referenced resources, to be used for all checks and updates of the request
+	 */
+	public BookingReferences resolve(
+			Collection<AppointmentBookHandler.AppointmentExtractionData> bookings, RequestDetails requestDetails) {
+		Map<String, IBaseResource> resources = new HashMap<>();
+		readAll(Patient.class, bookings, data -> getPatientReference(data.appointment()), requestDetails, resources);
+		readAll(Slot.class, bookings, BookingReferenceResolver::getSlotReference, requestDetails, resources);
+		readAll(Schedule.class, bookings, BookingReferenceResolver::getScheduleReference, requestDetails, resources);
+		readAll(
+				Appointment.class,
+				bookings,
+				data -> getReference(data.cancelledApptId()),
+				requestDetails,
+				resources);
+		return new BookingReferences(resources);
+	}
+
+	/**
+	 * Reads only the referenced slots, whose schedules are locked before the bookings are checked.
+	 *
+	 * @param bookings the extracted $book requests
+	 * @param requestDetails the details of the $book request
+	 * @return the referenced slots
+	 */
+	public BookingReferences resolveSlots(
+			Collection<AppointmentBookHandler.AppointmentExtractionData> bookings, RequestDetails requestDetails) {
+		Map<String, IBaseResource> resources = new HashMap<>();
+		readAll(Slot.class, bookings, BookingReferenceResolver::getSlotReference, requestDetails, resources);
+		return new BookingReferences(resources);
+	}
+
+	static String getPatientReference(Appointment appointment) {
+		return appointment.hasParticipant()
+				? getReference(appointment.getParticipantFirstRep().getActor())
+				: null;
+	}
+
+	/** @return the referenced slot, if the booking references one */
+	static String getSlotReference(AppointmentBookHandler.AppointmentExtractionData data) {
+		return data.appointment().hasSlot()
+				? getReference(data.appointment().getSlotFirstRep())
+				: null;
+	}
+
+	/** @return the schedule of the new slot, if the booking does not reference a slot */
+	static String getScheduleReference(AppointmentBookHandler.AppointmentExtractionData data) {
+		return data.appointment().hasSlot() ? null : getReference(data.scheduleReference());
+	}
+
+	private static String getReference(Reference reference) {
+		return reference == null ? null : reference.getReference();
+	}
+
+	private <T extends IBaseResource> void readAll(
+			Class<T> type,
+			Collection<AppointmentBookHandler.AppointmentExtractionData> bookings,
+			Function<AppointmentBookHandler.AppointmentExtractionData, String> reference,
+			RequestDetails requestDetails,
+			Map<String, IBaseResource> resources) {
+		Set<String> ids = new LinkedHashSet<>();
+		for (AppointmentBookHandler.AppointmentExtractionData data : bookings) {
+			String value = reference.apply(data);
+			if (value != null) {
+				ids.add(new IdType(value).getIdPart());
+			}
+		}
+		if (ids.isEmpty()) {
+			return;
+		}
+		TokenOrListParam idParam = new TokenOrListParam();
+		ids.forEach(id -> idParam.addOr(new TokenParam(id)));
+		SearchParameterMap paramMap = SearchParameterMap.newSynchronous();
+		paramMap.add(Constants.PARAM_ID, idParam);
+		for (IBaseResource resource :
+				daoRegistry.getResourceDao(type).search(paramMap, requestDetails).getAllResources()) {
+			resources.put(key(type, resource.getIdElement().getIdPart()), resource);
+		}
+	}
+
+	private static String key(Class<? extends IBaseResource> type, String idPart) {
+		return type.getSimpleName() + "/" + idPart;
+	}
+
+	/** The resources read by {@link #resolve(Collection, RequestDetails)}, by resource type and id. */
+	public static final class BookingReferences {
+
+		private final Map<String, IBaseResource> resources;
+
+		private BookingReferences(Map<String, IBaseResource> resources) {
+			this.resources = resources;
+		}
+
+		/**
+		 * @param type the type of the referenced resource
+		 * @param reference a relative or absolute reference, as given in the $book request
+		 * @return the referenced resource, empty if it does not exist or was not part of the bookings
+		 */
+		public <T extends IBaseResource> Optional<T> get(Class<T> type, String reference) {
+			if (reference == null) {
+				return Optional.empty();
+			}
+			return Optional.ofNullable(resources.get(key(type, new IdType(reference).getIdPart())))
+					.map(type::cast);
+		}
+	}
+}
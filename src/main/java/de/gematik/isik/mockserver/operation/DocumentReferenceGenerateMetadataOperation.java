@@ -28,6 +28,7 @@ package de.gematik.isik.mockserver.operation;
 import ca.uhn.fhir.context.FhirContext;
 import ca.uhn.fhir.jpa.api.dao.DaoRegistry;
 import ca.uhn.fhir.jpa.api.model.DaoMethodOutcome;
+import ca.uhn.fhir.jpa.dao.tx.IHapiTransactionService;
 import ca.uhn.fhir.parser.IParser;
 import ca.uhn.fhir.rest.annotation.Operation;
 import ca.uhn.fhir.rest.api.EncodingEnum;
@@ -45,12 +46,12 @@ import org.hl7.fhir.instance.model.api.IPrimitiveType;
 import org.hl7.fhir.r4.model.Bundle;
 import org.hl7.fhir.r4.model.Composition;
 import org.hl7.fhir.r4.model.DocumentReference;
-import org.hl7.fhir.r4.model.IdType;
 import org.hl7.fhir.r4.model.OperationOutcome;
 import org.hl7.fhir.r4.model.PrimitiveType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
 import java.util.Optional;
 
 @Component
@@ -64,9 +65,15 @@ public class DocumentReferenceGenerateMetadataOperation implements IResourceProv
 	@Autowired
 	private FhirContext ctx;
 
+	@Autowired
+	private IHapiTransactionService transactionService;
+
 	@Autowired
 	private IsikBerichtBundleToISiKDokumentenMetadatenMapper bundleToISiKDokumentenMetadatenMapper;
 
+	@Autowired
+	private IsiKBerichtSubSystemeContentMapper contentMapper;
+
 	private static final String ISIK_BERICHT_BUNDLE_PROFILE =
 			"https://gematik.de/fhir/isik/v3/Basismodul/StructureDefinition/ISiKBerichtBundle";
 	private static final String ISIK_BERICHT_SUBSYSTEME_PROFILE =
@@ -124,39 +131,47 @@ public class DocumentReferenceGenerateMetadataOperation implements IResourceProv
 			return null;
 		}
 
-		DaoMethodOutcome methodOutcomeBundle =
-				daoRegistry.getResourceDao(Bundle.class).create(incomingBundle, theRequestDetails);
-		String createdBundleId = methodOutcomeBundle.getId().toString().replace("/_history/1", "");
 		DocumentReferenceMetadataReturnObject returnObject =
 				bundleToISiKDokumentenMetadatenMapper.mapCompositionToDocumentReference(
-						compositionOptional.get(),
-						encoding,
-						incomingBundle.getIdentifier(),
-						createdBundleId,
-						theRequestDetails);
+						compositionOptional.get(), incomingBundle.getIdentifier(), theRequestDetails);
 
 		if (!returnObject.isOperationSuccessful()) {
-			daoRegistry.getResourceDao(Bundle.class).delete(new IdType(createdBundleId), theRequestDetails);
 			ResponseUtils.sendValidationErrorResponse(
 					theResponse, 400, returnObject.getOperationOutcome(), "Something went wrong.", parser, encoding);
 			return null;
 		}
 
-		DaoMethodOutcome methodOutcomeDocRef = daoRegistry
-				.getResourceDao(DocumentReference.class)
-				.create(returnObject.getDocumentReference(), theRequestDetails);
-		String createdDocRef = ctx.newJsonParser().encodeResourceToString(returnObject.getDocumentReference());
+		// Both resources are stored with a single commit, the content of the DocumentReference
+		// references the Bundle and is therefore only known once the Bundle has been created
+		DocumentReference documentReference = returnObject.getDocumentReference();
+		CreatedIds createdIds = transactionService
+				.withRequest(theRequestDetails)
+				.execute(() -> {
+					DaoMethodOutcome methodOutcomeBundle =
+							daoRegistry.getResourceDao(Bundle.class).create(incomingBundle, theRequestDetails);
+					String createdBundleId = methodOutcomeBundle.getId().toString().replace("/_history/1", "");
+					documentReference.setContent(List.of(contentMapper.mapContentComponent(
+							compositionOptional.get(), encoding, createdBundleId)));
+					DaoMethodOutcome methodOutcomeDocRef = daoRegistry
+							.getResourceDao(DocumentReference.class)
+							.create(documentReference, theRequestDetails);
+					return new CreatedIds(
+							createdBundleId, methodOutcomeDocRef.getId().toString().replace("/_history/1", ""));
+				});
+		String createdDocRef = ctx.newJsonParser().encodeResourceToString(documentReference);
 		log.info(
 				"Successfully created Bundle with ID '{}' and DocumentReference with ID '{}'",
-				createdBundleId,
-				methodOutcomeDocRef.getId().toString().replace("/_history/1", ""));
+				createdIds.bundleId(),
+				createdIds.documentReferenceId());
 		log.debug("Response DocumentReference: {}", createdDocRef);
 		theResponse.getWriter().print(createdDocRef);
 		theResponse.setStatus(HttpServletResponse.SC_CREATED);
 
-		return returnObject.getDocumentReference();
+		return documentReference;
 	}
 
+	private record CreatedIds(String bundleId, String documentReferenceId) {}
+
 	private boolean isIsikBerichtBundle(IBaseResource resource) {
 		return (resource instanceof Bundle)
 				&& resource.getMeta().getProfile().stream()
@@ -0,0 +1,132 @@
+package de.gematik.isik.mockserver.operation;
+
+/*-
+ * #%L
+ * isik-mock-server
+ * %%
+ * Copyright (C) 2025 - 2026 gematik GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ * #L%
+ */
+
+import org.hl7.fhir.r4.model.Slot;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Free/busy bitmap of the slots of one schedule. Time is divided into cells of a fixed granularity
+ * starting at the epoch; a cell is free if it lies completely within a free slot and does not touch
+ * any busy slot. Built once from {@link SlotIntervalIndex.SlotIntervals} and not changed afterwards.
+ */
+final class FreeBusyBitmap {
+
+	private final long granularity;
+	// Note: cell index of bit 0
+	private final long origin;
+	private final BitSet free;
+	private final int cells;
+
+	private FreeBusyBitmap(long granularity, long origin, BitSet free, int cells) {
+		this.granularity = granularity;
+		this.origin = origin;
+		this.free = free;
+		this.cells = cells;
+	}
+
+	/**
+	 * @param slots the slots of the schedule
+	 * @param granularity the length of a cell in milliseconds
+	 * @throws IllegalArgumentException if the free slots of the schedule span more cells than a bitmap
+	 *     can hold
+	 */
+	static FreeBusyBitmap of(List<SlotIntervalIndex.SlotInterval> slots, long granularity) {
+		long firstCell = Long.MAX_VALUE;
+		long lastCell = Long.MIN_VALUE;
+		for (SlotIntervalIndex.SlotInterval slot : slots) {
+			if (slot.status() == Slot.SlotStatus.FREE) {
+				firstCell = Math.min(firstCell, Math.ceilDiv(slot.start(), granularity));
+				lastCell = Math.max(lastCell, Math.floorDiv(slot.end(), granularity));
+			}
+		}
+		if (firstCell >= lastCell) {
+			return new FreeBusyBitmap(granularity, 0, new BitSet(), 0);
+		}
+		if (lastCell - firstCell > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("The free slots span too many cells of " + granularity + " ms");
+		}
+		int cells = (int) (lastCell - firstCell);
+		BitSet free = new BitSet(cells);
+		for (SlotIntervalIndex.SlotInterval slot : slots) {
+			if (slot.status() == Slot.SlotStatus.FREE) {
+				int from = toBit(Math.ceilDiv(slot.start(), granularity) - firstCell, cells);
+				int to = toBit(Math.floorDiv(slot.end(), granularity) - firstCell, cells);
+				if (from < to) {
+					free.set(from, to);
+				}
+			}
+		}
+		for (SlotIntervalIndex.SlotInterval slot : slots) {
+			if (slot.status() != Slot.SlotStatus.FREE && slot.status() != Slot.SlotStatus.ENTEREDINERROR) {
+				int from = toBit(Math.floorDiv(slot.start(), granularity) - firstCell, cells);
+				int to = toBit(Math.ceilDiv(slot.end(), granularity) - firstCell, cells);
+				if (from < to) {
+					free.clear(from, to);
+				}
+			}
+		}
+		return new FreeBusyBitmap(granularity, firstCell, free, cells);
+	}
+
+	long granularity() {
+		return granularity;
+	}
+
+	/**
+	 * Finds free windows of the given duration, in the order of their start. Free periods longer than
+	 * the duration are split into consecutive windows.
+	 *
+	 * @param start the earliest start of a window in milliseconds
+	 * @param end the latest end of a window in milliseconds
+	 * @param duration the duration of a window in milliseconds
+	 * @param count the maximum number of windows
+	 * @return the start of each window in milliseconds
+	 */
+	List<Long> findFreeWindows(long start, long end, long duration, int count) {
+		List<Long> windows = new ArrayList<>();
+		long needed = Math.max(1, Math.ceilDiv(duration, granularity));
+		int from = toBit(Math.ceilDiv(start, granularity) - origin, cells);
+		int to = toBit(Math.floorDiv(end, granularity) - origin, cells);
+		int bit = free.nextSetBit(from);
+		while (bit >= 0 && bit < to && windows.size() < count) {
+			int runEnd = Math.min(free.nextClearBit(bit), to);
+			while (runEnd - bit >= needed && windows.size() < count) {
+				windows.add((origin + bit) * granularity);
+				bit += (int) needed;
+			}
+			bit = free.nextSetBit(runEnd);
+		}
+		return windows;
+	}
+
+	private static int toBit(long cell, int cells) {
+		return Math.clamp(cell, 0, cells);
+	}
+}
@@ -25,7 +25,6 @@ package de.gematik.isik.mockserver.operation;
  * #L%
  */
 
-import ca.uhn.fhir.rest.api.EncodingEnum;
 import ca.uhn.fhir.rest.api.server.RequestDetails;
 import de.gematik.isik.mockserver.helper.OperationOutcomeUtils;
 import lombok.RequiredArgsConstructor;
@@ -42,6 +41,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @Component
 @Slf4j
@@ -61,17 +61,36 @@ public class IsikBerichtBundleToISiKDokumentenMetadatenMapper {
 	private final IsiKBerichtSubSystemeEncounterMapper encounterMapper;
 
 	@Autowired
-	private final IsiKBerichtSubSystemeContentMapper contentMapper;
-
+	private final MetadataLookupExecutor lookupExecutor;
+
+	/**
+	 * Maps the Composition to a DocumentReference without content. The content references the stored
+	 * Bundle and is added by the caller once the Bundle has been created.
+	 *
+	 * <p>The identifier lookups of the subject, the relatesTo targets and the encounter run in
+	 * parallel, each with its own request details.
+	 */
 	public DocumentReferenceMetadataReturnObject mapCompositionToDocumentReference(
-			Composition composition,
-			EncodingEnum encoding,
-			Identifier bundleIdentifier,
-			String createdBundleId,
-			RequestDetails requestDetails) {
+			Composition composition, Identifier bundleIdentifier, RequestDetails requestDetails) {
 		OperationOutcome operationOutcome = new OperationOutcome();
 		DocumentReference documentReference = new DocumentReference();
 
+		// The lookups must not share the OperationOutcome, the DocumentReference or the request details with
+		// this thread
+		OperationOutcome subjectOutcome = new OperationOutcome();
+		DocumentReference.DocumentReferenceContextComponent documentReferenceContextComponent =
+				new DocumentReference.DocumentReferenceContextComponent();
+		CompletableFuture<Reference> subjectLookup = lookupExecutor.submit(
+				requestDetails,
+				lookupRequestDetails -> subjectMapper.mapSubject(composition, subjectOutcome, lookupRequestDetails));
+		CompletableFuture<List<DocumentReference.DocumentReferenceRelatesToComponent>> relatesToLookup =
+				lookupExecutor.submit(requestDetails, lookupRequestDetails ->
+						relatesToMapper.mapRelatesToComponents(composition, lookupRequestDetails));
+		CompletableFuture<Void> encounterLookup = lookupExecutor.submit(requestDetails, lookupRequestDetails -> {
+			encounterMapper.mapEncounter(composition, documentReferenceContextComponent, lookupRequestDetails);
+			return null;
+		});
+
 		documentReference.setMasterIdentifier(bundleIdentifier);
 		documentReference.setIdentifier(List.of(composition.getIdentifier()));
 		documentReference.setStatus(Enumerations.DocumentReferenceStatus.CURRENT);
@@ -80,7 +99,8 @@ public class IsikBerichtBundleToISiKDokumentenMetadatenMapper {
 
 		typeMapper.mapKdlAndXdsCodings(composition, documentReference, operationOutcome);
 
-		Reference patientReference = subjectMapper.mapSubject(composition, operationOutcome, requestDetails);
+		Reference patientReference = MetadataLookupExecutor.join(subjectLookup);
+		operationOutcome.getIssue().addAll(subjectOutcome.getIssue());
 		if (patientReference != null) {
 			documentReference.setSubject(patientReference);
 		}
@@ -95,17 +115,12 @@ public class IsikBerichtBundleToISiKDokumentenMetadatenMapper {
 		documentReference.setAuthor(List.of(authorRef));
 
 		List<DocumentReference.DocumentReferenceRelatesToComponent> relatesToComponents =
-				relatesToMapper.mapRelatesToComponents(composition, requestDetails);
+				MetadataLookupExecutor.join(relatesToLookup);
 		documentReference.setRelatesTo(relatesToComponents);
 
 		documentReference.setDescription(composition.getTitle());
-		DocumentReference.DocumentReferenceContentComponent contentComponent =
-				contentMapper.mapContentComponent(composition, encoding, createdBundleId);
-		documentReference.setContent(List.of(contentComponent));
 
-		DocumentReference.DocumentReferenceContextComponent documentReferenceContextComponent =
-				new DocumentReference.DocumentReferenceContextComponent();
-		encounterMapper.mapEncounter(composition, documentReferenceContextComponent, requestDetails);
+		MetadataLookupExecutor.join(encounterLookup);
 		documentReferenceContextComponent.setFacilityType(new CodeableConcept(
 				new Coding("http://ihe-d.de/CodeSystems/PatientBezogenenGesundheitsversorgung", "KHS", "Krankenhaus")));
 		documentReferenceContextComponent.setPracticeSetting(new CodeableConcept(
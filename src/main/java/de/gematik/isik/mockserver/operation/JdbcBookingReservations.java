@@ -0,0 +1,106 @@
+package de.gematik.isik.mockserver.operation;
+
+/*-
+ * #%L
+ * isik-mock-server
+ * %%
+ * Copyright (C) 2025 - 2026 gematik GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ * #L%
+ */
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Reservation rows in the database of the FHIR server, one per schedule or slot that is being booked.
+ * A reservation is taken by inserting its row or by taking over an expired one, so that at most one
+ * booking per schedule runs across all replicas. Reservations expire after {@code booking-lock.lease}
+ * in case a replica stops while booking.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "booking-lock.store", havingValue = "jdbc")
+public class JdbcBookingReservations {
+
+	static final String TABLE = "ISIK_BOOKING_RESERVATION";
+
+	private final JdbcTemplate jdbcTemplate;
+	private final Duration lease;
+
+	public JdbcBookingReservations(
+			JdbcTemplate jdbcTemplate, @Value("${booking-lock.lease:30s}") Duration lease) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.lease = lease;
+	}
+
+	@PostConstruct
+	public void init() {
+		jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + TABLE + " ("
+				+ "LOCK_KEY VARCHAR(128) PRIMARY KEY, "
+				+ "TOKEN VARCHAR(64) NOT NULL, "
+				+ "RESERVED_UNTIL BIGINT NOT NULL)");
+		log.info("Bookings are reserved in table {}", TABLE);
+	}
+
+	/**
+	 * @param key the key of the schedule or slot
+	 * @return the token of the reservation, or null if the key is reserved by another booking
+	 */
+	public String tryReserve(String key) {
+		String token = UUID.randomUUID().toString();
+		long now = System.currentTimeMillis();
+		int updated = jdbcTemplate.update(
+				"UPDATE " + TABLE + " SET TOKEN = ?, RESERVED_UNTIL = ? WHERE LOCK_KEY = ? AND RESERVED_UNTIL < ?",
+				token,
+				now + lease.toMillis(),
+				key,
+				now);
+		if (updated == 1) {
+			log.info("Took over expired reservation of {}", key);
+			return token;
+		}
+		try {
+			jdbcTemplate.update(
+					"INSERT INTO " + TABLE + " (LOCK_KEY, TOKEN, RESERVED_UNTIL) VALUES (?, ?, ?)",
+					key,
+					token,
+					now + lease.toMillis());
+			return token;
+		} catch (DuplicateKeyException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * @param key the key of the schedule or slot
+	 * @param token the token returned by {@link #tryReserve(String)}
+	 */
+	public void release(String key, String token) {
+		jdbcTemplate.update("DELETE FROM " + TABLE + " WHERE LOCK_KEY = ? AND TOKEN = ?", key, token);
+	}
+}
@@ -0,0 +1,100 @@
+package de.gematik.isik.mockserver.operation;
+
+/*-
+ * #%L
+ * isik-mock-server
+ * %%
+ * Copyright (C) 2025 - 2026 gematik GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ * #L%
+ */
+
+import ca.uhn.fhir.rest.api.server.RequestDetails;
+import ca.uhn.fhir.rest.api.server.SystemRequestDetails;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+/**
+ * Runs the identifier lookups of $generate-metadata in parallel. Every lookup is a search with its
+ * own database connection, so the lookups must not be started while the caller holds a transaction.
+ * {@link RequestDetails} are not thread-safe, so every lookup gets its own {@link SystemRequestDetails}
+ * for the tenant of the incoming request.
+ */
+@Slf4j
+@Component
+public class MetadataLookupExecutor {
+
+	/** {@code null} if the lookups run one after another on the calling thread */
+	private final ExecutorService executorService;
+
+	public MetadataLookupExecutor(@Value("${generate-metadata.lookup-threads:4}") int threads) {
+		this.executorService = threads > 0
+				? Executors.newFixedThreadPool(
+						threads, Thread.ofPlatform().name("metadata-lookup-", 0).daemon().factory())
+				: null;
+		log.info("Metadata lookup executor started with {} threads", Math.max(threads, 0));
+	}
+
+	/**
+	 * @param requestDetails the details of the incoming request, not passed to the lookup
+	 * @param lookup the lookup, called with its own request details
+	 */
+	public <T> CompletableFuture<T> submit(RequestDetails requestDetails, Function<RequestDetails, T> lookup) {
+		SystemRequestDetails lookupRequestDetails = new SystemRequestDetails();
+		lookupRequestDetails.setTenantId(requestDetails.getTenantId());
+		if (executorService == null) {
+			try {
+				return CompletableFuture.completedFuture(lookup.apply(lookupRequestDetails));
+			} catch (RuntimeException e) {
+				return CompletableFuture.failedFuture(e);
+			}
+		}
+		return CompletableFuture.supplyAsync(() -> lookup.apply(lookupRequestDetails), executorService);
+	}
+
+	/**
+	 * Waits for the given lookup and rethrows its exception unwrapped, as if it had run on the calling
+	 * thread.
+	 */
+	public static <T> T join(CompletableFuture<T> lookup) {
+		try {
+			return lookup.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException cause) {
+				throw cause;
+			}
+			throw e;
+		}
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		if (executorService != null) {
+			executorService.shutdownNow();
+		}
+	}
+}
@@ -0,0 +1,455 @@
+package de.gematik.isik.mockserver.operation;
+
+/*-
+ * #%L
+ * isik-mock-server
+ * %%
+ * Copyright (C) 2025 - 2026 gematik GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ * #L%
+ */
+
+import ca.uhn.fhir.interceptor.api.Hook;
+import ca.uhn.fhir.interceptor.api.IInterceptorService;
+import ca.uhn.fhir.interceptor.api.Interceptor;
+import ca.uhn.fhir.interceptor.api.Pointcut;
+import ca.uhn.fhir.jpa.api.dao.DaoRegistry;
+import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
+import ca.uhn.fhir.rest.api.server.RequestDetails;
+import ca.uhn.fhir.rest.param.ReferenceParam;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.hl7.fhir.r4.model.IdType;
+import org.hl7.fhir.r4.model.Slot;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntPredicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * In-memory index of the slots of each schedule, used by $book to find overlapping slots without
+ * loading all slots of the schedule, and by $find to find free windows in a free/busy bitmap of the
+ * schedule. A schedule is loaded from the database on its first query and then kept current through
+ * the storage pointcuts for Slot; changes are applied once their transaction committed. Only changes
+ * made by this replica are seen, so the index should be disabled ({@code slot-index.enabled: false})
+ * if several replicas write slots. At most {@code slot-index.max-schedules} schedules are kept, the
+ * least recently queried schedule is dropped first and loaded again on its next query.
+ */
+@Component
+@Interceptor
+@Slf4j
+public class SlotIntervalIndex {
+
+	private static final String METRIC_NAME = "isik.slot.index.requests";
+
+	private final DaoRegistry daoRegistry;
+	private final IInterceptorService interceptorService;
+
+	@Getter
+	private final boolean enabled;
+
+	private final Duration granularity;
+	private final int maxSchedules;
+	private final AtomicLong accessSequence = new AtomicLong();
+
+	private final Map<String, ScheduleSlots> schedules = new ConcurrentHashMap<>();
+	private final Counter hitCounter;
+	private final Counter loadCounter;
+	private final Counter staleCounter;
+
+	public SlotIntervalIndex(
+			DaoRegistry daoRegistry,
+			IInterceptorService interceptorService,
+			@Value("${slot-index.enabled:true}") boolean enabled,
+			@Value("${slot-index.availability.granularity:5m}") Duration granularity,
+			@Value("${slot-index.max-schedules:1000}") int maxSchedules,
+			MeterRegistry meterRegistry) {
+		this.daoRegistry = daoRegistry;
+		this.interceptorService = interceptorService;
+		this.enabled = enabled;
+		this.granularity = granularity;
+		this.maxSchedules = Math.max(1, maxSchedules);
+		this.hitCounter = Counter.builder(METRIC_NAME).tag("result", "hit").register(meterRegistry);
+		this.loadCounter = Counter.builder(METRIC_NAME).tag("result", "load").register(meterRegistry);
+		this.staleCounter = Counter.builder(METRIC_NAME).tag("result", "stale").register(meterRegistry);
+	}
+
+	@PostConstruct
+	void registerInterceptor() {
+		if (enabled) {
+			interceptorService.registerInterceptor(this);
+		}
+	}
+
+	/**
+	 * Finds the slots of a schedule in the given status that overlap the given period, using the same
+	 * rule as the database search: the slot starts before {@code end} and does not end before {@code
+	 * start}.
+	 *
+	 * @param scheduleReference the reference of the schedule
+	 * @param start the start of the period
+	 * @param end the end of the period
+	 * @param status the status of the slots to find
+	 * @param requestDetails used to load the schedule on its first query
+	 * @return the ids of the overlapping slots, or empty if the schedule could not be loaded
+	 */
+	public Optional<List<String>> findOverlappingSlotIds(
+			String scheduleReference, Date start, Date end, Slot.SlotStatus status, RequestDetails requestDetails) {
+		String scheduleKey = toScheduleKey(scheduleReference);
+		if (!enabled || scheduleKey == null) {
+			return Optional.empty();
+		}
+		return Optional.ofNullable(getIntervals(scheduleKey, requestDetails))
+				.map(intervals -> intervals.findOverlapping(start.getTime(), end.getTime(), status));
+	}
+
+	/**
+	 * Finds free windows of a schedule in the free/busy bitmap of the schedule, which is built on the
+	 * first query after a change of its slots. A window lies completely within free slots and does not
+	 * touch a busy slot; windows start at multiples of {@code slot-index.availability.granularity}.
+	 *
+	 * @param scheduleReference the reference of the schedule
+	 * @param start the earliest start of a window
+	 * @param end the latest end of a window
+	 * @param duration the duration of a window
+	 * @param count the maximum number of windows
+	 * @param requestDetails used to load the schedule
+	 * @return the start of each window, in ascending order
+	 */
+	public List<Date> findFreeWindows(
+			String scheduleReference,
+			Date start,
+			Date end,
+			Duration duration,
+			int count,
+			RequestDetails requestDetails) {
+		String scheduleKey = toScheduleKey(scheduleReference);
+		if (scheduleKey == null) {
+			return List.of();
+		}
+		SlotIntervals intervals = enabled ? getIntervals(scheduleKey, requestDetails) : null;
+		if (intervals == null) {
+			// Note: without the index, the bitmap is built from the stored slots for every query
+			intervals = SlotIntervals.of(searchSlots(scheduleKey, requestDetails));
+		}
+		return intervals.freeBusyBitmap(granularity.toMillis())
+				.findFreeWindows(start.getTime(), end.getTime(), duration.toMillis(), count)
+				.stream()
+				.map(Date::new)
+				.toList();
+	}
+
+	/**
+	 * Drops a schedule from the index, so that it is loaded again on its next query. Used when a slot
+	 * found in the index does not match the stored slot.
+	 *
+	 * @param scheduleReference the reference of the schedule
+	 */
+	public void invalidate(String scheduleReference) {
+		String scheduleKey = toScheduleKey(scheduleReference);
+		if (scheduleKey != null && schedules.remove(scheduleKey) != null) {
+			staleCounter.increment();
+			log.info("Slot index of {} is stale and will be reloaded", scheduleKey);
+		}
+	}
+
+	@Hook(Pointcut.STORAGE_PRECOMMIT_RESOURCE_CREATED)
+	public void slotCreated(IBaseResource resource) {
+		if (resource instanceof Slot slot) {
+			String scheduleKey = toScheduleKey(slot);
+			SlotInterval interval = SlotInterval.of(slot);
+			afterCommit(() -> put(scheduleKey, interval));
+		}
+	}
+
+	@Hook(Pointcut.STORAGE_PRECOMMIT_RESOURCE_UPDATED)
+	public void slotUpdated(IBaseResource oldResource, IBaseResource newResource) {
+		if (newResource instanceof Slot slot) {
+			String oldScheduleKey = oldResource instanceof Slot oldSlot ? toScheduleKey(oldSlot) : null;
+			String scheduleKey = toScheduleKey(slot);
+			String slotId = slot.getIdElement().getIdPart();
+			SlotInterval interval = SlotInterval.of(slot);
+			afterCommit(() -> {
+				remove(oldScheduleKey, slotId);
+				put(scheduleKey, interval);
+			});
+		}
+	}
+
+	@Hook(Pointcut.STORAGE_PRECOMMIT_RESOURCE_DELETED)
+	public void slotDeleted(IBaseResource resource) {
+		if (resource instanceof Slot slot) {
+			String scheduleKey = toScheduleKey(slot);
+			String slotId = slot.getIdElement().getIdPart();
+			afterCommit(() -> remove(scheduleKey, slotId));
+		}
+	}
+
+	private SlotIntervals getIntervals(String scheduleKey, RequestDetails requestDetails) {
+		ScheduleSlots scheduleSlots = schedules.computeIfAbsent(scheduleKey, key -> new ScheduleSlots());
+		scheduleSlots.lastAccess = accessSequence.incrementAndGet();
+		if (schedules.size() > maxSchedules) {
+			evictLeastRecentlyUsed(scheduleKey);
+		}
+		SlotIntervals intervals = scheduleSlots.intervals;
+		if (intervals == null) {
+			return load(scheduleKey, scheduleSlots, requestDetails);
+		}
+		hitCounter.increment();
+		return intervals;
+	}
+
+	private SlotIntervals load(String scheduleKey, ScheduleSlots scheduleSlots, RequestDetails requestDetails) {
+		scheduleSlots.lock.lock();
+		try {
+			if (scheduleSlots.intervals != null) {
+				return scheduleSlots.intervals;
+			}
+			List<SlotInterval> slots = searchSlots(scheduleKey, requestDetails);
+			scheduleSlots.intervals = SlotIntervals.of(slots);
+			loadCounter.increment();
+			log.debug("Loaded {} slots of {} into the slot index", slots.size(), scheduleKey);
+			return scheduleSlots.intervals;
+		} catch (RuntimeException e) {
+			log.warn("Slots of {} could not be loaded into the slot index: {}", scheduleKey, e.getMessage());
+			schedules.remove(scheduleKey, scheduleSlots);
+			return null;
+		} finally {
+			scheduleSlots.lock.unlock();
+		}
+	}
+
+	private void evictLeastRecentlyUsed(String queriedScheduleKey) {
+		while (schedules.size() > maxSchedules) {
+			Optional<Map.Entry<String, ScheduleSlots>> leastRecentlyUsed = schedules.entrySet().stream()
+					.filter(entry -> !entry.getKey().equals(queriedScheduleKey))
+					.min(Comparator.comparingLong(entry -> entry.getValue().lastAccess));
+			if (leastRecentlyUsed.isEmpty()) {
+				return;
+			}
+			schedules.remove(leastRecentlyUsed.get().getKey(), leastRecentlyUsed.get().getValue());
+			log.debug("Dropped {} from the slot index", leastRecentlyUsed.get().getKey());
+		}
+	}
+
+	private List<SlotInterval> searchSlots(String scheduleKey, RequestDetails requestDetails) {
+		// Note: synchronous, so that the slots are read from the database and not from the search cache
+		SearchParameterMap paramMap = SearchParameterMap.newSynchronous();
+		paramMap.add("schedule", new ReferenceParam(scheduleKey));
+		List<SlotInterval> slots = new ArrayList<>();
+		for (IBaseResource resource : daoRegistry
+				.getResourceDao(Slot.class)
+				.search(paramMap, requestDetails)
+				.getAllResources()) {
+			SlotInterval interval = SlotInterval.of((Slot) resource);
+			if (interval != null) {
+				slots.add(interval);
+			}
+		}
+		return slots;
+	}
+
+	private void put(String scheduleKey, SlotInterval interval) {
+		if (scheduleKey != null && interval != null) {
+			update(scheduleKey, intervals -> intervals.with(interval));
+		}
+	}
+
+	private void remove(String scheduleKey, String slotId) {
+		if (scheduleKey != null) {
+			update(scheduleKey, intervals -> intervals.without(slotId));
+		} else {
+			schedules.keySet().forEach(key -> update(key, intervals -> intervals.without(slotId)));
+		}
+	}
+
+	private void update(String scheduleKey, UnaryOperator<SlotIntervals> change) {
+		ScheduleSlots scheduleSlots = schedules.get(scheduleKey);
+		if (scheduleSlots == null) {
+			// Note: Schedules that are not loaded yet will see the change when they are loaded
+			return;
+		}
+		scheduleSlots.lock.lock();
+		try {
+			if (scheduleSlots.intervals != null) {
+				scheduleSlots.intervals = change.apply(scheduleSlots.intervals);
+			}
+		} finally {
+			scheduleSlots.lock.unlock();
+		}
+	}
+
+	private static void afterCommit(Runnable change) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			change.run();
+			return;
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				change.run();
+			}
+		});
+	}
+
+	private static String toScheduleKey(Slot slot) {
+		return slot.hasSchedule() ? toScheduleKey(slot.getSchedule().getReference()) : null;
+	}
+
+	private static String toScheduleKey(String scheduleReference) {
+		if (scheduleReference == null || scheduleReference.isBlank()) {
+			return null;
+		}
+		IdType scheduleId = new IdType(scheduleReference);
+		return scheduleId.hasIdPart() ? "Schedule/" + scheduleId.getIdPart() : null;
+	}
+
+	private static final class ScheduleSlots {
+		private final ReentrantLock lock = new ReentrantLock();
+		// Note: null until the schedule is loaded, replaced as a whole on every change
+		private volatile SlotIntervals intervals;
+		private volatile long lastAccess;
+	}
+
+	record SlotInterval(String slotId, long start, long end, Slot.SlotStatus status) {
+
+		static SlotInterval of(Slot slot) {
+			if (!slot.hasStart() || !slot.hasEnd() || !slot.hasStatus()) {
+				return null;
+			}
+			return new SlotInterval(
+					slot.getIdElement().getIdPart(),
+					slot.getStart().getTime(),
+					slot.getEnd().getTime(),
+					slot.getStatus());
+		}
+	}
+
+	/**
+	 * Immutable slots of a schedule, sorted by start. {@code maxEnd[i]} is the latest end of the slots
+	 * up to {@code i}, so the first slot that can overlap a period is found by binary search as well
+	 * as the last one.
+	 */
+	static final class SlotIntervals {
+
+		private static final Comparator<SlotInterval> ORDER =
+				Comparator.comparingLong(SlotInterval::start).thenComparing(SlotInterval::slotId);
+
+		private final SlotInterval[] slots;
+		private final long[] maxEnd;
+		// Note: built on the first $find, the slots never change
+		private volatile FreeBusyBitmap freeBusyBitmap;
+
+		private SlotIntervals(SlotInterval[] slots) {
+			this.slots = slots;
+			this.maxEnd = new long[slots.length];
+			long max = Long.MIN_VALUE;
+			for (int i = 0; i < slots.length; i++) {
+				max = Math.max(max, slots[i].end());
+				maxEnd[i] = max;
+			}
+		}
+
+		static SlotIntervals of(List<SlotInterval> slots) {
+			SlotInterval[] sorted = slots.toArray(SlotInterval[]::new);
+			Arrays.sort(sorted, ORDER);
+			return new SlotIntervals(sorted);
+		}
+
+		int size() {
+			return slots.length;
+		}
+
+		FreeBusyBitmap freeBusyBitmap(long granularity) {
+			FreeBusyBitmap bitmap = freeBusyBitmap;
+			if (bitmap == null || bitmap.granularity() != granularity) {
+				bitmap = FreeBusyBitmap.of(Arrays.asList(slots), granularity);
+				freeBusyBitmap = bitmap;
+			}
+			return bitmap;
+		}
+
+		SlotIntervals with(SlotInterval interval) {
+			SlotInterval[] others = without(interval.slotId()).slots;
+			int position = Arrays.binarySearch(others, interval, ORDER);
+			int insertAt = position < 0 ? -position - 1 : position;
+			SlotInterval[] changed = new SlotInterval[others.length + 1];
+			System.arraycopy(others, 0, changed, 0, insertAt);
+			changed[insertAt] = interval;
+			System.arraycopy(others, insertAt, changed, insertAt + 1, others.length - insertAt);
+			return new SlotIntervals(changed);
+		}
+
+		SlotIntervals without(String slotId) {
+			if (Arrays.stream(slots).noneMatch(slot -> slot.slotId().equals(slotId))) {
+				return this;
+			}
+			return new SlotIntervals(Arrays.stream(slots)
+					.filter(slot -> !slot.slotId().equals(slotId))
+					.toArray(SlotInterval[]::new));
+		}
+
+		List<String> findOverlapping(long start, long end, Slot.SlotStatus status) {
+			// Note: slots from index 'to' on start at or after the end of the period
+			int to = firstIndex(i -> slots[i].start() >= end);
+			// Note: slots before index 'from' end before the start of the period
+			int from = firstIndex(i -> maxEnd[i] >= start);
+			List<String> overlapping = new ArrayList<>();
+			for (int i = from; i < to; i++) {
+				SlotInterval slot = slots[i];
+				if (slot.end() >= start && slot.status() == status) {
+					overlapping.add(slot.slotId());
+				}
+			}
+			return overlapping;
+		}
+
+		private int firstIndex(IntPredicate condition) {
+			int low = 0;
+			int high = slots.length;
+			while (low < high) {
+				int mid = (low + high) >>> 1;
+				if (condition.test(mid)) {
+					high = mid;
+				} else {
+					low = mid + 1;
+				}
+			}
+			return low;
+		}
+	}
+}
@@ -34,6 +34,7 @@ import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.io.input.BOMInputStream;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
 import org.springframework.core.io.support.ResourcePatternResolver;
@@ -41,78 +42,321 @@ import org.springframework.stereotype.Component;
 
 import java.io.File;
 import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.OutputStream;
 import java.net.URI;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.ProviderNotFoundException;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
+/**
+ * Loads the validation plugins. The plugins bundled in {@code plugins.directory} are read once on
+ * startup. Plugins in {@code plugins.hot-reload.directory} are read on startup and on every reload,
+ * a plugin there replaces the bundled plugin with the same id.
+ *
+ * <p>The plugins in use, their archives and the routing index built from the plugin mappings are
+ * kept in one {@link LoadedPlugins} instance, which is replaced as a whole by {@link
+ * #publish(LoadedPlugins)}.
+ */
 @Component
 @Slf4j
 public class PluginLoader {
 
+	/**
+	 * Plugins together with the checksums and the opened archives of their plugin files, and the
+	 * routing index built from the plugin mappings.
+	 *
+	 * @param fingerprint identifies the set of plugins (ids and content checksums). Changes whenever a
+	 *     plugin is added, removed or replaced by a different version.
+	 */
+	public record LoadedPlugins(
+			Map<String, Plugin> plugins,
+			Map<String, Long> checksums,
+			Map<String, ZipFile> archives,
+			PluginRoutingIndex index,
+			String fingerprint) {
+
+		static final LoadedPlugins EMPTY =
+				of(Map.of(), Map.of(), Map.of(), PluginRoutingIndex.build(Map.of(), Map.of(), Map.of()));
+
+		public static LoadedPlugins of(
+				Map<String, Plugin> plugins,
+				Map<String, Long> checksums,
+				Map<String, ZipFile> archives,
+				PluginRoutingIndex index) {
+			String fingerprint = new TreeMap<>(checksums)
+					.entrySet().stream()
+					.map(entry -> entry.getKey() + ":" + Long.toHexString(entry.getValue()))
+					.collect(Collectors.joining(","));
+			return new LoadedPlugins(
+					Map.copyOf(plugins), Map.copyOf(checksums), Map.copyOf(archives), index, fingerprint);
+		}
+
+		/**
+		 * @param index the routing index built from the plugin mappings of these plugins
+		 * @return the same plugins with the given routing index
+		 */
+		public LoadedPlugins withIndex(PluginRoutingIndex index) {
+			return new LoadedPlugins(plugins, checksums, archives, index, fingerprint);
+		}
+	}
+
+	/**
+	 * The plugins in use, replaced as a whole by {@link #publish(LoadedPlugins)}.
+	 */
 	@Getter
-	private final Map<String, Plugin> plugins = new HashMap<>();
+	private volatile LoadedPlugins loadedPlugins = LoadedPlugins.EMPTY;
+
+	/**
+	 * Plugins bundled in the plugin directory on the classpath, read once on startup.
+	 */
+	private LoadedPlugins bundledPlugins = LoadedPlugins.EMPTY;
 
 	private final String pluginPath;
 
 	@Getter
 	private final boolean enabled;
 
+	/**
+	 * Directory in which the plugin archives are kept across restarts. If null, the archives are
+	 * copied to temporary files on every start.
+	 */
+	private final Path pluginCacheDirectory;
+
+	/**
+	 * Directory of the plugins and plugin mappings that are read again on every reload. If null, only
+	 * the bundled plugins are used.
+	 */
+	@Getter
+	private final Path reloadDirectory;
+
+	private final PluginMappingLoader pluginMappingLoader;
+
+	/**
+	 * Archives this instance wrote to the plugin cache directory, keyed by archive name.
+	 */
+	private final Map<String, Path> writtenCachedFiles = new ConcurrentHashMap<>();
+
 	public PluginLoader(
-			@Value("${plugins.directory}") String pluginPath, @Value("${plugins.enabled:true}") boolean enabled) {
+			@Value("${plugins.directory}") String pluginPath,
+			@Value("${plugins.enabled:true}") boolean enabled,
+			@Value("${plugins.cache-directory:}") String pluginCacheDirectory,
+			@Value("${plugins.hot-reload.directory:}") String reloadDirectory,
+			PluginMappingLoader pluginMappingLoader) {
 		this.pluginPath = pluginPath;
 		this.enabled = enabled;
+		this.pluginCacheDirectory = toPath(pluginCacheDirectory);
+		this.reloadDirectory = toPath(reloadDirectory);
+		this.pluginMappingLoader = pluginMappingLoader;
 	}
 
 	private File pluginFolder;
 
 	@PostConstruct
+	@SneakyThrows
 	public void init() {
+		this.pluginFolder = new File(pluginPath);
+		PluginRoutingIndex index = PluginRoutingIndex.build(pluginMappingLoader.readMappings(reloadDirectory));
 		if (enabled) {
-			this.pluginFolder = new File(pluginPath);
-			loadPlugins();
+			bundledPlugins = readPlugins(getResourcesFromFolder(pluginPath), LoadedPlugins.EMPTY);
+			if (bundledPlugins.plugins().isEmpty()) {
+				log.info("No plugins found in: {}", pluginFolder.getPath());
+			}
+			publish(readPlugins().withIndex(index));
+		} else {
+			publish(LoadedPlugins.EMPTY.withIndex(index));
 		}
 	}
 
-	private void loadPlugins() {
-		plugins.clear();
+	public Map<String, Plugin> getPlugins() {
+		return loadedPlugins.plugins();
+	}
 
-		var zipFiles = getResourcesFromFolder(pluginPath);
-		if (zipFiles.isEmpty()) {
-			log.info("No plugins found in: {}", pluginFolder.getPath());
-			return;
-		}
+	/**
+	 * @return the checksums of the archives of the plugins in use, keyed by plugin id
+	 */
+	public Map<String, Long> getChecksums() {
+		return loadedPlugins.checksums();
+	}
+
+	/**
+	 * @return the fingerprint of the plugins in use, see {@link LoadedPlugins#fingerprint()}
+	 */
+	public String getFingerprint() {
+		return loadedPlugins.fingerprint();
+	}
+
+	/**
+	 * @return the routing index of the plugins in use
+	 */
+	public PluginRoutingIndex getIndex() {
+		return loadedPlugins.index();
+	}
+
+	/**
+	 * Reads the plugins of the reload directory without replacing the plugins in use. The bundled
+	 * plugins are not read again. Plugins whose archive did not change are taken over from the
+	 * plugins in use, together with their opened archive.
+	 *
+	 * @return the bundled plugins, overridden by the plugins of the reload directory, without a
+	 *     routing index
+	 */
+	public LoadedPlugins readPlugins() {
+		LoadedPlugins readPlugins = readPlugins(getResourcesFromReloadDirectory(), bundledPlugins);
+		LoadedPlugins current = loadedPlugins;
+
+		Map<String, Plugin> plugins = new HashMap<>(readPlugins.plugins());
+		Map<String, ZipFile> archives = new HashMap<>(readPlugins.archives());
+		readPlugins.checksums().forEach((pluginId, checksum) -> {
+			ZipFile currentArchive = current.archives().get(pluginId);
+			if (checksum.equals(current.checksums().get(pluginId))
+					&& currentArchive != null
+					&& currentArchive != archives.get(pluginId)) {
+				closeArchive(archives.get(pluginId));
+				plugins.put(pluginId, current.plugins().get(pluginId));
+				archives.put(pluginId, currentArchive);
+			}
+		});
+		return LoadedPlugins.of(plugins, readPlugins.checksums(), archives, null);
+	}
+
+	private LoadedPlugins readPlugins(List<ZipFile> zipFiles, LoadedPlugins base) {
+		long loadStart = System.nanoTime();
+		Map<String, Plugin> loadedPlugins = new HashMap<>(base.plugins());
+		Map<String, Long> checksums = new TreeMap<>(base.checksums());
+		Map<String, ZipFile> archives = new HashMap<>(base.archives());
+		Set<String> readIds = new HashSet<>();
 
 		for (var zipFile : zipFiles) {
+			long start = System.nanoTime();
 			var configFile = zipFile.stream()
 					.filter(e -> e.getName().endsWith("config.yaml"))
 					.findFirst();
 			if (configFile.isEmpty()) {
+				closeArchive(zipFile);
 				throw new IllegalArgumentException("No config file found for plugin " + zipFile.getName());
 			}
 
 			Plugin plugin = Plugin.createFromZipFile(zipFile);
-			if (plugins.containsKey(plugin.getId())) {
+			if (!readIds.add(plugin.getId())) {
 				log.warn(
 						"Duplicate plugin id found: '{}'. Change the id of the plugin in the plugin"
 								+ " configuration file and try again",
 						plugin.getId());
+				closeArchive(zipFile);
 			} else {
-				plugins.put(plugin.getId(), plugin);
+				if (loadedPlugins.containsKey(plugin.getId())) {
+					log.info("Plugin {} from {} replaces the bundled plugin", plugin.getId(), zipFile.getName());
+				}
+				loadedPlugins.put(plugin.getId(), plugin);
+				checksums.put(plugin.getId(), checksum(zipFile));
+				archives.put(plugin.getId(), zipFile);
+				log.info(
+						"Loaded plugin {} from {} in {} ms",
+						plugin.getId(),
+						zipFile.getName(),
+						TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
 			}
 		}
 
-		log.info("Loaded {} plugins successfully.", plugins.size());
+		log.info(
+				"Loaded {} plugins successfully in {} ms.",
+				readIds.size(),
+				TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - loadStart));
+		return LoadedPlugins.of(loadedPlugins, checksums, archives, base.index());
+	}
+
+	/**
+	 * Replaces the plugins in use, including their routing index. Concurrent readers see either the
+	 * previous or the new plugins and index, never a mix of both.
+	 *
+	 * @param loadedPlugins the plugins read by {@link #readPlugins()} with their routing index
+	 * @return the replaced plugins
+	 */
+	public LoadedPlugins publish(LoadedPlugins loadedPlugins) {
+		if (loadedPlugins.index() == null) {
+			throw new IllegalArgumentException("Plugins cannot be published without a routing index");
+		}
+		LoadedPlugins previous = this.loadedPlugins;
+		this.loadedPlugins = loadedPlugins;
+		return previous;
+	}
+
+	/**
+	 * Closes the archives of the given plugins that are neither in use nor bundled, e.g. the archives
+	 * of replaced plugins after {@link #publish(LoadedPlugins)}, or of plugins read for a reload that
+	 * failed.
+	 *
+	 * @param plugins the plugins whose archives are no longer needed
+	 */
+	public void closeUnusedArchives(LoadedPlugins plugins) {
+		Set<ZipFile> usedArchives = Collections.newSetFromMap(new IdentityHashMap<>());
+		usedArchives.addAll(loadedPlugins.archives().values());
+		usedArchives.addAll(bundledPlugins.archives().values());
+		plugins.archives().values().stream()
+				.filter(archive -> !usedArchives.contains(archive))
+				.forEach(PluginLoader::closeArchive);
+	}
+
+	private static void closeArchive(ZipFile archive) {
+		try {
+			archive.close();
+		} catch (IOException e) {
+			log.warn("Could not close plugin archive {}: {}", archive.getName(), e.getMessage());
+		}
+	}
+
+	private static Path toPath(String directory) {
+		return directory == null || directory.isBlank()
+				? null
+				: Paths.get(directory).toAbsolutePath().normalize();
+	}
+
+	@SneakyThrows
+	private List<ZipFile> getResourcesFromReloadDirectory() {
+		if (reloadDirectory == null || !Files.isDirectory(reloadDirectory)) {
+			return List.of();
+		}
+
+		List<Path> paths;
+		try (Stream<Path> files = Files.list(reloadDirectory)) {
+			paths = files.filter(Files::isRegularFile)
+					.filter(file -> file.getFileName().toString().endsWith(".zip"))
+					.sorted()
+					.toList();
+		}
+
+		List<ZipFile> resources = new ArrayList<>();
+		for (Path path : paths) {
+			resources.add(convertToZipFile(new FileSystemResource(path), path.getFileName().toString()));
+		}
+		return resources;
+	}
+
+	private static long checksum(ZipFile zipFile) {
+		return zipFile.stream().mapToLong(ZipEntry::getCrc).reduce(17L, (result, crc) -> 31L * result + crc);
 	}
 
 	@SneakyThrows
@@ -130,26 +374,82 @@ public class PluginLoader {
 	private void readResourcesFromFolderIfNonJarEnvironment(String folder, List<ZipFile> resources) {
 		var paths = getAllFilesFromResourceSubfolder(folder);
 		for (File file : paths) {
-			Path path = file.toPath();
-			ZipFile resource;
-			try (final var bomStream = new BOMInputStream(Files.newInputStream(path))) {
-				resource = convertToZipFile(bomStream, path.toString());
-			}
-			resources.add(resource);
+			resources.add(convertToZipFile(new FileSystemResource(file), file.getPath()));
 		}
 	}
 
 	@SneakyThrows
-	private ZipFile convertToZipFile(BOMInputStream bomStream, String string) {
+	private ZipFile convertToZipFile(Resource resource, String string) {
+		if (pluginCacheDirectory != null) {
+			return getCachedZipFile(resource, string);
+		}
+
 		// Convert the BOMInputStream to ZipFile
+		long start = System.nanoTime();
 		File tempFile = File.createTempFile("plugin-" + string + "-", ".zip");
 		tempFile.deleteOnExit();
-		try (OutputStream out = new FileOutputStream(tempFile)) {
+		try (final var bomStream = new BOMInputStream(resource.getInputStream());
+				OutputStream out = new FileOutputStream(tempFile)) {
 			bomStream.transferTo(out);
 		}
+		log.info(
+				"Copied plugin archive {} in {} ms",
+				string,
+				TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
 		return new ZipFile(tempFile);
 	}
 
+	/**
+	 * Opens the plugin archive from the plugin cache directory. Cached archives are keyed by the
+	 * location, size and modification time of their source, so a cache hit neither reads nor hashes
+	 * the source. The archive is only written if the cache does not contain it yet, so restarts and
+	 * further replicas sharing the directory skip the copy.
+	 *
+	 * <p>The directory may be shared, so only outdated archives written by this instance are removed.
+	 * Archives left behind by other replicas or previous runs are kept.
+	 */
+	@SneakyThrows
+	private ZipFile getCachedZipFile(Resource resource, String fileName) {
+		long start = System.nanoTime();
+		String sourceKey = resource.getURL() + "|" + resource.contentLength() + "|" + resource.lastModified();
+		String key = HexFormat.of()
+				.formatHex(MessageDigest.getInstance("SHA-256").digest(sourceKey.getBytes(StandardCharsets.UTF_8)));
+		String baseName = Paths.get(fileName).getFileName().toString().replaceFirst("\\.zip$", "");
+		Path cachedFile = pluginCacheDirectory.resolve(baseName + "-" + key + ".zip");
+
+		boolean cacheHit = Files.isRegularFile(cachedFile);
+		if (!cacheHit) {
+			Files.createDirectories(pluginCacheDirectory);
+			Path tempFile = Files.createTempFile(pluginCacheDirectory, baseName + "-", ".tmp");
+			try (final var bomStream = new BOMInputStream(resource.getInputStream())) {
+				Files.copy(bomStream, tempFile, StandardCopyOption.REPLACE_EXISTING);
+				Files.move(tempFile, cachedFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} finally {
+				Files.deleteIfExists(tempFile);
+			}
+			removeOutdatedCachedFile(baseName, cachedFile);
+		}
+
+		log.info(
+				"Prepared plugin archive {} in {} ms (cache {})",
+				baseName,
+				TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+				cacheHit ? "hit" : "miss");
+		return new ZipFile(cachedFile.toFile());
+	}
+
+	private void removeOutdatedCachedFile(String baseName, Path currentFile) {
+		Path outdatedFile = writtenCachedFiles.put(baseName, currentFile);
+		if (outdatedFile == null || outdatedFile.equals(currentFile)) {
+			return;
+		}
+		try {
+			Files.deleteIfExists(outdatedFile);
+		} catch (IOException e) {
+			log.warn("Could not remove outdated plugin archive {}: {}", outdatedFile, e.getMessage());
+		}
+	}
+
 	@SneakyThrows
 	private List<File> getAllFilesFromResourceSubfolder(String folder) {
 
@@ -175,14 +475,10 @@ public class PluginLoader {
 					resolver.getResources("classpath*:/" + folder + "/*.*");
 
 			for (Resource resource : jarResources) {
-				ZipFile r;
-				try (final var bomStream = new BOMInputStream(resource.getInputStream())) {
-					String filename = resource.getFilename();
-					if (filename == null) throw new IllegalStateException("Could not retrieve resource filename");
+				String filename = resource.getFilename();
+				if (filename == null) throw new IllegalStateException("Could not retrieve resource filename");
 
-					r = convertToZipFile(bomStream, filename);
-				}
-				output.add(r);
+				output.add(convertToZipFile(resource, filename));
 			}
 
 			return true;
@@ -198,6 +494,7 @@ public class PluginLoader {
 	}
 
 	public Plugin getPlugin(String validationModuleId) {
+		Map<String, Plugin> plugins = getPlugins();
 		Plugin plugin = plugins.get(validationModuleId);
 		if (plugin == null) {
 			List<String> supportedValidationModules = Stream.concat(
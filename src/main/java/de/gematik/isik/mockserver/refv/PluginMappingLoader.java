@@ -26,16 +26,23 @@ package de.gematik.isik.mockserver.refv;
  */
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import jakarta.annotation.PostConstruct;
-import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.List;
 import java.util.Map;
 
+/**
+ * Reads the plugin mapping files. The mappings are only returned, the plugin mappings in use are
+ * part of the plugins published by the {@link PluginLoader}.
+ */
 @Component
 @Slf4j
 public class PluginMappingLoader {
@@ -43,6 +50,15 @@ public class PluginMappingLoader {
 	private static final String SUCCESS_MESSAGE =
 			"Successfully mapped validation module plugin information from config file: {}";
 
+	/**
+	 * The plugin mappings: resource type to plugin ids, resource type to profile URLs and plugin id
+	 * to the profile URLs of the plugin.
+	 */
+	public record PluginMappings(
+			Map<String, List<String>> resourceTypeToPluginIdMap,
+			Map<String, List<String>> resourceTypeToProfileUrlMap,
+			Map<String, List<String>> profileUrlToPluginIdMap) {}
+
 	private final String jsonFilePathResourceTypeToPluginId;
 	private final String jsonFilePathResourceTypeToProfileUrl;
 	private final String jsonFilePathProfileUrlToPluginId;
@@ -59,30 +75,40 @@ public class PluginMappingLoader {
 		this.objectMapper = objectMapper;
 	}
 
-	@Getter
-	private Map<String, List<String>> resourceTypeToPluginIdMap;
-
-	@Getter
-	private Map<String, List<String>> resourceTypeToProfileUrlMap;
-
-	@Getter
-	private Map<String, List<String>> profileUrlToPluginIdMap;
-
-	@PostConstruct
-	public void loadData() throws IOException {
-		var jsonFileResourceTypeToPluginId =
-				getClass().getClassLoader().getResourceAsStream(jsonFilePathResourceTypeToPluginId);
-		resourceTypeToPluginIdMap = objectMapper.readValue(jsonFileResourceTypeToPluginId, Map.class);
-		log.info(SUCCESS_MESSAGE, jsonFilePathResourceTypeToPluginId);
+	/**
+	 * Reads the plugin mappings. A mapping file in the given directory takes precedence over the
+	 * mapping file of the same name on the classpath, so that reloadable plugins can ship their own
+	 * mappings.
+	 *
+	 * @param directory the directory of the reloadable plugins, or null
+	 * @return the plugin mappings
+	 * @throws IOException if a mapping file cannot be read
+	 */
+	public PluginMappings readMappings(Path directory) throws IOException {
+		return new PluginMappings(
+				readMapping(jsonFilePathResourceTypeToPluginId, directory),
+				readMapping(jsonFilePathResourceTypeToProfileUrl, directory),
+				readMapping(jsonFilePathProfileUrlToPluginId, directory));
+	}
 
-		var jsonFileResourceTypeToProfileUrl =
-				getClass().getClassLoader().getResourceAsStream(jsonFilePathResourceTypeToProfileUrl);
-		resourceTypeToProfileUrlMap = objectMapper.readValue(jsonFileResourceTypeToProfileUrl, Map.class);
-		log.info(SUCCESS_MESSAGE, jsonFilePathResourceTypeToProfileUrl);
+	@SuppressWarnings("unchecked")
+	private Map<String, List<String>> readMapping(String fileName, Path directory) throws IOException {
+		Path file = directory == null ? null : directory.resolve(Paths.get(fileName).getFileName());
+		if (file != null && Files.isRegularFile(file)) {
+			try (InputStream inputStream = Files.newInputStream(file)) {
+				Map<String, List<String>> mapping = objectMapper.readValue(inputStream, Map.class);
+				log.info(SUCCESS_MESSAGE, file);
+				return mapping;
+			}
+		}
 
-		var jsonFileProfileUrlToPluginId =
-				getClass().getClassLoader().getResourceAsStream(jsonFilePathProfileUrlToPluginId);
-		profileUrlToPluginIdMap = objectMapper.readValue(jsonFileProfileUrlToPluginId, Map.class);
-		log.info(SUCCESS_MESSAGE, jsonFilePathProfileUrlToPluginId);
+		try (InputStream inputStream = getClass().getClassLoader().getResourceAsStream(fileName)) {
+			if (inputStream == null) {
+				throw new FileNotFoundException("Plugin mapping not found: " + fileName);
+			}
+			Map<String, List<String>> mapping = objectMapper.readValue(inputStream, Map.class);
+			log.info(SUCCESS_MESSAGE, fileName);
+			return mapping;
+		}
 	}
 }
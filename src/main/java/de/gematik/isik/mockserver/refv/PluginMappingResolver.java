@@ -25,51 +25,37 @@ package de.gematik.isik.mockserver.refv;
  * #L%
  */
 
-import lombok.RequiredArgsConstructor;
+import de.gematik.isik.mockserver.refv.PluginRoutingIndex.ResourceTypeRoute;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
-import java.util.Map;
 
+/**
+ * Resolves the validation plugins of a resource. The lookups use the {@link PluginRoutingIndex} of
+ * the plugins in use, which is replaced together with the plugins when they are reloaded.
+ */
 @Component
-@RequiredArgsConstructor
 public class PluginMappingResolver {
 
-	private final PluginMappingLoader pluginMappingLoader;
-
-	public List<String> getPluginIdsFromResourceType(String resourceType) {
-		Map<String, List<String>> pluginIdMap = pluginMappingLoader.getResourceTypeToPluginIdMap();
+	private final PluginLoader pluginLoader;
 
-		for (Map.Entry<String, List<String>> entry : pluginIdMap.entrySet()) {
-			if (entry.getKey().equals(resourceType)) {
-				return entry.getValue();
-			}
-		}
+	public PluginMappingResolver(PluginLoader pluginLoader) {
+		this.pluginLoader = pluginLoader;
+	}
 
-		return List.of();
+	public List<String> getPluginIdsFromResourceType(String resourceType) {
+		return getRoute(resourceType).pluginIds();
 	}
 
 	public List<String> getProfileUrlsFromResourceType(String resourceType) {
-		Map<String, List<String>> profileUrlMap = pluginMappingLoader.getResourceTypeToProfileUrlMap();
-
-		for (Map.Entry<String, List<String>> entry : profileUrlMap.entrySet()) {
-			if (entry.getKey().equals(resourceType)) {
-				return entry.getValue();
-			}
-		}
-
-		return List.of();
+		return getRoute(resourceType).profileUrls();
 	}
 
 	public String getPluginIdFromProfile(String profileUrl) {
-		Map<String, List<String>> profilesMap = pluginMappingLoader.getProfileUrlToPluginIdMap();
-
-		for (Map.Entry<String, List<String>> entry : profilesMap.entrySet()) {
-			if (entry.getValue().contains(profileUrl)) {
-				return entry.getKey();
-			}
-		}
+		return pluginLoader.getIndex().getPluginId(profileUrl);
+	}
 
-		return null;
+	public ResourceTypeRoute getRoute(String resourceType) {
+		return pluginLoader.getIndex().getRoute(resourceType);
 	}
 }
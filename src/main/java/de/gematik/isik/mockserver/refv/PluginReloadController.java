@@ -0,0 +1,59 @@
+package de.gematik.isik.mockserver.refv;
+
+/*-
+ * #%L
+ * isik-mock-server
+ * %%
+ * Copyright (C) 2025 - 2026 gematik GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ * #L%
+ */
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Admin endpoint to reload the validation plugins, e.g. after a new plugin version was added to the
+ * plugin directory. Only available with {@code plugins.hot-reload.enabled: true}.
+ */
+@RestController
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "plugins.hot-reload.enabled", havingValue = "true")
+public class PluginReloadController {
+
+	private final PluginReloadService pluginReloadService;
+
+	@PostMapping("/admin/plugins/reload")
+	public ResponseEntity<PluginReloadService.ReloadStatus> reload() {
+		if (!pluginReloadService.startReload()) {
+			return ResponseEntity.status(HttpStatus.CONFLICT).body(pluginReloadService.getStatus());
+		}
+		return ResponseEntity.status(HttpStatus.ACCEPTED).body(pluginReloadService.getStatus());
+	}
+
+	@GetMapping("/admin/plugins/reload")
+	public ResponseEntity<PluginReloadService.ReloadStatus> getStatus() {
+		return ResponseEntity.ok(pluginReloadService.getStatus());
+	}
+}
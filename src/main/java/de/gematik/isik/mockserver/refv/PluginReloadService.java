@@ -0,0 +1,182 @@
+package de.gematik.isik.mockserver.refv;
+
+/*-
+ * #%L
+ * isik-mock-server
+ * %%
+ * Copyright (C) 2025 - 2026 gematik GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ * #L%
+ */
+
+import de.gematik.isik.mockserver.interceptor.ValidationModuleCache;
+import de.gematik.isik.mockserver.interceptor.ValidationModulePool;
+import de.gematik.isik.mockserver.interceptor.ValidationModuleWarmup;
+import de.gematik.refv.Plugin;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * Reloads the validation plugins of {@code plugins.hot-reload.directory} without a restart. The
+ * plugins and plugin mappings are read, the routing index is built and the validation modules of
+ * changed plugins are created and warmed up in the background, while validations keep using the
+ * current plugins. None of this touches the plugins in use. Afterwards the new plugins and their
+ * routing index are published in a single swap. The modules of the replaced plugins are then
+ * removed and their archives closed. Running validations finish on the previous modules, which are
+ * garbage collected afterwards.
+ */
+@Slf4j
+@Component
+public class PluginReloadService {
+
+	public enum State {
+		IDLE,
+		RUNNING,
+		SUCCEEDED,
+		FAILED
+	}
+
+	/**
+	 * Outcome of the last reload.
+	 */
+	public record ReloadStatus(
+			State state, Instant startedAt, Instant finishedAt, List<String> changed, List<String> removed, String error) {
+
+		static final ReloadStatus IDLE = new ReloadStatus(State.IDLE, null, null, List.of(), List.of(), null);
+	}
+
+	private final PluginLoader pluginLoader;
+	private final PluginMappingLoader pluginMappingLoader;
+	private final ValidationModuleCache validationModuleCache;
+	private final ValidationModuleWarmup validationModuleWarmup;
+	private final ExecutorService reloadExecutor =
+			Executors.newSingleThreadExecutor(Thread.ofPlatform().name("plugin-reload").daemon().factory());
+	private final AtomicBoolean running = new AtomicBoolean();
+	private volatile ReloadStatus status = ReloadStatus.IDLE;
+
+	public PluginReloadService(
+			PluginLoader pluginLoader,
+			PluginMappingLoader pluginMappingLoader,
+			ValidationModuleCache validationModuleCache,
+			ValidationModuleWarmup validationModuleWarmup) {
+		this.pluginLoader = pluginLoader;
+		this.pluginMappingLoader = pluginMappingLoader;
+		this.validationModuleCache = validationModuleCache;
+		this.validationModuleWarmup = validationModuleWarmup;
+	}
+
+	public ReloadStatus getStatus() {
+		return status;
+	}
+
+	/**
+	 * Starts a reload in the background.
+	 *
+	 * @return false if a reload is already running or plugins are disabled
+	 */
+	public boolean startReload() {
+		if (!pluginLoader.isEnabled() || !running.compareAndSet(false, true)) {
+			return false;
+		}
+
+		status = new ReloadStatus(State.RUNNING, Instant.now(), null, List.of(), List.of(), null);
+		reloadExecutor.execute(() -> {
+			try {
+				reload();
+			} finally {
+				running.set(false);
+			}
+		});
+		return true;
+	}
+
+	void reload() {
+		Instant startedAt = status.startedAt() != null ? status.startedAt() : Instant.now();
+		PluginLoader.LoadedPlugins loadedPlugins = null;
+		Map<Plugin, ValidationModulePool> newPools = new IdentityHashMap<>();
+		try {
+			PluginLoader.LoadedPlugins currentPlugins = pluginLoader.getLoadedPlugins();
+			loadedPlugins = pluginLoader.readPlugins();
+			PluginRoutingIndex index =
+					PluginRoutingIndex.build(pluginMappingLoader.readMappings(pluginLoader.getReloadDirectory()));
+			Map<String, Long> currentChecksums = currentPlugins.checksums();
+			Map<String, Long> loadedChecksums = loadedPlugins.checksums();
+
+			List<String> changed = loadedChecksums.keySet().stream()
+					.filter(id -> !Objects.equals(currentChecksums.get(id), loadedChecksums.get(id)))
+					.sorted()
+					.toList();
+			List<String> removed = currentChecksums.keySet().stream()
+					.filter(id -> !loadedChecksums.containsKey(id))
+					.sorted()
+					.toList();
+			log.info("Reloading plugins, changed: {}, removed: {}", changed, removed);
+
+			// Modules that were never created are created lazily from the new plugin on the next request
+			for (String pluginId : changed) {
+				Plugin currentPlugin = currentPlugins.plugins().get(pluginId);
+				if (currentPlugin != null && validationModuleCache.contains(currentPlugin)) {
+					Plugin plugin = loadedPlugins.plugins().get(pluginId);
+					ValidationModulePool pool = validationModuleCache.createPool(plugin);
+					newPools.put(plugin, pool);
+					validationModuleWarmup.warmupPool(pool);
+				}
+			}
+
+			// The new pools are cached per plugin instance and only used once the new plugins are published
+			newPools.forEach(validationModuleCache::add);
+			PluginLoader.LoadedPlugins replacedPlugins = pluginLoader.publish(loadedPlugins.withIndex(index));
+
+			Stream.concat(changed.stream(), removed.stream())
+					.map(replacedPlugins.plugins()::get)
+					.filter(Objects::nonNull)
+					.forEach(validationModuleCache::remove);
+			newPools.values().forEach(ValidationModulePool::registerGauges);
+			pluginLoader.closeUnusedArchives(replacedPlugins);
+
+			status = new ReloadStatus(State.SUCCEEDED, startedAt, Instant.now(), changed, removed, null);
+			log.info("Plugins reloaded, changed: {}, removed: {}", changed, removed);
+		} catch (Exception e) {
+			// Nothing has been published yet if reading or warming up the new plugins failed
+			newPools.keySet().forEach(validationModuleCache::remove);
+			newPools.values().forEach(ValidationModulePool::close);
+			if (loadedPlugins != null) {
+				pluginLoader.closeUnusedArchives(loadedPlugins);
+			}
+			status = new ReloadStatus(State.FAILED, startedAt, Instant.now(), List.of(), List.of(), e.getMessage());
+			log.error("Reloading plugins failed, keeping the current plugins", e);
+		}
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		reloadExecutor.shutdownNow();
+	}
+}
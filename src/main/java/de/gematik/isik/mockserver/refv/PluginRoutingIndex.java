@@ -0,0 +1,163 @@
+package de.gematik.isik.mockserver.refv;
+
+/*-
+ * #%L
+ * isik-mock-server
+ * %%
+ * Copyright (C) 2025 - 2026 gematik GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ * #L%
+ */
+
+import de.gematik.isik.mockserver.refv.PluginMappingLoader.PluginMappings;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static de.gematik.isik.mockserver.interceptor.FhirValidationHandlerHelper.ISIK_LEGACY_PROFILE_VERSION;
+
+/**
+ * Immutable lookup tables built from the plugin mapping files, so that routing a resource to its
+ * validation plugins does not have to scan the mappings on every request.
+ */
+public final class PluginRoutingIndex {
+
+	/**
+	 * Plugins and profiles of a resource type. The profiles are split into ISiK5 profiles and ISiK3
+	 * (legacy) profiles. The legacy profiles are also grouped by the plugin that contains them.
+	 */
+	public record ResourceTypeRoute(
+			List<String> pluginIds,
+			List<String> profileUrls,
+			List<String> isik5ProfileUrls,
+			List<String> legacyProfileUrls,
+			Map<String, List<String>> legacyProfileUrlsByPluginId) {
+
+		static final ResourceTypeRoute EMPTY =
+				new ResourceTypeRoute(List.of(), List.of(), List.of(), List.of(), Map.of());
+
+		/**
+		 * @param pluginId the plugin id
+		 * @return the legacy profiles of the resource type contained in the plugin
+		 */
+		public List<String> getLegacyProfileUrls(String pluginId) {
+			return legacyProfileUrlsByPluginId.getOrDefault(pluginId, List.of());
+		}
+	}
+
+	private final Map<String, String> pluginIdByProfileUrl;
+	private final Map<String, ResourceTypeRoute> routesByResourceType;
+
+	private PluginRoutingIndex(
+			Map<String, String> pluginIdByProfileUrl, Map<String, ResourceTypeRoute> routesByResourceType) {
+		this.pluginIdByProfileUrl = Map.copyOf(pluginIdByProfileUrl);
+		this.routesByResourceType = Map.copyOf(routesByResourceType);
+	}
+
+	/**
+	 * Builds the index from the plugin mappings.
+	 *
+	 * @param mappings the plugin mappings
+	 * @return the index
+	 */
+	public static PluginRoutingIndex build(PluginMappings mappings) {
+		return build(
+				mappings.resourceTypeToPluginIdMap(),
+				mappings.resourceTypeToProfileUrlMap(),
+				mappings.profileUrlToPluginIdMap());
+	}
+
+	/**
+	 * Builds the index from the plugin mappings. If a profile is listed for several plugins, the
+	 * first plugin in the mapping wins.
+	 *
+	 * @param resourceTypeToPluginIds resource type to plugin ids
+	 * @param resourceTypeToProfileUrls resource type to profile URLs
+	 * @param pluginIdToProfileUrls plugin id to the profile URLs of the plugin
+	 * @return the index
+	 */
+	public static PluginRoutingIndex build(
+			Map<String, List<String>> resourceTypeToPluginIds,
+			Map<String, List<String>> resourceTypeToProfileUrls,
+			Map<String, List<String>> pluginIdToProfileUrls) {
+		Map<String, String> pluginIdByProfileUrl = new HashMap<>();
+		pluginIdToProfileUrls.forEach((pluginId, profileUrls) ->
+				profileUrls.forEach(profileUrl -> pluginIdByProfileUrl.putIfAbsent(profileUrl, pluginId)));
+
+		Set<String> resourceTypes = new HashSet<>(resourceTypeToPluginIds.keySet());
+		resourceTypes.addAll(resourceTypeToProfileUrls.keySet());
+
+		Map<String, ResourceTypeRoute> routesByResourceType = new HashMap<>();
+		for (String resourceType : resourceTypes) {
+			List<String> profileUrls = resourceTypeToProfileUrls.getOrDefault(resourceType, List.of());
+			List<String> isik5ProfileUrls = new ArrayList<>();
+			List<String> legacyProfileUrls = new ArrayList<>();
+			Map<String, List<String>> legacyProfileUrlsByPluginId = new HashMap<>();
+			for (String profileUrl : profileUrls) {
+				if (profileUrl.contains(ISIK_LEGACY_PROFILE_VERSION)) {
+					legacyProfileUrls.add(profileUrl);
+					String pluginId = pluginIdByProfileUrl.get(profileUrl);
+					if (pluginId != null) {
+						legacyProfileUrlsByPluginId
+								.computeIfAbsent(pluginId, id -> new ArrayList<>())
+								.add(profileUrl);
+					}
+				} else {
+					isik5ProfileUrls.add(profileUrl);
+				}
+			}
+
+			routesByResourceType.put(
+					resourceType,
+					new ResourceTypeRoute(
+							List.copyOf(resourceTypeToPluginIds.getOrDefault(resourceType, List.of())),
+							List.copyOf(profileUrls),
+							List.copyOf(isik5ProfileUrls),
+							List.copyOf(legacyProfileUrls),
+							legacyProfileUrlsByPluginId.entrySet().stream()
+									.collect(Collectors.toUnmodifiableMap(
+											Map.Entry::getKey, entry -> List.copyOf(entry.getValue())))));
+		}
+
+		return new PluginRoutingIndex(pluginIdByProfileUrl, routesByResourceType);
+	}
+
+	/**
+	 * @param profileUrl the profile URL
+	 * @return the id of the plugin containing the profile, or null if unknown
+	 */
+	public String getPluginId(String profileUrl) {
+		return profileUrl == null ? null : pluginIdByProfileUrl.get(profileUrl);
+	}
+
+	/**
+	 * @param resourceType the resource type
+	 * @return the route of the resource type, empty if the resource type is unknown
+	 */
+	public ResourceTypeRoute getRoute(String resourceType) {
+		return resourceType == null
+				? ResourceTypeRoute.EMPTY
+				: routesByResourceType.getOrDefault(resourceType, ResourceTypeRoute.EMPTY);
+	}
+}
@@ -0,0 +1,146 @@
+package de.gematik.isik.mockserver;
+
+/*-
+ * #%L
+ * isik-mock-server
+ * %%
+ * Copyright (C) 2025 - 2026 gematik GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ * #L%
+ */
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.jpa.starter.Application;
+import ca.uhn.fhir.parser.IParser;
+import lombok.extern.slf4j.Slf4j;
+import org.hl7.fhir.r4.model.Appointment;
+import org.hl7.fhir.r4.model.Parameters;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static de.gematik.isik.mockserver.helper.ResourceLoadingHelper.loadResourceAsString;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Contention benchmark for concurrent $book requests on the same schedule. Checks that concurrent
+ * bookings of the same period create exactly one slot and logs the throughput of concurrent bookings
+ * of distinct periods.
+ */
+@Slf4j
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, classes = Application.class)
+@ActiveProfiles("integrationtest")
+class AppointmentBookContentionIT {
+
+	private static final int THREADS = 16;
+	private static final int BOOKINGS = 64;
+
+	@LocalServerPort
+	private int port;
+
+	@Autowired
+	private TestRestTemplate restTemplate;
+
+	private final IParser parser = FhirContext.forR4().newJsonParser();
+
+	@Test
+	void testConcurrentBookingsOfTheSamePeriodCreateOneSlot() throws Exception {
+		Instant start = Instant.parse("2031-03-01T08:00:00Z");
+		List<Callable<Integer>> bookings = new ArrayList<>();
+		for (int i = 0; i < THREADS; i++) {
+			bookings.add(() -> book(start, start.plus(30, ChronoUnit.MINUTES)));
+		}
+
+		List<Integer> statusCodes = runConcurrently(bookings);
+
+		assertThat(statusCodes).filteredOn(status -> status == 201).hasSize(1);
+		assertThat(statusCodes).filteredOn(status -> status == 400).hasSize(THREADS - 1);
+	}
+
+	@Test
+	void testThroughputOfConcurrentBookingsOfDistinctPeriods() throws Exception {
+		Instant firstStart = Instant.parse("2032-03-01T08:00:00Z");
+		List<Callable<Integer>> bookings = new ArrayList<>();
+		for (int i = 0; i < BOOKINGS; i++) {
+			Instant start = firstStart.plus(i, ChronoUnit.HOURS);
+			bookings.add(() -> book(start, start.plus(30, ChronoUnit.MINUTES)));
+		}
+
+		long startNanos = System.nanoTime();
+		List<Integer> statusCodes = runConcurrently(bookings);
+		double seconds = (System.nanoTime() - startNanos) / 1_000_000_000d;
+
+		log.info(
+				"{} bookings of one schedule with {} threads took {} s ({} bookings/s)",
+				BOOKINGS,
+				THREADS,
+				String.format("%.2f", seconds),
+				String.format("%.1f", BOOKINGS / seconds));
+		assertThat(statusCodes).containsOnly(201);
+	}
+
+	private int book(Instant start, Instant end) {
+		Parameters parameters = (Parameters) parser.parseResource(
+				loadResourceAsString("fhir-examples/valid/appointment-book-parameters-with-overlapping-slot.json"));
+		Appointment appointment = (Appointment) parameters.getParameter("appt-resource").getResource();
+		appointment.setStart(Date.from(start));
+		appointment.setEnd(Date.from(end));
+
+		HttpHeaders headers = new HttpHeaders();
+		headers.add("Content-Type", "application/fhir+json");
+		headers.add("Accept", "application/fhir+json");
+		return restTemplate
+				.exchange(
+						String.format("http://localhost:%s/fhir/Appointment/$book", port),
+						HttpMethod.POST,
+						new HttpEntity<>(parser.encodeResourceToString(parameters), headers),
+						String.class)
+				.getStatusCode()
+				.value();
+	}
+
+	private static List<Integer> runConcurrently(List<Callable<Integer>> bookings) throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		try {
+			List<Integer> statusCodes = new ArrayList<>();
+			for (Future<Integer> booking : executor.invokeAll(bookings)) {
+				statusCodes.add(booking.get());
+			}
+			return statusCodes;
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+}
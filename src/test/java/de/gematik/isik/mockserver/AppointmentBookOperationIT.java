@@ -29,8 +29,10 @@ import ca.uhn.fhir.context.FhirContext;
 import ca.uhn.fhir.jpa.starter.Application;
 import ca.uhn.fhir.parser.IParser;
 import org.hl7.fhir.r4.model.Appointment;
+import org.hl7.fhir.r4.model.Bundle;
 import org.hl7.fhir.r4.model.Extension;
 import org.hl7.fhir.r4.model.Reference;
+import org.hl7.fhir.r4.model.Slot;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
@@ -44,6 +46,9 @@ import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.context.ActiveProfiles;
 
+import java.time.Duration;
+import java.time.Instant;
+
 import static de.gematik.isik.mockserver.helper.ResourceLoadingHelper.loadResourceAsString;
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -222,4 +227,37 @@ class AppointmentBookOperationIT {
 		assertThat(appointment).isNotNull();
 		assertThat(appointment.getStatus()).isEqualTo(Appointment.AppointmentStatus.BOOKED);
 	}
+
+	@Test
+	void testFindFreeWindows() {
+		String url = getServerUrl() + "Appointment/$find?schedule=Schedule/Entry-Example"
+				+ "&start=2027-01-01T11:00:00Z&end=2027-01-01T12:00:00Z&duration=15";
+
+		ResponseEntity<String> response = restTemplate.getForEntity(url, String.class);
+
+		assertThat(response.getStatusCode().value()).isEqualTo(200);
+		Bundle bundle = parser.parseResource(Bundle.class, response.getBody());
+		assertThat(bundle.getType()).isEqualTo(Bundle.BundleType.SEARCHSET);
+		Instant start = Instant.parse("2027-01-01T11:00:00Z");
+		Instant end = Instant.parse("2027-01-01T12:00:00Z");
+		// Note: the free slot may already be booked by another test
+		for (Bundle.BundleEntryComponent entry : bundle.getEntry()) {
+			Slot window = (Slot) entry.getResource();
+			assertThat(window.getStatus()).isEqualTo(Slot.SlotStatus.FREE);
+			assertThat(window.getStart().toInstant()).isBetween(start, end);
+			assertThat(window.getEnd().toInstant()).isBetween(start, end);
+			assertThat(Duration.between(window.getStart().toInstant(), window.getEnd().toInstant()))
+					.isEqualTo(Duration.ofMinutes(15));
+		}
+	}
+
+	@Test
+	void testFindFreeWindowsWithoutDuration() {
+		String url = getServerUrl() + "Appointment/$find?schedule=Schedule/Entry-Example"
+				+ "&start=2027-01-01T11:00:00Z&end=2027-01-01T12:00:00Z";
+
+		ResponseEntity<String> response = restTemplate.getForEntity(url, String.class);
+
+		assertThat(response.getStatusCode().value()).isEqualTo(400);
+	}
 }
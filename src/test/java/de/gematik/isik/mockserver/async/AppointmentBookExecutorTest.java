@@ -0,0 +1,118 @@
+package de.gematik.isik.mockserver.async;
+
+/*-
+ * #%L
+ * isik-mock-server
+ * %%
+ * Copyright (C) 2025 - 2026 gematik GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ * #L%
+ */
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AppointmentBookExecutorTest {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private AppointmentBookExecutor executor;
+
+	@AfterEach
+	void tearDown() {
+		executor.shutdown();
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = {"virtual", "pool"})
+	void shouldRunBookingOnNamedThread(String mode) {
+		executor = new AppointmentBookExecutor(mode, 1, 1, 10, meterRegistry);
+		CompletableFuture<Thread> thread = new CompletableFuture<>();
+
+		executor.execute(() -> thread.complete(Thread.currentThread()));
+
+		assertThat(thread.join().getName()).startsWith("appointment-book-");
+		assertThat(thread.join().isVirtual()).isEqualTo("virtual".equals(mode));
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = {"virtual", "pool"})
+	void shouldRejectWhenSaturated(String mode) throws InterruptedException {
+		executor = new AppointmentBookExecutor(mode, 1, 1, 10, meterRegistry);
+		CountDownLatch release = new CountDownLatch(1);
+		CountDownLatch finished = new CountDownLatch(2);
+
+		executor.execute(() -> await(release, finished));
+		executor.execute(() -> await(release, finished));
+
+		assertThatThrownBy(() -> executor.execute(() -> {})).isInstanceOf(RejectedExecutionException.class);
+		assertThat(meterRegistry.get("isik.async.executor.rejected").counter().count())
+				.isEqualTo(1.0);
+
+		release.countDown();
+		finished.await();
+	}
+
+	@Test
+	void shouldLimitParallelBookingsToConnectionPoolSize() throws InterruptedException {
+		executor = new AppointmentBookExecutor("virtual", 0, 20, 2, meterRegistry);
+		AtomicInteger active = new AtomicInteger();
+		AtomicInteger maxActive = new AtomicInteger();
+		CountDownLatch finished = new CountDownLatch(10);
+
+		for (int i = 0; i < 10; i++) {
+			executor.execute(() -> {
+				maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+				sleep();
+				active.decrementAndGet();
+				finished.countDown();
+			});
+		}
+		finished.await();
+
+		assertThat(maxActive.get()).isLessThanOrEqualTo(2);
+	}
+
+	private static void await(CountDownLatch release, CountDownLatch finished) {
+		try {
+			release.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		finished.countDown();
+	}
+
+	private static void sleep() {
+		try {
+			Thread.sleep(10);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
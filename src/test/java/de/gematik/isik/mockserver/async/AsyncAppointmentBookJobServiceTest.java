@@ -25,23 +25,43 @@ package de.gematik.isik.mockserver.async;
  * #L%
  */
 
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.rest.api.Constants;
+import ca.uhn.fhir.rest.api.EncodingEnum;
 import de.gematik.isik.mockserver.operation.AppointmentHandlerReturnObject;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.hl7.fhir.r4.model.Appointment;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Optional;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 class AsyncAppointmentBookJobServiceTest {
 
 	private AsyncAppointmentBookJobService service;
+	private SimpleMeterRegistry meterRegistry;
 
 	@BeforeEach
 	void setUp() {
-		service = new AsyncAppointmentBookJobService();
+		meterRegistry = new SimpleMeterRegistry();
+		service = new AsyncAppointmentBookJobService(
+				Duration.ofMinutes(10), 3, new AsyncJobResultEncoder(FhirContext.forR4()), meterRegistry);
 	}
 
 	@Test
@@ -57,8 +77,9 @@ class AsyncAppointmentBookJobServiceTest {
 		assertThat(retrievedJob)
 			.as("Job should be present after submission")
 			.isPresent()
-			.as("Retrieved future should match the submitted one")
-			.contains(future);
+			.get()
+			.as("Retrieved future should complete with the submitted result")
+			.satisfies(job -> assertThat(job).isCompletedWithValue(returnObject));
 	}
 
 	@Test
@@ -70,4 +91,162 @@ class AsyncAppointmentBookJobServiceTest {
 			.as("No job should be found for a non-existing jobId")
 			.isNotPresent();
 	}
+
+	@Test
+	void shouldTrackJobStatus() {
+		String jobId = "job1";
+		CompletableFuture<AppointmentHandlerReturnObject> future = new CompletableFuture<>();
+
+		service.registerJob(jobId);
+		assertThat(service.getJobStatus(jobId)).contains(AsyncJobStatus.QUEUED);
+
+		service.markRunning(jobId);
+		service.submitJob(jobId, future);
+		assertThat(service.getJobStatus(jobId)).contains(AsyncJobStatus.RUNNING);
+		assertThat(gauge("running")).isEqualTo(1);
+
+		future.complete(new AppointmentHandlerReturnObject(new Appointment(), true, null));
+		assertThat(service.getJobStatus(jobId)).contains(AsyncJobStatus.DONE);
+		assertThat(gauge("done")).isEqualTo(1);
+		assertThat(gauge("running")).isZero();
+	}
+
+	@Test
+	void shouldMarkExceptionallyCompletedJobAsFailed() {
+		service.submitJob("job1", CompletableFuture.failedFuture(new IllegalStateException("boom")));
+
+		assertThat(service.getJobStatus("job1")).contains(AsyncJobStatus.FAILED);
+		assertThat(service.getJob("job1")).get().satisfies(future -> assertThat(future).isCompletedExceptionally());
+	}
+
+	@Test
+	void shouldEvictFinishedJobsAfterTtl() {
+		service.submitJob("finished", completedJob());
+		service.submitJob("running", new CompletableFuture<>());
+
+		service.evictExpiredJobs(Instant.now().plus(Duration.ofMinutes(11)));
+
+		assertThat(service.getJob("finished")).isNotPresent();
+		assertThat(service.getJob("running")).isPresent();
+	}
+
+	@Test
+	void shouldEvictFinishedJobBeforeRunningJobWhenFull() {
+		service.submitJob("running", new CompletableFuture<>());
+		service.submitJob("finished1", completedJob());
+		service.submitJob("finished2", completedJob());
+
+		service.submitJob("new", new CompletableFuture<>());
+
+		assertThat(service.size()).isEqualTo(3);
+		assertThat(service.getJob("running")).isPresent();
+		assertThat(service.getJob("new")).isPresent();
+		assertThat(service.getJob("finished1").isPresent() ^ service.getJob("finished2").isPresent())
+				.isTrue();
+	}
+
+	@Test
+	void shouldRejectNewJobInsteadOfEvictingUnfinishedJobsWhenFull() {
+		service.submitJob("queued", new CompletableFuture<>());
+		service.registerJob("running");
+		service.markRunning("running");
+		service.submitJob("finished", completedJob());
+
+		service.registerJob("new");
+
+		assertThatThrownBy(() -> service.registerJob("rejected"))
+				.isInstanceOf(RejectedExecutionException.class)
+				.hasMessageContaining("Maximum number of async jobs (3) reached");
+		assertThat(service.size()).isEqualTo(3);
+		assertThat(service.getJob("finished")).isNotPresent();
+		assertThat(service.getJobStatus("queued")).contains(AsyncJobStatus.QUEUED);
+		assertThat(service.getJobStatus("running")).contains(AsyncJobStatus.RUNNING);
+		assertThat(service.getJob("rejected")).isNotPresent();
+	}
+
+	@Test
+	void shouldWriteJobStateThroughToJobStore() {
+		AsyncJobStore jobStore = mock(AsyncJobStore.class);
+		service.setJobStore(jobStore);
+		AppointmentHandlerReturnObject result = new AppointmentHandlerReturnObject(new Appointment(), true, null);
+		CompletableFuture<AppointmentHandlerReturnObject> future = new CompletableFuture<>();
+
+		when(jobStore.claim("job1")).thenReturn(true);
+
+		service.registerJob("job1", "{}", EncodingEnum.JSON, "TENANT-A");
+		assertThat(service.markRunning("job1")).isTrue();
+		service.submitJob("job1", future);
+		future.complete(result);
+		service.submitJob("job2", CompletableFuture.failedFuture(new IllegalStateException("boom")));
+
+		verify(jobStore).create("job1", "{}", EncodingEnum.JSON, "TENANT-A");
+		verify(jobStore).claim("job1");
+		verify(jobStore).complete(eq("job1"), eq(AsyncJobStatus.DONE), any(AsyncJobResult.class));
+		verify(jobStore).complete(eq("job2"), eq(AsyncJobStatus.FAILED), any(AsyncJobResult.class));
+	}
+
+	@Test
+	void shouldNotRunJobTakenOverByAnotherNode() {
+		AsyncJobStore jobStore = mock(AsyncJobStore.class);
+		service.setJobStore(jobStore);
+		when(jobStore.claim("job1")).thenReturn(false);
+
+		service.registerJob("job1", "{}", EncodingEnum.JSON, null);
+		assertThat(service.markRunning("job1")).isFalse();
+		service.submitJob(
+				"job1", CompletableFuture.failedFuture(new CompletionException(new CancellationException())));
+
+		assertThat(service.getJobStatus("job1")).isNotPresent();
+		verify(jobStore, never()).complete(eq("job1"), any(), any());
+	}
+
+	@Test
+	void shouldListUnfinishedJobs() {
+		service.registerJob("queued");
+		service.submitJob("running", new CompletableFuture<>());
+		service.submitJob("finished", completedJob());
+
+		assertThat(service.getUnfinishedJobIds()).containsExactlyInAnyOrder("queued", "running");
+	}
+
+	@Test
+	void shouldReturnNoJobStateWithoutJobStore() {
+		assertThat(service.getJobState("job1")).isNotPresent();
+	}
+
+	@Test
+	void shouldEncodeResultOnceInRequestedEncoding() {
+		Appointment appointment = new Appointment();
+		appointment.setId("1");
+		CompletableFuture<AppointmentHandlerReturnObject> future = new CompletableFuture<>();
+
+		service.registerJob("job1", "{}", EncodingEnum.XML, null);
+		service.submitJob("job1", future);
+		assertThat(service.getJobState("job1")).get().satisfies(job -> assertThat(job.result()).isNull());
+
+		future.complete(new AppointmentHandlerReturnObject(appointment, true, null));
+
+		AsyncJobResult result = service.getJobState("job1").orElseThrow().result();
+		assertThat(result.status()).isEqualTo(201);
+		assertThat(result.contentType()).startsWith(Constants.CT_FHIR_XML_NEW);
+		assertThat(new String(result.body(), StandardCharsets.UTF_8)).startsWith("<Appointment");
+		assertThat(service.getJobState("job1").orElseThrow().result()).isSameAs(result);
+	}
+
+	@Test
+	void shouldEncodeFailureAsOperationOutcome() {
+		service.submitJob("job1", CompletableFuture.failedFuture(new IllegalStateException("boom")));
+
+		AsyncJobResult result = service.getJobState("job1").orElseThrow().result();
+		assertThat(result.status()).isEqualTo(500);
+		assertThat(new String(result.body(), StandardCharsets.UTF_8)).contains("boom").contains("job1");
+	}
+
+	private static CompletableFuture<AppointmentHandlerReturnObject> completedJob() {
+		return CompletableFuture.completedFuture(new AppointmentHandlerReturnObject(new Appointment(), true, null));
+	}
+
+	private double gauge(String state) {
+		return meterRegistry.get("isik.async.jobs").tag("state", state).gauge().value();
+	}
 }
@@ -0,0 +1,188 @@
+package de.gematik.isik.mockserver.async;
+
+/*-
+ * #%L
+ * isik-mock-server
+ * %%
+ * Copyright (C) 2025 - 2026 gematik GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ * #L%
+ */
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.rest.api.EncodingEnum;
+import de.gematik.isik.mockserver.operation.AppointmentBookHandler;
+import de.gematik.isik.mockserver.operation.AppointmentHandlerReturnObject;
+import org.hl7.fhir.r4.model.Appointment;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AsyncJobRecoveryTest {
+
+	private AsyncJobStore jobStore;
+	private AppointmentBookHandler appointmentBookHandler;
+	private AsyncAppointmentBookJobService jobService;
+	private AppointmentBookExecutor appointmentBookExecutor;
+	private AsyncJobRecovery recovery;
+
+	@BeforeEach
+	void setUp() {
+		jobStore = mock(AsyncJobStore.class);
+		appointmentBookHandler = mock(AppointmentBookHandler.class);
+		jobService = mock(AsyncAppointmentBookJobService.class);
+		appointmentBookExecutor = mock(AppointmentBookExecutor.class);
+		doAnswer(invocation -> {
+					invocation.getArgument(0, Runnable.class).run();
+					return null;
+				})
+				.when(appointmentBookExecutor)
+				.execute(any(Runnable.class));
+		recovery = new AsyncJobRecovery(
+				jobStore,
+				appointmentBookHandler,
+				new AsyncJobResultEncoder(FhirContext.forR4()),
+				jobService,
+				appointmentBookExecutor,
+				Duration.ofMinutes(10),
+				100,
+				Duration.ofHours(3),
+				Duration.ofHours(1));
+	}
+
+	@AfterEach
+	void tearDown() {
+		recovery.shutdown();
+	}
+
+	@Test
+	void testOrphanedJobIsRunAndCompleted() {
+		AppointmentHandlerReturnObject result = new AppointmentHandlerReturnObject(new Appointment(), true, null);
+		when(jobStore.findOrphanedJobs(anyInt())).thenReturn(List.of(orphan("job1"), orphan("job2")));
+		when(jobStore.claim("job1")).thenReturn(true);
+		when(jobStore.claim("job2")).thenReturn(false);
+		when(appointmentBookHandler.handleIncomingAppointment(eq("body-job1"), any())).thenReturn(result);
+
+		assertThat(recovery.recoverOrphanedJobs()).isEqualTo(1);
+
+		verify(jobStore).complete(eq("job1"), eq(AsyncJobStatus.DONE), any(AsyncJobResult.class));
+		verify(appointmentBookHandler, never()).handleIncomingAppointment(eq("body-job2"), any());
+	}
+
+	@Test
+	void testOrphanedJobIsRunOnTheBookingExecutorWithItsTenant() {
+		when(jobStore.findOrphanedJobs(anyInt())).thenReturn(List.of(orphan("job1")));
+		when(jobStore.claim("job1")).thenReturn(true);
+		when(appointmentBookHandler.handleIncomingAppointment(eq("body-job1"), any()))
+				.thenReturn(new AppointmentHandlerReturnObject(new Appointment(), true, null));
+
+		recovery.recoverOrphanedJobs();
+
+		verify(appointmentBookExecutor).execute(any(Runnable.class));
+		verify(appointmentBookHandler)
+				.handleIncomingAppointment(
+						eq("body-job1"),
+						argThat(requestDetails -> "TENANT-job1".equals(requestDetails.getTenantId())));
+	}
+
+	@Test
+	void testRecoveryStopsIfBookingExecutorIsSaturated() {
+		when(jobService.getUnfinishedJobIds()).thenReturn(List.of());
+		when(jobStore.findOrphanedJobs(anyInt())).thenReturn(List.of(orphan("job1"), orphan("job2")));
+		when(jobStore.claim("job1")).thenReturn(true);
+		doThrow(new RejectedExecutionException("Appointment booking capacity exhausted"))
+				.when(appointmentBookExecutor)
+				.execute(any(Runnable.class));
+
+		assertThat(recovery.recoverOrphanedJobs()).isZero();
+
+		verify(jobStore, never()).claim("job2");
+		verify(appointmentBookHandler, never()).handleIncomingAppointment(any(String.class), any());
+		// the claimed job is not renewed, so that it is taken over again once its lease expired
+		assertThat(recovery.renewLeases()).isZero();
+		verify(jobStore, never()).renewLeases(any());
+	}
+
+	@Test
+	void testFailingJobIsMarkedAsFailed() {
+		IllegalStateException error = new IllegalStateException("boom");
+		when(jobStore.findOrphanedJobs(anyInt())).thenReturn(List.of(orphan("job1")));
+		when(jobStore.claim("job1")).thenReturn(true);
+		when(appointmentBookHandler.handleIncomingAppointment(eq("body-job1"), any())).thenThrow(error);
+
+		recovery.run();
+
+		verify(jobStore).evictFinishedJobs(Duration.ofMinutes(10), 100);
+		verify(jobStore)
+				.complete(
+						eq("job1"),
+						eq(AsyncJobStatus.FAILED),
+						argThat(result -> result.status() == 500
+								&& new String(result.body(), StandardCharsets.UTF_8).contains("boom")));
+	}
+
+	@Test
+	void testLeasesOfLocalAndRecoveredJobsAreRenewed() {
+		when(jobService.getUnfinishedJobIds()).thenReturn(List.of("local"));
+		when(jobStore.findOrphanedJobs(anyInt())).thenReturn(List.of(orphan("job1")));
+		when(jobStore.claim("job1")).thenReturn(true);
+		when(appointmentBookHandler.handleIncomingAppointment(eq("body-job1"), any())).thenAnswer(invocation -> {
+			recovery.renewLeases();
+			return new AppointmentHandlerReturnObject(new Appointment(), true, null);
+		});
+
+		recovery.recoverOrphanedJobs();
+		recovery.renewLeases();
+
+		verify(jobStore).renewLeases(argThat(jobIds -> jobIds.containsAll(List.of("local", "job1"))));
+		verify(jobStore).renewLeases(List.of("local"));
+	}
+
+	private static AsyncJobRecord orphan(String id) {
+		return new AsyncJobRecord(
+				id,
+				AsyncJobStatus.RUNNING,
+				"body-" + id,
+				EncodingEnum.JSON,
+				"TENANT-" + id,
+				"other-node",
+				Instant.EPOCH,
+				null,
+				Instant.EPOCH,
+				null);
+	}
+}
@@ -0,0 +1,76 @@
+package de.gematik.isik.mockserver.async;
+
+/*-
+ * #%L
+ * isik-mock-server
+ * %%
+ * Copyright (C) 2025 - 2026 gematik GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ * #L%
+ */
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.rest.api.EncodingEnum;
+import de.gematik.isik.mockserver.operation.AppointmentHandlerReturnObject;
+import org.hl7.fhir.r4.model.Appointment;
+import org.hl7.fhir.r4.model.OperationOutcome;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AsyncJobResultEncoderTest {
+
+	private final FhirContext ctx = FhirContext.forR4();
+	private final AsyncJobResultEncoder encoder = new AsyncJobResultEncoder(ctx);
+
+	@Test
+	void testSuccessfulResultIsEncodedInRequestedEncoding() {
+		Appointment appointment = new Appointment();
+		appointment.setId("1");
+
+		AsyncJobResult json =
+				encoder.encode(new AppointmentHandlerReturnObject(appointment, true, null), EncodingEnum.JSON);
+		AsyncJobResult xml =
+				encoder.encode(new AppointmentHandlerReturnObject(appointment, true, null), EncodingEnum.XML);
+
+		assertThat(json.status()).isEqualTo(201);
+		assertThat(json.contentType()).isEqualTo("application/fhir+json;charset=utf-8");
+		assertThat(new String(json.body(), StandardCharsets.UTF_8))
+				.isEqualTo(ctx.newJsonParser().setPrettyPrint(true).encodeResourceToString(appointment));
+		assertThat(xml.contentType()).isEqualTo("application/fhir+xml;charset=utf-8");
+		assertThat(new String(xml.body(), StandardCharsets.UTF_8)).startsWith("<Appointment");
+	}
+
+	@Test
+	void testUnsuccessfulResultAndErrorAreEncodedAsOperationOutcome() {
+		OperationOutcome outcome = new OperationOutcome();
+		outcome.addIssue().setDiagnostics("Slot not available");
+
+		AsyncJobResult rejected =
+				encoder.encode(new AppointmentHandlerReturnObject(null, false, outcome), EncodingEnum.JSON);
+		AsyncJobResult failed = encoder.encodeError("job1", new IllegalStateException("boom"), EncodingEnum.JSON);
+
+		assertThat(rejected.status()).isEqualTo(400);
+		assertThat(new String(rejected.body(), StandardCharsets.UTF_8)).contains("Slot not available");
+		assertThat(failed.status()).isEqualTo(500);
+		assertThat(new String(failed.body(), StandardCharsets.UTF_8)).contains("job1").contains("boom");
+	}
+}
@@ -0,0 +1,172 @@
+package de.gematik.isik.mockserver.async;
+
+/*-
+ * #%L
+ * isik-mock-server
+ * %%
+ * Copyright (C) 2025 - 2026 gematik GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ * #L%
+ */
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.rest.api.EncodingEnum;
+import de.gematik.isik.mockserver.operation.AppointmentHandlerReturnObject;
+import org.h2.jdbcx.JdbcDataSource;
+import org.hl7.fhir.r4.model.Appointment;
+import org.hl7.fhir.r4.model.OperationOutcome;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JdbcAsyncJobStoreTest {
+
+	private final FhirContext ctx = FhirContext.forR4();
+	private final AsyncJobResultEncoder encoder = new AsyncJobResultEncoder(ctx);
+	private JdbcTemplate jdbcTemplate;
+	private JdbcAsyncJobStore node1;
+	private JdbcAsyncJobStore node2;
+
+	@BeforeEach
+	void setUp() {
+		JdbcDataSource dataSource = new JdbcDataSource();
+		dataSource.setURL("jdbc:h2:mem:async-jobs;DB_CLOSE_DELAY=-1");
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		node1 = new JdbcAsyncJobStore(jdbcTemplate, Duration.ofMinutes(2));
+		node2 = new JdbcAsyncJobStore(jdbcTemplate, Duration.ofMinutes(2));
+		node1.init();
+		node2.init();
+	}
+
+	@AfterEach
+	void tearDown() {
+		jdbcTemplate.execute("DROP TABLE " + JdbcAsyncJobStore.TABLE);
+	}
+
+	@Test
+	void testResultIsVisibleToOtherNodes() {
+		Appointment appointment = new Appointment();
+		appointment.setId("1");
+
+		node1.create("job1", "{}", EncodingEnum.XML, null);
+		assertThat(node1.claim("job1")).isTrue();
+		assertThat(node2.find("job1").orElseThrow().status()).isEqualTo(AsyncJobStatus.RUNNING);
+
+		AsyncJobResult result =
+				encoder.encode(new AppointmentHandlerReturnObject(appointment, true, null), EncodingEnum.XML);
+		node1.complete("job1", AsyncJobStatus.DONE, result);
+
+		AsyncJobRecord job = node2.find("job1").orElseThrow();
+		assertThat(job.status()).isEqualTo(AsyncJobStatus.DONE);
+		assertThat(job.encoding()).isEqualTo(EncodingEnum.XML);
+		assertThat(job.result().status()).isEqualTo(201);
+		assertThat(job.result().contentType()).isEqualTo(result.contentType());
+		assertThat(job.result().body()).isEqualTo(result.body());
+		assertThat(job.requestBody()).isNull();
+	}
+
+	@Test
+	void testUnsuccessfulAndFailedJobs() {
+		OperationOutcome outcome = new OperationOutcome();
+		outcome.addIssue().setDiagnostics("Slot not available");
+		node1.create("rejected", "{}", EncodingEnum.JSON, null);
+		node1.create("failed", "{}", EncodingEnum.JSON, null);
+
+		node1.complete(
+				"rejected",
+				AsyncJobStatus.DONE,
+				encoder.encode(new AppointmentHandlerReturnObject(null, false, outcome), EncodingEnum.JSON));
+		node1.complete(
+				"failed",
+				AsyncJobStatus.FAILED,
+				encoder.encodeError("failed", new IllegalStateException("boom"), EncodingEnum.JSON));
+
+		assertThat(node2.find("rejected").orElseThrow().result().status()).isEqualTo(400);
+		AsyncJobRecord failed = node2.find("failed").orElseThrow();
+		assertThat(failed.status()).isEqualTo(AsyncJobStatus.FAILED);
+		assertThat(failed.result().status()).isEqualTo(500);
+		assertThat(new String(failed.result().body(), StandardCharsets.UTF_8))
+				.contains("boom")
+				.contains("failed");
+	}
+
+	@Test
+	void testJobIsTakenOverAfterLeaseExpired() {
+		node1.create("job1", "{\"resourceType\":\"Appointment\"}", EncodingEnum.JSON, "TENANT-A");
+		node1.claim("job1");
+		assertThat(node2.claim("job1")).isFalse();
+		assertThat(node2.findOrphanedJobs(10)).isEmpty();
+
+		jdbcTemplate.update("UPDATE " + JdbcAsyncJobStore.TABLE + " SET LEASE_UNTIL = 0");
+
+		assertThat(node2.findOrphanedJobs(10))
+				.singleElement()
+				.satisfies(job -> {
+					assertThat(job.requestBody()).isEqualTo("{\"resourceType\":\"Appointment\"}");
+					assertThat(job.tenantId()).isEqualTo("TENANT-A");
+				});
+		assertThat(node2.claim("job1")).isTrue();
+		assertThat(node2.find("job1").orElseThrow().owner()).isEqualTo(node2.getNodeId());
+
+		node1.complete("job1", AsyncJobStatus.DONE, success());
+		assertThat(node2.find("job1").orElseThrow().status()).isEqualTo(AsyncJobStatus.RUNNING);
+	}
+
+	@Test
+	void testLeaseIsRenewedByOwner() {
+		node1.create("job1", "{}", EncodingEnum.JSON, null);
+		node1.create("job2", "{}", EncodingEnum.JSON, null);
+		node1.complete("job2", AsyncJobStatus.DONE, success());
+		jdbcTemplate.update("UPDATE " + JdbcAsyncJobStore.TABLE + " SET LEASE_UNTIL = 0 WHERE ID = 'job1'");
+
+		assertThat(node2.renewLeases(List.of("job1"))).isZero();
+		assertThat(node1.renewLeases(List.of("job1", "job2"))).isEqualTo(1);
+
+		assertThat(node2.findOrphanedJobs(10)).isEmpty();
+		assertThat(node2.claim("job1")).isFalse();
+	}
+
+	@Test
+	void testFinishedJobsAreEvicted() {
+		for (int i = 0; i < 3; i++) {
+			node1.create("job" + i, "{}", EncodingEnum.JSON, null);
+			node1.complete("job" + i, AsyncJobStatus.DONE, success());
+		}
+		node1.create("running", "{}", EncodingEnum.JSON, null);
+
+		assertThat(node1.evictFinishedJobs(Duration.ZERO, 1)).isEqualTo(2);
+		assertThat(node1.find("running")).isPresent();
+
+		jdbcTemplate.update(
+				"UPDATE " + JdbcAsyncJobStore.TABLE + " SET COMPLETED_AT = 0 WHERE COMPLETED_AT IS NOT NULL");
+		assertThat(node1.evictFinishedJobs(Duration.ofMinutes(10), 10)).isEqualTo(1);
+		assertThat(node1.find("running")).isPresent();
+	}
+
+	private AsyncJobResult success() {
+		return encoder.encode(new AppointmentHandlerReturnObject(new Appointment(), true, null), EncodingEnum.JSON);
+	}
+}
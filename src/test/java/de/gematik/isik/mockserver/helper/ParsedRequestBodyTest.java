@@ -0,0 +1,90 @@
+package de.gematik.isik.mockserver.helper;
+
+/*-
+ * #%L
+ * isik-mock-server
+ * %%
+ * Copyright (C) 2025 - 2026 gematik GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ * #L%
+ */
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.rest.api.EncodingEnum;
+import ca.uhn.fhir.rest.server.exceptions.UnprocessableEntityException;
+import org.hl7.fhir.r4.model.Patient;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ParsedRequestBodyTest {
+
+	private static final FhirContext CTX = FhirContext.forR4();
+
+	@Test
+	void testJsonBodyIsParsed() {
+		ParsedRequestBody parsedBody =
+				ParsedRequestBody.parse("{\"resourceType\":\"Patient\",\"active\":true}", CTX);
+
+		assertThat(parsedBody.getEncoding()).isEqualTo(EncodingEnum.JSON);
+		assertThat(parsedBody.getResource()).isInstanceOf(Patient.class);
+		assertThat(((Patient) parsedBody.getResource()).getActive()).isTrue();
+	}
+
+	@Test
+	void testXmlBodyIsParsed() {
+		ParsedRequestBody parsedBody = ParsedRequestBody.parse(
+				"<Patient xmlns=\"http://hl7.org/fhir\"><active value=\"true\"/></Patient>", CTX);
+
+		assertThat(parsedBody.getEncoding()).isEqualTo(EncodingEnum.XML);
+		assertThat(parsedBody.getResource()).isInstanceOf(Patient.class);
+	}
+
+	@Test
+	void testBodyThatIsNeitherJsonNorXmlIsUnprocessable() {
+		assertThatThrownBy(() -> ParsedRequestBody.parse("resourceType=Patient", CTX))
+				.isInstanceOf(UnprocessableEntityException.class)
+				.hasMessageContaining("neither json nor XML");
+	}
+
+	@Test
+	void testCopyDoesNotChangeSharedResource() {
+		ParsedRequestBody parsedBody =
+				ParsedRequestBody.parse("{\"resourceType\":\"Patient\",\"active\":true}", CTX);
+
+		((Patient) parsedBody.copyResource()).setActive(false);
+
+		assertThat(((Patient) parsedBody.getResource()).getActive()).isTrue();
+	}
+
+	@Test
+	void testWrapperParsesBodyOnce() throws IOException {
+		MockHttpServletRequest request = new MockHttpServletRequest("POST", "/fhir/Patient");
+		request.setContent("{\"resourceType\":\"Patient\"}".getBytes(StandardCharsets.UTF_8));
+
+		try (ReusableRequestWrapper wrapper = new ReusableRequestWrapper(request)) {
+			assertThat(wrapper.getParsedBody(CTX)).isSameAs(wrapper.getParsedBody(CTX));
+		}
+	}
+}
@@ -0,0 +1,99 @@
+package de.gematik.isik.mockserver.helper;
+
+/*-
+ * #%L
+ * isik-mock-server
+ * %%
+ * Copyright (C) 2025 - 2026 gematik GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ * #L%
+ */
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RequestClassifierTest {
+
+	@Test
+	void testSystemLevel() {
+		assertThat(RequestClassifier.classify("POST", "/"))
+				.isEqualTo(new RequestDescriptor("POST", null, null, null, null, null));
+		assertThat(RequestClassifier.classify("POST", null).isSystemLevel()).isTrue();
+		assertThat(RequestClassifier.classify("GET", "/_history").isSystemLevel())
+				.isFalse();
+	}
+
+	@Test
+	void testTypeAndInstance() {
+		RequestDescriptor type = RequestClassifier.classify("POST", "/DocumentReference/");
+		assertThat(type.isType("DocumentReference")).isTrue();
+		assertThat(type.isInstance("DocumentReference")).isFalse();
+
+		RequestDescriptor instance = RequestClassifier.classify("PATCH", "/Appointment/123");
+		assertThat(instance)
+				.isEqualTo(new RequestDescriptor("PATCH", "Appointment", "123", null, null, null));
+		assertThat(instance.isInstance("Appointment")).isTrue();
+		assertThat(instance.isVerb("patch")).isTrue();
+	}
+
+	@Test
+	void testHistoryAndCompartment() {
+		assertThat(RequestClassifier.classify("GET", "/Appointment/1/_history/2"))
+				.isEqualTo(new RequestDescriptor("GET", "Appointment", "1", "2", null, null));
+		assertThat(RequestClassifier.classify("GET", "/Appointment/1/_history").operation())
+				.isEqualTo("_history");
+		RequestDescriptor compartment = RequestClassifier.classify("GET", "/Patient/1/Binary");
+		assertThat(compartment.compartment()).isEqualTo("Binary");
+		assertThat(compartment.involves("Binary")).isTrue();
+		assertThat(compartment.isInstance("Patient")).isFalse();
+	}
+
+	@Test
+	void testOperations() {
+		assertThat(RequestClassifier.classify("POST", "/Appointment/$book"))
+				.isEqualTo(new RequestDescriptor("POST", "Appointment", null, null, "book", null));
+		assertThat(RequestClassifier.classify("POST", "/DocumentReference/1/$binary-access-write")
+						.isOperation("binary-access-write"))
+				.isTrue();
+		assertThat(RequestClassifier.classify("GET", "/$meta").operation()).isEqualTo("meta");
+	}
+
+	@Test
+	void testDescriptorIsCachedOnRequest() {
+		MockHttpServletRequest request = new MockHttpServletRequest("PUT", "/fhir/Encounter/1");
+
+		RequestDescriptor descriptor = RequestClassifier.classify(request);
+
+		assertThat(RequestClassifier.isFhirRequest(request)).isTrue();
+		assertThat(descriptor.isWrite()).isTrue();
+		assertThat(descriptor.resourceType()).isEqualTo("Encounter");
+		assertThat(request.getAttribute(RequestClassifier.ATTRIBUTE)).isSameAs(descriptor);
+		assertThat(RequestClassifier.classify(request)).isSameAs(descriptor);
+	}
+
+	@Test
+	void testNonFhirRequest() {
+		assertThat(RequestClassifier.isFhirRequest(new MockHttpServletRequest("GET", "/actuator/health")))
+				.isFalse();
+		assertThat(RequestClassifier.isFhirRequest(new MockHttpServletRequest("GET", "/fhirish")))
+				.isFalse();
+	}
+}
@@ -0,0 +1,127 @@
+package de.gematik.isik.mockserver.helper;
+
+/*-
+ * #%L
+ * isik-mock-server
+ * %%
+ * Copyright (C) 2025 - 2026 gematik GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ * #L%
+ */
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.unit.DataSize;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class RequestWrapperFilterTest {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final RequestWrapperFilter filter =
+			new RequestWrapperFilter(DataSize.ofBytes(16), DataSize.ofBytes(8), meterRegistry);
+
+	@Test
+	void testFhirPostIsBuffered() throws Exception {
+		MockHttpServletRequest request = request("POST", "/fhir/Patient", "application/fhir+json");
+		request.setContent("{}".getBytes());
+		MockFilterChain chain = new MockFilterChain();
+
+		filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+		assertThat(chain.getRequest()).isInstanceOf(ReusableRequestWrapper.class);
+		assertThat(counter("buffered")).isEqualTo(1);
+	}
+
+	@Test
+	void testReadsAndNonFhirRequestsAreStreamed() throws Exception {
+		for (MockHttpServletRequest request : new MockHttpServletRequest[] {
+			request("GET", "/fhir/Patient", null),
+			request("POST", "/async-jobs/123", "application/fhir+json"),
+			request("GET", "/actuator/prometheus", null),
+			request("DELETE", "/fhir/Appointment/1", null),
+			request("PATCH", "/fhir/Patient/1", "application/json-patch+json")
+		}) {
+			MockFilterChain chain = new MockFilterChain();
+			filter.doFilter(request, new MockHttpServletResponse(), chain);
+			assertThat(chain.getRequest()).isSameAs(request);
+		}
+		assertThat(counter("streamed")).isEqualTo(5);
+		assertThat(counter("buffered")).isZero();
+	}
+
+	@Test
+	void testRawBinaryUploadsAreStreamed() {
+		assertThat(filter.requiresBuffering(request("POST", "/fhir/Binary", "application/pdf")))
+				.isFalse();
+		assertThat(filter.requiresBuffering(request("PUT", "/fhir/Binary/1", "image/png")))
+				.isFalse();
+		assertThat(filter.requiresBuffering(
+						request("POST", "/fhir/DocumentReference/1/$binary-access-write", "application/fhir+json")))
+				.isFalse();
+		assertThat(filter.requiresBuffering(
+						request("POST", "/fhir/Appointment/$book-batch", "application/fhir+ndjson")))
+				.isFalse();
+		assertThat(filter.requiresBuffering(request("POST", "/fhir/Binary", "application/fhir+json; charset=utf-8")))
+				.isTrue();
+	}
+
+	@Test
+	void testInspectedWritesAreBuffered() {
+		assertThat(filter.requiresBuffering(request("POST", "/fhir", "application/fhir+json")))
+				.isTrue();
+		assertThat(filter.requiresBuffering(request("PUT", "/fhir/Encounter/1", "application/fhir+xml")))
+				.isTrue();
+		assertThat(filter.requiresBuffering(request("PATCH", "/fhir/Appointment/1", "application/fhir+json")))
+				.isTrue();
+		assertThat(filter.requiresBuffering(request("POST", "/fhir/Appointment/$book", "application/fhir+json")))
+				.isTrue();
+	}
+
+	@Test
+	void testTooLargeRequestIsRejected() throws Exception {
+		MockHttpServletRequest request = request("POST", "/fhir/Patient", "application/fhir+json");
+		request.setContent(new byte[32]);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		FilterChain chain = mock(FilterChain.class);
+
+		filter.doFilter(request, response, chain);
+
+		assertThat(response.getStatus()).isEqualTo(413);
+		verify(chain, never()).doFilter(any(), any());
+	}
+
+	private static MockHttpServletRequest request(String method, String uri, String contentType) {
+		MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+		request.setContentType(contentType);
+		return request;
+	}
+
+	private double counter(String mode) {
+		return meterRegistry.get("isik.request.body").tag("mode", mode).counter().count();
+	}
+}
@@ -0,0 +1,151 @@
+package de.gematik.isik.mockserver.helper;
+
+/*-
+ * #%L
+ * isik-mock-server
+ * %%
+ * Copyright (C) 2025 - 2026 gematik GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ * #L%
+ */
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ReusableRequestWrapperTest {
+
+	@Test
+	void testBodyCanBeReadRepeatedly() throws IOException {
+		MockHttpServletRequest request = requestWithBody("{\"resourceType\":\"Patient\"}\n");
+
+		try (ReusableRequestWrapper wrapper = new ReusableRequestWrapper(request)) {
+			assertThat(wrapper.getBody()).isEqualTo("{\"resourceType\":\"Patient\"}\n");
+			assertThat(wrapper.getInputStream().readAllBytes()).isEqualTo(request.getContentAsByteArray());
+			assertThat(wrapper.getReader().readLine()).isEqualTo("{\"resourceType\":\"Patient\"}");
+			assertThat(wrapper.isSpilledToDisk()).isFalse();
+		}
+	}
+
+	@Test
+	void testBulkReadReturnsChunks() throws IOException {
+		MockHttpServletRequest request = requestWithBody("0123456789");
+
+		try (ReusableRequestWrapper wrapper = new ReusableRequestWrapper(request)) {
+			InputStream inputStream = wrapper.getInputStream();
+			byte[] buffer = new byte[4];
+			assertThat(inputStream.read(buffer, 0, 4)).isEqualTo(4);
+			assertThat(new String(buffer, StandardCharsets.UTF_8)).isEqualTo("0123");
+			assertThat(wrapper.getInputStream().readAllBytes()).hasSize(10);
+		}
+	}
+
+	@Test
+	void testBodyIsDecodedWithRequestCharset() throws IOException {
+		MockHttpServletRequest request = new MockHttpServletRequest("POST", "/fhir/Patient");
+		request.setContent("Müller".getBytes(StandardCharsets.ISO_8859_1));
+		request.setCharacterEncoding("ISO-8859-1");
+
+		try (ReusableRequestWrapper wrapper = new ReusableRequestWrapper(request)) {
+			assertThat(wrapper.getBody()).isEqualTo("Müller");
+		}
+	}
+
+	@Test
+	void testLargeBodyIsSpilledToDiskAndRemovedOnClose() throws IOException {
+		byte[] content = new byte[10_000];
+		Arrays.fill(content, (byte) 'a');
+		MockHttpServletRequest request = new MockHttpServletRequest("POST", "/fhir/Binary");
+		request.setContent(content);
+
+		ReusableRequestWrapper wrapper = new ReusableRequestWrapper(request, 0, 1024);
+		assertThat(wrapper.isSpilledToDisk()).isTrue();
+		assertThat(wrapper.getBodySize()).isEqualTo(10_000);
+		assertThat(wrapper.getInputStream().readAllBytes()).isEqualTo(content);
+		assertThat(wrapper.getBody()).hasSize(10_000);
+
+		long filesBefore = countSpillFiles();
+		wrapper.close();
+		assertThat(countSpillFiles()).isEqualTo(filesBefore - 1);
+	}
+
+	@Test
+	void testSpilledBodyWithMalformedInputIsDecodedLikeBodyInMemory() throws IOException {
+		byte[] content = new byte[2048];
+		Arrays.fill(content, (byte) 'a');
+		content[1000] = (byte) 0xC3;
+		content[1001] = (byte) 0x28;
+		MockHttpServletRequest spilledRequest = new MockHttpServletRequest("POST", "/fhir/Patient");
+		spilledRequest.setContent(content);
+		MockHttpServletRequest inMemoryRequest = new MockHttpServletRequest("POST", "/fhir/Patient");
+		inMemoryRequest.setContent(content);
+
+		try (ReusableRequestWrapper spilled = new ReusableRequestWrapper(spilledRequest, 0, 1024);
+				ReusableRequestWrapper inMemory = new ReusableRequestWrapper(inMemoryRequest, 0, 0)) {
+			assertThat(spilled.isSpilledToDisk()).isTrue();
+			assertThat(spilled.getBody()).contains("\uFFFD").isEqualTo(inMemory.getBody());
+		}
+	}
+
+	@Test
+	void testBodyExceedingMaxSizeIsRejected() {
+		MockHttpServletRequest request = requestWithBody("0123456789");
+
+		assertThatThrownBy(() -> new ReusableRequestWrapper(request, 5, 0))
+				.isInstanceOf(ReusableRequestWrapper.BodyTooLargeException.class);
+	}
+
+	@Test
+	void testBodyExceedingMaxSizeWithoutContentLengthIsRejected() throws IOException {
+		MockHttpServletRequest request = new MockHttpServletRequest("POST", "/fhir/Binary") {
+			@Override
+			public long getContentLengthLong() {
+				return -1;
+			}
+		};
+		request.setContent(new byte[4096]);
+
+		long filesBefore = countSpillFiles();
+		assertThatThrownBy(() -> new ReusableRequestWrapper(request, 2048, 1024))
+				.isInstanceOf(ReusableRequestWrapper.BodyTooLargeException.class);
+		assertThat(countSpillFiles()).isEqualTo(filesBefore);
+	}
+
+	private static MockHttpServletRequest requestWithBody(String body) {
+		MockHttpServletRequest request = new MockHttpServletRequest("POST", "/fhir/Patient");
+		request.setContent(body.getBytes(StandardCharsets.UTF_8));
+		return request;
+	}
+
+	private static long countSpillFiles() throws IOException {
+		try (var files = Files.list(Path.of(System.getProperty("java.io.tmpdir")))) {
+			return files.filter(file -> file.getFileName().toString().startsWith("isik-request-"))
+					.count();
+		}
+	}
+}
@@ -60,48 +60,12 @@ class AppointmentPatchHandlerHelperTest {
 		appointmentPatchHandlerHelper = new AppointmentPatchHandlerHelper(daoRegistry);
 	}
 
-	@Test
-	void testGetOriginalAppointment() {
-		IFhirResourceDao<Appointment> appointmentDaoMock = mock(IFhirResourceDao.class);
-		RequestDetails requestDetails = mock(RequestDetails.class);
-
-		Appointment expectedAppointment = new Appointment();
-		expectedAppointment.setId("Appointment/123");
-
-		when(daoRegistry.getResourceDao(Appointment.class)).thenReturn(appointmentDaoMock);
-		when(appointmentDaoMock.read(new IdType("123"), requestDetails)).thenReturn(expectedAppointment);
-
-		Appointment result = appointmentPatchHandlerHelper.getOriginalAppointment("123", requestDetails);
-
-		assertThat(result).isEqualTo(expectedAppointment);
-	}
-
-	@Test
-	void testIsParameterPresentTrue() {
-		String body = ResourceLoadingHelper.loadResourceAsString("fhir-examples/invalid/invalid-patch-appointment-parameters.json");
-		Parameters parameters = (Parameters) FhirContext.forR4().newJsonParser().parseResource(body);
-
-		boolean isSlotParameterPresent = appointmentPatchHandlerHelper.isParameterPresent(parameters, "Appointment.slot");
-
-		assertThat(isSlotParameterPresent).isTrue();
-	}
-
-	@Test
-	void testIsParameterPresentFalse() {
-		String body = ResourceLoadingHelper.loadResourceAsString("fhir-examples/invalid/invalid-patch-appointment-parameters.json");
-		Parameters parameters = (Parameters) FhirContext.forR4().newJsonParser().parseResource(body);
-
-		boolean isSlotParameterPresent = appointmentPatchHandlerHelper.isParameterPresent(parameters, "Appointment.unknown-parameter");
-
-		assertThat(isSlotParameterPresent).isFalse();
-	}
-
 	@Test
 	void testGetReferenceFromParameters() {
 		String body = ResourceLoadingHelper.loadResourceAsString("fhir-examples/invalid/invalid-patch-appointment-parameters.json");
 		Parameters parameters = (Parameters) FhirContext.forR4().newJsonParser().parseResource(body);
 
-		String slotReference = appointmentPatchHandlerHelper.getReferenceFromParameters(parameters, "Appointment.slot");
+		String slotReference = appointmentPatchHandlerHelper.getReferenceFromParameters(PatchOperations.of(parameters), "Appointment.slot");
 
 		assertThat(slotReference).isEqualTo("Slot/Free-Block");
 	}
@@ -111,7 +75,7 @@ class AppointmentPatchHandlerHelperTest {
 		String body = ResourceLoadingHelper.loadResourceAsString("fhir-examples/invalid/invalid-patch-appointment-parameters.json");
 		Parameters parameters = (Parameters) FhirContext.forR4().newJsonParser().parseResource(body);
 
-		assertThatThrownBy(() -> appointmentPatchHandlerHelper.getReferenceFromParameters(parameters, "Appointment.unknown-location"))
+		assertThatThrownBy(() -> appointmentPatchHandlerHelper.getReferenceFromParameters(PatchOperations.of(parameters), "Appointment.unknown-location"))
 				.isInstanceOf(IllegalArgumentException.class)
 				.hasMessageContaining("The 'Appointment.unknown-location' parameter is missing or invalid in the provided Parameters resource.");
 	}
@@ -121,7 +85,7 @@ class AppointmentPatchHandlerHelperTest {
 		String body = ResourceLoadingHelper.loadResourceAsString("fhir-examples/invalid/patch-appointment-parameters-missing-values.json");
 		Parameters parameters = (Parameters) FhirContext.forR4().newJsonParser().parseResource(body);
 
-		assertThatThrownBy(() -> appointmentPatchHandlerHelper.getReferenceFromParameters(parameters, "Appointment.slot"))
+		assertThatThrownBy(() -> appointmentPatchHandlerHelper.getReferenceFromParameters(PatchOperations.of(parameters), "Appointment.slot"))
 				.isInstanceOf(IllegalArgumentException.class)
 				.hasMessageContaining("The 'valueReference' part with a valid Reference is missing in the 'Appointment.slot' operation.");
 	}
@@ -131,7 +95,7 @@ class AppointmentPatchHandlerHelperTest {
 		String body = ResourceLoadingHelper.loadResourceAsString("fhir-examples/invalid/invalid-patch-appointment-parameters.json");
 		Parameters parameters = (Parameters) FhirContext.forR4().newJsonParser().parseResource(body);
 
-		String dateString = appointmentPatchHandlerHelper.getDateFromParameters(parameters, "Appointment.start");
+		String dateString = appointmentPatchHandlerHelper.getDateFromParameters(PatchOperations.of(parameters), "Appointment.start");
 
 		assertThat(dateString).isEqualTo("2027-01-01T15:00:00.000+01:00");
 	}
@@ -141,7 +105,7 @@ class AppointmentPatchHandlerHelperTest {
 		String body = ResourceLoadingHelper.loadResourceAsString("fhir-examples/invalid/invalid-patch-appointment-parameters.json");
 		Parameters parameters = (Parameters) FhirContext.forR4().newJsonParser().parseResource(body);
 
-		assertThatThrownBy(() -> appointmentPatchHandlerHelper.getDateFromParameters(parameters, "Appointment.unknown-location"))
+		assertThatThrownBy(() -> appointmentPatchHandlerHelper.getDateFromParameters(PatchOperations.of(parameters), "Appointment.unknown-location"))
 				.isInstanceOf(IllegalArgumentException.class)
 				.hasMessageContaining("The 'Appointment.unknown-location' parameter is missing or invalid in the provided Parameters resource.");
 	}
@@ -151,7 +115,7 @@ class AppointmentPatchHandlerHelperTest {
 		String body = ResourceLoadingHelper.loadResourceAsString("fhir-examples/invalid/patch-appointment-parameters-missing-values.json");
 		Parameters parameters = (Parameters) FhirContext.forR4().newJsonParser().parseResource(body);
 
-		assertThatThrownBy(() -> appointmentPatchHandlerHelper.getDateFromParameters(parameters, "Appointment.start"))
+		assertThatThrownBy(() -> appointmentPatchHandlerHelper.getDateFromParameters(PatchOperations.of(parameters), "Appointment.start"))
 				.isInstanceOf(IllegalArgumentException.class)
 				.hasMessageContaining("The 'value' part with a valid DateTime is missing in the 'Appointment.start' operation.");
 	}
@@ -311,7 +275,7 @@ class AppointmentPatchHandlerHelperTest {
 		Parameters parameters = (Parameters) FhirContext.forR4().newJsonParser().parseResource(body);
 		OperationOutcome outcome = new OperationOutcome();
 
-		appointmentPatchHandlerHelper.validateParametersOfTypeReplace(parameters, outcome);
+		appointmentPatchHandlerHelper.validateParametersOfTypeReplace(PatchOperations.of(parameters), outcome);
 
 		assertThat(OperationOutcomeUtils.hasErrorIssue(outcome)).isTrue();
 		boolean hasExpectedMessage = outcome.getIssue().stream()
@@ -43,6 +43,9 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 class AppointmentPatchHandlerTest {
@@ -67,17 +70,15 @@ class AppointmentPatchHandlerTest {
 		Patient patient = (Patient) FhirContext.forR4().newJsonParser().parseResource(patientBody);
 
 		RequestDetails requestDetails = mock(RequestDetails.class);
-		IFhirResourceDao<Appointment> appointmentDaoMock = mock(IFhirResourceDao.class);
-		when(daoMock.getResourceDao(Appointment.class)).thenReturn(appointmentDaoMock);
-		when(appointmentDaoMock.read(any(IdType.class), eq(requestDetails)))
-				.thenReturn(originalAppointment);
 		IFhirResourceDao<Patient> patientDaoMock = mock(IFhirResourceDao.class);
 		when(daoMock.getResourceDao(Patient.class)).thenReturn(patientDaoMock);
 		when(patientDaoMock.read(any(IdType.class), eq(requestDetails)))
 				.thenReturn(patient);
-		OperationOutcome outcome = appointmentPatchHandler.handle(parameters, requestDetails);
+		OperationOutcome outcome = appointmentPatchHandler.validateAgainstOriginal(
+				PatchOperations.of(parameters), originalAppointment, requestDetails);
 
 		assertThat(OperationOutcomeUtils.hasErrorIssue(outcome)).isTrue();
+		verify(daoMock, never()).getResourceDao(Appointment.class);
 	}
 
 	@Test
@@ -86,14 +87,25 @@ class AppointmentPatchHandlerTest {
 		Appointment originalAppointment = (Appointment) FhirContext.forR4().newJsonParser().parseResource(originalAppointmentBody);
 		String parametersBody = ResourceLoadingHelper.loadResourceAsString("fhir-examples/valid/valid-patch-appointment-parameters.json");
 		Parameters parameters = (Parameters) FhirContext.forR4().newJsonParser().parseResource(parametersBody);
+		PatchOperations operations = PatchOperations.of(parameters);
 
 		RequestDetails requestDetails = mock(RequestDetails.class);
-		IFhirResourceDao<Appointment> appointmentDaoMock = mock(IFhirResourceDao.class);
-		when(daoMock.getResourceDao(Appointment.class)).thenReturn(appointmentDaoMock);
-		when(appointmentDaoMock.read(any(IdType.class), eq(requestDetails)))
-				.thenReturn(originalAppointment);
-		OperationOutcome outcome = appointmentPatchHandler.handle(parameters, requestDetails);
+		OperationOutcome operationsOutcome = appointmentPatchHandler.validateOperations(operations);
+		OperationOutcome outcome = appointmentPatchHandler.validateAgainstOriginal(operations, originalAppointment, requestDetails);
 
+		assertThat(OperationOutcomeUtils.hasErrorIssue(operationsOutcome)).isFalse();
 		assertThat(OperationOutcomeUtils.hasErrorIssue(outcome)).isFalse();
+		verify(daoMock, never()).getResourceDao(Appointment.class);
+	}
+
+	@Test
+	void testOperationTypeNotReplaceIsRejectedWithoutDatabaseAccess() {
+		String parametersBody = ResourceLoadingHelper.loadResourceAsString("fhir-examples/invalid/invalid-patch-parameters-type.json");
+		Parameters parameters = (Parameters) FhirContext.forR4().newJsonParser().parseResource(parametersBody);
+
+		OperationOutcome outcome = appointmentPatchHandler.validateOperations(PatchOperations.of(parameters));
+
+		assertThat(OperationOutcomeUtils.hasErrorIssue(outcome)).isTrue();
+		verifyNoInteractions(daoMock);
 	}
 }
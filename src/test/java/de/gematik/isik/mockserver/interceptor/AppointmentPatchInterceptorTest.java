@@ -0,0 +1,101 @@
+package de.gematik.isik.mockserver.interceptor;
+
+/*-
+ * #%L
+ * isik-mock-server
+ * %%
+ * Copyright (C) 2025 - 2026 gematik GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ * #L%
+ */
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.jpa.api.dao.DaoRegistry;
+import ca.uhn.fhir.rest.api.server.SystemRequestDetails;
+import ca.uhn.fhir.rest.server.exceptions.InvalidRequestException;
+import de.gematik.isik.mockserver.helper.ResourceLoadingHelper;
+import org.hl7.fhir.r4.model.Appointment;
+import org.hl7.fhir.r4.model.CodeType;
+import org.hl7.fhir.r4.model.Parameters;
+import org.hl7.fhir.r4.model.Reference;
+import org.hl7.fhir.r4.model.StringType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+class AppointmentPatchInterceptorTest {
+
+	private DaoRegistry daoMock;
+	private AppointmentPatchInterceptor interceptor;
+	private Appointment originalAppointment;
+
+	@BeforeEach
+	void setup() {
+		daoMock = mock(DaoRegistry.class);
+		AppointmentPatchHandler handler = new AppointmentPatchHandler(new AppointmentPatchHandlerHelper(daoMock));
+		interceptor = new AppointmentPatchInterceptor(handler, FhirContext.forR4());
+		String appointmentBody = ResourceLoadingHelper.loadResourceAsString("fhir-examples/valid/valid-appointment.json");
+		originalAppointment = (Appointment) FhirContext.forR4().newJsonParser().parseResource(appointmentBody);
+	}
+
+	@Test
+	void testUpdateWithoutPatchOperationsIsIgnored() {
+		SystemRequestDetails requestDetails = new SystemRequestDetails();
+
+		assertThatCode(() -> interceptor.appointmentUpdated(originalAppointment, new Appointment(), requestDetails))
+				.doesNotThrowAnyException();
+		verifyNoInteractions(daoMock);
+	}
+
+	@Test
+	void testPatchChangingTheSlotIsRejected() {
+		SystemRequestDetails requestDetails = new SystemRequestDetails();
+		Parameters parameters = new Parameters();
+		Parameters.ParametersParameterComponent operation = parameters.addParameter().setName("operation");
+		operation.addPart().setName("type").setValue(new CodeType("replace"));
+		operation.addPart().setName("path").setValue(new StringType("Appointment.slot"));
+		operation.addPart().setName("value").setValue(new Reference("Slot/Other-Slot"));
+		requestDetails.getUserData().put(AppointmentPatchInterceptor.PATCH_OPERATIONS, PatchOperations.of(parameters));
+
+		assertThatThrownBy(() -> interceptor.appointmentUpdated(originalAppointment, new Appointment(), requestDetails))
+				.isInstanceOf(InvalidRequestException.class)
+				.hasMessageContaining("The PATCH won`t be applied.");
+		verifyNoInteractions(daoMock);
+	}
+
+	@Test
+	void testValidPatchIsAccepted() {
+		SystemRequestDetails requestDetails = new SystemRequestDetails();
+		requestDetails.getUserData().put(AppointmentPatchInterceptor.PATCH_OPERATIONS, operationsOf(
+				"fhir-examples/valid/valid-patch-appointment-parameters.json"));
+
+		assertThatCode(() -> interceptor.appointmentUpdated(originalAppointment, new Appointment(), requestDetails))
+				.doesNotThrowAnyException();
+		verifyNoInteractions(daoMock);
+	}
+
+	private static PatchOperations operationsOf(String path) {
+		String body = ResourceLoadingHelper.loadResourceAsString(path);
+		return PatchOperations.of((Parameters) FhirContext.forR4().newJsonParser().parseResource(body));
+	}
+}
@@ -25,15 +25,22 @@ package de.gematik.isik.mockserver.interceptor;
  * #L%
  */
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import de.gematik.isik.mockserver.refv.PluginLoader;
+import de.gematik.isik.mockserver.refv.PluginMappingLoader;
+import de.gematik.isik.mockserver.refv.PluginRoutingIndex;
+import de.gematik.isik.mockserver.refv.PluginRoutingIndex.ResourceTypeRoute;
 import de.gematik.refv.Plugin;
 import de.gematik.refv.commons.validation.ValidationResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import lombok.SneakyThrows;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import static de.gematik.isik.mockserver.helper.ResourceLoadingHelper.loadResourceAsString;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -42,20 +49,54 @@ class FhirValidationBundleHandlerTest {
 
 	private FhirValidationBundleHandler fhirValidationBundleHandler;
 
-	List<String> profileUrls = List.of(
-			"https://gematik.de/fhir/isik/StructureDefinition/ISiKSubscriptionNotification",
-			"https://gematik.de/fhir/isik/v3/Medikation/StructureDefinition/ISiKMedikationTransaction",
-			"https://gematik.de/fhir/isik/v3/Medikation/StructureDefinition/ISiKMedikationTransactionResponse",
-			"https://gematik.de/fhir/isik/v3/Dokumentenaustausch/StructureDefinition/ISiKDokumentenSuchergebnisse",
-			"https://gematik.de/fhir/isik/v3/Basismodul/StructureDefinition/ISiKBerichtBundle");
+	private static final String ISIK5_NOTIFICATION =
+			"https://gematik.de/fhir/isik/StructureDefinition/ISiKSubscriptionNotification";
+	private static final String MEDIKATION_TRANSACTION =
+			"https://gematik.de/fhir/isik/v3/Medikation/StructureDefinition/ISiKMedikationTransaction";
+	private static final String MEDIKATION_TRANSACTION_RESPONSE =
+			"https://gematik.de/fhir/isik/v3/Medikation/StructureDefinition/ISiKMedikationTransactionResponse";
+	private static final String DOKUMENTEN_SUCHERGEBNISSE =
+			"https://gematik.de/fhir/isik/v3/Dokumentenaustausch/StructureDefinition/ISiKDokumentenSuchergebnisse";
+	private static final String BERICHT_BUNDLE =
+			"https://gematik.de/fhir/isik/v3/Basismodul/StructureDefinition/ISiKBerichtBundle";
+
+	ResourceTypeRoute route = PluginRoutingIndex.build(
+					Map.of(
+							"Bundle",
+							List.of("isik5", "isik3-basismodul", "isik3-medikation", "isik3-dokumentenaustausch")),
+					Map.of(
+							"Bundle",
+							List.of(
+									ISIK5_NOTIFICATION,
+									MEDIKATION_TRANSACTION,
+									MEDIKATION_TRANSACTION_RESPONSE,
+									DOKUMENTEN_SUCHERGEBNISSE,
+									BERICHT_BUNDLE)),
+					Map.of(
+							"isik5", List.of(ISIK5_NOTIFICATION),
+							"isik3-basismodul", List.of(BERICHT_BUNDLE),
+							"isik3-medikation", List.of(MEDIKATION_TRANSACTION, MEDIKATION_TRANSACTION_RESPONSE),
+							"isik3-dokumentenaustausch", List.of(DOKUMENTEN_SUCHERGEBNISSE)))
+			.getRoute("Bundle");
 
 	List<Plugin> plugins = new ArrayList<>();
 
 	@BeforeEach
 	void setUp() {
-		fhirValidationBundleHandler = new FhirValidationBundleHandler();
-
-		PluginLoader pluginLoader = new PluginLoader("plugins", true);
+		fhirValidationBundleHandler = new FhirValidationBundleHandler(
+				new ValidationModuleCache(Duration.ZERO, 1, new SimpleMeterRegistry()),
+				new FhirValidationRunner(new ValidationExecutor(2, 16, false, 0, new SimpleMeterRegistry()), "parallel"));
+
+		PluginLoader pluginLoader = new PluginLoader(
+				"plugins",
+				true,
+				"",
+				"",
+				new PluginMappingLoader(
+						"resourcetype2pluginid.json",
+						"resourcetype2profileurl.json",
+						"profileurl2pluginid.json",
+						new ObjectMapper()));
 		pluginLoader.init();
 
 		Plugin isik5 = pluginLoader.getPlugin("isik5");
@@ -73,7 +114,7 @@ class FhirValidationBundleHandlerTest {
 	@Test
 	void shouldValidateValidBundle() {
 		String body = loadResourceAsString("fhir-examples/valid/valid-bundle.json");
-		ValidationResult result = fhirValidationBundleHandler.validateBundleResourceWithPlugins(body, plugins, profileUrls);
+		ValidationResult result = fhirValidationBundleHandler.validateBundleResourceWithPlugins(body, plugins, route);
 
 		assertThat(result.isValid()).isTrue();
 	}
@@ -82,7 +123,7 @@ class FhirValidationBundleHandlerTest {
 	@Test
 	void shouldValidateInvalidBundle() {
 		String body = loadResourceAsString("fhir-examples/invalid/invalid-bundle.json");
-		ValidationResult result = fhirValidationBundleHandler.validateBundleResourceWithPlugins(body, plugins, profileUrls);
+		ValidationResult result = fhirValidationBundleHandler.validateBundleResourceWithPlugins(body, plugins, route);
 
 		assertThat(result.isValid()).isFalse();
 	}
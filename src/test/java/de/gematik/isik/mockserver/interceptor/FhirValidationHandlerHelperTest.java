@@ -28,7 +28,6 @@ package de.gematik.isik.mockserver.interceptor;
 import ca.uhn.fhir.context.FhirContext;
 import de.gematik.refv.Plugin;
 import de.gematik.refv.SupportedValidationModule;
-import de.gematik.refv.commons.validation.ValidationOptions;
 import org.hl7.fhir.instance.model.api.IBaseResource;
 import org.junit.jupiter.api.Test;
 
@@ -137,34 +136,6 @@ class FhirValidationHandlerHelperTest {
 		assertThat(result).containsExactly(plugin1);
 	}
 
-	@Test
-	void testFindByProfile() {
-		ValidationOptions options1 = ValidationOptions.getDefaults();
-		options1.setProfiles(List.of("https://gematik.de/fhir/isik/v3/profile"));
-		ValidationOptions options2 = ValidationOptions.getDefaults();
-		options2.setProfiles(List.of("https://gematik.de/fhir/isik/v4/profile"));
-
-		List<ValidationOptions> optionsList = List.of(options1, options2);
-
-		List<ValidationOptions> result = FhirValidationHandlerHelper.findByProfile(optionsList, "v3");
-
-		assertThat(result).containsExactly(options1);
-	}
-
-	@Test
-	void testFilterOutByProfile() {
-		ValidationOptions options1 = ValidationOptions.getDefaults();
-		options1.setProfiles(List.of("https://gematik.de/fhir/isik/v3/profile"));
-		ValidationOptions options2 = ValidationOptions.getDefaults();
-		options2.setProfiles(List.of("https://gematik.de/fhir/isik/v4/profile"));
-
-		List<ValidationOptions> optionsList = List.of(options1, options2);
-
-		List<ValidationOptions> result = FhirValidationHandlerHelper.filterOutByProfile(optionsList, "v3");
-
-		assertThat(result).containsExactly(options2);
-	}
-
 	@Test
 	void testCreateFromModule() {
 		assertThatNoException().isThrownBy(() ->
@@ -27,11 +27,13 @@ package de.gematik.isik.mockserver.interceptor;
 
 import ca.uhn.fhir.context.FhirContext;
 import ca.uhn.fhir.parser.IParser;
+import ca.uhn.fhir.rest.server.exceptions.InternalErrorException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import de.gematik.isik.mockserver.refv.PluginLoader;
 import de.gematik.isik.mockserver.refv.PluginMappingLoader;
 import de.gematik.isik.mockserver.refv.PluginMappingResolver;
 import de.gematik.refv.commons.validation.ValidationResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import lombok.SneakyThrows;
 import org.hl7.fhir.instance.model.api.IBaseResource;
 import org.hl7.fhir.r4.model.Bundle;
@@ -41,10 +43,18 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 
+import java.time.Duration;
 import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 
 import static de.gematik.isik.mockserver.helper.ResourceLoadingHelper.loadResourceAsString;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 class FhirValidationHandlerTest {
 
@@ -60,16 +70,17 @@ class FhirValidationHandlerTest {
 		String profileUrlToPluginIdPath = "profileurl2pluginid.json";
 
 		PluginMappingLoader pluginMappingLoader = new PluginMappingLoader(resourceTypeToPluginIdPath, resourceTypeToProfileUrlPath, profileUrlToPluginIdPath, new ObjectMapper());
-		pluginMappingLoader.loadData();
 
-		PluginMappingResolver pluginMappingResolver = new PluginMappingResolver(pluginMappingLoader);
-		PluginLoader pluginLoader = new PluginLoader("plugins", true);
+		ValidationExecutor validationExecutor = new ValidationExecutor(2, 16, false, 0, new SimpleMeterRegistry());
+		FhirValidationRunner fhirValidationRunner = new FhirValidationRunner(validationExecutor, "parallel");
+		ValidationModuleCache validationModuleCache = new ValidationModuleCache(Duration.ZERO, 1, new SimpleMeterRegistry());
+		PluginLoader pluginLoader = new PluginLoader("plugins", true, "", "", pluginMappingLoader);
 		pluginLoader.init();
-		fhirValidationHandler = new FhirValidationHandler(pluginMappingResolver, pluginLoader, new FhirValidationBundleHandler());
+		fhirValidationHandler = new FhirValidationHandler(new PluginMappingResolver(pluginLoader), pluginLoader, new FhirValidationBundleHandler(validationModuleCache, fhirValidationRunner), validationModuleCache, new ValidationResultCache(false, 0, new SimpleMeterRegistry()), validationExecutor, fhirValidationRunner);
 
-		PluginLoader pluginLoaderDisabled = new PluginLoader("plugins", false);
+		PluginLoader pluginLoaderDisabled = new PluginLoader("plugins", false, "", "", pluginMappingLoader);
 		pluginLoaderDisabled.init();
-		fhirValidationHandlerDisabledPlugins = new FhirValidationHandler(pluginMappingResolver, pluginLoaderDisabled, new FhirValidationBundleHandler());
+		fhirValidationHandlerDisabledPlugins = new FhirValidationHandler(new PluginMappingResolver(pluginLoaderDisabled), pluginLoaderDisabled, new FhirValidationBundleHandler(validationModuleCache, fhirValidationRunner), validationModuleCache, new ValidationResultCache(false, 0, new SimpleMeterRegistry()), validationExecutor, fhirValidationRunner);
 
 		parser = FhirContext.forR4().newJsonParser();
 	}
@@ -198,4 +209,44 @@ class FhirValidationHandlerTest {
 
 		assertThat(result).isNotNull();
 	}
+
+	@Test
+	@SneakyThrows
+	void shouldRethrowExceptionOfValidationExecutorUnwrapped() {
+		PluginMappingLoader pluginMappingLoader = new PluginMappingLoader("resourcetype2pluginid.json", "resourcetype2profileurl.json", "profileurl2pluginid.json", new ObjectMapper());
+		PluginLoader pluginLoaderDisabled = new PluginLoader("plugins", false, "", "", pluginMappingLoader);
+		pluginLoaderDisabled.init();
+		ValidationExecutor rejectingExecutor = mock(ValidationExecutor.class);
+		when(rejectingExecutor.submit(anyString(), any()))
+				.thenReturn(CompletableFuture.failedFuture(new InternalErrorException("validation failed")));
+		ValidationModuleCache validationModuleCache = new ValidationModuleCache(Duration.ZERO, 1, new SimpleMeterRegistry());
+		FhirValidationRunner fhirValidationRunner = new FhirValidationRunner(rejectingExecutor, "parallel");
+		FhirValidationHandler handler = new FhirValidationHandler(new PluginMappingResolver(pluginLoaderDisabled), pluginLoaderDisabled, new FhirValidationBundleHandler(validationModuleCache, fhirValidationRunner), validationModuleCache, new ValidationResultCache(false, 0, new SimpleMeterRegistry()), rejectingExecutor, fhirValidationRunner);
+		String body = parser.encodeResourceToString(new Patient());
+
+		assertThatThrownBy(() -> handler.validateResource(new Patient(), body))
+				.isInstanceOf(InternalErrorException.class)
+				.hasMessageContaining("validation failed");
+	}
+
+	@Test
+	@SneakyThrows
+	void shouldRejectValidationWithProfileIfValidationExecutorIsSaturated() {
+		PluginMappingLoader pluginMappingLoader = new PluginMappingLoader("resourcetype2pluginid.json", "resourcetype2profileurl.json", "profileurl2pluginid.json", new ObjectMapper());
+		PluginLoader pluginLoader = new PluginLoader("plugins", true, "", "", pluginMappingLoader);
+		pluginLoader.init();
+		ValidationExecutor saturatedExecutor = mock(ValidationExecutor.class);
+		when(saturatedExecutor.submit(anyString(), any()))
+				.thenThrow(new RejectedExecutionException("Validation capacity exhausted"));
+		ValidationModuleCache validationModuleCache = new ValidationModuleCache(Duration.ZERO, 1, new SimpleMeterRegistry());
+		FhirValidationRunner fhirValidationRunner = new FhirValidationRunner(saturatedExecutor, "parallel");
+		FhirValidationHandler handler = new FhirValidationHandler(new PluginMappingResolver(pluginLoader), pluginLoader, new FhirValidationBundleHandler(validationModuleCache, fhirValidationRunner), validationModuleCache, new ValidationResultCache(false, 0, new SimpleMeterRegistry()), saturatedExecutor, fhirValidationRunner);
+		String body = loadResourceAsString("fhir-examples/invalid/invalid-resource.json");
+		IBaseResource resource = parser.parseResource(body);
+
+		assertThat(resource.getMeta().getProfile()).isNotEmpty();
+		assertThatThrownBy(() -> handler.validateResource(resource, body))
+				.isInstanceOf(RejectedExecutionException.class)
+				.hasMessageContaining("Validation capacity exhausted");
+	}
 }
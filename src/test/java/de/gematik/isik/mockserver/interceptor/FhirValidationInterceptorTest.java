@@ -26,11 +26,13 @@ package de.gematik.isik.mockserver.interceptor;
  */
 
 import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.rest.server.exceptions.UnprocessableEntityException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import de.gematik.isik.mockserver.helper.ReusableRequestWrapper;
 import de.gematik.isik.mockserver.refv.PluginLoader;
 import de.gematik.isik.mockserver.refv.PluginMappingLoader;
 import de.gematik.isik.mockserver.refv.PluginMappingResolver;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import lombok.SneakyThrows;
 import org.jetbrains.annotations.NotNull;
 import org.junit.jupiter.api.BeforeEach;
@@ -39,9 +41,11 @@ import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.mock.web.MockHttpServletResponse;
 
 import java.io.IOException;
+import java.time.Duration;
 
 import static de.gematik.isik.mockserver.helper.ResourceLoadingHelper.loadResourceAsString;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 class FhirValidationInterceptorTest {
 	private FhirValidationInterceptor interceptor;
@@ -66,13 +70,15 @@ class FhirValidationInterceptorTest {
 	@NotNull
 	private static FhirValidationHandler getFhirValidationHandler(String resourceTypeToPluginIdPath, String resourceTypeToProfileUrlPath, String profileUrlToPluginIdPath) throws IOException {
 		PluginMappingLoader pluginMappingLoader = new PluginMappingLoader(resourceTypeToPluginIdPath, resourceTypeToProfileUrlPath, profileUrlToPluginIdPath, new ObjectMapper());
-		pluginMappingLoader.loadData();
 
-		PluginMappingResolver pluginMappingResolver = new PluginMappingResolver(pluginMappingLoader);
-		PluginLoader pluginLoader = new PluginLoader("plugins", true);
+		PluginLoader pluginLoader = new PluginLoader("plugins", true, "", "", pluginMappingLoader);
 		pluginLoader.init();
+		PluginMappingResolver pluginMappingResolver = new PluginMappingResolver(pluginLoader);
+		ValidationExecutor validationExecutor = new ValidationExecutor(2, 16, false, 0, new SimpleMeterRegistry());
+		FhirValidationRunner fhirValidationRunner = new FhirValidationRunner(validationExecutor, "parallel");
+		ValidationModuleCache validationModuleCache = new ValidationModuleCache(Duration.ZERO, 1, new SimpleMeterRegistry());
 
-		return new FhirValidationHandler(pluginMappingResolver, pluginLoader, new FhirValidationBundleHandler());
+		return new FhirValidationHandler(pluginMappingResolver, pluginLoader, new FhirValidationBundleHandler(validationModuleCache, fhirValidationRunner), validationModuleCache, new ValidationResultCache(false, 0, new SimpleMeterRegistry()), validationExecutor, fhirValidationRunner);
 	}
 
 	@Test
@@ -108,4 +114,18 @@ class FhirValidationInterceptorTest {
 		assertThat(result).isFalse();
 		assertThat(response.getStatus()).isEqualTo(400);
 	}
+
+	@Test
+	void testIncomingRequestPreProcessed_bodyNeitherJsonNorXml() {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		request.setMethod("POST");
+		request.setPathInfo("/Patient");
+		request.setContent("resourceType=Patient".getBytes());
+		request.setContentType("application/fhir+json");
+
+		assertThatThrownBy(() -> interceptor.incomingRequestPreProcessed(new ReusableRequestWrapper(request), response))
+				.isInstanceOf(UnprocessableEntityException.class);
+	}
 }
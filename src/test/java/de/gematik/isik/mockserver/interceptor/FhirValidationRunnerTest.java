@@ -0,0 +1,136 @@
+package de.gematik.isik.mockserver.interceptor;
+
+/*-
+ * #%L
+ * isik-mock-server
+ * %%
+ * Copyright (C) 2025 - 2026 gematik GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ * #L%
+ */
+
+import ca.uhn.fhir.validation.ResultSeverityEnum;
+import ca.uhn.fhir.validation.SingleValidationMessage;
+import de.gematik.isik.mockserver.interceptor.FhirValidationRunner.ValidationRun;
+import de.gematik.refv.commons.validation.ValidationModule;
+import de.gematik.refv.commons.validation.ValidationOptions;
+import de.gematik.refv.commons.validation.ValidationResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+class FhirValidationRunnerTest {
+
+	private static final String BODY = "{\"resourceType\":\"Patient\"}";
+
+	private ValidationExecutor validationExecutor;
+
+	@BeforeEach
+	void setUp() {
+		validationExecutor = new ValidationExecutor(2, 16, false, 0, new SimpleMeterRegistry());
+	}
+
+	@AfterEach
+	void tearDown() {
+		validationExecutor.shutdown();
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = {"sequential", "parallel"})
+	void shouldReturnIsik5ResultIfValid(String mode) {
+		var isik5Result = result();
+		var runner = new FhirValidationRunner(validationExecutor, mode);
+
+		var result = runner.validate(
+				BODY, run("isik5", isik5Result), List.of(run("isik3-basismodul", result("isik3 error"))));
+
+		assertThat(result).isSameAs(isik5Result);
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = {"sequential", "parallel"})
+	void shouldReturnValidLegacyResult(String mode) {
+		var legacyResult = result();
+		var runner = new FhirValidationRunner(validationExecutor, mode);
+
+		var result =
+				runner.validate(BODY, run("isik5", result("isik5 error")), List.of(run("isik3-basismodul", legacyResult)));
+
+		assertThat(result).isSameAs(legacyResult);
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = {"sequential", "parallel"})
+	void shouldMergeMessagesIfNoResultIsValid(String mode) {
+		var runner = new FhirValidationRunner(validationExecutor, mode);
+
+		var result = runner.validate(
+				BODY,
+				run("isik5", result("isik5 error")),
+				List.of(run("isik3-basismodul", result("basis error")), run("isik3-medikation", result("medi error"))));
+
+		assertThat(result.isValid()).isFalse();
+		assertThat(result.getValidationMessages())
+				.extracting(SingleValidationMessage::getMessage)
+				.containsExactly("basis error", "medi error", "isik5 error");
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = {"sequential", "parallel"})
+	void shouldIgnoreIsik5ErrorsWithoutLegacyRuns(String mode) {
+		var runner = new FhirValidationRunner(validationExecutor, mode);
+
+		var result = runner.validate(BODY, run("isik5", result("isik5 error")), List.of());
+
+		assertThat(result.isValid()).isTrue();
+	}
+
+	@SneakyThrows
+	private static ValidationRun run(String moduleId, ValidationResult validationResult) {
+		ValidationModule module = Mockito.mock(ValidationModule.class);
+		when(module.getId()).thenReturn(moduleId);
+		when(module.validateString(anyString(), any(ValidationOptions.class))).thenReturn(validationResult);
+		return new ValidationRun(
+				new ValidationModulePool(moduleId, 1, () -> module, new SimpleMeterRegistry()),
+				ValidationOptions.getDefaults());
+	}
+
+	private static ValidationResult result(String... errors) {
+		List<SingleValidationMessage> messages = new ArrayList<>();
+		for (String error : errors) {
+			var message = new SingleValidationMessage();
+			message.setMessage(error);
+			message.setSeverity(ResultSeverityEnum.ERROR);
+			messages.add(message);
+		}
+		return new ValidationResult(messages);
+	}
+}
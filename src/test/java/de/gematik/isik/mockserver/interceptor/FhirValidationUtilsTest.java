@@ -25,59 +25,52 @@ package de.gematik.isik.mockserver.interceptor;
  * #L%
  */
 
+import ca.uhn.fhir.validation.ResultSeverityEnum;
 import ca.uhn.fhir.validation.SingleValidationMessage;
 import de.gematik.refv.commons.validation.ValidationResult;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 
 import java.util.List;
-import java.util.concurrent.CompletableFuture;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
 class FhirValidationUtilsTest {
 
 	@Test
-	void getValidationResult_shouldReturnValidResult_whenAnyValidationResultIsValid() {
-		SingleValidationMessage mockMessage = Mockito.mock(SingleValidationMessage.class);
-		List<SingleValidationMessage> allValidationMessages = List.of(mockMessage);
-
+	void mergeResults_shouldReturnValidLegacyResult_whenAnyLegacyResultIsValid() {
 		ValidationResult validResult = Mockito.mock(ValidationResult.class);
-		CompletableFuture<ValidationResult> validFuture = CompletableFuture.completedFuture(validResult);
-
 		Mockito.when(validResult.isValid()).thenReturn(true);
 
-		List<CompletableFuture<ValidationResult>> futures = List.of(validFuture);
-
-		ValidationResult result = FhirValidationUtils.getValidationResult(allValidationMessages, futures);
+		ValidationResult result = FhirValidationUtils.mergeResults(invalidResult(), List.of(validResult));
 
 		assertThat(result).isEqualTo(validResult);
 	}
 
 	@Test
-	void getValidationResult_shouldReturnNewValidationResult_whenNoResultIsValid() {
-		SingleValidationMessage mockMessage = Mockito.mock(SingleValidationMessage.class);
-		List<SingleValidationMessage> allValidationMessages = List.of(mockMessage);
-
-		ValidationResult invalidResult = Mockito.mock(ValidationResult.class);
-		CompletableFuture<ValidationResult> invalidFuture = CompletableFuture.completedFuture(invalidResult);
+	void mergeResults_shouldMergeAllMessages_whenNoResultIsValid() {
+		ValidationResult isik5Result = invalidResult();
+		ValidationResult legacyResult = invalidResult();
 
-		Mockito.when(invalidResult.isValid()).thenReturn(false);
+		ValidationResult result = FhirValidationUtils.mergeResults(isik5Result, List.of(legacyResult));
 
-		List<CompletableFuture<ValidationResult>> futures = List.of(invalidFuture);
-
-		ValidationResult result = FhirValidationUtils.getValidationResult(allValidationMessages, futures);
-
-		assertThat(result.getValidationMessages()).isEqualTo(allValidationMessages);
+		assertThat(result.getValidationMessages())
+				.containsExactly(
+						legacyResult.getValidationMessages().get(0),
+						isik5Result.getValidationMessages().get(0));
 	}
 
 	@Test
-	void getValidationResult_shouldReturnNewValidationResult_whenNoFuturesProvided() {
-		SingleValidationMessage mockMessage = Mockito.mock(SingleValidationMessage.class);
-		List<SingleValidationMessage> allValidationMessages = List.of(mockMessage);
+	void mergeResults_shouldReturnEmptyResult_whenNoLegacyResultsProvided() {
+		ValidationResult result = FhirValidationUtils.mergeResults(invalidResult(), List.of());
 
-		ValidationResult result = FhirValidationUtils.getValidationResult(allValidationMessages, List.of());
+		assertThat(result.getValidationMessages()).isEmpty();
+	}
 
-		assertThat(result.getValidationMessages()).isEqualTo(allValidationMessages);
+	private static ValidationResult invalidResult() {
+		SingleValidationMessage message = new SingleValidationMessage();
+		message.setSeverity(ResultSeverityEnum.ERROR);
+		message.setMessage("error");
+		return new ValidationResult(List.of(message));
 	}
 }
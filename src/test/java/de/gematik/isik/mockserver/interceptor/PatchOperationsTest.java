@@ -0,0 +1,77 @@
+package de.gematik.isik.mockserver.interceptor;
+
+/*-
+ * #%L
+ * isik-mock-server
+ * %%
+ * Copyright (C) 2025 - 2026 gematik GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ * #L%
+ */
+
+import ca.uhn.fhir.context.FhirContext;
+import de.gematik.isik.mockserver.helper.ResourceLoadingHelper;
+import org.hl7.fhir.r4.model.CodeType;
+import org.hl7.fhir.r4.model.Parameters;
+import org.hl7.fhir.r4.model.StringType;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PatchOperationsTest {
+
+	@Test
+	void testContainsTrue() {
+		String body = ResourceLoadingHelper.loadResourceAsString("fhir-examples/invalid/invalid-patch-appointment-parameters.json");
+		Parameters parameters = (Parameters) FhirContext.forR4().newJsonParser().parseResource(body);
+
+		assertThat(PatchOperations.of(parameters).contains("Appointment.slot")).isTrue();
+	}
+
+	@Test
+	void testContainsFalse() {
+		String body = ResourceLoadingHelper.loadResourceAsString("fhir-examples/invalid/invalid-patch-appointment-parameters.json");
+		Parameters parameters = (Parameters) FhirContext.forR4().newJsonParser().parseResource(body);
+
+		assertThat(PatchOperations.of(parameters).contains("Appointment.unknown-parameter")).isFalse();
+	}
+
+	@Test
+	void testFirstOperationForPathWins() {
+		Parameters parameters = new Parameters();
+		addOperation(parameters, "Appointment.status", "cancelled");
+		addOperation(parameters, "Appointment.status", "booked");
+		parameters.addParameter().setName("other").setValue(new StringType("Appointment.comment"));
+
+		PatchOperations operations = PatchOperations.of(parameters);
+
+		assertThat(operations.getOperations()).hasSize(2);
+		assertThat(operations.get("Appointment.status"))
+				.hasValueSatisfying(operation -> assertThat(operation.getPart().get(2).getValue().primitiveValue())
+						.isEqualTo("cancelled"));
+		assertThat(operations.get("Appointment.comment")).isEmpty();
+	}
+
+	private static void addOperation(Parameters parameters, String path, String value) {
+		Parameters.ParametersParameterComponent operation = parameters.addParameter().setName("operation");
+		operation.addPart().setName("type").setValue(new CodeType("replace"));
+		operation.addPart().setName("path").setValue(new StringType(path));
+		operation.addPart().setName("value").setValue(new CodeType(value));
+	}
+}
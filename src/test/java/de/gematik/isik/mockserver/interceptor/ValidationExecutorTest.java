@@ -0,0 +1,119 @@
+package de.gematik.isik.mockserver.interceptor;
+
+/*-
+ * #%L
+ * isik-mock-server
+ * %%
+ * Copyright (C) 2025 - 2026 gematik GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ * #L%
+ */
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ValidationExecutorTest {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private ValidationExecutor validationExecutor;
+
+	@AfterEach
+	void tearDown() {
+		validationExecutor.shutdown();
+	}
+
+	@ParameterizedTest
+	@ValueSource(booleans = {true, false})
+	void shouldRunValidationOnNamedThread(boolean virtualThreads) {
+		validationExecutor = new ValidationExecutor(1, 1, virtualThreads, 0, meterRegistry);
+
+		String threadName = validationExecutor
+				.submit("isik5", () -> Thread.currentThread().getName())
+				.join();
+
+		assertThat(threadName).startsWith("validation-");
+	}
+
+	@Test
+	void shouldRejectWhenSaturated() {
+		validationExecutor = new ValidationExecutor(1, 1, false, 0, meterRegistry);
+		CountDownLatch release = new CountDownLatch(1);
+
+		var running = validationExecutor.submit("isik5", () -> await(release));
+		var queued = validationExecutor.submit("isik5", () -> await(release));
+
+		assertThatThrownBy(() -> validationExecutor.submit("isik5", () -> "rejected"))
+				.isInstanceOf(RejectedExecutionException.class);
+		assertThat(meterRegistry.get("isik.validation.executor.rejected").counter().count())
+				.isEqualTo(1.0);
+
+		release.countDown();
+		running.join();
+		queued.join();
+
+		assertThat(validationExecutor.submit("isik5", () -> "accepted").join()).isEqualTo("accepted");
+	}
+
+	@Test
+	void shouldLimitConcurrencyPerModule() {
+		validationExecutor = new ValidationExecutor(4, 16, false, 1, meterRegistry);
+		AtomicInteger concurrentRuns = new AtomicInteger();
+		AtomicInteger maxConcurrentRuns = new AtomicInteger();
+
+		var futures = IntStream.range(0, 8)
+				.mapToObj(i -> validationExecutor.submit("isik5", () -> {
+					maxConcurrentRuns.accumulateAndGet(concurrentRuns.incrementAndGet(), Math::max);
+					sleep();
+					return concurrentRuns.decrementAndGet();
+				}))
+				.toList();
+		futures.forEach(CompletableFuture::join);
+
+		assertThat(maxConcurrentRuns.get()).isEqualTo(1);
+	}
+
+	private static String await(CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		return "done";
+	}
+
+	private static void sleep() {
+		try {
+			Thread.sleep(10);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,151 @@
+package de.gematik.isik.mockserver.interceptor;
+
+/*-
+ * #%L
+ * isik-mock-server
+ * %%
+ * Copyright (C) 2025 - 2026 gematik GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ * #L%
+ */
+
+import de.gematik.refv.Plugin;
+import de.gematik.refv.commons.validation.ValidationModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.MockedStatic;
+import org.mockito.Mockito;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ValidationModuleCacheTest {
+
+	private SimpleMeterRegistry meterRegistry;
+	private Plugin plugin;
+
+	@BeforeEach
+	void setUp() {
+		meterRegistry = new SimpleMeterRegistry();
+		plugin = mock(Plugin.class);
+		when(plugin.getId()).thenReturn("isik5");
+	}
+
+	@Test
+	@SneakyThrows
+	void shouldCreateModuleOnlyOnce() {
+		var cache = new ValidationModuleCache(Duration.ZERO, 1, meterRegistry);
+		ValidationModule module = mock(ValidationModule.class);
+
+		try (MockedStatic<FhirValidationHandlerHelper> helper = Mockito.mockStatic(FhirValidationHandlerHelper.class)) {
+			helper.when(() -> FhirValidationHandlerHelper.createFromPlugin(plugin)).thenReturn(module);
+
+			var pool = cache.getOrCreate(plugin);
+			assertThat(cache.getOrCreate(plugin)).isSameAs(pool);
+			assertThat(pool.execute(Function.identity())).isSameAs(module);
+
+			helper.verify(() -> FhirValidationHandlerHelper.createFromPlugin(plugin), Mockito.times(1));
+		}
+		assertThat(meterRegistry
+						.get("isik.validation.module.init")
+						.tag("module", "isik5")
+						.timer()
+						.count())
+				.isEqualTo(1);
+		assertThat(meterRegistry.get("isik.validation.module.cached").gauge().value())
+				.isEqualTo(1);
+	}
+
+	@Test
+	@SneakyThrows
+	void shouldCreateModuleOnlyOnceForConcurrentRequests() {
+		var cache = new ValidationModuleCache(Duration.ZERO, 1, meterRegistry);
+		var creationStarted = new AtomicBoolean();
+		ValidationModule module = mock(ValidationModule.class);
+		var concurrentRequest = new CompletableFuture<ValidationModulePool>();
+		Thread concurrentThread = Thread.ofPlatform().unstarted(() -> {
+			try {
+				while (!creationStarted.get()) {
+					Thread.onSpinWait();
+				}
+				concurrentRequest.complete(cache.getOrCreate(plugin));
+			} catch (Exception e) {
+				concurrentRequest.completeExceptionally(e);
+			}
+		});
+		concurrentThread.start();
+
+		// Static mocks are thread-local: the concurrent request can only succeed by waiting for the
+		// creation running on this thread
+		try (MockedStatic<FhirValidationHandlerHelper> helper = Mockito.mockStatic(FhirValidationHandlerHelper.class)) {
+			helper.when(() -> FhirValidationHandlerHelper.createFromPlugin(plugin)).thenAnswer(invocation -> {
+				creationStarted.set(true);
+				while (concurrentThread.getState() != Thread.State.WAITING && concurrentThread.isAlive()) {
+					Thread.onSpinWait();
+				}
+				return module;
+			});
+
+			var pool = cache.getOrCreate(plugin);
+			assertThat(concurrentRequest.get(5, TimeUnit.SECONDS)).isSameAs(pool);
+			assertThat(pool.execute(Function.identity())).isSameAs(module);
+		}
+	}
+
+	@Test
+	@SneakyThrows
+	void shouldEvictIdleModules() {
+		var cache = new ValidationModuleCache(Duration.ofMillis(1), 1, meterRegistry);
+
+		try (MockedStatic<FhirValidationHandlerHelper> helper = Mockito.mockStatic(FhirValidationHandlerHelper.class)) {
+			helper.when(() -> FhirValidationHandlerHelper.createFromPlugin(plugin))
+					.thenReturn(mock(ValidationModule.class));
+			cache.getOrCreate(plugin);
+		}
+		Thread.sleep(5);
+		cache.evictIdleModules();
+
+		assertThat(cache.contains("isik5")).isFalse();
+		cache.shutdown();
+	}
+
+	@Test
+	@SneakyThrows
+	void shouldNotEvictModulesIfIdleTimeoutIsDisabled() {
+		var cache = new ValidationModuleCache(Duration.ZERO, 1, meterRegistry);
+
+		try (MockedStatic<FhirValidationHandlerHelper> helper = Mockito.mockStatic(FhirValidationHandlerHelper.class)) {
+			helper.when(() -> FhirValidationHandlerHelper.createFromPlugin(plugin))
+					.thenReturn(mock(ValidationModule.class));
+			cache.getOrCreate(plugin);
+		}
+		cache.evictIdleModules();
+
+		assertThat(cache.contains("isik5")).isTrue();
+	}
+}
@@ -0,0 +1,183 @@
+package de.gematik.isik.mockserver.interceptor;
+
+/*-
+ * #%L
+ * isik-mock-server
+ * %%
+ * Copyright (C) 2025 - 2026 gematik GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ * #L%
+ */
+
+import de.gematik.refv.commons.validation.ValidationModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class ValidationModulePoolTest {
+
+	private SimpleMeterRegistry meterRegistry;
+	private AtomicInteger createdModules;
+
+	@BeforeEach
+	void setUp() {
+		meterRegistry = new SimpleMeterRegistry();
+		createdModules = new AtomicInteger();
+	}
+
+	@Test
+	@SneakyThrows
+	void shouldReuseIdleModule() {
+		var pool = createPool(2);
+
+		ValidationModule first = pool.execute(module -> module);
+		ValidationModule second = pool.execute(module -> module);
+
+		assertThat(second).isSameAs(first);
+		assertThat(pool.size()).isEqualTo(1);
+		assertThat(createdModules).hasValue(1);
+		assertThat(meterRegistry
+						.get("isik.validation.module.init.allocated")
+						.tag("module", "isik5")
+						.summary()
+						.count())
+				.isLessThanOrEqualTo(1);
+	}
+
+	@Test
+	@SneakyThrows
+	void shouldGrowUpToMaxSizeAndWaitIfExhausted() {
+		var pool = createPool(2);
+		var inUse = new CountDownLatch(2);
+		var release = new CountDownLatch(1);
+		Set<ValidationModule> usedModules = ConcurrentHashMap.newKeySet();
+		ExecutorService executor = Executors.newFixedThreadPool(3);
+
+		var first = CompletableFuture.runAsync(() -> useModule(pool, usedModules, inUse, release), executor);
+		var second = CompletableFuture.runAsync(() -> useModule(pool, usedModules, inUse, release), executor);
+		assertThat(inUse.await(5, TimeUnit.SECONDS)).isTrue();
+
+		var third = CompletableFuture.supplyAsync(() -> execute(pool), executor);
+		release.countDown();
+		CompletableFuture.allOf(first, second).get(5, TimeUnit.SECONDS);
+
+		assertThat(third.get(5, TimeUnit.SECONDS)).isIn(usedModules);
+		assertThat(usedModules).hasSize(2);
+		assertThat(pool.size()).isEqualTo(2);
+		assertThat(meterRegistry
+						.get("isik.validation.module.pool.usage")
+						.tag("module", "isik5")
+						.timer()
+						.count())
+				.isEqualTo(3);
+		executor.shutdown();
+	}
+
+	@Test
+	@SneakyThrows
+	void shouldShareSingleModuleConcurrently() {
+		var pool = createPool(1);
+		var inUse = new CountDownLatch(2);
+		var release = new CountDownLatch(1);
+		Set<ValidationModule> usedModules = ConcurrentHashMap.newKeySet();
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+
+		var first = CompletableFuture.runAsync(() -> useModule(pool, usedModules, inUse, release), executor);
+		var second = CompletableFuture.runAsync(() -> useModule(pool, usedModules, inUse, release), executor);
+
+		assertThat(inUse.await(5, TimeUnit.SECONDS)).isTrue();
+		release.countDown();
+		CompletableFuture.allOf(first, second).get(5, TimeUnit.SECONDS);
+		assertThat(usedModules).hasSize(1);
+		assertThat(pool.size()).isEqualTo(1);
+		assertThat(createdModules).hasValue(1);
+		assertThat(meterRegistry
+						.get("isik.validation.module.pool.wait")
+						.tag("module", "isik5")
+						.timer()
+						.count())
+				.isZero();
+		executor.shutdown();
+	}
+
+	@Test
+	@SneakyThrows
+	void shouldFillPool() {
+		var pool = createPool(3);
+		pool.registerGauges();
+
+		pool.fill();
+
+		assertThat(pool.size()).isEqualTo(3);
+		assertThat(meterRegistry
+						.get("isik.validation.module.pool.idle")
+						.tag("module", "isik5")
+						.gauge()
+						.value())
+				.isEqualTo(3);
+	}
+
+	@SneakyThrows
+	private ValidationModulePool createPool(int maxSize) {
+		return new ValidationModulePool(
+				"isik5",
+				maxSize,
+				() -> {
+					createdModules.incrementAndGet();
+					return mock(ValidationModule.class);
+				},
+				meterRegistry);
+	}
+
+	@SneakyThrows
+	private static ValidationModule execute(ValidationModulePool pool) {
+		return pool.execute(module -> module);
+	}
+
+	@SneakyThrows
+	private static void useModule(
+			ValidationModulePool pool,
+			Set<ValidationModule> usedModules,
+			CountDownLatch inUse,
+			CountDownLatch release) {
+		pool.execute(module -> {
+			usedModules.add(module);
+			inUse.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return module;
+		});
+	}
+}
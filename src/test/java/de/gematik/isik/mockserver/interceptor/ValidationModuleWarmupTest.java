@@ -0,0 +1,121 @@
+package de.gematik.isik.mockserver.interceptor;
+
+/*-
+ * #%L
+ * isik-mock-server
+ * %%
+ * Copyright (C) 2025 - 2026 gematik GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ * #L%
+ */
+
+import de.gematik.isik.mockserver.refv.PluginLoader;
+import de.gematik.isik.mockserver.refv.PluginMappingResolver;
+import de.gematik.refv.Plugin;
+import de.gematik.refv.commons.exceptions.ValidationModuleInitializationException;
+import de.gematik.refv.commons.validation.ValidationModule;
+import de.gematik.refv.commons.validation.ValidationOptions;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Status;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ValidationModuleWarmupTest {
+
+	private ValidationModuleCache validationModuleCache;
+	private PluginLoader pluginLoader;
+	private PluginMappingResolver pluginMappingResolver;
+	private Plugin plugin;
+
+	@BeforeEach
+	void setUp() {
+		validationModuleCache = mock(ValidationModuleCache.class);
+		pluginLoader = mock(PluginLoader.class);
+		pluginMappingResolver = mock(PluginMappingResolver.class);
+		plugin = mock(Plugin.class);
+		when(plugin.getId()).thenReturn("isik5");
+		when(pluginLoader.isEnabled()).thenReturn(true);
+		when(pluginLoader.getPlugins()).thenReturn(Map.of("isik5", plugin));
+		when(pluginMappingResolver.getPluginIdsFromResourceType(anyString())).thenReturn(List.of());
+		when(pluginMappingResolver.getPluginIdsFromResourceType("Patient")).thenReturn(List.of("isik5"));
+	}
+
+	@Test
+	@SneakyThrows
+	void shouldCreateAndRunAllModules() {
+		ValidationModule pluginModule = mock(ValidationModule.class);
+		ValidationModule coreModule = mock(ValidationModule.class);
+		when(validationModuleCache.getOrCreate(plugin)).thenReturn(pool("isik5", pluginModule));
+		when(validationModuleCache.getOrCreateCoreModule()).thenReturn(pool(ValidationModuleCache.CORE_MODULE_ID, coreModule));
+		var warmup = createWarmup(true);
+		var healthIndicator = new ValidationWarmupHealthIndicator(warmup);
+
+		assertThat(healthIndicator.health().getStatus()).isEqualTo(ValidationWarmupHealthIndicator.WARMING_UP);
+		warmup.start().join();
+
+		verify(pluginModule).validateString(anyString());
+		verify(coreModule).validateString(anyString(), any(ValidationOptions.class));
+		assertThat(warmup.getFinishedModules()).isEqualTo(2);
+		assertThat(healthIndicator.health().getStatus()).isEqualTo(Status.UP);
+	}
+
+	@Test
+	@SneakyThrows
+	void shouldFinishIfModuleCreationFails() {
+		when(validationModuleCache.getOrCreate(plugin)).thenThrow(mock(ValidationModuleInitializationException.class));
+		var warmup = createWarmup(false);
+
+		warmup.start().join();
+
+		assertThat(warmup.isFinished()).isTrue();
+		assertThat(warmup.getFailedModules()).containsExactly("isik5");
+		verify(validationModuleCache, never()).getOrCreateCoreModule();
+	}
+
+	@Test
+	void shouldBeFinishedIfDisabled() {
+		var warmup = new ValidationModuleWarmup(
+				validationModuleCache, pluginLoader, pluginMappingResolver, false, true, 0, "example-resources");
+
+		assertThat(new ValidationWarmupHealthIndicator(warmup).health().getStatus())
+				.isEqualTo(Status.UP);
+	}
+
+	@SneakyThrows
+	private static ValidationModulePool pool(String moduleId, ValidationModule module) {
+		return new ValidationModulePool(moduleId, 1, () -> module, new SimpleMeterRegistry());
+	}
+
+	private ValidationModuleWarmup createWarmup(boolean warmupCoreModule) {
+		return new ValidationModuleWarmup(
+				validationModuleCache, pluginLoader, pluginMappingResolver, true, warmupCoreModule, 2, "example-resources");
+	}
+}
@@ -0,0 +1,143 @@
+package de.gematik.isik.mockserver.interceptor;
+
+/*-
+ * #%L
+ * isik-mock-server
+ * %%
+ * Copyright (C) 2025 - 2026 gematik GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ * #L%
+ */
+
+import ca.uhn.fhir.validation.ResultSeverityEnum;
+import ca.uhn.fhir.validation.SingleValidationMessage;
+import de.gematik.refv.commons.validation.ValidationResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ValidationResultCacheTest {
+
+	private static final String FINGERPRINT = "isik5:abc";
+
+	private SimpleMeterRegistry meterRegistry;
+	private ValidationResultCache cache;
+
+	@BeforeEach
+	void setUp() {
+		meterRegistry = new SimpleMeterRegistry();
+		cache = new ValidationResultCache(true, 2, meterRegistry);
+	}
+
+	@Test
+	void shouldReturnCachedResultOnHit() {
+		String key = cache.createKey("{\"resourceType\":\"Patient\"}", List.of(), FINGERPRINT);
+		cache.put(key, invalidResult());
+
+		var result = cache.get(key, FINGERPRINT);
+
+		assertThat(result).isPresent();
+		assertThat(result.get().isValid()).isFalse();
+		assertThat(meterRegistry.get("isik.validation.cache.requests").tag("result", "hit").counter().count())
+				.isEqualTo(1.0);
+	}
+
+	@Test
+	void shouldIgnoreTrailingWhitespaceOfBody() {
+		String key = cache.createKey("{\"resourceType\":\"Patient\"}", List.of(), FINGERPRINT);
+		String keyWithLineSeparator =
+				cache.createKey("{\"resourceType\":\"Patient\"}" + System.lineSeparator(), List.of(), FINGERPRINT);
+
+		assertThat(key).isEqualTo(keyWithLineSeparator);
+	}
+
+	@Test
+	void shouldDistinguishProfiles() {
+		String key = cache.createKey("{}", List.of("http://example.org/A"), FINGERPRINT);
+		String otherKey = cache.createKey("{}", List.of("http://example.org/B"), FINGERPRINT);
+
+		assertThat(key).isNotEqualTo(otherKey);
+	}
+
+	@Test
+	void shouldEvictLeastRecentlyUsedEntry() {
+		cache.put("a", invalidResult());
+		cache.put("b", invalidResult());
+		cache.get("a", FINGERPRINT);
+		cache.put("c", invalidResult());
+
+		assertThat(cache.get("a", FINGERPRINT)).isPresent();
+		assertThat(cache.get("b", FINGERPRINT)).isEmpty();
+		assertThat(cache.size()).isEqualTo(2);
+		assertThat(meterRegistry.get("isik.validation.cache.evictions").counter().count())
+				.isEqualTo(1.0);
+	}
+
+	@Test
+	void shouldInvalidateWhenPluginsChange() {
+		cache.put("a", invalidResult());
+		assertThat(cache.get("a", FINGERPRINT)).isPresent();
+
+		assertThat(cache.get("a", "isik5:def")).isEmpty();
+		assertThat(cache.size()).isZero();
+	}
+
+	@Test
+	void shouldNotExposeCachedInstance() {
+		cache.put("a", invalidResult());
+
+		cache.get("a", FINGERPRINT).orElseThrow().getValidationMessages().clear();
+
+		assertThat(cache.get("a", FINGERPRINT).orElseThrow().getValidationMessages())
+				.hasSize(1);
+	}
+
+	@Test
+	void shouldNotExposeCachedMessages() {
+		ValidationResult original = invalidResult();
+		cache.put("a", original);
+		original.getValidationMessages().get(0).setSeverity(ResultSeverityEnum.INFORMATION);
+
+		cache.get("a", FINGERPRINT).orElseThrow().getValidationMessages().get(0).setMessage("changed");
+
+		SingleValidationMessage cached = cache.get("a", FINGERPRINT).orElseThrow().getValidationMessages().get(0);
+		assertThat(cached.getMessage()).isEqualTo("error");
+		assertThat(cached.getSeverity()).isEqualTo(ResultSeverityEnum.ERROR);
+	}
+
+	@Test
+	void shouldNotCacheWhenDisabled() {
+		var disabledCache = new ValidationResultCache(false, 10, new SimpleMeterRegistry());
+		disabledCache.put("a", invalidResult());
+
+		assertThat(disabledCache.get("a", FINGERPRINT)).isEmpty();
+	}
+
+	private static ValidationResult invalidResult() {
+		var message = new SingleValidationMessage();
+		message.setMessage("error");
+		message.setSeverity(ResultSeverityEnum.ERROR);
+		return new ValidationResult(new ArrayList<>(List.of(message)));
+	}
+}
@@ -0,0 +1,366 @@
+package de.gematik.isik.mockserver.operation;
+
+/*-
+ * #%L
+ * isik-mock-server
+ * %%
+ * Copyright (C) 2025 - 2026 gematik GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ * #L%
+ */
+
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.jpa.api.dao.DaoRegistry;
+import ca.uhn.fhir.jpa.api.dao.IFhirResourceDao;
+import ca.uhn.fhir.jpa.api.dao.IFhirSystemDao;
+import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
+import ca.uhn.fhir.rest.api.server.RequestDetails;
+import ca.uhn.fhir.validation.ResultSeverityEnum;
+import ca.uhn.fhir.validation.SingleValidationMessage;
+import de.gematik.isik.mockserver.interceptor.FhirValidationHandler;
+import de.gematik.refv.commons.validation.ValidationResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.SneakyThrows;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.hl7.fhir.r4.model.Appointment;
+import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.DocumentReference;
+import org.hl7.fhir.r4.model.Meta;
+import org.hl7.fhir.r4.model.OperationOutcome;
+import org.hl7.fhir.r4.model.Parameters;
+import org.hl7.fhir.r4.model.Patient;
+import org.hl7.fhir.r4.model.Reference;
+import org.hl7.fhir.r4.model.Schedule;
+import org.hl7.fhir.r4.model.Slot;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AppointmentBookBatchHandlerTest {
+
+	private static final Instant START = Instant.now().plus(30, ChronoUnit.DAYS).truncatedTo(ChronoUnit.HOURS);
+
+	private final FhirContext ctx = FhirContext.forR4();
+	private final RequestDetails requestDetails = mock(RequestDetails.class);
+	private DaoRegistry daoMock;
+	private IFhirSystemDao<Bundle, Meta> systemDaoMock;
+	private IFhirResourceDao<Slot> slotDaoMock;
+	private FhirValidationHandler validationHandlerMock;
+	private AppointmentBookBatchHandler handler;
+
+	@BeforeEach
+	@SneakyThrows
+	void setup() {
+		daoMock = mock(DaoRegistry.class);
+		systemDaoMock = mock(IFhirSystemDao.class);
+		when(daoMock.getSystemDao()).thenReturn(systemDaoMock);
+
+		Patient patient = new Patient();
+		patient.setId("Patient/Mustermann");
+		patient.setActive(true);
+		Schedule schedule = new Schedule();
+		schedule.setId("Schedule/Example");
+		IFhirResourceDao<Patient> patientDaoMock = mock(IFhirResourceDao.class);
+		IFhirResourceDao<Schedule> scheduleDaoMock = mock(IFhirResourceDao.class);
+		slotDaoMock = mock(IFhirResourceDao.class);
+		when(daoMock.getResourceDao(Patient.class)).thenReturn(patientDaoMock);
+		when(daoMock.getResourceDao(Schedule.class)).thenReturn(scheduleDaoMock);
+		when(daoMock.getResourceDao(Slot.class)).thenReturn(slotDaoMock);
+		when(patientDaoMock.search(any(SearchParameterMap.class), eq(requestDetails)))
+				.thenReturn(SimpleBundleProvider.createBundleProvider(List.of(patient)));
+		when(scheduleDaoMock.search(any(SearchParameterMap.class), eq(requestDetails)))
+				.thenReturn(SimpleBundleProvider.createBundleProvider(List.of(schedule)));
+		when(slotDaoMock.search(any(SearchParameterMap.class), eq(requestDetails)))
+				.thenReturn(SimpleBundleProvider.createBundleProvider(List.of()));
+
+		AppointmentBookHandlerHelper helper = new AppointmentBookHandlerHelper(daoMock);
+		BookingReferenceResolver bookingReferenceResolver = new BookingReferenceResolver(daoMock);
+		AppointmentBookHandler appointmentBookHandler = new AppointmentBookHandler(helper, bookingReferenceResolver);
+		appointmentBookHandler.setCtx(ctx);
+		BookingLockService bookingLockService =
+				new BookingLockService(64, Duration.ofSeconds(1), new SimpleMeterRegistry());
+		validationHandlerMock = mock(FhirValidationHandler.class);
+		when(validationHandlerMock.validateResource(any(), any())).thenReturn(new ValidationResult(List.of()));
+		handler = new AppointmentBookBatchHandler(
+				ctx,
+				daoMock,
+				appointmentBookHandler,
+				helper,
+				bookingLockService,
+				bookingReferenceResolver,
+				validationHandlerMock,
+				2);
+	}
+
+	@Test
+	@SneakyThrows
+	void testOverlappingBookingsInOneBatchAreRejected() {
+		when(systemDaoMock.transaction(eq(requestDetails), any(Bundle.class))).thenReturn(transactionResponse(
+				"Slot/new-slot/_history/1", "Appointment/new-appointment/_history/1"));
+
+		Bundle response = handler.bookAll(
+				List.of(bookingParameters(START, 0, 30), bookingParameters(START, 15, 45)), requestDetails);
+
+		assertThat(response.getType()).isEqualTo(Bundle.BundleType.BATCHRESPONSE);
+		assertThat(response.getEntry()).hasSize(2);
+		Bundle.BundleEntryComponent booked = response.getEntry().get(0);
+		assertThat(booked.getResponse().getStatus()).isEqualTo("201 Created");
+		assertThat(booked.getResponse().getLocation()).isEqualTo("Appointment/new-appointment/_history/1");
+		Appointment appointment = (Appointment) booked.getResource();
+		assertThat(appointment.getStatus()).isEqualTo(Appointment.AppointmentStatus.BOOKED);
+		assertThat(appointment.getSlotFirstRep().getReference()).isEqualTo("Slot/new-slot");
+
+		Bundle.BundleEntryComponent rejected = response.getEntry().get(1);
+		assertThat(rejected.getResponse().getStatus()).isEqualTo("400 Bad Request");
+		assertThat(((OperationOutcome)
+								rejected.getResponse().getOutcome())
+						.getIssueFirstRep()
+						.getDiagnostics())
+				.contains("overlapping with existing slots");
+
+		ArgumentCaptor<Bundle> transaction = ArgumentCaptor.forClass(Bundle.class);
+		verify(systemDaoMock).transaction(eq(requestDetails), transaction.capture());
+		assertThat(transaction.getValue().getType()).isEqualTo(Bundle.BundleType.TRANSACTION);
+		assertThat(transaction.getValue().getEntry())
+				.extracting(entry -> entry.getResource().fhirType())
+				.containsExactly("Slot", "Appointment");
+		// all slots of the schedule are read once for the whole batch
+		verify(slotDaoMock).search(any(SearchParameterMap.class), eq(requestDetails));
+	}
+
+	@Test
+	@SneakyThrows
+	void testFreeSlotsSetToBusyByABookingAreBusyForLaterEntries() {
+		Slot freeSlot = new Slot();
+		freeSlot.setId("Slot/Free");
+		freeSlot.setStatus(Slot.SlotStatus.FREE);
+		freeSlot.setSchedule(new Reference("Schedule/Example"));
+		freeSlot.setStart(Date.from(START));
+		freeSlot.setEnd(Date.from(START.plus(60, ChronoUnit.MINUTES)));
+		when(slotDaoMock.search(any(SearchParameterMap.class), eq(requestDetails)))
+				.thenReturn(SimpleBundleProvider.createBundleProvider(List.of(freeSlot)));
+		when(systemDaoMock.transaction(eq(requestDetails), any(Bundle.class))).thenReturn(transactionResponse(
+				"Slot/new-slot/_history/1", "Appointment/new-appointment/_history/1", "Slot/Free/_history/2"));
+
+		Bundle response = handler.bookAll(
+				List.of(bookingParameters(START, 0, 15), bookingParameters(START, 30, 45)), requestDetails);
+
+		// like two single $book requests: the first booking sets the free slot to busy
+		assertThat(response.getEntry())
+				.extracting(entry -> entry.getResponse().getStatus())
+				.containsExactly("201 Created", "400 Bad Request");
+		ArgumentCaptor<Bundle> transaction = ArgumentCaptor.forClass(Bundle.class);
+		verify(systemDaoMock).transaction(eq(requestDetails), transaction.capture());
+		Bundle.BundleEntryComponent update = transaction.getValue().getEntry().getLast();
+		assertThat(update.getRequest().getMethod()).isEqualTo(Bundle.HTTPVerb.PUT);
+		assertThat(update.getRequest().getUrl()).isEqualTo("Slot/Free");
+		assertThat(((Slot) update.getResource()).getStatus()).isEqualTo(Slot.SlotStatus.BUSY);
+	}
+
+	@Test
+	@SneakyThrows
+	void testReferencedSlotIsSetToBusyAndNotBookedTwice() {
+		Slot freeSlot = new Slot();
+		freeSlot.setId("Slot/Free");
+		freeSlot.setStatus(Slot.SlotStatus.FREE);
+		freeSlot.setSchedule(new Reference("Schedule/Example"));
+		freeSlot.setStart(Date.from(START));
+		freeSlot.setEnd(Date.from(START.plus(60, ChronoUnit.MINUTES)));
+		when(slotDaoMock.search(any(SearchParameterMap.class), eq(requestDetails)))
+				.thenReturn(SimpleBundleProvider.createBundleProvider(List.of(freeSlot)));
+		when(systemDaoMock.transaction(eq(requestDetails), any(Bundle.class))).thenReturn(transactionResponse(
+				"Appointment/new-appointment/_history/1", "Slot/Free/_history/2"));
+		Parameters first = bookingParameters(START, 0, 30);
+		Parameters second = bookingParameters(START, 30, 60);
+		for (Parameters parameters : List.of(first, second)) {
+			((Appointment) parameters.getParameter("appt-resource").getResource()).addSlot(new Reference("Slot/Free"));
+		}
+
+		Bundle response = handler.bookAll(List.of(first, second), requestDetails);
+
+		assertThat(response.getEntry())
+				.extracting(entry -> entry.getResponse().getStatus())
+				.containsExactly("201 Created", "400 Bad Request");
+		ArgumentCaptor<Bundle> transaction = ArgumentCaptor.forClass(Bundle.class);
+		verify(systemDaoMock).transaction(eq(requestDetails), transaction.capture());
+		Bundle.BundleEntryComponent update = transaction.getValue().getEntry().getLast();
+		assertThat(update.getRequest().getMethod()).isEqualTo(Bundle.HTTPVerb.PUT);
+		assertThat(update.getRequest().getUrl()).isEqualTo("Slot/Free");
+		assertThat(((Slot) update.getResource()).getStatus()).isEqualTo(Slot.SlotStatus.BUSY);
+	}
+
+	@Test
+	@SneakyThrows
+	void testReferencedSlotAndNewSlotOverlappingItAreNotBothBooked() {
+		Slot freeSlot = new Slot();
+		freeSlot.setId("Slot/Free");
+		freeSlot.setStatus(Slot.SlotStatus.FREE);
+		freeSlot.setSchedule(new Reference("Schedule/Example"));
+		freeSlot.setStart(Date.from(START));
+		freeSlot.setEnd(Date.from(START.plus(60, ChronoUnit.MINUTES)));
+		// every search returns its own copy, like the DAO does
+		when(slotDaoMock.search(any(SearchParameterMap.class), eq(requestDetails)))
+				.thenAnswer(invocation -> SimpleBundleProvider.createBundleProvider(List.of(freeSlot.copy())));
+		when(systemDaoMock.transaction(eq(requestDetails), any(Bundle.class))).thenReturn(transactionResponse(
+				"Appointment/new-appointment/_history/1", "Slot/Free/_history/2"));
+		Parameters referenced = bookingParameters(START, 0, 60);
+		((Appointment) referenced.getParameter("appt-resource").getResource()).addSlot(new Reference("Slot/Free"));
+
+		Bundle response = handler.bookAll(List.of(referenced, bookingParameters(START, 30, 45)), requestDetails);
+
+		assertThat(response.getEntry())
+				.extracting(entry -> entry.getResponse().getStatus())
+				.containsExactly("201 Created", "400 Bad Request");
+		ArgumentCaptor<Bundle> transaction = ArgumentCaptor.forClass(Bundle.class);
+		verify(systemDaoMock).transaction(eq(requestDetails), transaction.capture());
+		assertThat(transaction.getValue().getEntry())
+				.extracting(entry -> entry.getRequest().getMethod() + " " + entry.getResource().fhirType())
+				.containsExactly("POST Appointment", "PUT Slot");
+	}
+
+	@Test
+	@SneakyThrows
+	void testInvalidEntriesAreReportedWithoutStoringAnything() {
+		Parameters unknownPatient = bookingParameters(START, 0, 30);
+		((Appointment) unknownPatient.getParameter("appt-resource").getResource())
+				.getParticipantFirstRep()
+				.setActor(new Reference("Patient/Unknown"));
+
+		Bundle response =
+				handler.bookAll(List.of(new DocumentReference(), unknownPatient), requestDetails);
+
+		assertThat(response.getEntry())
+				.extracting(entry -> entry.getResponse().getStatus())
+				.containsExactly("400 Bad Request", "400 Bad Request");
+		assertThat(((OperationOutcome)
+								response.getEntry().get(1).getResponse().getOutcome())
+						.getIssueFirstRep()
+						.getDiagnostics())
+				.isEqualTo("Patient with ID Patient/Unknown not found");
+		verify(systemDaoMock, never()).transaction(any(), any());
+	}
+
+	@Test
+	@SneakyThrows
+	void testEntriesAreValidatedOneByOne() {
+		Parameters invalid = bookingParameters(START, 0, 30);
+		Parameters valid = bookingParameters(START, 30, 60);
+		SingleValidationMessage message = new SingleValidationMessage();
+		message.setMessage("Appointment.status: minimum required = 1, but only found 0");
+		message.setSeverity(ResultSeverityEnum.ERROR);
+		when(validationHandlerMock.validateResource(eq(invalid), any()))
+				.thenReturn(new ValidationResult(List.of(message)));
+		when(systemDaoMock.transaction(eq(requestDetails), any(Bundle.class))).thenReturn(transactionResponse(
+				"Slot/new-slot/_history/1", "Appointment/new-appointment/_history/1"));
+
+		Bundle response = handler.bookAll(List.of(invalid, valid), requestDetails);
+
+		assertThat(response.getEntry())
+				.extracting(entry -> entry.getResponse().getStatus())
+				.containsExactly("400 Bad Request", "201 Created");
+		assertThat(((OperationOutcome)
+								response.getEntry().get(0).getResponse().getOutcome())
+						.getIssueFirstRep()
+						.getDiagnostics())
+				.contains("minimum required = 1");
+		verify(validationHandlerMock)
+				.validateResource(eq(valid), eq(ctx.newJsonParser().encodeResourceToString(valid)));
+	}
+
+	@Test
+	@SneakyThrows
+	void testFailedTransactionIsReportedForAllAcceptedEntries() {
+		when(systemDaoMock.transaction(eq(requestDetails), any(Bundle.class)))
+				.thenThrow(new IllegalStateException("database unavailable"));
+
+		Bundle response = handler.bookAll(List.of(bookingParameters(START, 0, 30)), requestDetails);
+
+		assertThat(response.getEntryFirstRep().getResponse().getStatus()).isEqualTo("500 Internal Server Error");
+	}
+
+	@Test
+	void testParseNdjsonRequests() {
+		String body = ctx.newJsonParser().encodeResourceToString(bookingParameters(START, 0, 30)) + "\n"
+				+ ctx.newJsonParser().encodeResourceToString(bookingParameters(START, 30, 60));
+
+		List<IBaseResource> requests = handler.parseRequests(body, "application/fhir+ndjson");
+
+		assertThat(requests).hasSize(2).allMatch(Parameters.class::isInstance);
+	}
+
+	@Test
+	void testParseRejectsTooManyRequests() {
+		Bundle bundle = new Bundle();
+		for (int i = 0; i < 3; i++) {
+			bundle.addEntry().setResource(bookingParameters(START, i * 30, i * 30 + 30));
+		}
+		String body = ctx.newJsonParser().encodeResourceToString(bundle);
+
+		assertThatThrownBy(() -> handler.parseRequests(body, "application/fhir+json"))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessage("The batch contains 3 bookings, at most 2 are allowed");
+	}
+
+	@Test
+	void testParseRejectsSingleResource() {
+		String body = ctx.newJsonParser().encodeResourceToString(bookingParameters(START, 0, 30));
+
+		assertThatThrownBy(() -> handler.parseRequests(body, "application/fhir+json"))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("Expected a Bundle or NDJSON");
+	}
+
+	private static Parameters bookingParameters(Instant day, int startMinute, int endMinute) {
+		Appointment appointment = new Appointment();
+		appointment.setStatus(Appointment.AppointmentStatus.PROPOSED);
+		appointment.setStart(Date.from(day.plus(startMinute, ChronoUnit.MINUTES)));
+		appointment.setEnd(Date.from(day.plus(endMinute, ChronoUnit.MINUTES)));
+		appointment.addServiceType().addCoding().setSystem("http://terminology.hl7.org/CodeSystem/service-type");
+		appointment.addParticipant().setActor(new Reference("Patient/Mustermann"));
+		Parameters parameters = new Parameters();
+		parameters.addParameter().setName("appt-resource").setResource(appointment);
+		parameters.addParameter().setName("schedule").setValue(new Reference("Schedule/Example"));
+		return parameters;
+	}
+
+	private static Bundle transactionResponse(String... locations) {
+		Bundle response = new Bundle();
+		response.setType(Bundle.BundleType.TRANSACTIONRESPONSE);
+		for (String location : locations) {
+			response.addEntry().getResponse().setStatus("201 Created").setLocation(location);
+		}
+		return response;
+	}
+}
@@ -32,7 +32,7 @@ import ca.uhn.fhir.jpa.api.model.DaoMethodOutcome;
 import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
 import ca.uhn.fhir.rest.api.server.IBundleProvider;
 import ca.uhn.fhir.rest.api.server.RequestDetails;
-import ca.uhn.fhir.rest.server.exceptions.ResourceNotFoundException;
+import ca.uhn.fhir.rest.server.exceptions.ResourceGoneException;
 import de.gematik.isik.mockserver.helper.OperationOutcomeUtils;
 import lombok.SneakyThrows;
 import org.hl7.fhir.instance.model.api.IBaseResource;
@@ -43,7 +43,6 @@ import org.hl7.fhir.r4.model.IdType;
 import org.hl7.fhir.r4.model.OperationOutcome;
 import org.hl7.fhir.r4.model.Patient;
 import org.hl7.fhir.r4.model.Reference;
-import org.hl7.fhir.r4.model.Schedule;
 import org.hl7.fhir.r4.model.Slot;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -54,6 +53,7 @@ import java.text.SimpleDateFormat;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
+import java.util.Optional;
 
 import static de.gematik.isik.mockserver.helper.ResourceLoadingHelper.loadResourceAsString;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -64,74 +64,18 @@ class AppointmentBookHandlerHelperTest {
 
 	private AppointmentBookHandlerHelper helper;
 	private IFhirResourceDao<Slot> slotDao;
-	private IFhirResourceDao<Schedule> scheduleDao;
-	private IFhirResourceDao<Patient> patientDao;
 	private RequestDetails requestDetails;
 
 	@BeforeEach
 	public void setup() {
 		DaoRegistry daoRegistry = Mockito.mock(DaoRegistry.class);
 		slotDao = Mockito.mock(IFhirResourceDao.class);
-		scheduleDao = Mockito.mock(IFhirResourceDao.class);
-		patientDao = Mockito.mock(IFhirResourceDao.class);
 		requestDetails = mock(RequestDetails.class);
 		when(daoRegistry.getResourceDao(Slot.class)).thenReturn(slotDao);
-		when(daoRegistry.getResourceDao(Schedule.class)).thenReturn(scheduleDao);
-		when(daoRegistry.getResourceDao(Patient.class)).thenReturn(patientDao);
 
 		helper = new AppointmentBookHandlerHelper(daoRegistry);
 	}
 
-	@Test
-	void testIsSlotExistentWhenSlotExists() {
-		String slotId = "existing-slot-id";
-		Slot slot = new Slot();
-		when(slotDao.read(
-				argThat(id -> id.getIdPart().equals(slotId)),
-				argThat(req -> req.equals(requestDetails))
-		)).thenReturn(slot);
-
-		boolean exists = helper.isSlotExistent(slotId, requestDetails);
-		assertThat(exists).isTrue();
-	}
-
-	@Test
-	void testIsSlotExistentWhenSlotDoesNotExist() {
-		String slotId = "non-existing-slot-id";
-		when(slotDao.read(
-				argThat(id -> id.getIdPart().equals(slotId)),
-				argThat(req -> req.equals(requestDetails))
-		)).thenThrow(new ResourceNotFoundException("Slot not found"));
-
-		boolean exists = helper.isSlotExistent(slotId, requestDetails);
-		assertThat(exists).isFalse();
-	}
-
-	@Test
-	void testIsScheduleExistentWhenScheduleExists() {
-		String scheduleId = "existing-schedule-id";
-		Schedule schedule = new Schedule();
-		when(scheduleDao.read(
-				argThat(id -> id.getIdPart().equals(scheduleId)),
-				argThat(req -> req.equals(requestDetails))
-		)).thenReturn(schedule);
-
-		boolean exists = helper.isScheduleExistent(scheduleId, requestDetails);
-		assertThat(exists).isTrue();
-	}
-
-	@Test
-	void testIsScheduleExistentWhenScheduleDoesNotExist() {
-		String scheduleId = "non-existing-schedule-id";
-		when(scheduleDao.read(
-				argThat(id -> id.getIdPart().equals(scheduleId)),
-				argThat(req -> req.equals(requestDetails))
-		)).thenThrow(new ResourceNotFoundException("Schedule not found"));
-
-		boolean exists = helper.isScheduleExistent(scheduleId, requestDetails);
-		assertThat(exists).isFalse();
-	}
-
 	@Test
 	void testHasSlotFalse() {
 		Appointment appointment = new Appointment();
@@ -162,19 +106,6 @@ class AppointmentBookHandlerHelperTest {
 		assertThat(result).isNotNull();
 	}
 
-	@Test
-	void testGetPatient() {
-		String patientId = "existing-patient-id";
-		Patient patient = new Patient();
-		when(patientDao.read(
-				argThat(id -> id.getIdPart().equals(patientId)),
-				argThat(req -> req.equals(requestDetails))
-		)).thenReturn(patient);
-
-		Patient result = helper.getPatient(patientId, requestDetails);
-		assertThat(result).isNotNull();
-	}
-
 	@Test
 	void testIsServiceTypeInvalid() {
 		String json = loadResourceAsString("fhir-examples/invalid/invalid-appointment.json");
@@ -449,7 +380,6 @@ class AppointmentBookHandlerHelperTest {
 
 	@Test
 	void testCancelAppointment() {
-		String cancelledApptId = "Appointment/123";
 		RequestDetails requestDetails = mock(RequestDetails.class);
 
 		Appointment cancelledAppointment = new Appointment();
@@ -458,12 +388,10 @@ class AppointmentBookHandlerHelperTest {
 		DaoRegistry localDaoRegistry = mock(DaoRegistry.class);
 		IFhirResourceDao<Appointment> appointmentDao = mock(IFhirResourceDao.class);
 		when(localDaoRegistry.getResourceDao(Appointment.class)).thenReturn(appointmentDao);
-		when(appointmentDao.read(argThat(id -> id.getIdPart().equals("123")), eq(requestDetails)))
-				.thenReturn(cancelledAppointment);
 
 		AppointmentBookHandlerHelper helper = new AppointmentBookHandlerHelper(localDaoRegistry);
 
-		helper.cancelAppointment(cancelledApptId, requestDetails);
+		helper.cancelAppointment(cancelledAppointment, requestDetails);
 
 		assertThat(cancelledAppointment.getStatus())
 				.as("Status should be updated to CANCELLED")
@@ -472,41 +400,59 @@ class AppointmentBookHandlerHelperTest {
 	}
 
 	@Test
-	void testIsCancelledAppointmentExistentTrue() {
-		String cancelledApptId = "Appointment/123";
-		RequestDetails requestDetails = mock(RequestDetails.class);
-
-		Appointment cancelledAppointment = new Appointment();
-		DaoRegistry localDaoRegistry = mock(DaoRegistry.class);
-		IFhirResourceDao<Appointment> appointmentDao = mock(IFhirResourceDao.class);
-		when(localDaoRegistry.getResourceDao(Appointment.class)).thenReturn(appointmentDao);
-		when(appointmentDao.read(argThat(id -> id.getIdPart().equals("123")), eq(requestDetails)))
-				.thenReturn(cancelledAppointment);
-
-		AppointmentBookHandlerHelper helper = new AppointmentBookHandlerHelper(localDaoRegistry);
-
-		boolean existent = helper.isCancelledAppointmentExistent(cancelledApptId, requestDetails);
-
-		assertThat(existent).isTrue();
+	void testFindOverlappingSlotsUsesSlotIndex() {
+		SlotIntervalIndex slotIndex = mock(SlotIntervalIndex.class);
+		helper.setSlotIntervalIndex(slotIndex);
+		Appointment appointment = appointment(10000L, 20000L);
+		Slot busySlot = slot("busy", 15000L, 25000L, Slot.SlotStatus.BUSY);
+		when(slotIndex.isEnabled()).thenReturn(true);
+		when(slotIndex.findOverlappingSlotIds(
+						"Schedule/1", appointment.getStart(), appointment.getEnd(), Slot.SlotStatus.BUSY, requestDetails))
+				.thenReturn(Optional.of(List.of("busy")));
+		when(slotDao.read(argThat(id -> id.getIdPart().equals("busy")), eq(requestDetails)))
+				.thenReturn(busySlot);
+
+		List<Slot> slots =
+				helper.findBusyOverlappingSlots(appointment, new Reference("Schedule/1"), requestDetails);
+
+		assertThat(slots).containsExactly(busySlot);
+		verify(slotDao, never()).search(any(SearchParameterMap.class), any(RequestDetails.class));
 	}
 
 	@Test
-	void testIsCancelledAppointmentExistentFalse() {
-		String nonExistentApptId = "non-existent-id";
-		RequestDetails requestDetails = mock(RequestDetails.class);
-		DaoRegistry localDaoRegistry = mock(DaoRegistry.class);
-		IFhirResourceDao<Appointment> appointmentDao = mock(IFhirResourceDao.class);
-		when(localDaoRegistry.getResourceDao(Appointment.class)).thenReturn(appointmentDao);
-
-		when(appointmentDao.read(
-				argThat(id -> id.getIdPart().equals(nonExistentApptId)),
-				argThat(req -> req.equals(requestDetails))
-		)).thenThrow(new ResourceNotFoundException("Schedule not found"));
-
-		AppointmentBookHandlerHelper helper = new AppointmentBookHandlerHelper(localDaoRegistry);
+	void testFindOverlappingSlotsFallsBackToSearchIfSlotIndexIsStale() {
+		SlotIntervalIndex slotIndex = mock(SlotIntervalIndex.class);
+		helper.setSlotIntervalIndex(slotIndex);
+		Appointment appointment = appointment(10000L, 20000L);
+		Slot busySlot = slot("busy", 15000L, 25000L, Slot.SlotStatus.BUSY);
+		when(slotIndex.isEnabled()).thenReturn(true);
+		when(slotIndex.findOverlappingSlotIds(any(), any(), any(), eq(Slot.SlotStatus.BUSY), eq(requestDetails)))
+				.thenReturn(Optional.of(List.of("deleted")));
+		when(slotDao.read(argThat(id -> id.getIdPart().equals("deleted")), eq(requestDetails)))
+				.thenThrow(new ResourceGoneException("Slot deleted"));
+		when(slotDao.search(any(SearchParameterMap.class), eq(requestDetails)))
+				.thenReturn(SimpleBundleProvider.createBundleProvider(List.of(busySlot)));
+
+		List<Slot> slots =
+				helper.findBusyOverlappingSlots(appointment, new Reference("Schedule/1"), requestDetails);
+
+		assertThat(slots).containsExactly(busySlot);
+		verify(slotIndex).invalidate("Schedule/1");
+	}
 
-		boolean existent = helper.isCancelledAppointmentExistent(nonExistentApptId, requestDetails);
+	private static Appointment appointment(long start, long end) {
+		Appointment appointment = new Appointment();
+		appointment.setStart(new Date(start));
+		appointment.setEnd(new Date(end));
+		return appointment;
+	}
 
-		assertThat(existent).isFalse();
+	private static Slot slot(String id, long start, long end, Slot.SlotStatus status) {
+		Slot slot = new Slot();
+		slot.setId(id);
+		slot.setStart(new Date(start));
+		slot.setEnd(new Date(end));
+		slot.setStatus(status);
+		return slot;
 	}
 }
@@ -28,28 +28,38 @@ package de.gematik.isik.mockserver.operation;
 import ca.uhn.fhir.context.FhirContext;
 import ca.uhn.fhir.jpa.api.dao.DaoRegistry;
 import ca.uhn.fhir.jpa.api.dao.IFhirResourceDao;
+import ca.uhn.fhir.jpa.dao.tx.IHapiTransactionService;
+import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
 import ca.uhn.fhir.rest.api.server.RequestDetails;
-import ca.uhn.fhir.rest.server.exceptions.ResourceNotFoundException;
 import de.gematik.isik.mockserver.helper.OperationOutcomeUtils;
 import de.gematik.isik.mockserver.helper.ResourceLoadingHelper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.SneakyThrows;
 import org.hl7.fhir.r4.model.Appointment;
 import org.hl7.fhir.r4.model.DocumentReference;
 import org.hl7.fhir.r4.model.IdType;
 import org.hl7.fhir.r4.model.Parameters;
 import org.hl7.fhir.r4.model.Patient;
+import org.hl7.fhir.r4.model.Reference;
 import org.hl7.fhir.r4.model.Schedule;
 import org.hl7.fhir.r4.model.Slot;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 class AppointmentBookHandlerTest {
@@ -62,7 +72,7 @@ class AppointmentBookHandlerTest {
 	void setup() {
 		daoMock = mock(DaoRegistry.class);
 		AppointmentBookHandlerHelper appointmentBookHandlerHelper = new AppointmentBookHandlerHelper(daoMock);
-		handler = new AppointmentBookHandler(appointmentBookHandlerHelper);
+		handler = new AppointmentBookHandler(appointmentBookHandlerHelper, new BookingReferenceResolver(daoMock));
 		handler.setCtx(FhirContext.forR4());
 	}
 
@@ -105,6 +115,79 @@ class AppointmentBookHandlerTest {
 				.hasMessageContaining("Slot is missing and could not find a Schedule Reference in incoming Parameters");
 	}
 
+	@Test
+	void testBookingIsRejectedIfSlotIsLockedByAnotherBooking() {
+		BookingLockService bookingLockService = mock(BookingLockService.class);
+		handler.setBookingLockService(bookingLockService);
+		IFhirResourceDao<Slot> slotDaoMock = mock(IFhirResourceDao.class);
+		when(daoMock.getResourceDao(Slot.class)).thenReturn(slotDaoMock);
+		when(slotDaoMock.search(any(SearchParameterMap.class), any()))
+				.thenReturn(SimpleBundleProvider.createBundleProvider(List.of()));
+		Appointment appointment = new Appointment();
+		appointment.addSlot(new Reference("Slot/Free-Block"));
+		when(bookingLockService.callLocked(eq("Slot/Free-Block"), any()))
+				.thenThrow(new BookingLockService.LockTimeoutException("Slot/Free-Block"));
+
+		AppointmentHandlerReturnObject result = handler.handleIncomingAppointment(appointment, mock(RequestDetails.class));
+
+		assertThat(result.isOperationSuccessful()).isFalse();
+		assertThat(result.getOperationOutcome().getIssueFirstRep().getDiagnostics())
+				.isEqualTo("Slot/Free-Block is being booked by another request, please retry later");
+	}
+
+	@Test
+	@SneakyThrows
+	void testBookingOfReferencedSlotWaitsForBookingThatCreatesASlotInTheSameSchedule() {
+		BookingLockService bookingLockService =
+				new BookingLockService(64, Duration.ofMillis(200), new SimpleMeterRegistry());
+		handler.setBookingLockService(bookingLockService);
+		Slot slot = (Slot) ctx.newJsonParser().parseResource(
+				ResourceLoadingHelper.loadResourceAsString("fhir-examples/valid/Slot-Free-Block-Example.json"));
+		slot.setId("Slot/Free-Block");
+		IFhirResourceDao<Slot> slotDaoMock = mock(IFhirResourceDao.class);
+		when(daoMock.getResourceDao(Slot.class)).thenReturn(slotDaoMock);
+		when(slotDaoMock.search(any(SearchParameterMap.class), any()))
+				.thenReturn(SimpleBundleProvider.createBundleProvider(List.of(slot)));
+		RequestDetails requestDetails = mock(RequestDetails.class);
+
+		Appointment newSlotBooking = new Appointment();
+		AppointmentBookHandler.AppointmentExtractionData newSlotData =
+				new AppointmentBookHandler.AppointmentExtractionData(
+						newSlotBooking, new Reference("Schedule/Entry-Example"), null);
+		Appointment referencedSlotBooking = new Appointment();
+		referencedSlotBooking.addSlot(new Reference("Slot/Free-Block"));
+		String newSlotLockKey = handler.getLockKey(
+				newSlotData, new BookingReferenceResolver(daoMock).resolveSlots(List.of(newSlotData), requestDetails));
+
+		// a booking that creates a slot in the schedule of the referenced slot is running
+		CountDownLatch locked = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		Thread newSlotBookingThread =
+				Thread.ofPlatform().start(() -> bookingLockService.callLocked(newSlotLockKey, () -> {
+					locked.countDown();
+					awaitQuietly(release);
+					return null;
+				}));
+		try {
+			assertThat(locked.await(10, TimeUnit.SECONDS)).isTrue();
+
+			AppointmentHandlerReturnObject result =
+					handler.handleIncomingAppointment(referencedSlotBooking, requestDetails);
+
+			assertThat(result.isOperationSuccessful()).isFalse();
+			assertThat(result.getOperationOutcome().getIssueFirstRep().getDiagnostics())
+					.isEqualTo(newSlotLockKey + " is being booked by another request, please retry later");
+		} finally {
+			release.countDown();
+			newSlotBookingThread.join();
+		}
+	}
+
+	@SneakyThrows
+	private static void awaitQuietly(CountDownLatch latch) {
+		latch.await(10, TimeUnit.SECONDS);
+	}
+
 	@Test
 	void testIfInvalidAppointmentBookOperationLeadsToErrorsInOperationOutcome() {
 		String body = ResourceLoadingHelper.loadResourceAsString("fhir-examples/invalid/invalid-appointment.json");
@@ -124,10 +207,12 @@ class AppointmentBookHandlerTest {
 		when(daoMock.getResourceDao(Appointment.class)).thenReturn(appointmentDaoMock);
 		when(daoMock.getResourceDao(Slot.class)).thenReturn(slotDaoMock);
 		when(daoMock.getResourceDao(Schedule.class)).thenReturn(scheduleDaoMock);
-		when(patientDaoMock.read(any(IdType.class), eq(requestDetails)))
-				.thenReturn(patient);
-		when(slotDaoMock.read(any(IdType.class), eq(requestDetails)))
-				.thenReturn(slot);
+		patient.setId("Patient/Patient-active-false-Example");
+		slot.setId("Slot/Busy-Block");
+		when(patientDaoMock.search(any(SearchParameterMap.class), eq(requestDetails)))
+				.thenReturn(SimpleBundleProvider.createBundleProvider(List.of(patient)));
+		when(slotDaoMock.search(any(SearchParameterMap.class), eq(requestDetails)))
+				.thenReturn(SimpleBundleProvider.createBundleProvider(List.of(slot)));
 
 		AppointmentHandlerReturnObject outcome = handler.handleIncomingAppointment(body, requestDetails);
 
@@ -167,14 +252,73 @@ class AppointmentBookHandlerTest {
 		when(daoMock.getResourceDao(Appointment.class)).thenReturn(appointmentDaoMock);
 		when(daoMock.getResourceDao(Slot.class)).thenReturn(slotDaoMock);
 		when(daoMock.getResourceDao(Schedule.class)).thenReturn(scheduleDaoMock);
-		when(patientDaoMock.read(any(IdType.class), eq(requestDetails)))
-				.thenReturn(patient);
-		when(slotDaoMock.read(any(IdType.class), eq(requestDetails)))
-				.thenReturn(slot);
+		patient.setId("Patient/Mustermann");
+		slot.setId("Slot/Free-Block");
+		when(patientDaoMock.search(any(SearchParameterMap.class), eq(requestDetails)))
+				.thenReturn(SimpleBundleProvider.createBundleProvider(List.of(patient)));
+		when(slotDaoMock.search(any(SearchParameterMap.class), eq(requestDetails)))
+				.thenReturn(SimpleBundleProvider.createBundleProvider(List.of(slot)));
+
+		AppointmentHandlerReturnObject outcome = handler.handleIncomingAppointment(body, requestDetails);
+
+		assertThat(outcome.isOperationSuccessful()).isTrue();
+		assertThat(slot.getStatus()).isEqualTo(Slot.SlotStatus.BUSY);
+		verify(slotDaoMock).update(slot, requestDetails);
+	}
+
+	@Test
+	void testAppointmentAndReferencedSlotAreStoredInOneTransaction() {
+		String body = ResourceLoadingHelper.loadResourceAsString("fhir-examples/valid/valid-appointment.json");
+		String patientBody = ResourceLoadingHelper.loadResourceAsString("integration-tests/valid/Patient-PatientinMusterfrau.json");
+		Patient patient = (Patient) ctx.newJsonParser().parseResource(patientBody);
+		String slotBody = ResourceLoadingHelper.loadResourceAsString("fhir-examples/valid/Slot-Free-Block-Example.json");
+		Slot slot = (Slot) ctx.newJsonParser().parseResource(slotBody);
+
+		RequestDetails requestDetails = mock(RequestDetails.class);
+
+		IFhirResourceDao<Patient> patientDaoMock = mock(IFhirResourceDao.class);
+		IFhirResourceDao<Appointment> appointmentDaoMock = mock(IFhirResourceDao.class);
+		IFhirResourceDao<Slot> slotDaoMock = mock(IFhirResourceDao.class);
+		IFhirResourceDao<Schedule> scheduleDaoMock = mock(IFhirResourceDao.class);
+
+		when(daoMock.getResourceDao(Patient.class)).thenReturn(patientDaoMock);
+		when(daoMock.getResourceDao(Appointment.class)).thenReturn(appointmentDaoMock);
+		when(daoMock.getResourceDao(Slot.class)).thenReturn(slotDaoMock);
+		when(daoMock.getResourceDao(Schedule.class)).thenReturn(scheduleDaoMock);
+		patient.setId("Patient/Mustermann");
+		slot.setId("Slot/Free-Block");
+		when(patientDaoMock.search(any(SearchParameterMap.class), eq(requestDetails)))
+				.thenReturn(SimpleBundleProvider.createBundleProvider(List.of(patient)));
+		when(slotDaoMock.search(any(SearchParameterMap.class), eq(requestDetails)))
+				.thenReturn(SimpleBundleProvider.createBundleProvider(List.of(slot)));
+
+		AtomicBoolean inTransaction = new AtomicBoolean();
+		List<String> transactionalWrites = new ArrayList<>();
+		IHapiTransactionService transactionService = mock(IHapiTransactionService.class);
+		IHapiTransactionService.IExecutionBuilder executionBuilder = mock(IHapiTransactionService.IExecutionBuilder.class);
+		when(transactionService.withRequest(requestDetails)).thenReturn(executionBuilder);
+		doAnswer(invocation -> {
+					inTransaction.set(true);
+					invocation.getArgument(0, Runnable.class).run();
+					inTransaction.set(false);
+					return null;
+				})
+				.when(executionBuilder)
+				.execute(any(Runnable.class));
+		when(appointmentDaoMock.create(any(Appointment.class), eq(requestDetails))).thenAnswer(invocation -> {
+			transactionalWrites.add("create Appointment " + inTransaction.get());
+			return null;
+		});
+		when(slotDaoMock.update(any(Slot.class), eq(requestDetails))).thenAnswer(invocation -> {
+			transactionalWrites.add("update Slot " + inTransaction.get());
+			return null;
+		});
+		handler.setTransactionService(transactionService);
 
 		AppointmentHandlerReturnObject outcome = handler.handleIncomingAppointment(body, requestDetails);
 
 		assertThat(outcome.isOperationSuccessful()).isTrue();
+		assertThat(transactionalWrites).containsExactly("create Appointment true", "update Slot true");
 	}
 
 	@Test
@@ -192,19 +336,18 @@ class AppointmentBookHandlerTest {
 		IFhirResourceDao<Slot> slotDaoMock = mock(IFhirResourceDao.class);
 		IFhirResourceDao<Schedule> scheduleDaoMock = mock(IFhirResourceDao.class);
 
-		when(appointmentDaoMock.read(
-				argThat(id -> id.getIdPart().equals("Unknown-Appointment-ID")),
-				argThat(req -> req.equals(requestDetails))
-		)).thenThrow(new ResourceNotFoundException("Schedule not found"));
+		when(appointmentDaoMock.search(any(SearchParameterMap.class), eq(requestDetails)))
+				.thenReturn(SimpleBundleProvider.createBundleProvider(List.of()));
 
 		when(daoMock.getResourceDao(Patient.class)).thenReturn(patientDaoMock);
 		when(daoMock.getResourceDao(Appointment.class)).thenReturn(appointmentDaoMock);
 		when(daoMock.getResourceDao(Slot.class)).thenReturn(slotDaoMock);
 		when(daoMock.getResourceDao(Schedule.class)).thenReturn(scheduleDaoMock);
-		when(patientDaoMock.read(any(IdType.class), eq(requestDetails)))
-				.thenReturn(patient);
-		when(slotDaoMock.read(any(IdType.class), eq(requestDetails)))
-				.thenReturn(slot);
+		slot.setId("Slot/Free-Block");
+		when(patientDaoMock.search(any(SearchParameterMap.class), eq(requestDetails)))
+				.thenReturn(SimpleBundleProvider.createBundleProvider(List.of(patient)));
+		when(slotDaoMock.search(any(SearchParameterMap.class), eq(requestDetails)))
+				.thenReturn(SimpleBundleProvider.createBundleProvider(List.of(slot)));
 
 		AppointmentHandlerReturnObject outcome = handler.handleIncomingAppointment(body, requestDetails);
 
@@ -213,4 +356,31 @@ class AppointmentBookHandlerTest {
 				.extracting("diagnostics")
 				.contains("Appointment for cancellation with ID Appointment/Unknown-Appointment-ID not found (cancelled-appt-id)");
 	}
+
+	@Test
+	void testUnknownPatientLeadsToIssueInOperationOutcome() {
+		String body = ResourceLoadingHelper.loadResourceAsString("fhir-examples/valid/valid-appointment.json");
+		String slotBody = ResourceLoadingHelper.loadResourceAsString("fhir-examples/valid/Slot-Free-Block-Example.json");
+		Slot slot = (Slot) ctx.newJsonParser().parseResource(slotBody);
+		slot.setId("Slot/Free-Block");
+
+		RequestDetails requestDetails = mock(RequestDetails.class);
+
+		IFhirResourceDao<Patient> patientDaoMock = mock(IFhirResourceDao.class);
+		IFhirResourceDao<Slot> slotDaoMock = mock(IFhirResourceDao.class);
+
+		when(daoMock.getResourceDao(Patient.class)).thenReturn(patientDaoMock);
+		when(daoMock.getResourceDao(Slot.class)).thenReturn(slotDaoMock);
+		when(patientDaoMock.search(any(SearchParameterMap.class), eq(requestDetails)))
+				.thenReturn(SimpleBundleProvider.createBundleProvider(List.of()));
+		when(slotDaoMock.search(any(SearchParameterMap.class), eq(requestDetails)))
+				.thenReturn(SimpleBundleProvider.createBundleProvider(List.of(slot)));
+
+		AppointmentHandlerReturnObject outcome = handler.handleIncomingAppointment(body, requestDetails);
+
+		assertThat(outcome.isOperationSuccessful()).isFalse();
+		assertThat(outcome.getOperationOutcome().getIssue())
+				.extracting("diagnostics")
+				.containsExactly("Patient with ID Patient/Mustermann not found");
+	}
 }
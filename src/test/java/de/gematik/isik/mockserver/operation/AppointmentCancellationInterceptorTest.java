@@ -0,0 +1,123 @@
+package de.gematik.isik.mockserver.operation;
+
+/*-
+ * #%L
+ * isik-mock-server
+ * %%
+ * Copyright (C) 2025 - 2026 gematik GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ * #L%
+ */
+
+import ca.uhn.fhir.interceptor.api.IInterceptorService;
+import ca.uhn.fhir.jpa.api.dao.DaoRegistry;
+import ca.uhn.fhir.jpa.api.dao.IFhirResourceDao;
+import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
+import ca.uhn.fhir.rest.api.server.RequestDetails;
+import org.hl7.fhir.r4.model.Appointment;
+import org.hl7.fhir.r4.model.IdType;
+import org.hl7.fhir.r4.model.Reference;
+import org.hl7.fhir.r4.model.Slot;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AppointmentCancellationInterceptorTest {
+
+	private final RequestDetails requestDetails = mock(RequestDetails.class);
+	private IFhirResourceDao<Slot> slotDaoMock;
+	private IFhirResourceDao<Appointment> appointmentDaoMock;
+	private AppointmentCancellationInterceptor interceptor;
+	private Slot slot;
+
+	@BeforeEach
+	void setUp() {
+		DaoRegistry daoMock = mock(DaoRegistry.class);
+		slotDaoMock = mock(IFhirResourceDao.class);
+		appointmentDaoMock = mock(IFhirResourceDao.class);
+		when(daoMock.getResourceDao(Slot.class)).thenReturn(slotDaoMock);
+		when(daoMock.getResourceDao(Appointment.class)).thenReturn(appointmentDaoMock);
+		slot = new Slot();
+		slot.setId("Slot/Booked");
+		slot.setStatus(Slot.SlotStatus.BUSY);
+		when(slotDaoMock.read(any(IdType.class), eq(requestDetails))).thenReturn(slot);
+		when(appointmentDaoMock.search(any(SearchParameterMap.class), eq(requestDetails)))
+				.thenReturn(SimpleBundleProvider.createBundleProvider(List.of()));
+		interceptor = new AppointmentCancellationInterceptor(daoMock, mock(IInterceptorService.class));
+	}
+
+	@Test
+	void shouldFreeSlotOfCancelledAppointment() {
+		interceptor.appointmentUpdated(
+				appointment(Appointment.AppointmentStatus.BOOKED),
+				appointment(Appointment.AppointmentStatus.CANCELLED),
+				requestDetails);
+
+		assertThat(slot.getStatus()).isEqualTo(Slot.SlotStatus.FREE);
+		verify(slotDaoMock).update(slot, requestDetails);
+	}
+
+	@Test
+	void shouldKeepSlotBookedByAnotherAppointment() {
+		Appointment other = appointment(Appointment.AppointmentStatus.BOOKED);
+		other.setId("Appointment/Other");
+		when(appointmentDaoMock.search(any(SearchParameterMap.class), eq(requestDetails)))
+				.thenReturn(SimpleBundleProvider.createBundleProvider(List.of(other)));
+
+		interceptor.appointmentUpdated(
+				appointment(Appointment.AppointmentStatus.BOOKED),
+				appointment(Appointment.AppointmentStatus.CANCELLED),
+				requestDetails);
+
+		assertThat(slot.getStatus()).isEqualTo(Slot.SlotStatus.BUSY);
+		verify(slotDaoMock, never()).update(any(Slot.class), any(RequestDetails.class));
+	}
+
+	@Test
+	void shouldIgnoreUpdatesThatDoNotCancelTheAppointment() {
+		interceptor.appointmentUpdated(
+				appointment(Appointment.AppointmentStatus.BOOKED),
+				appointment(Appointment.AppointmentStatus.ARRIVED),
+				requestDetails);
+		interceptor.appointmentUpdated(
+				appointment(Appointment.AppointmentStatus.CANCELLED),
+				appointment(Appointment.AppointmentStatus.CANCELLED),
+				requestDetails);
+
+		verify(slotDaoMock, never()).read(any(IdType.class), any(RequestDetails.class));
+		verify(slotDaoMock, never()).update(any(Slot.class), any(RequestDetails.class));
+	}
+
+	private static Appointment appointment(Appointment.AppointmentStatus status) {
+		Appointment appointment = new Appointment();
+		appointment.setId("Appointment/Booking");
+		appointment.setStatus(status);
+		appointment.addSlot(new Reference("Slot/Booked"));
+		return appointment;
+	}
+}
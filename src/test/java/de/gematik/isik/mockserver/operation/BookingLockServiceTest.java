@@ -0,0 +1,196 @@
+package de.gematik.isik.mockserver.operation;
+
+/*-
+ * #%L
+ * isik-mock-server
+ * %%
+ * Copyright (C) 2025 - 2026 gematik GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ * #L%
+ */
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BookingLockServiceTest {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final ExecutorService executor = Executors.newFixedThreadPool(8);
+
+	@AfterEach
+	void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	void testBookingsOfTheSameScheduleAreSerialized() throws Exception {
+		BookingLockService service = new BookingLockService(64, Duration.ofSeconds(10), meterRegistry);
+		AtomicInteger bookedSlots = new AtomicInteger();
+		AtomicInteger doubleBookings = new AtomicInteger();
+
+		List<Future<?>> bookings = new ArrayList<>();
+		for (int i = 0; i < 8; i++) {
+			bookings.add(executor.submit(() -> service.callLocked("Schedule/1", () -> {
+				// Note: check-and-create without the lock would let several bookings pass the check
+				if (bookedSlots.get() > 0) {
+					return false;
+				}
+				sleep(20);
+				if (bookedSlots.incrementAndGet() > 1) {
+					doubleBookings.incrementAndGet();
+				}
+				return true;
+			})));
+		}
+		for (Future<?> booking : bookings) {
+			booking.get(10, TimeUnit.SECONDS);
+		}
+
+		assertThat(bookedSlots).hasValue(1);
+		assertThat(doubleBookings).hasValue(0);
+	}
+
+	@Test
+	void testBookingsOfDifferentSchedulesRunInParallel() throws Exception {
+		BookingLockService service = new BookingLockService(64, Duration.ofSeconds(1), meterRegistry);
+		CountDownLatch bothLocked = new CountDownLatch(2);
+
+		Future<Boolean> first = executor.submit(() -> service.callLocked("Schedule/1", () -> awaitOther(bothLocked)));
+		Future<Boolean> second = executor.submit(() -> service.callLocked("Schedule/2", () -> awaitOther(bothLocked)));
+
+		assertThat(first.get(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(second.get(5, TimeUnit.SECONDS)).isTrue();
+	}
+
+	@Test
+	void testBatchesLockingTheSameSchedulesInDifferentOrderDoNotDeadlock() throws Exception {
+		BookingLockService service = new BookingLockService(64, Duration.ofSeconds(2), meterRegistry);
+		AtomicInteger batches = new AtomicInteger();
+
+		List<Future<?>> bookings = new ArrayList<>();
+		for (int i = 0; i < 8; i++) {
+			List<String> keys = i % 2 == 0
+					? List.of("Schedule/1", "Schedule/2", "Schedule/1")
+					: List.of("Schedule/2", "Schedule/1");
+			bookings.add(executor.submit(() -> service.callLocked(keys, () -> {
+				sleep(5);
+				return batches.incrementAndGet();
+			})));
+		}
+		for (Future<?> booking : bookings) {
+			booking.get(10, TimeUnit.SECONDS);
+		}
+
+		assertThat(batches).hasValue(8);
+		assertThat(meterRegistry.get("isik.booking.lock.timeouts").counter().count()).isZero();
+	}
+
+	@Test
+	void testLockTimeout() throws Exception {
+		BookingLockService service = new BookingLockService(1, Duration.ofMillis(50), meterRegistry);
+		CountDownLatch locked = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		Future<?> holder = executor.submit(() -> service.callLocked("Schedule/1", () -> {
+			locked.countDown();
+			return await(release);
+		}));
+		assertThat(locked.await(5, TimeUnit.SECONDS)).isTrue();
+
+		assertThatThrownBy(() -> service.callLocked("Schedule/1", () -> true))
+				.isInstanceOf(BookingLockService.LockTimeoutException.class)
+				.hasMessageContaining("Schedule/1");
+		assertThat(meterRegistry.get("isik.booking.lock.timeouts").counter().count()).isEqualTo(1);
+
+		release.countDown();
+		holder.get(5, TimeUnit.SECONDS);
+	}
+
+	@Test
+	void testReservationIsHeldWhileBooking() {
+		JdbcBookingReservations reservations = mock(JdbcBookingReservations.class);
+		when(reservations.tryReserve("Schedule/1")).thenReturn(null, "token");
+		BookingLockService service = new BookingLockService(64, Duration.ofSeconds(5), meterRegistry);
+		service.setReservations(reservations);
+
+		assertThat(service.callLocked("Schedule/1", () -> "booked")).isEqualTo("booked");
+
+		verify(reservations).release("Schedule/1", "token");
+	}
+
+	@Test
+	void testReservationTimeout() {
+		JdbcBookingReservations reservations = mock(JdbcBookingReservations.class);
+		when(reservations.tryReserve(anyString())).thenReturn(null);
+		BookingLockService service = new BookingLockService(64, Duration.ofMillis(100), meterRegistry);
+		service.setReservations(reservations);
+
+		assertThatThrownBy(() -> service.callLocked("Schedule/1", () -> true))
+				.isInstanceOf(BookingLockService.LockTimeoutException.class);
+		verify(reservations, never()).release(eq("Schedule/1"), anyString());
+	}
+
+	@Test
+	void testLockKeyIgnoresBaseUrlAndVersion() {
+		assertThat(BookingLockService.lockKey("Schedule", "http://example.org/fhir/Schedule/1/_history/2"))
+				.isEqualTo("Schedule/1");
+		assertThat(BookingLockService.lockKey("Slot", "Slot/A")).isEqualTo("Slot/A");
+	}
+
+	private static boolean awaitOther(CountDownLatch bothLocked) {
+		bothLocked.countDown();
+		return await(bothLocked);
+	}
+
+	private static boolean await(CountDownLatch latch) {
+		try {
+			return latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
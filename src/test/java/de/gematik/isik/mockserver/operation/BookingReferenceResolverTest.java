@@ -0,0 +1,152 @@
+package de.gematik.isik.mockserver.operation;
+
+/*-
+ * #%L
+ * isik-mock-server
+ * %%
+ * Copyright (C) 2025 - 2026 gematik GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ * #L%
+ */
+
+
+import ca.uhn.fhir.jpa.api.dao.DaoRegistry;
+import ca.uhn.fhir.jpa.api.dao.IFhirResourceDao;
+import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
+import ca.uhn.fhir.rest.api.server.RequestDetails;
+import ca.uhn.fhir.rest.param.TokenParam;
+import org.hl7.fhir.instance.model.api.IIdType;
+import org.hl7.fhir.r4.model.Appointment;
+import org.hl7.fhir.r4.model.Patient;
+import org.hl7.fhir.r4.model.Reference;
+import org.hl7.fhir.r4.model.Schedule;
+import org.hl7.fhir.r4.model.Slot;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BookingReferenceResolverTest {
+
+	private final RequestDetails requestDetails = mock(RequestDetails.class);
+	private DaoRegistry daoMock;
+	private IFhirResourceDao<Patient> patientDaoMock;
+	private IFhirResourceDao<Slot> slotDaoMock;
+	private IFhirResourceDao<Schedule> scheduleDaoMock;
+	private IFhirResourceDao<Appointment> appointmentDaoMock;
+	private BookingReferenceResolver resolver;
+
+	@BeforeEach
+	void setup() {
+		daoMock = mock(DaoRegistry.class);
+		patientDaoMock = mock(IFhirResourceDao.class);
+		slotDaoMock = mock(IFhirResourceDao.class);
+		scheduleDaoMock = mock(IFhirResourceDao.class);
+		appointmentDaoMock = mock(IFhirResourceDao.class);
+		when(daoMock.getResourceDao(Patient.class)).thenReturn(patientDaoMock);
+		when(daoMock.getResourceDao(Slot.class)).thenReturn(slotDaoMock);
+		when(daoMock.getResourceDao(Schedule.class)).thenReturn(scheduleDaoMock);
+		when(daoMock.getResourceDao(Appointment.class)).thenReturn(appointmentDaoMock);
+		resolver = new BookingReferenceResolver(daoMock);
+	}
+
+	@Test
+	void testReferencesOfAllBookingsAreReadWithOneSearchPerType() {
+		Patient patient = new Patient();
+		patient.setId("Patient/Mustermann/_history/2");
+		Slot slot = new Slot();
+		slot.setId("Slot/Free-Block");
+		Schedule schedule = new Schedule();
+		schedule.setId("Schedule/Example");
+		when(patientDaoMock.search(any(SearchParameterMap.class), eq(requestDetails)))
+				.thenReturn(SimpleBundleProvider.createBundleProvider(List.of(patient)));
+		when(slotDaoMock.search(any(SearchParameterMap.class), eq(requestDetails)))
+				.thenReturn(SimpleBundleProvider.createBundleProvider(List.of(slot)));
+		when(scheduleDaoMock.search(any(SearchParameterMap.class), eq(requestDetails)))
+				.thenReturn(SimpleBundleProvider.createBundleProvider(List.of(schedule)));
+		when(appointmentDaoMock.search(any(SearchParameterMap.class), eq(requestDetails)))
+				.thenReturn(SimpleBundleProvider.createBundleProvider(List.of()));
+
+		AppointmentBookHandler.AppointmentExtractionData withSlot =
+				new AppointmentBookHandler.AppointmentExtractionData(
+						appointment("Patient/Mustermann", "Slot/Free-Block"),
+						null,
+						new Reference("Appointment/Unknown"));
+		AppointmentBookHandler.AppointmentExtractionData withSchedule =
+				new AppointmentBookHandler.AppointmentExtractionData(
+						appointment("http://example.org/fhir/Patient/Mustermann", null),
+						new Reference("Schedule/Example"),
+						null);
+
+		BookingReferenceResolver.BookingReferences references =
+				resolver.resolve(List.of(withSlot, withSchedule), requestDetails);
+
+		assertThat(references.get(Patient.class, "Patient/Mustermann")).contains(patient);
+		assertThat(references.get(Patient.class, "http://example.org/fhir/Patient/Mustermann"))
+				.contains(patient);
+		assertThat(references.get(Slot.class, "Slot/Free-Block")).contains(slot);
+		assertThat(references.get(Schedule.class, "Schedule/Example")).contains(schedule);
+		assertThat(references.get(Appointment.class, "Appointment/Unknown")).isEmpty();
+		assertThat(references.get(Patient.class, null)).isEmpty();
+
+		ArgumentCaptor<SearchParameterMap> patientSearch = ArgumentCaptor.forClass(SearchParameterMap.class);
+		verify(patientDaoMock).search(patientSearch.capture(), eq(requestDetails));
+		assertThat(patientSearch.getValue().get("_id").getFirst())
+				.extracting(param -> ((TokenParam) param).getValue())
+				.containsExactly("Mustermann");
+		verify(patientDaoMock, never()).read(any(IIdType.class), any(RequestDetails.class));
+		verify(slotDaoMock, never()).read(any(IIdType.class), any(RequestDetails.class));
+	}
+
+	@Test
+	void testTypesWithoutReferencesAreNotSearched() {
+		when(patientDaoMock.search(any(SearchParameterMap.class), eq(requestDetails)))
+				.thenReturn(SimpleBundleProvider.createBundleProvider(List.of()));
+		when(slotDaoMock.search(any(SearchParameterMap.class), eq(requestDetails)))
+				.thenReturn(SimpleBundleProvider.createBundleProvider(List.of()));
+
+		BookingReferenceResolver.BookingReferences references = resolver.resolve(
+				List.of(new AppointmentBookHandler.AppointmentExtractionData(
+						appointment("Patient/Unknown", "Slot/Unknown"), null, null)),
+				requestDetails);
+
+		assertThat(references.get(Patient.class, "Patient/Unknown")).isEmpty();
+		assertThat(references.get(Slot.class, "Slot/Unknown")).isEmpty();
+		verify(scheduleDaoMock, never()).search(any(SearchParameterMap.class), any(RequestDetails.class));
+		verify(appointmentDaoMock, never()).search(any(SearchParameterMap.class), any(RequestDetails.class));
+	}
+
+	private static Appointment appointment(String patientReference, String slotReference) {
+		Appointment appointment = new Appointment();
+		appointment.addParticipant().setActor(new Reference(patientReference));
+		if (slotReference != null) {
+			appointment.addSlot(new Reference(slotReference));
+		}
+		return appointment;
+	}
+}
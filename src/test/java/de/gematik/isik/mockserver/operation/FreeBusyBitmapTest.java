@@ -0,0 +1,89 @@
+package de.gematik.isik.mockserver.operation;
+
+/*-
+ * #%L
+ * isik-mock-server
+ * %%
+ * Copyright (C) 2025 - 2026 gematik GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ * #L%
+ */
+
+
+import org.hl7.fhir.r4.model.Slot;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FreeBusyBitmapTest {
+
+	private static final long MINUTE = 60_000;
+	private static final long GRANULARITY = 5 * MINUTE;
+
+	@Test
+	void testOnlyCellsCompletelyWithinFreeSlotsAreFree() {
+		FreeBusyBitmap bitmap = FreeBusyBitmap.of(
+				List.of(slot("free", 2 * MINUTE, 58 * MINUTE, Slot.SlotStatus.FREE)), GRANULARITY);
+
+		assertThat(bitmap.findFreeWindows(0, 60 * MINUTE, 25 * MINUTE, 10))
+				.containsExactly(5 * MINUTE, 30 * MINUTE);
+	}
+
+	@Test
+	void testBusySlotsBlockEveryCellTheyTouch() {
+		FreeBusyBitmap bitmap = FreeBusyBitmap.of(
+				List.of(
+						slot("free", 0, 60 * MINUTE, Slot.SlotStatus.FREE),
+						slot("tentative", 11 * MINUTE, 19 * MINUTE, Slot.SlotStatus.BUSYTENTATIVE),
+						slot("error", 30 * MINUTE, 40 * MINUTE, Slot.SlotStatus.ENTEREDINERROR)),
+				GRANULARITY);
+
+		assertThat(bitmap.findFreeWindows(0, 60 * MINUTE, 10 * MINUTE, 10))
+				.containsExactly(0L, 20 * MINUTE, 30 * MINUTE, 40 * MINUTE, 50 * MINUTE);
+	}
+
+	@Test
+	void testWindowsAreLimitedByRangeAndCount() {
+		FreeBusyBitmap bitmap = FreeBusyBitmap.of(
+				List.of(
+						slot("morning", 0, 60 * MINUTE, Slot.SlotStatus.FREE),
+						slot("afternoon", 300 * MINUTE, 360 * MINUTE, Slot.SlotStatus.FREE)),
+				GRANULARITY);
+
+		assertThat(bitmap.findFreeWindows(50 * MINUTE, 400 * MINUTE, 30 * MINUTE, 10))
+				.containsExactly(300 * MINUTE, 330 * MINUTE);
+		assertThat(bitmap.findFreeWindows(0, 400 * MINUTE, 30 * MINUTE, 3))
+				.containsExactly(0L, 30 * MINUTE, 300 * MINUTE);
+		assertThat(bitmap.findFreeWindows(0, 20 * MINUTE, 30 * MINUTE, 10)).isEmpty();
+	}
+
+	@Test
+	void testScheduleWithoutFreeSlotsHasNoWindows() {
+		FreeBusyBitmap bitmap = FreeBusyBitmap.of(
+				List.of(slot("busy", 0, 60 * MINUTE, Slot.SlotStatus.BUSY)), GRANULARITY);
+
+		assertThat(bitmap.findFreeWindows(0, 60 * MINUTE, 5 * MINUTE, 10)).isEmpty();
+	}
+
+	private static SlotIntervalIndex.SlotInterval slot(String id, long start, long end, Slot.SlotStatus status) {
+		return new SlotIntervalIndex.SlotInterval(id, start, end, status);
+	}
+}
@@ -26,14 +26,13 @@ package de.gematik.isik.mockserver.operation;
  */
 
 import ca.uhn.fhir.context.FhirContext;
-import ca.uhn.fhir.rest.api.EncodingEnum;
 import ca.uhn.fhir.rest.api.server.RequestDetails;
+import ca.uhn.fhir.rest.api.server.SystemRequestDetails;
 import de.gematik.isik.mockserver.helper.OperationOutcomeUtils;
 import lombok.SneakyThrows;
 import org.hl7.fhir.r4.model.Bundle;
 import org.hl7.fhir.r4.model.Composition;
 import org.hl7.fhir.r4.model.DocumentReference;
-import org.hl7.fhir.r4.model.DocumentReference.DocumentReferenceContentComponent;
 import org.hl7.fhir.r4.model.Identifier;
 import org.hl7.fhir.r4.model.OperationOutcome;
 import org.hl7.fhir.r4.model.Reference;
@@ -42,9 +41,14 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.stubbing.Answer;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import static de.gematik.isik.mockserver.helper.ResourceLoadingHelper.loadResourceAsString;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -62,12 +66,10 @@ class IsikBerichtBundleToISiKDokumentenMetadatenMapperTest {
 	@Mock private IsikBerichtSubSystemeSubjectMapper subjectMapper;
 	@Mock private IsiKBerichtSubSystemeRelatesToMapper relatesToMapper;
 	@Mock private IsiKBerichtSubSystemeEncounterMapper encounterMapper;
-	@Mock private IsiKBerichtSubSystemeContentMapper contentMapper;
 
 	@Mock private RequestDetails requestDetails;
 
 	private final Identifier bundleIdentifier = new Identifier().setValue("Bundle-123");
-	private final String createdBundleId = "bundle-123";
 	private AutoCloseable mocks;
 
 	private final FhirContext fhirContext = FhirContext.forR4();
@@ -76,7 +78,7 @@ class IsikBerichtBundleToISiKDokumentenMetadatenMapperTest {
 	void setup() {
 		mocks = MockitoAnnotations.openMocks(this);
 		mapper = new IsikBerichtBundleToISiKDokumentenMetadatenMapper(
-				typeMapper, subjectMapper, relatesToMapper, encounterMapper, contentMapper
+				typeMapper, subjectMapper, relatesToMapper, encounterMapper, new MetadataLookupExecutor(0)
 		);
 	}
 
@@ -102,20 +104,16 @@ class IsikBerichtBundleToISiKDokumentenMetadatenMapperTest {
 		doNothing().when(typeMapper).mapKdlAndXdsCodings(any(Composition.class), any(DocumentReference.class), any(OperationOutcome.class));
 
 		Reference patientRef = new Reference("Patient/Real123");
-		when(subjectMapper.mapSubject(eq(composition), any(OperationOutcome.class), eq(requestDetails)))
+		when(subjectMapper.mapSubject(eq(composition), any(OperationOutcome.class), any(RequestDetails.class)))
 				.thenReturn(patientRef);
 
-		when(relatesToMapper.mapRelatesToComponents(composition, requestDetails))
+		when(relatesToMapper.mapRelatesToComponents(eq(composition), any(RequestDetails.class)))
 				.thenReturn(Collections.emptyList());
 
-		DocumentReferenceContentComponent dummyContent = new DocumentReferenceContentComponent();
-		when(contentMapper.mapContentComponent(eq(composition), any(EncodingEnum.class), eq(createdBundleId)))
-				.thenReturn(dummyContent);
-
-		doNothing().when(encounterMapper).mapEncounter(any(Composition.class), any(DocumentReference.DocumentReferenceContextComponent.class), eq(requestDetails));
+		doNothing().when(encounterMapper).mapEncounter(any(Composition.class), any(DocumentReference.DocumentReferenceContextComponent.class), any(RequestDetails.class));
 
 		DocumentReferenceMetadataReturnObject result =
-				mapper.mapCompositionToDocumentReference(composition, EncodingEnum.JSON, bundleIdentifier, createdBundleId, requestDetails);
+				mapper.mapCompositionToDocumentReference(composition, bundleIdentifier, requestDetails);
 
 		assertThat(result.getDocumentReference()).isNotNull();
 		assertThat(result.getOperationOutcome()).isNull();
@@ -123,7 +121,7 @@ class IsikBerichtBundleToISiKDokumentenMetadatenMapperTest {
 		DocumentReference docRef = result.getDocumentReference();
 		assertThat(docRef.getSubject().getReference()).isEqualTo("Patient/Real123");
 		assertThat(docRef.getIdentifier()).isNotEmpty();
-		assertThat(docRef.getContent()).containsExactly(dummyContent);
+		assertThat(docRef.getContent()).isEmpty();
 		assertThat(docRef.getContext()).isNotNull();
 	}
 
@@ -146,19 +144,14 @@ class IsikBerichtBundleToISiKDokumentenMetadatenMapperTest {
 					.setSeverity(OperationOutcome.IssueSeverity.ERROR)
 					.setDiagnostics("No Patient resource found in the Bundle for Composition.subject");
 			return null;
-		}).when(subjectMapper).mapSubject(eq(composition), any(OperationOutcome.class), eq(requestDetails));
+		}).when(subjectMapper).mapSubject(eq(composition), any(OperationOutcome.class), any(RequestDetails.class));
 
-		when(relatesToMapper.mapRelatesToComponents(composition, requestDetails))
+		when(relatesToMapper.mapRelatesToComponents(eq(composition), any(RequestDetails.class)))
 				.thenReturn(Collections.emptyList());
-		DocumentReferenceContentComponent dummyContent = new DocumentReferenceContentComponent();
-		when(contentMapper.mapContentComponent(eq(composition), any(EncodingEnum.class), eq(createdBundleId)))
-				.thenReturn(dummyContent);
-		doNothing().when(encounterMapper).mapEncounter(any(Composition.class), any(DocumentReference.DocumentReferenceContextComponent.class), eq(requestDetails));
-
-		EncodingEnum encoding = EncodingEnum.XML;
+		doNothing().when(encounterMapper).mapEncounter(any(Composition.class), any(DocumentReference.DocumentReferenceContextComponent.class), any(RequestDetails.class));
 
 		DocumentReferenceMetadataReturnObject result =
-				mapper.mapCompositionToDocumentReference(composition, encoding, bundleIdentifier, createdBundleId, requestDetails);
+				mapper.mapCompositionToDocumentReference(composition, bundleIdentifier, requestDetails);
 
 		assertThat(result.getDocumentReference()).isNull();
 		OperationOutcome outcome = result.getOperationOutcome();
@@ -166,4 +159,54 @@ class IsikBerichtBundleToISiKDokumentenMetadatenMapperTest {
 		assertThat(OperationOutcomeUtils.hasErrorIssue(outcome)).isTrue();
 		assertThat(outcome.getIssue().get(0).getDiagnostics()).contains("No Patient resource found in the Bundle for Composition.subject");
 	}
+
+	@Test
+	void testMapCompositionToDocumentReference_LookupsRunInParallel() {
+		String body = loadResourceAsString("fhir-examples/valid/valid-generate-metadata-bundle.json");
+		Bundle bundle = (Bundle) fhirContext.newJsonParser().parseResource(body);
+		Composition composition = bundle.getEntry().stream()
+				.filter(entry -> entry.getResource() instanceof Composition)
+				.map(entry -> (Composition) entry.getResource())
+				.findFirst()
+				.orElseThrow(() -> new AssertionError("No Composition resource found in bundle"));
+
+		// Every lookup waits for the other two, so the mapping only finishes if all three run at the same time
+		CountDownLatch allStarted = new CountDownLatch(3);
+		Set<RequestDetails> lookupRequestDetails = ConcurrentHashMap.newKeySet();
+		Answer<Object> awaitOthers = invocation -> {
+			lookupRequestDetails.add(invocation.getArgument(invocation.getArguments().length - 1));
+			allStarted.countDown();
+			assertThat(allStarted.await(10, TimeUnit.SECONDS)).isTrue();
+			return null;
+		};
+		doAnswer(invocation -> {
+			awaitOthers.answer(invocation);
+			return new Reference("Patient/Real123");
+		}).when(subjectMapper).mapSubject(eq(composition), any(OperationOutcome.class), any(RequestDetails.class));
+		doAnswer(invocation -> {
+			awaitOthers.answer(invocation);
+			return Collections.emptyList();
+		}).when(relatesToMapper).mapRelatesToComponents(eq(composition), any(RequestDetails.class));
+		doAnswer(awaitOthers).when(encounterMapper).mapEncounter(
+				any(Composition.class), any(DocumentReference.DocumentReferenceContextComponent.class), any(RequestDetails.class));
+
+		MetadataLookupExecutor lookupExecutor = new MetadataLookupExecutor(3);
+		try {
+			IsikBerichtBundleToISiKDokumentenMetadatenMapper parallelMapper = new IsikBerichtBundleToISiKDokumentenMetadatenMapper(
+					typeMapper, subjectMapper, relatesToMapper, encounterMapper, lookupExecutor);
+
+			DocumentReferenceMetadataReturnObject result =
+					parallelMapper.mapCompositionToDocumentReference(composition, bundleIdentifier, requestDetails);
+
+			assertThat(result.isOperationSuccessful()).isTrue();
+			assertThat(result.getDocumentReference().getSubject().getReference()).isEqualTo("Patient/Real123");
+			// the lookups do not share the request details with each other or with the incoming request
+			assertThat(lookupRequestDetails)
+					.hasSize(3)
+					.doesNotContain(requestDetails)
+					.allMatch(SystemRequestDetails.class::isInstance);
+		} finally {
+			lookupExecutor.shutdown();
+		}
+	}
 }
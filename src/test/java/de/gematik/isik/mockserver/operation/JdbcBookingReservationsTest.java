@@ -0,0 +1,86 @@
+package de.gematik.isik.mockserver.operation;
+
+/*-
+ * #%L
+ * isik-mock-server
+ * %%
+ * Copyright (C) 2025 - 2026 gematik GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ * #L%
+ */
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JdbcBookingReservationsTest {
+
+	private JdbcTemplate jdbcTemplate;
+	private JdbcBookingReservations node1;
+	private JdbcBookingReservations node2;
+
+	@BeforeEach
+	void setUp() {
+		JdbcDataSource dataSource = new JdbcDataSource();
+		dataSource.setURL("jdbc:h2:mem:booking-reservations;DB_CLOSE_DELAY=-1");
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		node1 = new JdbcBookingReservations(jdbcTemplate, Duration.ofSeconds(30));
+		node2 = new JdbcBookingReservations(jdbcTemplate, Duration.ofSeconds(30));
+		node1.init();
+		node2.init();
+	}
+
+	@AfterEach
+	void tearDown() {
+		jdbcTemplate.execute("DROP TABLE " + JdbcBookingReservations.TABLE);
+	}
+
+	@Test
+	void testReservationIsExclusiveAcrossNodes() {
+		String token = node1.tryReserve("Schedule/1");
+
+		assertThat(token).isNotNull();
+		assertThat(node2.tryReserve("Schedule/1")).isNull();
+		assertThat(node2.tryReserve("Schedule/2")).isNotNull();
+
+		node2.release("Schedule/1", "other-token");
+		assertThat(node2.tryReserve("Schedule/1")).isNull();
+
+		node1.release("Schedule/1", token);
+		assertThat(node2.tryReserve("Schedule/1")).isNotNull();
+	}
+
+	@Test
+	void testExpiredReservationIsTakenOver() {
+		String token = node1.tryReserve("Schedule/1");
+		jdbcTemplate.update("UPDATE " + JdbcBookingReservations.TABLE + " SET RESERVED_UNTIL = 0");
+
+		String takenOver = node2.tryReserve("Schedule/1");
+
+		assertThat(takenOver).isNotNull().isNotEqualTo(token);
+		node1.release("Schedule/1", token);
+		assertThat(node1.tryReserve("Schedule/1")).isNull();
+	}
+}
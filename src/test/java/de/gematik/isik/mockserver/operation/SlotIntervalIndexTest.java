@@ -0,0 +1,222 @@
+package de.gematik.isik.mockserver.operation;
+
+/*-
+ * #%L
+ * isik-mock-server
+ * %%
+ * Copyright (C) 2025 - 2026 gematik GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ * #L%
+ */
+
+import ca.uhn.fhir.interceptor.api.IInterceptorService;
+import ca.uhn.fhir.jpa.api.dao.DaoRegistry;
+import ca.uhn.fhir.jpa.api.dao.IFhirResourceDao;
+import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
+import ca.uhn.fhir.rest.api.server.RequestDetails;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.hl7.fhir.r4.model.Reference;
+import org.hl7.fhir.r4.model.Slot;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SlotIntervalIndexTest {
+
+	private static final String SCHEDULE = "Schedule/1";
+	private static final long MINUTE = 60_000;
+
+	private IFhirResourceDao<Slot> slotDao;
+	private RequestDetails requestDetails;
+	private SimpleMeterRegistry meterRegistry;
+	private SlotIntervalIndex index;
+	private final List<IBaseResource> storedSlots = new ArrayList<>();
+
+	@BeforeEach
+	@SuppressWarnings("unchecked")
+	void setUp() {
+		DaoRegistry daoRegistry = mock(DaoRegistry.class);
+		slotDao = mock(IFhirResourceDao.class);
+		requestDetails = mock(RequestDetails.class);
+		meterRegistry = new SimpleMeterRegistry();
+		when(daoRegistry.getResourceDao(Slot.class)).thenReturn(slotDao);
+		when(slotDao.search(any(SearchParameterMap.class), any(RequestDetails.class)))
+				.thenAnswer(invocation -> SimpleBundleProvider.createBundleProvider(List.copyOf(storedSlots)));
+		index = new SlotIntervalIndex(
+				daoRegistry, mock(IInterceptorService.class), true, Duration.ofMinutes(5), 1000, meterRegistry);
+	}
+
+	@Test
+	void testOverlappingSlotsAreFoundByStatus() {
+		storedSlots.add(slot("before", 0, 9_999, Slot.SlotStatus.BUSY));
+		storedSlots.add(slot("touchesStart", 5_000, 10_000, Slot.SlotStatus.BUSY));
+		storedSlots.add(slot("inside", 12_000, 14_000, Slot.SlotStatus.BUSY));
+		storedSlots.add(slot("long", 0, 100_000, Slot.SlotStatus.BUSY));
+		storedSlots.add(slot("free", 15_000, 25_000, Slot.SlotStatus.FREE));
+		storedSlots.add(slot("atEnd", 20_000, 30_000, Slot.SlotStatus.BUSY));
+
+		assertThat(find(10_000, 20_000, Slot.SlotStatus.BUSY)).containsExactlyInAnyOrder("touchesStart", "inside", "long");
+		assertThat(find(10_000, 20_000, Slot.SlotStatus.FREE)).containsExactly("free");
+		assertThat(find(200_000, 300_000, Slot.SlotStatus.BUSY)).isEmpty();
+		verify(slotDao, times(1)).search(any(SearchParameterMap.class), any(RequestDetails.class));
+		assertThat(counter("load")).isEqualTo(1);
+		assertThat(counter("hit")).isEqualTo(2);
+	}
+
+	@Test
+	void testIndexIsKeptCurrentByStorageHooks() {
+		Slot free = slot("slot1", 10_000, 20_000, Slot.SlotStatus.FREE);
+		storedSlots.add(free);
+		assertThat(find(10_000, 20_000, Slot.SlotStatus.FREE)).containsExactly("slot1");
+
+		Slot busy = slot("slot1", 10_000, 20_000, Slot.SlotStatus.BUSY);
+		index.slotUpdated(free, busy);
+		index.slotCreated(slot("slot2", 12_000, 13_000, Slot.SlotStatus.BUSY));
+		index.slotCreated(slot("other", 12_000, 13_000, Slot.SlotStatus.BUSY, "Schedule/2"));
+
+		assertThat(find(10_000, 20_000, Slot.SlotStatus.FREE)).isEmpty();
+		assertThat(find(10_000, 20_000, Slot.SlotStatus.BUSY)).containsExactlyInAnyOrder("slot1", "slot2");
+
+		index.slotDeleted(busy);
+		assertThat(find(10_000, 20_000, Slot.SlotStatus.BUSY)).containsExactly("slot2");
+		verify(slotDao, times(1)).search(any(SearchParameterMap.class), any(RequestDetails.class));
+	}
+
+	@Test
+	void testInvalidatedScheduleIsReloaded() {
+		storedSlots.add(slot("slot1", 10_000, 20_000, Slot.SlotStatus.BUSY));
+		assertThat(find(10_000, 20_000, Slot.SlotStatus.BUSY)).containsExactly("slot1");
+
+		storedSlots.clear();
+		index.invalidate(SCHEDULE);
+
+		assertThat(find(10_000, 20_000, Slot.SlotStatus.BUSY)).isEmpty();
+		assertThat(counter("stale")).isEqualTo(1);
+		assertThat(counter("load")).isEqualTo(2);
+	}
+
+	@Test
+	void testLeastRecentlyQueriedScheduleIsDroppedIfMaxSchedulesIsReached() {
+		DaoRegistry daoRegistry = mock(DaoRegistry.class);
+		when(daoRegistry.getResourceDao(Slot.class)).thenReturn(slotDao);
+		index = new SlotIntervalIndex(
+				daoRegistry, mock(IInterceptorService.class), true, Duration.ofMinutes(5), 2, meterRegistry);
+
+		query("Schedule/1");
+		query("Schedule/2");
+		query("Schedule/1");
+		query("Schedule/3");
+		query("Schedule/1");
+		query("Schedule/2");
+
+		// Schedule/2 was dropped for Schedule/3 and loaded again
+		assertThat(counter("load")).isEqualTo(4);
+		assertThat(counter("hit")).isEqualTo(2);
+	}
+
+	@Test
+	void testDisabledIndexIsNotUsed() {
+		index = new SlotIntervalIndex(
+				mock(DaoRegistry.class), mock(IInterceptorService.class), false, Duration.ofMinutes(5), 1000, meterRegistry);
+
+		assertThat(index.findOverlappingSlotIds(
+						SCHEDULE, new Date(0), new Date(1), Slot.SlotStatus.BUSY, requestDetails))
+				.isEmpty();
+	}
+
+	@Test
+	void testFreeWindowsFollowSlotChanges() {
+		storedSlots.add(slot("free", 0, 60 * MINUTE, Slot.SlotStatus.FREE));
+		Slot busy = slot("busy", 20 * MINUTE, 30 * MINUTE, Slot.SlotStatus.BUSY);
+		storedSlots.add(busy);
+
+		assertThat(findFreeWindows(0, 60 * MINUTE, 15)).containsExactly(0L, 30 * MINUTE, 45 * MINUTE);
+
+		index.slotDeleted(busy);
+		assertThat(findFreeWindows(0, 60 * MINUTE, 15)).containsExactly(0L, 15 * MINUTE, 30 * MINUTE, 45 * MINUTE);
+		assertThat(findFreeWindows(10 * MINUTE, 60 * MINUTE, 30)).containsExactly(10 * MINUTE);
+		verify(slotDao, times(1)).search(any(SearchParameterMap.class), any(RequestDetails.class));
+	}
+
+	@Test
+	void testFreeWindowsWithoutIndexAreFoundInStoredSlots() {
+		DaoRegistry daoRegistry = mock(DaoRegistry.class);
+		when(daoRegistry.getResourceDao(Slot.class)).thenReturn(slotDao);
+		index = new SlotIntervalIndex(
+				daoRegistry, mock(IInterceptorService.class), false, Duration.ofMinutes(5), 1000, meterRegistry);
+		storedSlots.add(slot("free", 0, 60 * MINUTE, Slot.SlotStatus.FREE));
+
+		assertThat(findFreeWindows(0, 60 * MINUTE, 60)).containsExactly(0L);
+		assertThat(findFreeWindows(0, 60 * MINUTE, 60)).containsExactly(0L);
+		verify(slotDao, times(2)).search(any(SearchParameterMap.class), any(RequestDetails.class));
+	}
+
+	private List<Long> findFreeWindows(long start, long end, int durationMinutes) {
+		return index
+				.findFreeWindows(
+						SCHEDULE,
+						new Date(start),
+						new Date(end),
+						Duration.ofMinutes(durationMinutes),
+						10,
+						requestDetails)
+				.stream()
+				.map(Date::getTime)
+				.toList();
+	}
+
+	private List<String> find(long start, long end, Slot.SlotStatus status) {
+		return index.findOverlappingSlotIds(SCHEDULE, new Date(start), new Date(end), status, requestDetails)
+				.orElseThrow();
+	}
+
+	private void query(String schedule) {
+		index.findOverlappingSlotIds(schedule, new Date(0), new Date(1), Slot.SlotStatus.BUSY, requestDetails);
+	}
+
+	private double counter(String result) {
+		return meterRegistry.get("isik.slot.index.requests").tag("result", result).counter().count();
+	}
+
+	private static Slot slot(String id, long start, long end, Slot.SlotStatus status) {
+		return slot(id, start, end, status, SCHEDULE);
+	}
+
+	private static Slot slot(String id, long start, long end, Slot.SlotStatus status, String schedule) {
+		Slot slot = new Slot();
+		slot.setId("Slot/" + id);
+		slot.setSchedule(new Reference(schedule));
+		slot.setStart(new Date(start));
+		slot.setEnd(new Date(end));
+		slot.setStatus(status);
+		return slot;
+	}
+}
@@ -25,12 +25,23 @@ package de.gematik.isik.mockserver.refv;
  * #L%
  */
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import de.gematik.refv.Plugin;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
@@ -41,7 +52,7 @@ class PluginLoaderTest {
 
 	@BeforeEach
 	public void setUp() {
-		pluginLoader = new PluginLoader("plugins", true);
+		pluginLoader = createPluginLoader("plugins", "", "");
 		pluginLoader.init();
 	}
 
@@ -68,11 +79,90 @@ class PluginLoaderTest {
 
 	@Test
 	void testInit_WhenNoPluginsFound_PluginsListShouldBeEmpty() {
-		pluginLoader = new PluginLoader("resources/conformance", true);
+		pluginLoader = createPluginLoader("resources/conformance", "", "");
 		pluginLoader.init();
 		assertThat(pluginLoader.getPlugins()).isEmpty();
 	}
 
+	@Test
+	void testInit_WithCacheDirectory_ShouldReuseCachedArchives(@TempDir Path cacheDirectory) throws IOException {
+		pluginLoader = createPluginLoader("plugins", cacheDirectory.toString(), "");
+		pluginLoader.init();
+		String fingerprint = pluginLoader.getFingerprint();
+
+		List<Path> cachedFiles;
+		try (Stream<Path> files = Files.list(cacheDirectory)) {
+			cachedFiles = files.toList();
+		}
+		assertThat(cachedFiles).hasSize(6).allMatch(file -> file.toString().endsWith(".zip"));
+		FileTime lastModified = Files.getLastModifiedTime(cachedFiles.getFirst());
+
+		PluginLoader restartedPluginLoader = createPluginLoader("plugins", cacheDirectory.toString(), "");
+		restartedPluginLoader.init();
+
+		assertThat(restartedPluginLoader.getPlugins()).hasSize(6);
+		assertThat(restartedPluginLoader.getFingerprint()).isEqualTo(fingerprint);
+		assertThat(Files.getLastModifiedTime(cachedFiles.getFirst())).isEqualTo(lastModified);
+	}
+
+	@Test
+	void testInit_WithSharedCacheDirectory_ShouldKeepArchivesOfOtherInstances(@TempDir Path cacheDirectory)
+			throws IOException {
+		Path foreignArchive = Files.writeString(
+				cacheDirectory.resolve("isik3-medikation-1.1.0-" + "0".repeat(64) + ".zip"), "other replica");
+
+		pluginLoader = createPluginLoader("plugins", cacheDirectory.toString(), "");
+		pluginLoader.init();
+
+		assertThat(pluginLoader.getPlugins()).hasSize(6);
+		assertThat(foreignArchive).exists().hasContent("other replica");
+	}
+
+
+	@Test
+	void testInit_WithReloadDirectory_ShouldReplaceBundledPlugin(
+			@TempDir Path reloadDirectory, @TempDir Path cacheDirectory) throws IOException {
+		copyBundledPlugin("isik3-medikation-1.1.0.zip", reloadDirectory);
+
+		pluginLoader = createPluginLoader("plugins", cacheDirectory.toString(), reloadDirectory.toString());
+		pluginLoader.init();
+
+		// The bundled archives and the archive of the reload directory are read, the latter replaces the
+		// bundled plugin with the same id instead of being rejected as duplicate
+		try (Stream<Path> files = Files.list(cacheDirectory)) {
+			assertThat(files.toList()).hasSize(7);
+		}
+		assertThat(pluginLoader.getPlugins()).hasSize(6).containsKey("isik3-medikation");
+		assertThat(pluginLoader.getIndex().getRoute("Medication").pluginIds()).contains("isik3-medikation");
+	}
+
+	@Test
+	void testReadPlugins_ShouldOnlyReadReloadDirectoryAndKeepUnchangedPlugins(@TempDir Path reloadDirectory)
+			throws IOException {
+		copyBundledPlugin("isik3-medikation-1.1.0.zip", reloadDirectory);
+		pluginLoader = createPluginLoader("plugins", "", reloadDirectory.toString());
+		pluginLoader.init();
+		PluginLoader.LoadedPlugins current = pluginLoader.getLoadedPlugins();
+
+		PluginLoader.LoadedPlugins readPlugins = pluginLoader.readPlugins();
+
+		assertThat(readPlugins.plugins()).hasSize(6);
+		assertThat(readPlugins.checksums()).isEqualTo(current.checksums());
+		assertThat(readPlugins.plugins().get("isik3-medikation")).isSameAs(current.plugins().get("isik3-medikation"));
+		assertThat(readPlugins.plugins().get("isik5")).isSameAs(current.plugins().get("isik5"));
+	}
+
+	@Test
+	void testPublish_ShouldReplacePluginsAndIndexTogether() {
+		PluginLoader.LoadedPlugins current = pluginLoader.getLoadedPlugins();
+		PluginRoutingIndex index = PluginRoutingIndex.build(Map.of("Patient", List.of("isik5")), Map.of(), Map.of());
+
+		PluginLoader.LoadedPlugins replaced = pluginLoader.publish(pluginLoader.readPlugins().withIndex(index));
+
+		assertThat(replaced).isSameAs(current);
+		assertThat(pluginLoader.getIndex()).isSameAs(index);
+		assertThat(pluginLoader.getFingerprint()).isEqualTo(current.fingerprint());
+	}
 
 	@Test
 	void testGetPlugin_WhenPluginDoesNotExist_ShouldThrowException() {
@@ -80,4 +170,24 @@ class PluginLoaderTest {
 			.isInstanceOf(IllegalArgumentException.class)
 			.hasMessageContaining("Validation module [nonexistent] unsupported");
 	}
+
+	private static PluginLoader createPluginLoader(String pluginPath, String cacheDirectory, String reloadDirectory) {
+		return new PluginLoader(
+				pluginPath,
+				true,
+				cacheDirectory,
+				reloadDirectory,
+				new PluginMappingLoader(
+						"resourcetype2pluginid.json",
+						"resourcetype2profileurl.json",
+						"profileurl2pluginid.json",
+						new ObjectMapper()));
+	}
+
+	private static void copyBundledPlugin(String fileName, Path directory) throws IOException {
+		try (InputStream plugin = PluginLoaderTest.class.getClassLoader().getResourceAsStream("plugins/" + fileName)) {
+			assertThat(plugin).isNotNull();
+			Files.copy(plugin, directory.resolve(fileName));
+		}
+	}
 }
@@ -30,9 +30,12 @@ import lombok.SneakyThrows;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.InjectMocks;
 import org.mockito.MockitoAnnotations;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
 
@@ -79,11 +82,23 @@ class PluginMappingLoaderTest {
 
 	@Test
 	@SneakyThrows
-	void testLoadData() {
-		pluginMappingLoader.loadData();
+	void testReadMappings() {
+		PluginMappingLoader.PluginMappings mappings = pluginMappingLoader.readMappings(null);
 
-		assertThat(pluginMappingLoader.getResourceTypeToPluginIdMap()).isEqualTo(mockResourceTypeToPluginIdMap);
-		assertThat(pluginMappingLoader.getResourceTypeToProfileUrlMap()).isEqualTo(mockResourceTypeToProfileUrlMap);
-		assertThat(pluginMappingLoader.getProfileUrlToPluginIdMap()).isEqualTo(mockProfileUrlToPluginIdMap);
+		assertThat(mappings.resourceTypeToPluginIdMap()).isEqualTo(mockResourceTypeToPluginIdMap);
+		assertThat(mappings.resourceTypeToProfileUrlMap()).isEqualTo(mockResourceTypeToProfileUrlMap);
+		assertThat(mappings.profileUrlToPluginIdMap()).isEqualTo(mockProfileUrlToPluginIdMap);
+	}
+
+	@Test
+	@SneakyThrows
+	void testReadMappings_ShouldPreferMappingFromDirectory(@TempDir Path directory) {
+		Files.writeString(
+				directory.resolve("mockResourceTypeToPluginId.json"), "{\"ResourceTypeB\": [\"PluginId3\"]}");
+
+		PluginMappingLoader.PluginMappings mappings = pluginMappingLoader.readMappings(directory);
+
+		assertThat(mappings.resourceTypeToPluginIdMap()).isEqualTo(Map.of("ResourceTypeB", List.of("PluginId3")));
+		assertThat(mappings.resourceTypeToProfileUrlMap()).isEqualTo(mockResourceTypeToProfileUrlMap);
 	}
 }
@@ -45,7 +45,7 @@ class PluginMappingResolverTest {
 	private PluginMappingResolver pluginMappingResolver;
 
 	@Mock
-	private PluginMappingLoader pluginMappingLoader;
+	private PluginLoader pluginLoader;
 
 	private AutoCloseable mocks;
 
@@ -67,9 +67,8 @@ class PluginMappingResolverTest {
 	void setUp() {
 		mocks = MockitoAnnotations.openMocks(this);
 
-		when(pluginMappingLoader.getResourceTypeToPluginIdMap()).thenReturn(mockResourceTypeToPluginIdMap);
-		when(pluginMappingLoader.getResourceTypeToProfileUrlMap()).thenReturn(mockResourceTypeToProfileUrlMap);
-		when(pluginMappingLoader.getProfileUrlToPluginIdMap()).thenReturn(mockProfileUrlToPluginIdMap);
+		when(pluginLoader.getIndex()).thenReturn(PluginRoutingIndex.build(
+				mockResourceTypeToPluginIdMap, mockResourceTypeToProfileUrlMap, mockProfileUrlToPluginIdMap));
 	}
 
 	@AfterEach
@@ -115,4 +114,13 @@ class PluginMappingResolverTest {
 		String pluginIdForUnknownProfileUrl = pluginMappingResolver.getPluginIdFromProfile("UnknownProfileUrl");
 		assertThat(pluginIdForUnknownProfileUrl).isNull();
 	}
+
+	@Test
+	void testUsesIndexOfPublishedPlugins() {
+		assertThat(pluginMappingResolver.getPluginIdsFromResourceType("ResourceTypeB")).containsExactly("PluginId3");
+
+		when(pluginLoader.getIndex()).thenReturn(PluginRoutingIndex.build(
+				Map.of("ResourceTypeB", List.of("PluginId4")), Map.of(), Map.of()));
+		assertThat(pluginMappingResolver.getPluginIdsFromResourceType("ResourceTypeB")).containsExactly("PluginId4");
+	}
 }
@@ -0,0 +1,153 @@
+package de.gematik.isik.mockserver.refv;
+
+/*-
+ * #%L
+ * isik-mock-server
+ * %%
+ * Copyright (C) 2025 - 2026 gematik GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ * #L%
+ */
+
+import de.gematik.isik.mockserver.interceptor.ValidationModuleCache;
+import de.gematik.isik.mockserver.interceptor.ValidationModulePool;
+import de.gematik.isik.mockserver.interceptor.ValidationModuleWarmup;
+import de.gematik.isik.mockserver.refv.PluginLoader.LoadedPlugins;
+import de.gematik.refv.Plugin;
+import de.gematik.refv.commons.exceptions.ValidationModuleInitializationException;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PluginReloadServiceTest {
+
+	private static final Path RELOAD_DIRECTORY = Path.of("plugins-reload");
+
+	private PluginLoader pluginLoader;
+	private PluginMappingLoader pluginMappingLoader;
+	private ValidationModuleCache validationModuleCache;
+	private ValidationModuleWarmup validationModuleWarmup;
+	private PluginReloadService pluginReloadService;
+
+	private final Plugin currentTerminplanung = mock(Plugin.class);
+	private final Plugin vitalparameter = mock(Plugin.class);
+	private final Plugin terminplanung = mock(Plugin.class);
+	private final Plugin isik5 = mock(Plugin.class);
+	private final LoadedPlugins currentPlugins = LoadedPlugins.of(
+			Map.of("isik3-terminplanung", currentTerminplanung, "isik5", isik5, "isik3-vitalparameter", vitalparameter),
+			Map.of("isik3-terminplanung", 1L, "isik5", 1L, "isik3-vitalparameter", 3L),
+			Map.of(),
+			PluginRoutingIndex.build(Map.of(), Map.of(), Map.of()));
+	private final LoadedPlugins loadedPlugins = LoadedPlugins.of(
+			Map.of("isik3-terminplanung", terminplanung, "isik5", isik5),
+			Map.of("isik3-terminplanung", 2L, "isik5", 1L),
+			Map.of(),
+			null);
+
+	@BeforeEach
+	@SneakyThrows
+	void setUp() {
+		pluginLoader = mock(PluginLoader.class);
+		pluginMappingLoader = mock(PluginMappingLoader.class);
+		validationModuleCache = mock(ValidationModuleCache.class);
+		validationModuleWarmup = mock(ValidationModuleWarmup.class);
+		pluginReloadService = new PluginReloadService(
+				pluginLoader, pluginMappingLoader, validationModuleCache, validationModuleWarmup);
+
+		when(pluginLoader.isEnabled()).thenReturn(true);
+		when(pluginLoader.getReloadDirectory()).thenReturn(RELOAD_DIRECTORY);
+		when(pluginLoader.getLoadedPlugins()).thenReturn(currentPlugins);
+		when(pluginLoader.readPlugins()).thenReturn(loadedPlugins);
+		when(pluginLoader.publish(any())).thenReturn(currentPlugins);
+		when(pluginMappingLoader.readMappings(RELOAD_DIRECTORY))
+				.thenReturn(new PluginMappingLoader.PluginMappings(
+						Map.of("Appointment", List.of("isik3-terminplanung")), Map.of(), Map.of()));
+	}
+
+	@Test
+	@SneakyThrows
+	void shouldPublishWarmedUpModulesAndIndexInOneSwap() {
+		ValidationModulePool newPool = mock(ValidationModulePool.class);
+		when(validationModuleCache.contains(currentTerminplanung)).thenReturn(true);
+		when(validationModuleCache.createPool(terminplanung)).thenReturn(newPool);
+
+		pluginReloadService.reload();
+
+		InOrder inOrder = inOrder(validationModuleWarmup, validationModuleCache, pluginLoader, newPool);
+		inOrder.verify(validationModuleWarmup).warmupPool(newPool);
+		inOrder.verify(validationModuleCache).add(terminplanung, newPool);
+		ArgumentCaptor<LoadedPlugins> published = ArgumentCaptor.forClass(LoadedPlugins.class);
+		inOrder.verify(pluginLoader).publish(published.capture());
+		inOrder.verify(validationModuleCache).remove(currentTerminplanung);
+		inOrder.verify(newPool).registerGauges();
+		inOrder.verify(pluginLoader).closeUnusedArchives(currentPlugins);
+
+		assertThat(published.getValue().plugins()).isEqualTo(loadedPlugins.plugins());
+		assertThat(published.getValue().index().getRoute("Appointment").pluginIds())
+				.containsExactly("isik3-terminplanung");
+		verify(validationModuleCache).remove(vitalparameter);
+		verify(validationModuleCache, never()).remove(isik5);
+		verify(validationModuleCache, never()).createPool(isik5);
+		assertThat(pluginReloadService.getStatus().state()).isEqualTo(PluginReloadService.State.SUCCEEDED);
+		assertThat(pluginReloadService.getStatus().changed()).containsExactly("isik3-terminplanung");
+		assertThat(pluginReloadService.getStatus().removed()).containsExactly("isik3-vitalparameter");
+	}
+
+	@Test
+	@SneakyThrows
+	void shouldKeepCurrentModulesIfWarmupFails() {
+		ValidationModulePool newPool = mock(ValidationModulePool.class);
+		when(validationModuleCache.contains(currentTerminplanung)).thenReturn(true);
+		when(validationModuleCache.createPool(terminplanung)).thenReturn(newPool);
+		doThrow(mock(ValidationModuleInitializationException.class))
+				.when(validationModuleWarmup)
+				.warmupPool(newPool);
+
+		pluginReloadService.reload();
+
+		verify(newPool).close();
+		verify(validationModuleCache, never()).add(any(), any());
+		verify(validationModuleCache, never()).remove(currentTerminplanung);
+		verify(pluginLoader, never()).publish(any());
+		verify(pluginLoader).closeUnusedArchives(loadedPlugins);
+		assertThat(pluginReloadService.getStatus().state()).isEqualTo(PluginReloadService.State.FAILED);
+	}
+
+	@Test
+	void shouldNotStartReloadIfPluginsAreDisabled() {
+		when(pluginLoader.isEnabled()).thenReturn(false);
+
+		assertThat(pluginReloadService.startReload()).isFalse();
+	}
+}
@@ -0,0 +1,79 @@
+package de.gematik.isik.mockserver.refv;
+
+/*-
+ * #%L
+ * isik-mock-server
+ * %%
+ * Copyright (C) 2025 - 2026 gematik GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ * #L%
+ */
+
+import de.gematik.isik.mockserver.refv.PluginRoutingIndex.ResourceTypeRoute;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PluginRoutingIndexTest {
+
+	private static final String ISIK5_PATIENT = "https://gematik.de/fhir/isik/StructureDefinition/ISiKPatient";
+	private static final String ISIK3_PATIENT =
+			"https://gematik.de/fhir/isik/v3/Basismodul/StructureDefinition/ISiKPatient";
+
+	private final PluginRoutingIndex index = PluginRoutingIndex.build(
+			Map.of("Patient", List.of("isik5", "isik3-basismodul"), "Location", List.of("isik5")),
+			Map.of("Patient", List.of(ISIK5_PATIENT, ISIK3_PATIENT)),
+			Map.of("isik5", List.of(ISIK5_PATIENT), "isik3-basismodul", List.of(ISIK3_PATIENT)));
+
+	@Test
+	void shouldSplitProfilesIntoIsik5AndLegacy() {
+		ResourceTypeRoute route = index.getRoute("Patient");
+
+		assertThat(route.pluginIds()).containsExactly("isik5", "isik3-basismodul");
+		assertThat(route.profileUrls()).containsExactly(ISIK5_PATIENT, ISIK3_PATIENT);
+		assertThat(route.isik5ProfileUrls()).containsExactly(ISIK5_PATIENT);
+		assertThat(route.legacyProfileUrls()).containsExactly(ISIK3_PATIENT);
+		assertThat(route.getLegacyProfileUrls("isik3-basismodul")).containsExactly(ISIK3_PATIENT);
+		assertThat(route.getLegacyProfileUrls("isik5")).isEmpty();
+	}
+
+	@Test
+	void shouldRouteResourceTypeWithoutProfiles() {
+		ResourceTypeRoute route = index.getRoute("Location");
+
+		assertThat(route.pluginIds()).containsExactly("isik5");
+		assertThat(route.profileUrls()).isEmpty();
+	}
+
+	@Test
+	void shouldReturnEmptyRouteForUnknownResourceType() {
+		assertThat(index.getRoute("Unknown")).isEqualTo(ResourceTypeRoute.EMPTY);
+		assertThat(index.getRoute(null)).isEqualTo(ResourceTypeRoute.EMPTY);
+	}
+
+	@Test
+	void shouldResolvePluginIdFromProfile() {
+		assertThat(index.getPluginId(ISIK5_PATIENT)).isEqualTo("isik5");
+		assertThat(index.getPluginId(ISIK3_PATIENT)).isEqualTo("isik3-basismodul");
+		assertThat(index.getPluginId("unknown")).isNull();
+	}
+}